@@ -0,0 +1,171 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * The orders that have been added or changed since an OrderDatastore was loaded, by order ID, which take the
+ * place of the datastore's own data for those order IDs. Also tracks which changed order each order item belongs
+ * to, so item lookups find the changed order too. OrderDatastore only accepts changes that leave every item in
+ * the order its own data puts it in, so no item is ever claimed by two orders.
+ *
+ * Changes are copy-on-write: every change stores a new OrderData, and OrderData can't be changed, so readers get
+ * the stored orders themselves and never lock. Changes to the same order ID are serialized by one of a fixed set
+ * of locks, picked by order ID, held outside the maps so a change's slower work (logging it, updating per-item
+ * tables) never blocks the maps' own bins; changes to different order IDs rarely contend at all.
+ */
+final class ChangedOrders {
+    private static final int LOCK_STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final ConcurrentMap<String, OrderData> ordersById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> orderIdsByItemId = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty set of changed orders.
+     */
+    ChangedOrders() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the changed order with the given ID.
+     *
+     * @param orderId the order ID to look up
+     * @return the order, or null if the order hasn't been changed
+     */
+    OrderData get(String orderId) {
+        return null == orderId ? null : ordersById.get(orderId);
+    }
+
+    boolean isEmpty() {
+        return ordersById.isEmpty();
+    }
+
+    /**
+     * Returns whether the given order item belongs to a changed order.
+     *
+     * @param customerOrderItemId the order item ID to look up
+     * @return true if a changed order includes the item
+     */
+    boolean containsOrderItem(String customerOrderItemId) {
+        return orderIdsByItemId.containsKey(customerOrderItemId);
+    }
+
+    /**
+     * Returns the changed order that includes the given order item, if any.
+     *
+     * @param customerOrderItemId the order item ID to look up
+     * @return the order, or null if the item doesn't belong to a changed order
+     */
+    OrderData findOrderForItem(String customerOrderItemId) {
+        String orderId = null == customerOrderItemId ? null : orderIdsByItemId.get(customerOrderItemId);
+        OrderData orderData = null == orderId ? null : ordersById.get(orderId);
+        // the item may have just moved to another order, in which case the caller finds it where it was before
+        if (null == orderData || !containsItem(orderData, customerOrderItemId)) {
+            return null;
+        }
+        return orderData;
+    }
+
+    /**
+     * Calls the given action with every changed order, then runs publish, all while every order is locked against
+     * changes as update locks it. Lets something built from the datastore's own data (a per-item table, the
+     * secondary indexes) catch up with the changes made so far and then be published where later changes update
+     * it, without a change slipping in between and being missed by both.
+     *
+     * @param action called with each changed order
+     * @param publish run once every changed order has been passed to action
+     */
+    void forEachOrder(Consumer<OrderData> action, Runnable publish) {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            for (OrderData orderData : ordersById.values()) {
+                action.accept(orderData);
+            }
+            publish.run();
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies a change to an order atomically: to the changed order with the given ID if there is one, otherwise
+     * to the datastore's own version of it. The change runs while the order is locked, so anything it does that
+     * must follow the order's earlier changes (logging, updating per-item tables) can go in it; the changed order
+     * is published only once it returns. If the change throws, the order is left as it was.
+     *
+     * @param orderId the ID of the order to change
+     * @param unchangedOrder returns the datastore's own version of the order, or null if it has none
+     * @param change returns a changed copy of the order it's given, or null if the change doesn't apply to it
+     * @return the changed order, or null if there was no order or the change didn't apply
+     */
+    OrderData update(String orderId, Supplier<OrderData> unchangedOrder, UnaryOperator<OrderData> change) {
+        ReentrantLock lock = lockFor(orderId);
+        lock.lock();
+        try {
+            OrderData current = ordersById.get(orderId);
+            OrderData orderData = null == current ? unchangedOrder.get() : current;
+            OrderData changed = null == orderData ? null : change.apply(orderData);
+            if (null == changed) {
+                return null;
+            }
+
+            ordersById.put(orderId, changed);
+            updateItemOrderIds(orderId, current, changed);
+            return changed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(String orderId) {
+        int hash = orderId.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    /*
+     * Points the new order's items at it, and stops pointing the old order's other items at it. Called
+     * while the order is locked, so changes to one order can't interleave here.
+     */
+    private void updateItemOrderIds(String orderId, OrderData previous, OrderData next) {
+        Set<String> nextItemIds = new HashSet<>();
+        for (OrderItemData orderItemData : next.getCustomerOrderItemList()) {
+            String customerOrderItemId = orderItemData.getCustomerOrderItemId();
+            if (customerOrderItemId != null) {
+                nextItemIds.add(customerOrderItemId);
+                orderIdsByItemId.put(customerOrderItemId, orderId);
+            }
+        }
+
+        if (previous != null) {
+            for (OrderItemData orderItemData : previous.getCustomerOrderItemList()) {
+                String customerOrderItemId = orderItemData.getCustomerOrderItemId();
+                if (customerOrderItemId != null && !nextItemIds.contains(customerOrderItemId)) {
+                    orderIdsByItemId.remove(customerOrderItemId, orderId);
+                }
+            }
+        }
+    }
+
+    private static boolean containsItem(OrderData orderData, String customerOrderItemId) {
+        for (OrderItemData orderItemData : orderData.getCustomerOrderItemList()) {
+            if (customerOrderItemId.equals(orderItemData.getCustomerOrderItemId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Gives each distinct value a small int code, so that a column of heavily repeated values (ASINs, warehouses, ship
+ * options) can be stored as an array of codes plus one copy of each distinct value.
+ *
+ * Safe to encode into from any number of threads. Decoding is only safe once encoding has finished and the
+ * dictionary has been safely published (for instance, by the ForkJoinPool task that filled it completing).
+ *
+ * @param <T> the type of value in the dictionary
+ */
+final class ColumnDictionary<T> {
+    /** Returned by codeOf for values that were never encoded. */
+    static final int NO_CODE = -1;
+
+    private final ConcurrentMap<T, Integer> codes = new ConcurrentHashMap<>();
+    private final List<T> values = new ArrayList<>();
+
+    /**
+     * Returns the code for the given value, assigning it the next free code if it hasn't been seen before.
+     *
+     * @param value the value to encode; not null
+     * @return the value's code
+     */
+    int encode(T value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+
+        // new values are rare, so a lock just for them keeps codes dense without slowing down the common case
+        synchronized (values) {
+            code = codes.get(value);
+            if (null == code) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Returns the code already assigned to the given value.
+     *
+     * @param value the value to look up
+     * @return the value's code, or NO_CODE if it was never encoded
+     */
+    int codeOf(T value) {
+        if (null == value) {
+            return NO_CODE;
+        }
+
+        Integer code = codes.get(value);
+        return null == code ? NO_CODE : code;
+    }
+
+    T decode(int code) {
+        return values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * Returns every value in the dictionary, in code order. Encoding them in this order into an empty dictionary
+     * gives each one the same code again.
+     *
+     * @return copy of the values, where the value at index i has code i
+     */
+    List<T> getValues() {
+        synchronized (values) {
+            return new ArrayList<>(values);
+        }
+    }
+}
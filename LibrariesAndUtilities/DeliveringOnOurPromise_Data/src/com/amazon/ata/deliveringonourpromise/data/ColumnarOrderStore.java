@@ -0,0 +1,333 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import com.amazon.ata.order.OrderId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OrderStore that keeps orders, items, shipments and shipment items as columns of primitives (one array per field)
+ * instead of as objects. IDs are stored as longs, dates as epoch seconds, and repetitive Strings (ASINs, titles,
+ * warehouses, ship options...) as dictionary codes. Each order's items and shipments are contiguous ranges of
+ * rows, found through offset arrays, as are each shipment's items. OrderData, OrderItemData and OrderShipmentData
+ * objects are only built when asked for.
+ *
+ * This takes a small fraction of the heap the same orders take as objects, and a bulk job can scan a field across
+ * every row without touching any of the others.
+ */
+final class ColumnarOrderStore implements PackedOrderStore {
+    private final int numOrders;
+
+    // orders
+    private final long[] orderIds;
+    private final IdColumn customerIds;
+    private final DictionaryColumn<String> marketplaceIds;
+    private final int[] orderConditions;
+    private final DictionaryColumn<String> orderShipOptions;
+    private final DateColumn orderDates;
+    // an order's items are rows firstItemRows[order] up to firstItemRows[order + 1], and likewise its shipments
+    private final int[] firstItemRows;
+    private final int[] firstShipmentRows;
+
+    // order items
+    private final IdColumn orderItemIds;
+    private final int[] itemOrderRows;
+    private final int[] itemQuantities;
+    private final DateColumn approvalDates;
+    private final IdColumn merchantIds;
+    private final DictionaryColumn<String> asins;
+    private final DictionaryColumn<String> titles;
+    private final DictionaryColumn<String> supplyCodes;
+    private final DateColumn supplyCodeDates;
+    private final boolean[] confidenceTracked;
+    private final int[] confidences;
+    private final int[] itemShipmentRows;
+
+    // shipments
+    private final IdColumn shipmentIds;
+    private final DictionaryColumn<String> zips;
+    private final DictionaryColumn<String> shipmentConditions;
+    private final DictionaryColumn<String> warehouseIds;
+    private final DateColumn shipDates;
+    private final DateColumn creationDates;
+    private final DictionaryColumn<String> shipmentShipOptions;
+    private final DateColumn deliveryDates;
+    private final boolean[] dpsPromiseActive;
+    private final boolean[] promisesAgree;
+    private final int[] firstShipmentItemRows;
+
+    // shipment items
+    private final IdColumn shipmentItemOrderItemIds;
+    private final int[] shipmentItemQuantities;
+
+    // lookup from order item ID to item row; null when the ID column is sorted and can be searched directly
+    private LongIntHashIndex itemRowsByKey;
+
+    /**
+     * Creates an empty store with room for exactly the given number of records.
+     *
+     * @param numOrders number of orders
+     * @param numItems total number of order items across all orders
+     * @param numShipments total number of shipments across all orders
+     * @param numShipmentItems total number of shipment items across all shipments
+     */
+    ColumnarOrderStore(int numOrders, int numItems, int numShipments, int numShipmentItems) {
+        this.numOrders = numOrders;
+
+        orderIds = new long[numOrders];
+        customerIds = new IdColumn(numOrders);
+        marketplaceIds = new DictionaryColumn<>(numOrders);
+        orderConditions = new int[numOrders];
+        orderShipOptions = new DictionaryColumn<>(numOrders);
+        orderDates = new DateColumn(numOrders);
+        firstItemRows = new int[numOrders + 1];
+        firstItemRows[numOrders] = numItems;
+        firstShipmentRows = new int[numOrders + 1];
+        firstShipmentRows[numOrders] = numShipments;
+
+        orderItemIds = new IdColumn(numItems);
+        itemOrderRows = new int[numItems];
+        itemQuantities = new int[numItems];
+        approvalDates = new DateColumn(numItems);
+        merchantIds = new IdColumn(numItems);
+        asins = new DictionaryColumn<>(numItems);
+        titles = new DictionaryColumn<>(numItems);
+        supplyCodes = new DictionaryColumn<>(numItems);
+        supplyCodeDates = new DateColumn(numItems);
+        confidenceTracked = new boolean[numItems];
+        confidences = new int[numItems];
+        itemShipmentRows = new int[numItems];
+
+        shipmentIds = new IdColumn(numShipments);
+        zips = new DictionaryColumn<>(numShipments);
+        shipmentConditions = new DictionaryColumn<>(numShipments);
+        warehouseIds = new DictionaryColumn<>(numShipments);
+        shipDates = new DateColumn(numShipments);
+        creationDates = new DateColumn(numShipments);
+        shipmentShipOptions = new DictionaryColumn<>(numShipments);
+        deliveryDates = new DateColumn(numShipments);
+        dpsPromiseActive = new boolean[numShipments];
+        promisesAgree = new boolean[numShipments];
+        firstShipmentItemRows = new int[numShipments + 1];
+        firstShipmentItemRows[numShipments] = numShipmentItems;
+
+        shipmentItemOrderItemIds = new IdColumn(numShipmentItems);
+        shipmentItemQuantities = new int[numShipmentItems];
+    }
+
+    /**
+     * Encodes the given orders into a new, finished store, in the order given.
+     *
+     * @param orderDatas the orders to store
+     * @return the finished store
+     */
+    static ColumnarOrderStore of(List<OrderData> orderDatas) {
+        return PackedOrderStore.pack(orderDatas, ColumnarOrderStore::new);
+    }
+
+    @Override
+    public void setOrder(int orderRow, int firstItemRow, int firstShipmentRow, int firstShipmentItemRow,
+                         OrderData orderData) {
+        long orderId = OrderId.parse(orderData.getOrderId());
+        if (OrderId.INVALID == orderId) {
+            throw new IllegalArgumentException(String.format(
+                "Cannot store order with malformed order ID '%s'", orderData.getOrderId()
+            ));
+        }
+
+        orderIds[orderRow] = orderId;
+        customerIds.set(orderRow, orderData.getCustomerId());
+        marketplaceIds.set(orderRow, orderData.getMarketplaceId());
+        orderConditions[orderRow] = orderData.getCondition();
+        orderShipOptions.set(orderRow, orderData.getShipOption());
+        orderDates.set(orderRow, orderData.getOrderDate());
+        firstItemRows[orderRow] = firstItemRow;
+        firstShipmentRows[orderRow] = firstShipmentRow;
+
+        int itemRow = firstItemRow;
+        for (OrderItemData orderItemData : orderData.getCustomerOrderItemList()) {
+            setOrderItem(itemRow, orderRow, orderItemData);
+            itemRow++;
+        }
+
+        int shipmentRow = firstShipmentRow;
+        int shipmentItemRow = firstShipmentItemRow;
+        for (OrderShipmentData shipment : orderData.getCustomerShipments()) {
+            setShipment(shipmentRow, shipment);
+            firstShipmentItemRows[shipmentRow] = shipmentItemRow;
+
+            for (OrderShipmentData.CustomerShipmentItemData shipmentItem : shipment.getCustomerShipmentItems()) {
+                shipmentItemOrderItemIds.set(shipmentItemRow, shipmentItem.getCustomerOrderItemId());
+                shipmentItemQuantities[shipmentItemRow] = shipmentItem.getQuantity();
+                shipmentItemRow++;
+
+                // an item in more than one shipment is found in the last one, as in OrderItemIndex
+                long orderItemKey = shipmentItemOrderItemIds.getKey(shipmentItemRow - 1);
+                for (int row = firstItemRow; row < itemRow; row++) {
+                    if (orderItemIds.getKey(row) == orderItemKey) {
+                        itemShipmentRows[row] = shipmentRow;
+                    }
+                }
+            }
+            shipmentRow++;
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (orderItemIds.isStrictlyAscending()) {
+            return;
+        }
+
+        // first item with an ID wins, as in OrderItemIndex
+        itemRowsByKey = new LongIntHashIndex(orderItemIds.size());
+        for (int row = 0; row < orderItemIds.size(); row++) {
+            long key = orderItemIds.getKey(row);
+            if (LongIntHashIndex.NO_VALUE == itemRowsByKey.get(key)) {
+                itemRowsByKey.put(key, row);
+            }
+        }
+    }
+
+    @Override
+    public int getNumOrders() {
+        return numOrders;
+    }
+
+    @Override
+    public OrderData getOrderData(int orderRow, String orderId) {
+        List<OrderItemData> orderItems = new ArrayList<>(firstItemRows[orderRow + 1] - firstItemRows[orderRow]);
+        for (int itemRow = firstItemRows[orderRow]; itemRow < firstItemRows[orderRow + 1]; itemRow++) {
+            orderItems.add(getOrderItemData(itemRow, orderId));
+        }
+
+        List<OrderShipmentData> shipments = new ArrayList<>(
+            firstShipmentRows[orderRow + 1] - firstShipmentRows[orderRow]
+        );
+        for (int shipmentRow = firstShipmentRows[orderRow];
+             shipmentRow < firstShipmentRows[orderRow + 1];
+             shipmentRow++) {
+            shipments.add(getShipment(shipmentRow));
+        }
+
+        return OrderData.builder()
+                   .withOrderId(orderId)
+                   .withCustomerId(customerIds.get(orderRow))
+                   .withMarketplaceId(marketplaceIds.get(orderRow))
+                   .withCondition(orderConditions[orderRow])
+                   .withShipOption(orderShipOptions.get(orderRow))
+                   .withOrderDate(orderDates.get(orderRow))
+                   .withCustomerOrderItemList(orderItems)
+                   .withCustomerShipments(shipments)
+                   .build();
+    }
+
+    @Override
+    public int findOrderItem(String customerOrderItemId) {
+        long key = orderItemIds.keyOf(customerOrderItemId);
+        if (IdColumn.NO_KEY == key) {
+            return NO_ROW;
+        }
+
+        if (null == itemRowsByKey) {
+            int row = orderItemIds.findRow(key);
+            return IdColumn.NO_ROW == row ? NO_ROW : row;
+        }
+
+        int row = itemRowsByKey.get(key);
+        return LongIntHashIndex.NO_VALUE == row ? NO_ROW : row;
+    }
+
+    @Override
+    public int getOrderRowForItem(int itemRow) {
+        return itemOrderRows[itemRow];
+    }
+
+    @Override
+    public OrderItemData getOrderItemData(int itemRow, String orderId) {
+        return OrderItemData.builder()
+                   .withCustomerOrderItemId(orderItemIds.get(itemRow))
+                   .withOrderId(orderId)
+                   .withAsin(asins.get(itemRow))
+                   .withTitle(titles.get(itemRow))
+                   .withQuantity(itemQuantities[itemRow])
+                   .withMerchantId(merchantIds.get(itemRow))
+                   .withApprovalDate(approvalDates.get(itemRow))
+                   .withSupplyCode(supplyCodes.get(itemRow))
+                   .withSupplyCodeDate(supplyCodeDates.get(itemRow))
+                   .withIsConfidenceTracked(confidenceTracked[itemRow])
+                   .withConfidence(confidences[itemRow])
+                   .build();
+    }
+
+    @Override
+    public OrderShipmentData getOrderShipmentDataForItem(int itemRow) {
+        int shipmentRow = itemShipmentRows[itemRow];
+        return NO_ROW == shipmentRow ? null : getShipment(shipmentRow);
+    }
+
+    /**
+     * Returns the packed order ID (see OrderId) the order in the given row was stored with.
+     *
+     * @param orderRow the order's row
+     * @return the stored order ID, packed
+     */
+    long getStoredOrderId(int orderRow) {
+        return orderIds[orderRow];
+    }
+
+    private void setOrderItem(int itemRow, int orderRow, OrderItemData orderItemData) {
+        orderItemIds.set(itemRow, orderItemData.getCustomerOrderItemId());
+        itemOrderRows[itemRow] = orderRow;
+        itemQuantities[itemRow] = orderItemData.getQuantity();
+        approvalDates.set(itemRow, orderItemData.getApprovalDate());
+        merchantIds.set(itemRow, orderItemData.getMerchantId());
+        asins.set(itemRow, orderItemData.getAsin());
+        titles.set(itemRow, orderItemData.getTitle());
+        supplyCodes.set(itemRow, orderItemData.getSupplyCode());
+        supplyCodeDates.set(itemRow, orderItemData.getSupplyCodeDate());
+        confidenceTracked[itemRow] = orderItemData.isConfidenceTracked();
+        confidences[itemRow] = orderItemData.getConfidence();
+        itemShipmentRows[itemRow] = NO_ROW;
+    }
+
+    private void setShipment(int shipmentRow, OrderShipmentData shipment) {
+        shipmentIds.set(shipmentRow, shipment.getShipmentId());
+        zips.set(shipmentRow, shipment.getZip());
+        shipmentConditions.set(shipmentRow, shipment.getCondition());
+        warehouseIds.set(shipmentRow, shipment.getWarehouseId());
+        shipDates.set(shipmentRow, shipment.getShipDate());
+        creationDates.set(shipmentRow, shipment.getCreationDate());
+        shipmentShipOptions.set(shipmentRow, shipment.getShipmentShipOption());
+        deliveryDates.set(shipmentRow, shipment.getDeliveryDate());
+        dpsPromiseActive[shipmentRow] = shipment.isDpsPromiseActive();
+        promisesAgree[shipmentRow] = shipment.doDpsAndOfsPromisesAgree();
+    }
+
+    private OrderShipmentData getShipment(int shipmentRow) {
+        List<OrderShipmentData.CustomerShipmentItemData> shipmentItems = new ArrayList<>(
+            firstShipmentItemRows[shipmentRow + 1] - firstShipmentItemRows[shipmentRow]
+        );
+        for (int shipmentItemRow = firstShipmentItemRows[shipmentRow];
+             shipmentItemRow < firstShipmentItemRows[shipmentRow + 1];
+             shipmentItemRow++) {
+            shipmentItems.add(new OrderShipmentData.CustomerShipmentItemData(
+                shipmentItemOrderItemIds.get(shipmentItemRow), shipmentItemQuantities[shipmentItemRow]
+            ));
+        }
+
+        return OrderShipmentData.builder()
+                   .withShipmentId(shipmentIds.get(shipmentRow))
+                   .withZip(zips.get(shipmentRow))
+                   .withCondition(shipmentConditions.get(shipmentRow))
+                   .withWarehouseId(warehouseIds.get(shipmentRow))
+                   .withShipDate(shipDates.get(shipmentRow))
+                   .withCreationDate(creationDates.get(shipmentRow))
+                   .withShipmentShipOption(shipmentShipOptions.get(shipmentRow))
+                   .withDeliveryDate(deliveryDates.get(shipmentRow))
+                   .withOnlyDpsPromisePresentAndActive(dpsPromiseActive[shipmentRow])
+                   .withDoDpsAndOfsPromisesAgree(promisesAgree[shipmentRow])
+                   .withCustomerShipmentItems(shipmentItems)
+                   .build();
+    }
+}
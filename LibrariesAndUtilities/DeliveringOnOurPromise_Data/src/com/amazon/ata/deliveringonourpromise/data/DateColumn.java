@@ -0,0 +1,66 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * A column of ZonedDateTimes, stored as epoch seconds, nanoseconds and a dictionary code for the time zone.
+ * Dates are rebuilt exactly (same instant, offset and zone) on read. Null dates are allowed.
+ *
+ * Rows may be set from different threads as long as no two threads set the same row.
+ */
+final class DateColumn {
+    /** Epoch second reported for null dates. */
+    static final long NULL_DATE = Long.MIN_VALUE;
+
+    // zone codes are stored in a byte each, read back as unsigned
+    private static final int MAX_ZONES = 256;
+
+    private final long[] epochSeconds;
+    private final int[] nanos;
+    private final byte[] zoneCodes;
+    private final ColumnDictionary<ZoneId> zones = new ColumnDictionary<>();
+
+    DateColumn(int numRows) {
+        epochSeconds = new long[numRows];
+        nanos = new int[numRows];
+        zoneCodes = new byte[numRows];
+    }
+
+    void set(int row, ZonedDateTime date) {
+        if (null == date) {
+            epochSeconds[row] = NULL_DATE;
+            return;
+        }
+
+        int zoneCode = zones.encode(date.getZone());
+        if (zoneCode >= MAX_ZONES) {
+            throw new IllegalStateException("A date column can hold dates in at most " + MAX_ZONES + " time zones");
+        }
+
+        epochSeconds[row] = date.toEpochSecond();
+        nanos[row] = date.getNano();
+        zoneCodes[row] = (byte) zoneCode;
+    }
+
+    ZonedDateTime get(int row) {
+        long epochSecond = epochSeconds[row];
+        if (NULL_DATE == epochSecond) {
+            return null;
+        }
+
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nanos[row]),
+                                       zones.decode(zoneCodes[row] & 0xFF));
+    }
+
+    /**
+     * Returns the row's date as seconds since the epoch, without building a ZonedDateTime.
+     *
+     * @param row the row to read
+     * @return the date's epoch second, or NULL_DATE if the date is null
+     */
+    long getEpochSecond(int row) {
+        return epochSeconds[row];
+    }
+}
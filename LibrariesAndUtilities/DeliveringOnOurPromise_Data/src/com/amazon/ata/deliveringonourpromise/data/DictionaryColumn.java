@@ -0,0 +1,51 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+/**
+ * A column of values drawn from a small set, stored as one int code per row plus a ColumnDictionary of the
+ * distinct values. Null values are allowed.
+ *
+ * Rows may be set from different threads as long as no two threads set the same row.
+ *
+ * @param <T> the type of value in the column
+ */
+final class DictionaryColumn<T> {
+    // code stored for null values
+    private static final int NULL_CODE = -1;
+
+    private final int[] codes;
+    private final ColumnDictionary<T> dictionary = new ColumnDictionary<>();
+
+    DictionaryColumn(int numRows) {
+        codes = new int[numRows];
+    }
+
+    void set(int row, T value) {
+        codes[row] = null == value ? NULL_CODE : dictionary.encode(value);
+    }
+
+    T get(int row) {
+        int code = codes[row];
+        return NULL_CODE == code ? null : dictionary.decode(code);
+    }
+
+    /**
+     * Returns the row's code, which is equal to another row's code exactly when the values are equal. Lets a scan
+     * compare rows without decoding them.
+     *
+     * @param row the row to read
+     * @return the code of the row's value
+     */
+    int getCode(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Returns the code rows holding the given value have.
+     *
+     * @param value the value to look up
+     * @return the value's code, or ColumnDictionary.NO_CODE if no row has ever held the value
+     */
+    int codeOf(T value) {
+        return null == value ? NULL_CODE : dictionary.codeOf(value);
+    }
+}
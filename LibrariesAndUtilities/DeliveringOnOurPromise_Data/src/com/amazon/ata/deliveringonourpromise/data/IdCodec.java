@@ -0,0 +1,67 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+/**
+ * Encodes String IDs as long keys. Our IDs are plain numbers, so the key is usually just the number itself; any
+ * other ID is dictionary encoded into a negative key. Null IDs are allowed. Keys are equal exactly when the IDs
+ * are, so lookups and scans can compare keys without decoding them.
+ *
+ * Safe to encode with from any number of threads; decoding follows the same rules as ColumnDictionary.
+ */
+final class IdCodec {
+    /** Returned by keyOf for IDs that were never encoded. */
+    static final long NO_KEY = Long.MIN_VALUE;
+
+    private static final long NULL_KEY = -1L;
+    // non-numeric IDs get keys -2, -3, ...
+    private static final long FIRST_OTHER_KEY = -2L;
+
+    private final ColumnDictionary<String> otherIds = new ColumnDictionary<>();
+
+    long encode(String id) {
+        if (null == id) {
+            return NULL_KEY;
+        }
+
+        long numericId = OrderItemIndex.parseNumericId(id);
+        return numericId >= 0 ? numericId : FIRST_OTHER_KEY - otherIds.encode(id);
+    }
+
+    String decode(long key) {
+        if (key >= 0) {
+            return Long.toString(key);
+        }
+        if (NULL_KEY == key) {
+            return null;
+        }
+        return otherIds.decode((int) (FIRST_OTHER_KEY - key));
+    }
+
+    /**
+     * Returns the key the given ID was, or would be, encoded as, without encoding it.
+     *
+     * @param id the ID to look up
+     * @return the ID's key, or NO_KEY if the ID is null or could not have been encoded yet
+     */
+    long keyOf(String id) {
+        if (null == id) {
+            return NO_KEY;
+        }
+
+        long numericId = OrderItemIndex.parseNumericId(id);
+        if (numericId >= 0) {
+            return numericId;
+        }
+
+        int code = otherIds.codeOf(id);
+        return ColumnDictionary.NO_CODE == code ? NO_KEY : FIRST_OTHER_KEY - code;
+    }
+
+    /**
+     * Returns the dictionary of non-numeric IDs, so that it can be saved and restored along with the keys.
+     *
+     * @return the dictionary behind every negative key but NULL_KEY
+     */
+    ColumnDictionary<String> getOtherIds() {
+        return otherIds;
+    }
+}
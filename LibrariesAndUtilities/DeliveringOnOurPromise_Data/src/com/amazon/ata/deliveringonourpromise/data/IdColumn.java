@@ -0,0 +1,83 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+/**
+ * A column of String IDs, stored as one long key per row (see IdCodec).
+ *
+ * Rows may be set from different threads as long as no two threads set the same row.
+ */
+final class IdColumn {
+    /** Returned by keyOf for IDs that no row can hold. */
+    static final long NO_KEY = IdCodec.NO_KEY;
+    /** Returned by findRow when no row holds the ID. */
+    static final int NO_ROW = -1;
+
+    private final long[] keys;
+    private final IdCodec codec = new IdCodec();
+
+    IdColumn(int numRows) {
+        keys = new long[numRows];
+    }
+
+    void set(int row, String id) {
+        keys[row] = codec.encode(id);
+    }
+
+    String get(int row) {
+        return codec.decode(keys[row]);
+    }
+
+    long getKey(int row) {
+        return keys[row];
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the key a row holding the given ID would have.
+     *
+     * @param id the ID to look up
+     * @return the ID's key, or NO_KEY if the ID is null or no row could hold it
+     */
+    long keyOf(String id) {
+        return codec.keyOf(id);
+    }
+
+    /**
+     * Indicates if every row's key is greater than the row before's, in which case findRow can binary search the
+     * column itself instead of needing a separate index.
+     *
+     * @return true if the keys are strictly ascending; false otherwise
+     */
+    boolean isStrictlyAscending() {
+        for (int row = 1; row < keys.length; row++) {
+            if (keys[row] <= keys[row - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Binary searches for the row with the given key. Only meaningful if isStrictlyAscending().
+     *
+     * @param key the key to search for
+     * @return the row with the key, or NO_ROW if there isn't one
+     */
+    int findRow(long key) {
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else if (keys[middle] > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NO_ROW;
+    }
+}
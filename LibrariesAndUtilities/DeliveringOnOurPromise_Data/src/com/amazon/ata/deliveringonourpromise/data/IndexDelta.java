@@ -0,0 +1,283 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * What has changed in one of an OrderDatastore's secondary indexes since it was built. The index itself is never
+ * rebuilt; instead, the positions of its entries whose orders have since changed are tombstoned, and the changed
+ * orders' entries are kept here, keyed the same way as the index (a customer ID, an ASIN, a warehouse ID, or epoch
+ * nanoseconds for a TimeIndex). A page can then still be found by position in the index, by counting the
+ * tombstones before it, and only the changed entries with the key or time range being looked up are read.
+ *
+ * Each change to an order is applied in one step (see Change), and each lookup reads a View taken in one step, so a
+ * lookup sees either all of a change or none of it: never an order's tombstones without its changed entries, or
+ * both its previous and new entries. Tombstones are kept as a sorted array of positions, replaced whenever one is
+ * added: they're only added when an order changes for the first time, and are read by every lookup. Safe to use
+ * from any number of threads.
+ *
+ * @param <K> the type of the index's keys
+ */
+final class IndexDelta<K extends Comparable<K>> {
+    private static final Comparator<Entry<?>> BY_ORDER_ID_AND_ORDINAL =
+        Comparator.<Entry<?>, String>comparing(entry -> entry.orderData.getOrderId())
+            .thenComparingInt(entry -> entry.ordinal);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // sorted positions of the index's entries whose orders have changed; never modified once published
+    private int[] tombstones = new int[0];
+    // key -> its changed entries, by order ID, then ordinal; keys without entries are removed
+    private final NavigableMap<K, Set<Entry<K>>> changedEntries = new TreeMap<>();
+
+    /**
+     * Applies a change to one order's entries: its tombstones, then the removal of its previous version's entries,
+     * then its new version's, all at once as far as any lookup can tell.
+     *
+     * @param change the change to apply
+     */
+    void apply(Change<K> change) {
+        lock.writeLock().lock();
+        try {
+            addTombstones(change.tombstones);
+            for (Entry<K> entry : change.removedEntries) {
+                Set<Entry<K>> entries = changedEntries.get(entry.key);
+                if (entries != null && entries.remove(entry) && entries.isEmpty()) {
+                    changedEntries.remove(entry.key);
+                }
+            }
+            for (Entry<K> entry : change.addedEntries) {
+                changedEntries.computeIfAbsent(entry.key, k -> new TreeSet<>(BY_ORDER_ID_AND_ORDINAL)).add(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the tombstones, and the changed orders' entries with the given key, by order ID, then ordinal.
+     *
+     * @param key the key to look up
+     * @return what has changed for the key; no entries if there are none
+     */
+    View<K> view(K key) {
+        lock.readLock().lock();
+        try {
+            Set<Entry<K>> entries = null == key ? null : changedEntries.get(key);
+            return new View<>(tombstones, null == entries ? new ArrayList<>() : new ArrayList<>(entries));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the tombstones, and the changed orders' entries with keys in the given range, by key, then order ID,
+     * then ordinal.
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @param to the end of the range, exclusive; null for no end
+     * @return what has changed in the range; no entries if there are none
+     */
+    View<K> view(K from, K to) {
+        List<Entry<K>> entries = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (from != null && to != null && from.compareTo(to) >= 0) {
+                return new View<>(tombstones, entries);
+            }
+
+            NavigableMap<K, Set<Entry<K>>> range = changedEntries;
+            if (from != null) {
+                range = range.tailMap(from, true);
+            }
+            if (to != null) {
+                range = range.headMap(to, false);
+            }
+            for (Set<Entry<K>> keyEntries : range.values()) {
+                entries.addAll(keyEntries);
+            }
+            return new View<>(tombstones, entries);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indicates whether the index entry at the given position is tombstoned.
+     *
+     * @param tombstones the tombstones of a View
+     * @param position the entry's position in the index
+     * @return true if the entry has been replaced by a changed order
+     */
+    static boolean isTombstone(int[] tombstones, int position) {
+        return Arrays.binarySearch(tombstones, position) >= 0;
+    }
+
+    /**
+     * Returns how many of the index entries in the given range of positions are tombstoned.
+     *
+     * @param tombstones the tombstones of a View
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     * @return the number of tombstones in [from, to)
+     */
+    static int countTombstones(int[] tombstones, int from, int to) {
+        return Math.max(0, firstAtOrAfter(tombstones, to) - firstAtOrAfter(tombstones, from));
+    }
+
+    /**
+     * Returns the position in the index before which there are exactly the given number of live (not tombstoned)
+     * entries after from, or to if there aren't that many.
+     *
+     * @param tombstones the tombstones of a View
+     * @param from the position to count from
+     * @param to the position to stop at
+     * @param liveEntries how many live entries to skip
+     * @return the position just past the skipped entries
+     */
+    static int skipLiveEntries(int[] tombstones, int from, int to, int liveEntries) {
+        long position = (long) from + liveEntries;
+        while (position < to) {
+            long next = (long) from + liveEntries + countTombstones(tombstones, from, (int) position);
+            if (next == position) {
+                return (int) position;
+            }
+            position = next;
+        }
+        return to;
+    }
+
+    /*
+     * Merges the given positions into the tombstones, publishing a new array if any are new. Called while locked.
+     */
+    private void addTombstones(List<Integer> positions) {
+        int[] next = tombstones;
+        for (int position : positions) {
+            int insertionPoint = Arrays.binarySearch(next, position);
+            if (insertionPoint >= 0) {
+                continue;
+            }
+
+            insertionPoint = -(insertionPoint + 1);
+            int[] grown = new int[next.length + 1];
+            System.arraycopy(next, 0, grown, 0, insertionPoint);
+            grown[insertionPoint] = position;
+            System.arraycopy(next, insertionPoint, grown, insertionPoint + 1, next.length - insertionPoint);
+            next = grown;
+        }
+        tombstones = next;
+    }
+
+    private static int firstAtOrAfter(int[] positions, int position) {
+        int index = Arrays.binarySearch(positions, position);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    /**
+     * One of a changed order's entries: its key, and the order item or shipment it's for, in the version of the
+     * order that was indexed.
+     *
+     * @param <K> the type of the key
+     */
+    static final class Entry<K> {
+        private final K key;
+        private final OrderData orderData;
+        private final int ordinal;
+
+        private Entry(K key, OrderData orderData, int ordinal) {
+            this.key = key;
+            this.orderData = orderData;
+            this.ordinal = ordinal;
+        }
+
+        K getKey() {
+            return key;
+        }
+
+        OrderData getOrderData() {
+            return orderData;
+        }
+
+        int getOrdinal() {
+            return ordinal;
+        }
+    }
+
+    /**
+     * The changes to one index that one change to an order makes, gathered up to be applied in one step.
+     *
+     * @param <K> the type of the index's keys
+     */
+    static final class Change<K> {
+        private final List<Integer> tombstones = new ArrayList<>();
+        private final List<Entry<K>> removedEntries = new ArrayList<>();
+        private final List<Entry<K>> addedEntries = new ArrayList<>();
+
+        /**
+         * Marks the index entry at the given position as replaced by the changed order. Marking it again does
+         * nothing.
+         *
+         * @param position the entry's position in the index
+         */
+        void tombstone(int position) {
+            tombstones.add(position);
+        }
+
+        /**
+         * Removes one of the previous version of the order's entries.
+         *
+         * @param key the entry's key
+         * @param orderData the previous version of the order, as it was added
+         * @param ordinal which of the order's items or shipments the entry is for
+         */
+        void remove(K key, OrderData orderData, int ordinal) {
+            if (key != null) {
+                removedEntries.add(new Entry<>(key, orderData, ordinal));
+            }
+        }
+
+        /**
+         * Adds one of the changed order's entries.
+         *
+         * @param key the entry's key; null keys aren't indexed, as in the index itself
+         * @param orderData the changed order
+         * @param ordinal which of the order's items or shipments the entry is for; 0 for the order itself
+         */
+        void add(K key, OrderData orderData, int ordinal) {
+            if (key != null) {
+                addedEntries.add(new Entry<>(key, orderData, ordinal));
+            }
+        }
+    }
+
+    /**
+     * What a lookup reads of an IndexDelta, all taken at once: the tombstones, and the changed entries with the key
+     * or in the range being looked up.
+     *
+     * @param <K> the type of the index's keys
+     */
+    static final class View<K> {
+        private final int[] tombstones;
+        private final List<Entry<K>> changedEntries;
+
+        private View(int[] tombstones, List<Entry<K>> changedEntries) {
+            this.tombstones = tombstones;
+            this.changedEntries = changedEntries;
+        }
+
+        int[] getTombstones() {
+            return tombstones;
+        }
+
+        List<Entry<K>> getChangedEntries() {
+            return changedEntries;
+        }
+    }
+}
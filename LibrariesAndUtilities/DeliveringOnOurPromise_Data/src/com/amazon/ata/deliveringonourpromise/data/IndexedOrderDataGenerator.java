@@ -0,0 +1,300 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import com.amazon.ata.order.OrderId;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Generates OrderData as a pure function of the order's index, so that any number of orders can be generated in
+ * parallel and the same index always produces the same order, on any run.
+ *
+ * Orders repeat the item-count pattern of the default sample orders (1, 2, 2, 2, 3, 3, 4 and 10 items), and items
+ * are grouped into shipments the same way OrderDataGenerator does it. Because the pattern is fixed, the index of an
+ * order's first item and first shipment can be computed directly, and every ID and date follows from those.
+ *
+ * IDs are drawn from different ranges than the sequential generators use, so generated orders never collide with
+ * the order fixtures.
+ */
+final class IndexedOrderDataGenerator {
+    // the largest number of orders that can be told apart by the 7-digit order ID suffix
+    static final int MAX_ORDERS = 10_000_000;
+
+    private static final int[] ITEMS_PER_ORDER = {1, 2, 2, 2, 3, 3, 4, 10};
+    private static final int[] ITEMS_PER_SHIPMENT = {1, 2, 1, 4, Integer.MAX_VALUE};
+
+    // generated orders are 111-0000000-0000000, 111-0000000-0000001, ...
+    private static final long FIRST_ORDER_ID = OrderId.parse("111-0000000-0000000");
+    private static final long FIRST_CUSTOMER_ID = 475944378L;
+    private static final long FIRST_ORDER_ITEM_ID = 40655079937521L;
+    private static final long FIRST_MERCHANT_ID = 24263472715L;
+    private static final long FIRST_SHIPMENT_ID = 50350858571111L;
+    private static final ZonedDateTime FIRST_ITEM_APPROVAL_DATE = ZonedDateTime.of(
+        2009, 8, 4, 11, 8, 5, 6, ZoneId.ofOffset("UTC", ZoneOffset.UTC)
+    );
+    // keep approval dates within ten years of the first one, however many items there are
+    private static final int APPROVAL_DATE_MONTHS_CYCLE = 120;
+
+    // orders handled by a single fork/join task before it stops splitting
+    private static final int ORDERS_PER_TASK = 4_096;
+
+    private final int[] itemOffsets;
+    private final int[] shipmentOffsets;
+    private final int itemsPerCycle;
+    private final int shipmentsPerCycle;
+
+    // per-ASIN item data, computed once since it only depends on the ASIN
+    private final String[] asins;
+    private final String[] titles;
+    private final boolean[] confidenceTracked;
+    private final int[] confidences;
+
+    IndexedOrderDataGenerator() {
+        itemOffsets = new int[ITEMS_PER_ORDER.length];
+        shipmentOffsets = new int[ITEMS_PER_ORDER.length];
+        int items = 0;
+        int shipments = 0;
+        for (int i = 0; i < ITEMS_PER_ORDER.length; i++) {
+            itemOffsets[i] = items;
+            shipmentOffsets[i] = shipments;
+            items += ITEMS_PER_ORDER[i];
+            shipments += numShipmentsForItems(ITEMS_PER_ORDER[i]);
+        }
+        itemsPerCycle = items;
+        shipmentsPerCycle = shipments;
+
+        OrderItemDataGenerator orderItemDataGenerator = OrderItemDataGenerator.getGenerator();
+        List<String> asinList = orderItemDataGenerator.getAsins();
+        asins = asinList.toArray(new String[0]);
+        titles = new String[asins.length];
+        confidenceTracked = new boolean[asins.length];
+        confidences = new int[asins.length];
+        for (int i = 0; i < asins.length; i++) {
+            titles[i] = orderItemDataGenerator.getTitleForAsin(asins[i]);
+            confidenceTracked[i] = orderItemDataGenerator.createIsConfidenceTracked(asins[i]);
+            confidences[i] = orderItemDataGenerator.createConfidence(asins[i]);
+        }
+    }
+
+    /**
+     * Generates orders 0 through numOrders - 1, splitting the work across the given pool.
+     *
+     * @param numOrders how many orders to generate
+     * @param pool the pool to generate the orders on
+     * @return the generated orders, in index order
+     */
+    List<OrderData> buildOrderDatas(int numOrders, ForkJoinPool pool) {
+        validateNumOrders(numOrders);
+
+        OrderData[] orderDatas = new OrderData[numOrders];
+        pool.invoke(new ForEachOrderTask(orderIndex -> orderDatas[orderIndex] = buildOrderData(orderIndex),
+                                         0, numOrders));
+        return Arrays.asList(orderDatas);
+    }
+
+    /**
+     * Generates orders 0 through numOrders - 1 straight into a PackedOrderStore, splitting the work across the
+     * given pool. Each order is packed as soon as it is generated, so the orders never all exist as objects at
+     * once.
+     *
+     * @param numOrders how many orders to generate
+     * @param pool the pool to generate the orders on
+     * @param factory creates the store to pack the orders into
+     * @param <T> the type of store
+     * @return the finished store, with order i in row i
+     */
+    <T extends PackedOrderStore> T buildPackedOrderStore(int numOrders, ForkJoinPool pool,
+                                                         PackedOrderStore.Factory<T> factory) {
+        validateNumOrders(numOrders);
+
+        // every item is in exactly one shipment, in item order, so shipment items line up with items
+        int numItems = Math.toIntExact(firstItemIndex(numOrders));
+        int numShipments = Math.toIntExact(firstShipmentIndex(numOrders));
+        T store = factory.create(numOrders, numItems, numShipments, numItems);
+        pool.invoke(new ForEachOrderTask(orderIndex -> {
+            int firstItemRow = (int) firstItemIndex(orderIndex);
+            store.setOrder(orderIndex, firstItemRow, (int) firstShipmentIndex(orderIndex), firstItemRow,
+                           buildOrderData(orderIndex));
+        }, 0, numOrders));
+        store.finish();
+        return store;
+    }
+
+    /**
+     * Returns the order ID given to the order at the given index. getOrderData(orderId) maps this ID back to the
+     * same index.
+     *
+     * @param orderIndex index of the order
+     * @return the order's ID
+     */
+    static String orderIdForIndex(int orderIndex) {
+        return OrderId.format(FIRST_ORDER_ID + orderIndex);
+    }
+
+    /**
+     * Generates the order at the given index.
+     *
+     * @param orderIndex index of the order to generate
+     * @return the order
+     */
+    OrderData buildOrderData(int orderIndex) {
+        int position = orderIndex % ITEMS_PER_ORDER.length;
+        long firstItemIndex = firstItemIndex(orderIndex);
+        long firstShipmentIndex = firstShipmentIndex(orderIndex);
+        String orderId = orderIdForIndex(orderIndex);
+
+        List<OrderItemData> orderItems = new ArrayList<>(ITEMS_PER_ORDER[position]);
+        for (int i = 0; i < ITEMS_PER_ORDER[position]; i++) {
+            orderItems.add(buildOrderItemData(firstItemIndex + i, orderId));
+        }
+
+        List<OrderShipmentData> orderShipments = new ArrayList<>();
+        int nextItem = 0;
+        for (int shipment = 0; nextItem < orderItems.size(); shipment++) {
+            int shipmentEnd = (int) Math.min(orderItems.size(), (long) nextItem + ITEMS_PER_SHIPMENT[shipment]);
+            List<OrderShipmentData.CustomerShipmentItemData> shipmentItems = new ArrayList<>();
+            for (; nextItem < shipmentEnd; nextItem++) {
+                OrderItemData orderItem = orderItems.get(nextItem);
+                shipmentItems.add(new OrderShipmentData.CustomerShipmentItemData(orderItem.getCustomerOrderItemId(),
+                                                                                 orderItem.getQuantity()));
+            }
+            orderShipments.add(buildShipmentData(firstShipmentIndex + shipment, shipmentItems));
+        }
+
+        long sequence = orderIndex + 1L;
+        return OrderData.builder()
+                   .withOrderId(orderId)
+                   .withCondition(OrderDataGenerator.DEFAULT_CONDITION)
+                   .withCustomerId(String.valueOf(FIRST_CUSTOMER_ID + 7 * sequence))
+                   .withMarketplaceId(OrderDataGenerator.DEFAULT_MARKETPLACE_ID)
+                   .withOrderDate(hoursAfter(OrderDataGenerator.INITIAL_ORDER_DATE, sequence))
+                   .withShipOption(OrderDataGenerator.DEFAULT_SHIP_OPTION)
+                   .withCustomerOrderItemList(orderItems)
+                   .withCustomerShipments(orderShipments)
+                   .build();
+    }
+
+    /*
+     * Index of the given order's first item among all generated items; for numOrders, the total number of items.
+     */
+    private long firstItemIndex(int orderIndex) {
+        int cycle = orderIndex / ITEMS_PER_ORDER.length;
+        return (long) cycle * itemsPerCycle + itemOffsets[orderIndex % ITEMS_PER_ORDER.length];
+    }
+
+    /*
+     * Index of the given order's first shipment among all generated shipments.
+     */
+    private long firstShipmentIndex(int orderIndex) {
+        int cycle = orderIndex / ITEMS_PER_ORDER.length;
+        return (long) cycle * shipmentsPerCycle + shipmentOffsets[orderIndex % ITEMS_PER_ORDER.length];
+    }
+
+    private OrderItemData buildOrderItemData(long itemIndex, String orderId) {
+        long sequence = itemIndex + 1;
+        int asinIndex = (int) (sequence % asins.length);
+        return OrderItemData.builder()
+                   .withCustomerOrderItemId(String.valueOf(FIRST_ORDER_ITEM_ID + 13 * sequence))
+                   .withOrderId(orderId)
+                   .withAsin(asins[asinIndex])
+                   .withTitle(titles[asinIndex])
+                   .withQuantity(OrderItemDataGenerator.DEFAULT_QUANTITY)
+                   .withMerchantId(String.valueOf(FIRST_MERCHANT_ID + 7 * sequence))
+                   .withApprovalDate(FIRST_ITEM_APPROVAL_DATE.plusMonths(sequence % APPROVAL_DATE_MONTHS_CYCLE))
+                   .withSupplyCode(OrderItemDataGenerator.DEFAULT_SUPPLY_CODE)
+                   .withSupplyCodeDate(hoursAfter(OrderDataGenerator.INITIAL_ORDER_DATE, sequence))
+                   .withIsConfidenceTracked(confidenceTracked[asinIndex])
+                   .withConfidence(confidences[asinIndex])
+                   .build();
+    }
+
+    private OrderShipmentData buildShipmentData(long shipmentIndex,
+                                                List<OrderShipmentData.CustomerShipmentItemData> shipmentItems) {
+        long sequence = shipmentIndex + 1;
+        long shipmentId = FIRST_SHIPMENT_ID + 11 * sequence;
+        List<String> warehouses = OrderShipmentDataGenerator.WAREHOUSES;
+        ZonedDateTime initialDate = OrderDataGenerator.INITIAL_ORDER_DATE;
+        return OrderShipmentData.builder()
+                   .withShipmentId(String.valueOf(shipmentId))
+                   .withZip(OrderShipmentDataGenerator.DEFAULT_ZIP)
+                   .withCondition(OrderShipmentDataGenerator.DEFAULT_SHIPMENT_CONDITION)
+                   .withWarehouseId(warehouses.get((int) (sequence % warehouses.size())))
+                   .withShipDate(hoursAfter(initialDate.plusHours(7), sequence))
+                   .withCreationDate(hoursAfter(initialDate.plusMinutes(23), sequence))
+                   .withShipmentShipOption(OrderShipmentDataGenerator.DEFAULT_SHIP_OPTION)
+                   .withDeliveryDate(hoursAfter(initialDate.plusDays(2), sequence))
+                   .withDoDpsAndOfsPromisesAgree(shipmentId % 3 == 0)
+                   .withOnlyDpsPromisePresentAndActive(false)
+                   .withCustomerShipmentItems(shipmentItems)
+                   .build();
+    }
+
+    /*
+     * Throws IllegalArgumentException unless numOrders is between 1 and MAX_ORDERS.
+     */
+    private static void validateNumOrders(int numOrders) {
+        if (numOrders < 1 || numOrders > MAX_ORDERS) {
+            throw new IllegalArgumentException(String.format(
+                "Number of generated orders must be between 1 and %d, but was %d", MAX_ORDERS, numOrders
+            ));
+        }
+    }
+
+    /*
+     * Returns the number of shipments OrderDataGenerator splits the given number of items into.
+     */
+    private static int numShipmentsForItems(int numItems) {
+        int shipments = 0;
+        int remaining = numItems;
+        while (remaining > 0) {
+            remaining -= Math.min(remaining, ITEMS_PER_SHIPMENT[shipments]);
+            shipments++;
+        }
+        return shipments;
+    }
+
+    /*
+     * Steps the given date forward the same amount the sequential generators do for each new record.
+     */
+    private static ZonedDateTime hoursAfter(ZonedDateTime start, long sequence) {
+        return start.plusHours(OrderDataGenerator.ORDER_DATA_DATE_HOURS_INCREMENT * sequence);
+    }
+
+    /*
+     * Runs an action for each order index in a range, splitting the range in half until it is small enough.
+     */
+    private static final class ForEachOrderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+
+        private ForEachOrderTask(IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ORDERS_PER_TASK) {
+                for (int orderIndex = from; orderIndex < to; orderIndex++) {
+                    action.accept(orderIndex);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForEachOrderTask(action, from, middle),
+                      new ForEachOrderTask(action, middle, to));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash index from long keys to int values, stored in two flat primitive arrays. Uses linear
+ * probing and keeps the table at most half full, so a lookup touches one or two adjacent slots on average and
+ * never allocates.
+ *
+ * Not thread safe while being built; safe to read from any number of threads once it has been safely published
+ * and is no longer modified.
+ */
+final class LongIntHashIndex {
+    /** Returned by get when a key isn't present. */
+    static final int NO_VALUE = -1;
+
+    // marks an unused slot, so it can't be used as a key
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates an index sized to hold expectedSize keys without growing.
+     *
+     * @param expectedSize the number of keys expected to be added
+     */
+    LongIntHashIndex(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Maps key to value, replacing any previous value for key.
+     *
+     * @param key the key; anything but Long.MIN_VALUE
+     * @param value the value; must not be negative
+     */
+    void put(long key, int value) {
+        if (EMPTY_KEY == key) {
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be used as a key");
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("Values cannot be negative, but was " + value);
+        }
+        if (2 * (size + 1) > keys.length) {
+            rehash(keys.length * 2);
+        }
+
+        int slot = slotFor(key);
+        if (EMPTY_KEY == keys[slot]) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Returns the value mapped to key.
+     *
+     * @param key the key to look up
+     * @return the key's value, or NO_VALUE if it has none
+     */
+    int get(long key) {
+        if (EMPTY_KEY == key) {
+            return NO_VALUE;
+        }
+
+        int slot = slotFor(key);
+        return EMPTY_KEY == keys[slot] ? NO_VALUE : values[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /*
+     * Returns the slot holding key, or the empty slot where it would go.
+     */
+    private int slotFor(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = slotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /*
+     * Smallest power of two that keeps expectedSize keys at most half full.
+     */
+    private static int capacityFor(int expectedSize) {
+        long wanted = Math.max(MIN_CAPACITY, 2L * expectedSize);
+        if (wanted > (1 << 30)) {
+            throw new IllegalArgumentException("Too many keys for one index: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) (wanted - 1)) << 1;
+    }
+
+    /*
+     * Spreads sequential IDs (ours step by a constant) across the table. The finalizer from MurmurHash3.
+     */
+    private static int mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,62 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * OrderStore that keeps each order as the OrderData it was built as, with its items found through an
+ * OrderItemIndex. Orders and items are handed out as views carrying the requested order ID.
+ */
+final class ObjectOrderStore implements OrderStore {
+    private final List<OrderData> orderDatas;
+    private final OrderItemIndex orderItemIndex;
+
+    /**
+     * Stores the given orders, in the order given.
+     *
+     * @param orderDatas the orders to store
+     */
+    ObjectOrderStore(List<OrderData> orderDatas) {
+        this.orderDatas = Collections.unmodifiableList(orderDatas);
+        this.orderItemIndex = new OrderItemIndex(orderDatas.size() * 4);
+
+        for (int orderRow = 0; orderRow < orderDatas.size(); orderRow++) {
+            OrderData orderData = orderDatas.get(orderRow);
+            for (OrderItemData orderItemData : orderData.getCustomerOrderItemList()) {
+                orderItemIndex.add(orderItemData, orderRow);
+            }
+            orderItemIndex.addShipments(orderData);
+        }
+    }
+
+    @Override
+    public int getNumOrders() {
+        return orderDatas.size();
+    }
+
+    @Override
+    public OrderData getOrderData(int orderRow, String orderId) {
+        return orderDatas.get(orderRow).copyWithOrderId(orderId);
+    }
+
+    @Override
+    public int findOrderItem(String customerOrderItemId) {
+        int slot = orderItemIndex.slotOf(customerOrderItemId);
+        return OrderItemIndex.NO_SLOT == slot ? NO_ROW : slot;
+    }
+
+    @Override
+    public int getOrderRowForItem(int itemRow) {
+        return orderItemIndex.getSampleIndex(itemRow);
+    }
+
+    @Override
+    public OrderItemData getOrderItemData(int itemRow, String orderId) {
+        return orderItemIndex.getItem(itemRow).copyWithOrderId(orderId);
+    }
+
+    @Override
+    public OrderShipmentData getOrderShipmentDataForItem(int itemRow) {
+        return orderItemIndex.getShipment(itemRow);
+    }
+}
@@ -0,0 +1,550 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import com.amazon.ata.order.OrderId;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * OrderStore that keeps orders, items, shipments and shipment items as fixed-size records outside the Java heap,
+ * in direct ByteBuffers or in a memory-mapped file. The garbage collector never sees the records, so the store
+ * can hold far more orders than fit in the heap without making collections any slower.
+ *
+ * Records are laid out like ColumnarOrderStore's rows: IDs as longs, dates as epoch seconds, nanoseconds and a
+ * zone code, and Strings as codes into a dictionary. Only the dictionaries (a few hundred distinct values) stay on
+ * the heap, plus an item lookup if the order item IDs aren't in ascending order.
+ */
+final class OffHeapOrderStore implements PackedOrderStore {
+    // code stored for null Strings and zones
+    private static final int NULL_CODE = -1;
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    // a date takes 16 bytes: epoch second, nanos, zone code
+    private static final int DATE_SECONDS = 0;
+    private static final int DATE_NANOS = 8;
+    private static final int DATE_ZONE = 12;
+
+    // order record layout
+    private static final int ORDER_ID = 0;
+    private static final int ORDER_CUSTOMER_ID = 8;
+    private static final int ORDER_DATE = 16;
+    private static final int ORDER_MARKETPLACE_ID = 32;
+    private static final int ORDER_CONDITION = 36;
+    private static final int ORDER_SHIP_OPTION = 40;
+    private static final int ORDER_FIRST_ITEM = 44;
+    private static final int ORDER_NUM_ITEMS = 48;
+    private static final int ORDER_FIRST_SHIPMENT = 52;
+    private static final int ORDER_NUM_SHIPMENTS = 56;
+    private static final int ORDER_RECORD_SIZE = 64;
+
+    // order item record layout
+    private static final int ITEM_ID = 0;
+    private static final int ITEM_MERCHANT_ID = 8;
+    private static final int ITEM_APPROVAL_DATE = 16;
+    private static final int ITEM_SUPPLY_CODE_DATE = 32;
+    private static final int ITEM_ORDER = 48;
+    private static final int ITEM_QUANTITY = 52;
+    private static final int ITEM_ASIN = 56;
+    private static final int ITEM_TITLE = 60;
+    private static final int ITEM_SUPPLY_CODE = 64;
+    private static final int ITEM_CONFIDENCE = 68;
+    private static final int ITEM_SHIPMENT = 72;
+    private static final int ITEM_CONFIDENCE_TRACKED = 76;
+    private static final int ITEM_RECORD_SIZE = 80;
+
+    // shipment record layout
+    private static final int SHIPMENT_ID = 0;
+    private static final int SHIPMENT_SHIP_DATE = 8;
+    private static final int SHIPMENT_CREATION_DATE = 24;
+    private static final int SHIPMENT_DELIVERY_DATE = 40;
+    private static final int SHIPMENT_ZIP = 56;
+    private static final int SHIPMENT_CONDITION = 60;
+    private static final int SHIPMENT_WAREHOUSE_ID = 64;
+    private static final int SHIPMENT_SHIP_OPTION = 68;
+    private static final int SHIPMENT_FIRST_ITEM = 72;
+    private static final int SHIPMENT_NUM_ITEMS = 76;
+    private static final int SHIPMENT_DPS_PROMISE_ACTIVE = 80;
+    private static final int SHIPMENT_PROMISES_AGREE = 81;
+    private static final int SHIPMENT_RECORD_SIZE = 88;
+
+    // shipment item record layout
+    private static final int SHIPMENT_ITEM_ORDER_ITEM_ID = 0;
+    private static final int SHIPMENT_ITEM_QUANTITY = 8;
+    private static final int SHIPMENT_ITEM_RECORD_SIZE = 16;
+
+    private final RecordBuffer orders;
+    private final RecordBuffer items;
+    private final RecordBuffer shipments;
+    private final RecordBuffer shipmentItems;
+
+    private final IdCodec ids = new IdCodec();
+    private final ColumnDictionary<String> strings = new ColumnDictionary<>();
+    private final ColumnDictionary<ZoneId> zones = new ColumnDictionary<>();
+
+    // lookup from order item ID to item record; null when the records are sorted by ID and can be searched directly
+    private LongIntHashIndex itemRecordsByKey;
+
+    private OffHeapOrderStore(RecordBuffer orders, RecordBuffer items, RecordBuffer shipments,
+                              RecordBuffer shipmentItems) {
+        this.orders = orders;
+        this.items = items;
+        this.shipments = shipments;
+        this.shipmentItems = shipmentItems;
+    }
+
+    /**
+     * Creates an empty store in direct memory, with room for exactly the given number of records. Direct memory
+     * is limited by -XX:MaxDirectMemorySize (by default, the same as the maximum heap size).
+     *
+     * @param numOrders number of orders
+     * @param numItems total number of order items across all orders
+     * @param numShipments total number of shipments across all orders
+     * @param numShipmentItems total number of shipment items across all shipments
+     * @return the empty store
+     */
+    static OffHeapOrderStore allocateDirect(int numOrders, int numItems, int numShipments, int numShipmentItems) {
+        return new OffHeapOrderStore(RecordBuffer.allocateDirect(ORDER_RECORD_SIZE, numOrders),
+                                     RecordBuffer.allocateDirect(ITEM_RECORD_SIZE, numItems),
+                                     RecordBuffer.allocateDirect(SHIPMENT_RECORD_SIZE, numShipments),
+                                     RecordBuffer.allocateDirect(SHIPMENT_ITEM_RECORD_SIZE, numShipmentItems));
+    }
+
+    /**
+     * Creates an empty store memory-mapped onto a temporary file, with room for exactly the given number of
+     * records. The operating system pages records in and out as needed, so the store isn't limited by the heap or
+     * direct memory, only by disk space. The file is deleted as soon as it is mapped where the platform allows it,
+     * and on exit otherwise.
+     *
+     * @param numOrders number of orders
+     * @param numItems total number of order items across all orders
+     * @param numShipments total number of shipments across all orders
+     * @param numShipmentItems total number of shipment items across all shipments
+     * @return the empty store
+     */
+    static OffHeapOrderStore mapTempFile(int numOrders, int numItems, int numShipments, int numShipmentItems) {
+        try {
+            Path file = Files.createTempFile("orderdatastore", ".records");
+            OffHeapOrderStore store;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                store = map(channel, FileChannel.MapMode.READ_WRITE, 0,
+                            numOrders, numItems, numShipments, numShipmentItems);
+            }
+
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                // some platforms won't delete a mapped file
+                file.toFile().deleteOnExit();
+            }
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map order records to a temporary file", e);
+        }
+    }
+
+    /**
+     * Creates a store memory-mapped onto a region of the given file, with room for exactly the given number of
+     * records. The region starts at position and is getSizeInBytes() long; the file grows to fit it if needed, so
+     * the store starts out empty unless the region was already written.
+     *
+     * @param channel channel of the file to map, open for writing unless mode is READ_ONLY
+     * @param mode READ_WRITE to fill the store, or READ_ONLY to read records that were written before
+     * @param position offset in the file of the first record
+     * @param numOrders number of orders
+     * @param numItems total number of order items across all orders
+     * @param numShipments total number of shipments across all orders
+     * @param numShipmentItems total number of shipment items across all shipments
+     * @return the store
+     * @throws IOException if the file can't be mapped
+     */
+    static OffHeapOrderStore map(FileChannel channel, FileChannel.MapMode mode, long position, int numOrders,
+                                 int numItems, int numShipments, int numShipmentItems) throws IOException {
+        RecordBuffer orders = RecordBuffer.map(channel, mode, position, ORDER_RECORD_SIZE, numOrders);
+        long regionPosition = position + orders.getSizeInBytes();
+        RecordBuffer items = RecordBuffer.map(channel, mode, regionPosition, ITEM_RECORD_SIZE, numItems);
+        regionPosition += items.getSizeInBytes();
+        RecordBuffer shipments = RecordBuffer.map(channel, mode, regionPosition, SHIPMENT_RECORD_SIZE, numShipments);
+        regionPosition += shipments.getSizeInBytes();
+        RecordBuffer shipmentItems =
+            RecordBuffer.map(channel, mode, regionPosition, SHIPMENT_ITEM_RECORD_SIZE, numShipmentItems);
+        return new OffHeapOrderStore(orders, items, shipments, shipmentItems);
+    }
+
+    /**
+     * Maps a finished store back in from a file it was written to, read only, given the metadata it saved with
+     * writeMetadata. Only the dictionaries are read into the heap; the records are paged in as they are used, so
+     * this takes about the same time however many orders the store holds, unless the order item IDs weren't
+     * sorted and the item lookup has to be rebuilt.
+     *
+     * @param channel channel of the file to map, open for reading
+     * @param position offset in the file of the first record, as passed to map when the store was created
+     * @param metadata the store's metadata, positioned where writeMetadata started writing it
+     * @param verifyRecords true to check every record against its checksum, which means reading all of them
+     * @return the store
+     * @throws IOException if the file can't be read or mapped, or if verifyRecords finds a record damaged
+     */
+    static OffHeapOrderStore mapFinished(FileChannel channel, long position, DataInput metadata,
+                                         boolean verifyRecords) throws IOException {
+        int numOrders = metadata.readInt();
+        int numItems = metadata.readInt();
+        int numShipments = metadata.readInt();
+        int numShipmentItems = metadata.readInt();
+        long sizeInBytes = (long) ORDER_RECORD_SIZE * numOrders + (long) ITEM_RECORD_SIZE * numItems
+                               + (long) SHIPMENT_RECORD_SIZE * numShipments
+                               + (long) SHIPMENT_ITEM_RECORD_SIZE * numShipmentItems;
+        if (position + sizeInBytes > channel.size()) {
+            throw new IOException(String.format(
+                "Order records end at byte %d, but the file is only %d bytes", position + sizeInBytes, channel.size()
+            ));
+        }
+
+        OffHeapOrderStore store = map(channel, FileChannel.MapMode.READ_ONLY, position,
+                                      numOrders, numItems, numShipments, numShipmentItems);
+        boolean sortedByItemId = metadata.readBoolean();
+        RecordBuffer[] regions = store.getRegions();
+        for (RecordBuffer region : regions) {
+            long expectedChecksum = metadata.readLong();
+            if (verifyRecords && region.checksum() != expectedChecksum) {
+                throw new IOException("Order records don't match their checksum");
+            }
+        }
+
+        readValues(metadata, store.ids.getOtherIds(), Function.identity());
+        readValues(metadata, store.strings, Function.identity());
+        readValues(metadata, store.zones, ZoneId::of);
+        if (!sortedByItemId) {
+            store.finish();
+        }
+        return store;
+    }
+
+    /**
+     * Writes what mapFinished needs, besides the records themselves, to map the store back in: the number of each
+     * kind of record, the dictionaries, and a checksum of the records. Forces any memory-mapped records out to
+     * their file first. Must only be called once the store is finished.
+     *
+     * @param metadata where to write the metadata
+     * @throws IOException if the metadata can't be written
+     */
+    void writeMetadata(DataOutput metadata) throws IOException {
+        RecordBuffer[] regions = getRegions();
+        for (RecordBuffer region : regions) {
+            region.force();
+            metadata.writeInt(region.getNumRecords());
+        }
+
+        metadata.writeBoolean(null == itemRecordsByKey);
+        for (RecordBuffer region : regions) {
+            metadata.writeLong(region.checksum());
+        }
+
+        writeValues(metadata, ids.getOtherIds(), Function.identity());
+        writeValues(metadata, strings, Function.identity());
+        writeValues(metadata, zones, ZoneId::getId);
+    }
+
+    /**
+     * Returns the number of bytes the store's records take up, in memory or in a file.
+     *
+     * @return total size of the store's records
+     */
+    long getSizeInBytes() {
+        long sizeInBytes = 0;
+        for (RecordBuffer region : getRegions()) {
+            sizeInBytes += region.getSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    @Override
+    public void setOrder(int orderRow, int firstItemRow, int firstShipmentRow, int firstShipmentItemRow,
+                         OrderData orderData) {
+        long orderId = OrderId.parse(orderData.getOrderId());
+        if (OrderId.INVALID == orderId) {
+            throw new IllegalArgumentException(String.format(
+                "Cannot store order with malformed order ID '%s'", orderData.getOrderId()
+            ));
+        }
+
+        List<OrderItemData> orderItems = orderData.getCustomerOrderItemList();
+        List<OrderShipmentData> orderShipments = orderData.getCustomerShipments();
+
+        orders.putLong(orderRow, ORDER_ID, orderId);
+        orders.putLong(orderRow, ORDER_CUSTOMER_ID, ids.encode(orderData.getCustomerId()));
+        putDate(orders, orderRow, ORDER_DATE, orderData.getOrderDate());
+        orders.putInt(orderRow, ORDER_MARKETPLACE_ID, encode(orderData.getMarketplaceId()));
+        orders.putInt(orderRow, ORDER_CONDITION, orderData.getCondition());
+        orders.putInt(orderRow, ORDER_SHIP_OPTION, encode(orderData.getShipOption()));
+        orders.putInt(orderRow, ORDER_FIRST_ITEM, firstItemRow);
+        orders.putInt(orderRow, ORDER_NUM_ITEMS, orderItems.size());
+        orders.putInt(orderRow, ORDER_FIRST_SHIPMENT, firstShipmentRow);
+        orders.putInt(orderRow, ORDER_NUM_SHIPMENTS, orderShipments.size());
+
+        int itemRow = firstItemRow;
+        for (OrderItemData orderItemData : orderItems) {
+            setOrderItem(itemRow, orderRow, orderItemData);
+            itemRow++;
+        }
+
+        int shipmentRow = firstShipmentRow;
+        int shipmentItemRow = firstShipmentItemRow;
+        for (OrderShipmentData shipment : orderShipments) {
+            List<OrderShipmentData.CustomerShipmentItemData> shipmentItemDatas = shipment.getCustomerShipmentItems();
+            setShipment(shipmentRow, shipment);
+            shipments.putInt(shipmentRow, SHIPMENT_FIRST_ITEM, shipmentItemRow);
+            shipments.putInt(shipmentRow, SHIPMENT_NUM_ITEMS, shipmentItemDatas.size());
+
+            for (OrderShipmentData.CustomerShipmentItemData shipmentItem : shipmentItemDatas) {
+                long orderItemKey = ids.encode(shipmentItem.getCustomerOrderItemId());
+                shipmentItems.putLong(shipmentItemRow, SHIPMENT_ITEM_ORDER_ITEM_ID, orderItemKey);
+                shipmentItems.putInt(shipmentItemRow, SHIPMENT_ITEM_QUANTITY, shipmentItem.getQuantity());
+                shipmentItemRow++;
+
+                // an item in more than one shipment is found in the last one, as in OrderItemIndex
+                for (int row = firstItemRow; row < itemRow; row++) {
+                    if (items.getLong(row, ITEM_ID) == orderItemKey) {
+                        items.putInt(row, ITEM_SHIPMENT, shipmentRow);
+                    }
+                }
+            }
+            shipmentRow++;
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (isSortedByItemId()) {
+            return;
+        }
+
+        // first item with an ID wins, as in OrderItemIndex
+        itemRecordsByKey = new LongIntHashIndex(items.getNumRecords());
+        for (int row = 0; row < items.getNumRecords(); row++) {
+            long key = items.getLong(row, ITEM_ID);
+            if (LongIntHashIndex.NO_VALUE == itemRecordsByKey.get(key)) {
+                itemRecordsByKey.put(key, row);
+            }
+        }
+    }
+
+    @Override
+    public int getNumOrders() {
+        return orders.getNumRecords();
+    }
+
+    @Override
+    public OrderData getOrderData(int orderRow, String orderId) {
+        int firstItemRow = orders.getInt(orderRow, ORDER_FIRST_ITEM);
+        int numItems = orders.getInt(orderRow, ORDER_NUM_ITEMS);
+        List<OrderItemData> orderItems = new ArrayList<>(numItems);
+        for (int itemRow = firstItemRow; itemRow < firstItemRow + numItems; itemRow++) {
+            orderItems.add(getOrderItemData(itemRow, orderId));
+        }
+
+        int firstShipmentRow = orders.getInt(orderRow, ORDER_FIRST_SHIPMENT);
+        int numShipments = orders.getInt(orderRow, ORDER_NUM_SHIPMENTS);
+        List<OrderShipmentData> orderShipments = new ArrayList<>(numShipments);
+        for (int shipmentRow = firstShipmentRow; shipmentRow < firstShipmentRow + numShipments; shipmentRow++) {
+            orderShipments.add(getShipment(shipmentRow));
+        }
+
+        return OrderData.builder()
+                   .withOrderId(orderId)
+                   .withCustomerId(ids.decode(orders.getLong(orderRow, ORDER_CUSTOMER_ID)))
+                   .withMarketplaceId(decode(orders.getInt(orderRow, ORDER_MARKETPLACE_ID)))
+                   .withCondition(orders.getInt(orderRow, ORDER_CONDITION))
+                   .withShipOption(decode(orders.getInt(orderRow, ORDER_SHIP_OPTION)))
+                   .withOrderDate(getDate(orders, orderRow, ORDER_DATE))
+                   .withCustomerOrderItemList(orderItems)
+                   .withCustomerShipments(orderShipments)
+                   .build();
+    }
+
+    @Override
+    public int findOrderItem(String customerOrderItemId) {
+        long key = ids.keyOf(customerOrderItemId);
+        if (IdCodec.NO_KEY == key) {
+            return NO_ROW;
+        }
+
+        if (itemRecordsByKey != null) {
+            int row = itemRecordsByKey.get(key);
+            return LongIntHashIndex.NO_VALUE == row ? NO_ROW : row;
+        }
+
+        int low = 0;
+        int high = items.getNumRecords() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = items.getLong(middle, ITEM_ID);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NO_ROW;
+    }
+
+    @Override
+    public int getOrderRowForItem(int itemRow) {
+        return items.getInt(itemRow, ITEM_ORDER);
+    }
+
+    @Override
+    public OrderItemData getOrderItemData(int itemRow, String orderId) {
+        return OrderItemData.builder()
+                   .withCustomerOrderItemId(ids.decode(items.getLong(itemRow, ITEM_ID)))
+                   .withOrderId(orderId)
+                   .withAsin(decode(items.getInt(itemRow, ITEM_ASIN)))
+                   .withTitle(decode(items.getInt(itemRow, ITEM_TITLE)))
+                   .withQuantity(items.getInt(itemRow, ITEM_QUANTITY))
+                   .withMerchantId(ids.decode(items.getLong(itemRow, ITEM_MERCHANT_ID)))
+                   .withApprovalDate(getDate(items, itemRow, ITEM_APPROVAL_DATE))
+                   .withSupplyCode(decode(items.getInt(itemRow, ITEM_SUPPLY_CODE)))
+                   .withSupplyCodeDate(getDate(items, itemRow, ITEM_SUPPLY_CODE_DATE))
+                   .withIsConfidenceTracked(items.getByte(itemRow, ITEM_CONFIDENCE_TRACKED) != 0)
+                   .withConfidence(items.getInt(itemRow, ITEM_CONFIDENCE))
+                   .build();
+    }
+
+    @Override
+    public OrderShipmentData getOrderShipmentDataForItem(int itemRow) {
+        int shipmentRow = items.getInt(itemRow, ITEM_SHIPMENT);
+        return NO_ROW == shipmentRow ? null : getShipment(shipmentRow);
+    }
+
+    private void setOrderItem(int itemRow, int orderRow, OrderItemData orderItemData) {
+        items.putLong(itemRow, ITEM_ID, ids.encode(orderItemData.getCustomerOrderItemId()));
+        items.putLong(itemRow, ITEM_MERCHANT_ID, ids.encode(orderItemData.getMerchantId()));
+        putDate(items, itemRow, ITEM_APPROVAL_DATE, orderItemData.getApprovalDate());
+        putDate(items, itemRow, ITEM_SUPPLY_CODE_DATE, orderItemData.getSupplyCodeDate());
+        items.putInt(itemRow, ITEM_ORDER, orderRow);
+        items.putInt(itemRow, ITEM_QUANTITY, orderItemData.getQuantity());
+        items.putInt(itemRow, ITEM_ASIN, encode(orderItemData.getAsin()));
+        items.putInt(itemRow, ITEM_TITLE, encode(orderItemData.getTitle()));
+        items.putInt(itemRow, ITEM_SUPPLY_CODE, encode(orderItemData.getSupplyCode()));
+        items.putInt(itemRow, ITEM_CONFIDENCE, orderItemData.getConfidence());
+        items.putInt(itemRow, ITEM_SHIPMENT, NO_ROW);
+        items.putByte(itemRow, ITEM_CONFIDENCE_TRACKED, (byte) (orderItemData.isConfidenceTracked() ? 1 : 0));
+    }
+
+    private void setShipment(int shipmentRow, OrderShipmentData shipment) {
+        shipments.putLong(shipmentRow, SHIPMENT_ID, ids.encode(shipment.getShipmentId()));
+        putDate(shipments, shipmentRow, SHIPMENT_SHIP_DATE, shipment.getShipDate());
+        putDate(shipments, shipmentRow, SHIPMENT_CREATION_DATE, shipment.getCreationDate());
+        putDate(shipments, shipmentRow, SHIPMENT_DELIVERY_DATE, shipment.getDeliveryDate());
+        shipments.putInt(shipmentRow, SHIPMENT_ZIP, encode(shipment.getZip()));
+        shipments.putInt(shipmentRow, SHIPMENT_CONDITION, encode(shipment.getCondition()));
+        shipments.putInt(shipmentRow, SHIPMENT_WAREHOUSE_ID, encode(shipment.getWarehouseId()));
+        shipments.putInt(shipmentRow, SHIPMENT_SHIP_OPTION, encode(shipment.getShipmentShipOption()));
+        shipments.putByte(shipmentRow, SHIPMENT_DPS_PROMISE_ACTIVE, (byte) (shipment.isDpsPromiseActive() ? 1 : 0));
+        shipments.putByte(shipmentRow, SHIPMENT_PROMISES_AGREE,
+                          (byte) (shipment.doDpsAndOfsPromisesAgree() ? 1 : 0));
+    }
+
+    private OrderShipmentData getShipment(int shipmentRow) {
+        int firstShipmentItemRow = shipments.getInt(shipmentRow, SHIPMENT_FIRST_ITEM);
+        int numShipmentItems = shipments.getInt(shipmentRow, SHIPMENT_NUM_ITEMS);
+        List<OrderShipmentData.CustomerShipmentItemData> shipmentItemDatas = new ArrayList<>(numShipmentItems);
+        for (int row = firstShipmentItemRow; row < firstShipmentItemRow + numShipmentItems; row++) {
+            shipmentItemDatas.add(new OrderShipmentData.CustomerShipmentItemData(
+                ids.decode(shipmentItems.getLong(row, SHIPMENT_ITEM_ORDER_ITEM_ID)),
+                shipmentItems.getInt(row, SHIPMENT_ITEM_QUANTITY)
+            ));
+        }
+
+        return OrderShipmentData.builder()
+                   .withShipmentId(ids.decode(shipments.getLong(shipmentRow, SHIPMENT_ID)))
+                   .withZip(decode(shipments.getInt(shipmentRow, SHIPMENT_ZIP)))
+                   .withCondition(decode(shipments.getInt(shipmentRow, SHIPMENT_CONDITION)))
+                   .withWarehouseId(decode(shipments.getInt(shipmentRow, SHIPMENT_WAREHOUSE_ID)))
+                   .withShipDate(getDate(shipments, shipmentRow, SHIPMENT_SHIP_DATE))
+                   .withCreationDate(getDate(shipments, shipmentRow, SHIPMENT_CREATION_DATE))
+                   .withShipmentShipOption(decode(shipments.getInt(shipmentRow, SHIPMENT_SHIP_OPTION)))
+                   .withDeliveryDate(getDate(shipments, shipmentRow, SHIPMENT_DELIVERY_DATE))
+                   .withOnlyDpsPromisePresentAndActive(
+                       shipments.getByte(shipmentRow, SHIPMENT_DPS_PROMISE_ACTIVE) != 0)
+                   .withDoDpsAndOfsPromisesAgree(shipments.getByte(shipmentRow, SHIPMENT_PROMISES_AGREE) != 0)
+                   .withCustomerShipmentItems(shipmentItemDatas)
+                   .build();
+    }
+
+    /*
+     * The record buffers, in the order they're laid out in a mapped file.
+     */
+    private RecordBuffer[] getRegions() {
+        return new RecordBuffer[] {orders, items, shipments, shipmentItems};
+    }
+
+    private boolean isSortedByItemId() {
+        for (int row = 1; row < items.getNumRecords(); row++) {
+            if (items.getLong(row, ITEM_ID) <= items.getLong(row - 1, ITEM_ID)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int encode(String value) {
+        return null == value ? NULL_CODE : strings.encode(value);
+    }
+
+    private String decode(int code) {
+        return NULL_CODE == code ? null : strings.decode(code);
+    }
+
+    private static <T> void writeValues(DataOutput out, ColumnDictionary<T> dictionary,
+                                        Function<T, String> toString) throws IOException {
+        List<T> values = dictionary.getValues();
+        out.writeInt(values.size());
+        for (T value : values) {
+            out.writeUTF(toString.apply(value));
+        }
+    }
+
+    /*
+     * Encodes values in the order writeValues wrote them, so each gets back the code it was written with.
+     */
+    private static <T> void readValues(DataInput in, ColumnDictionary<T> dictionary,
+                                       Function<String, T> fromString) throws IOException {
+        int numValues = in.readInt();
+        for (int i = 0; i < numValues; i++) {
+            dictionary.encode(fromString.apply(in.readUTF()));
+        }
+    }
+
+    private void putDate(RecordBuffer records, int row, int offset, ZonedDateTime date) {
+        if (null == date) {
+            records.putLong(row, offset + DATE_SECONDS, NULL_DATE);
+            return;
+        }
+
+        records.putLong(row, offset + DATE_SECONDS, date.toEpochSecond());
+        records.putInt(row, offset + DATE_NANOS, date.getNano());
+        records.putInt(row, offset + DATE_ZONE, zones.encode(date.getZone()));
+    }
+
+    private ZonedDateTime getDate(RecordBuffer records, int row, int offset) {
+        long epochSecond = records.getLong(row, offset + DATE_SECONDS);
+        if (NULL_DATE == epochSecond) {
+            return null;
+        }
+
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, records.getInt(row, offset + DATE_NANOS)),
+                                       zones.decode(records.getInt(row, offset + DATE_ZONE)));
+    }
+}
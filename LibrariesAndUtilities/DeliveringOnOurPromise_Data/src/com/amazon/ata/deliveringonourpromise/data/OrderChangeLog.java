@@ -0,0 +1,521 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead log of the changes made to an OrderDatastore's orders, so that they survive a crash
+ * or restart. Opening a log replays the changes already in it; each later change is appended, and the change's
+ * caller waits in commit until it is on disk.
+ *
+ * Commits are grouped: whichever committer gets there first writes every record appended so far in one write and
+ * forces them to disk with one force. Committers whose records arrive meanwhile wait for that force to finish, and
+ * the first of them then writes all of their records with the next one. So however many threads are changing
+ * orders, there is one force per group of changes rather than one per change, and the more threads are waiting the
+ * larger the groups get.
+ *
+ * A log file holds a header (magic number and format version), then records, each its payload's length and
+ * checksum followed by the payload. A crash can leave the last record half written; opening the log drops
+ * everything from the first record that is cut off or fails its checksum.
+ */
+final class OrderChangeLog implements Closeable {
+    /** The only format version this class reads and writes. Bump it whenever the layout changes. */
+    static final int VERSION = 1;
+
+    // "ORDERLOG" in ASCII
+    private static final long MAGIC = 0x4F524445524C4F47L;
+    // magic, version
+    private static final int HEADER_SIZE = 8 + 4;
+    // payload length, payload checksum
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+    // far larger than any real change, so a damaged length is caught before allocating for it
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private static final byte ADD_ORDER = 1;
+    private static final byte SHIPMENT_SHIPPED = 2;
+    private static final byte SHIPMENT_DELIVERED = 3;
+    private static final byte ORDER_CONDITION = 4;
+
+    private final FileChannel channel;
+
+    // records appended but not yet written, and the log position just past them
+    private final Object appendLock = new Object();
+    private final ByteArrayOutputStream pendingRecords = new ByteArrayOutputStream();
+    private long appendedPosition;
+    private boolean closed;
+
+    // guards writing, durablePosition and failure; committers wait on it while another committer is writing
+    private final Object commitLock = new Object();
+    private boolean writing;
+    private volatile long durablePosition;
+    private IOException failure;
+
+    private OrderChangeLog(FileChannel channel, long position) {
+        this.channel = channel;
+        this.appendedPosition = position;
+        this.durablePosition = position;
+    }
+
+    /**
+     * Opens the given log, creating it if it doesn't exist, and replays the changes already in it to the given
+     * handler, oldest first. Anything after the last complete, undamaged record is dropped from the file.
+     *
+     * @param file the log to open
+     * @param handler applies each logged change
+     * @return the log, positioned to append after its last change
+     * @throws IOException if the log can't be read or created, or isn't a change log of a version this class can
+     *                     read
+     */
+    static OrderChangeLog open(Path file, ChangeHandler handler) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            long end;
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(MAGIC).putInt(VERSION);
+                header.flip();
+                writeFully(channel, 0, header);
+                channel.force(true);
+                end = HEADER_SIZE;
+            } else {
+                end = replay(channel, file, handler);
+                if (end < channel.size()) {
+                    channel.truncate(end);
+                    channel.force(true);
+                }
+            }
+            return new OrderChangeLog(channel, end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a record of an order being added.
+     *
+     * @param orderData the added order
+     * @return the record, for append
+     */
+    static byte[] addOrder(OrderData orderData) {
+        return encode(out -> {
+            out.writeByte(ADD_ORDER);
+            writeOrder(out, orderData);
+        });
+    }
+
+    /**
+     * Returns a record of a shipment shipping.
+     *
+     * @param orderId the order the shipment belongs to
+     * @param shipmentId the shipment that shipped
+     * @param shipDate when it shipped
+     * @return the record, for append
+     */
+    static byte[] shipmentShipped(String orderId, String shipmentId, ZonedDateTime shipDate) {
+        return encode(out -> {
+            out.writeByte(SHIPMENT_SHIPPED);
+            out.writeUTF(orderId);
+            out.writeUTF(shipmentId);
+            writeDate(out, shipDate);
+        });
+    }
+
+    /**
+     * Returns a record of a shipment being delivered.
+     *
+     * @param orderId the order the shipment belongs to
+     * @param shipmentId the shipment that was delivered
+     * @param deliveryDate when it was delivered
+     * @return the record, for append
+     */
+    static byte[] shipmentDelivered(String orderId, String shipmentId, ZonedDateTime deliveryDate) {
+        return encode(out -> {
+            out.writeByte(SHIPMENT_DELIVERED);
+            out.writeUTF(orderId);
+            out.writeUTF(shipmentId);
+            writeDate(out, deliveryDate);
+        });
+    }
+
+    /**
+     * Returns a record of an order's condition changing.
+     *
+     * @param orderId the order that changed
+     * @param condition its new condition
+     * @return the record, for append
+     */
+    static byte[] orderCondition(String orderId, int condition) {
+        return encode(out -> {
+            out.writeByte(ORDER_CONDITION);
+            out.writeUTF(orderId);
+            out.writeInt(condition);
+        });
+    }
+
+    /**
+     * Appends a record to the log, in memory only. Cheap enough to call while holding a lock, so that changes to
+     * the same order are logged in the order they're made.
+     *
+     * @param record the record to append, from one of the record methods
+     * @return the position to pass to commit to wait for this record to be on disk
+     * @throws IllegalStateException if the log has been closed
+     */
+    long append(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("The order change log has been closed");
+            }
+            writeInt(pendingRecords, record.length);
+            writeInt(pendingRecords, (int) crc.getValue());
+            pendingRecords.write(record, 0, record.length);
+            appendedPosition += RECORD_HEADER_SIZE + record.length;
+            return appendedPosition;
+        }
+    }
+
+    /**
+     * Waits until every record up to the given position is on disk, writing and forcing them if no other committer
+     * already is.
+     *
+     * @param position a position returned by append
+     * @throws IOException if the records couldn't be written, now or by an earlier commit. Once a write has failed
+     *                     no later commit succeeds, since the log may have a hole in it.
+     * @throws InterruptedIOException if interrupted while waiting for another committer; the record may or may not
+     *                                be on disk
+     */
+    void commit(long position) throws IOException {
+        if (durablePosition >= position) {
+            return;
+        }
+
+        synchronized (commitLock) {
+            // wait out any write in progress: it may turn out to include this record, and if not, the next one will
+            while (writing) {
+                try {
+                    commitLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting to commit to the order change log");
+                }
+            }
+            if (durablePosition >= position) {
+                return;
+            }
+            if (failure != null) {
+                throw new IOException("An earlier write to the order change log failed", failure);
+            }
+            writing = true;
+        }
+
+        // write outside commitLock, so that committers covered by this write aren't held up behind it
+        long batchEnd = durablePosition;
+        boolean written = false;
+        try {
+            byte[] batch;
+            synchronized (appendLock) {
+                batch = pendingRecords.toByteArray();
+                pendingRecords.reset();
+                batchEnd = appendedPosition;
+            }
+            writeFully(channel, batchEnd - batch.length, ByteBuffer.wrap(batch));
+            channel.force(false);
+            written = true;
+        } catch (IOException e) {
+            synchronized (commitLock) {
+                failure = e;
+            }
+            throw e;
+        } finally {
+            synchronized (commitLock) {
+                writing = false;
+                if (written) {
+                    durablePosition = batchEnd;
+                } else if (null == failure) {
+                    failure = new IOException("A write to the order change log was abandoned");
+                }
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Commits whatever has been appended, then closes the log. Later appends throw IllegalStateException.
+     *
+     * @throws IOException if the last records couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        long position;
+        synchronized (appendLock) {
+            closed = true;
+            position = appendedPosition;
+        }
+        try {
+            commit(position);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Applies the changes replayed from a log.
+     */
+    interface ChangeHandler {
+        void addOrder(OrderData orderData);
+
+        void markShipmentShipped(String orderId, String shipmentId, ZonedDateTime shipDate);
+
+        void markShipmentDelivered(String orderId, String shipmentId, ZonedDateTime deliveryDate);
+
+        void updateOrderCondition(String orderId, int condition);
+    }
+
+    /*
+     * Replays every complete, undamaged record, and returns the position just past the last of them.
+     */
+    private static long replay(FileChannel channel, Path file, ChangeHandler handler) throws IOException {
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        try {
+            if (in.readLong() != MAGIC) {
+                throw new IOException(file + " is not an order change log");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(String.format(
+                    "%s is version %d of the order change log format, but only version %d can be read",
+                    file, version, VERSION
+                ));
+            }
+        } catch (EOFException e) {
+            throw new IOException(file + " is not an order change log", e);
+        }
+
+        long position = HEADER_SIZE;
+        while (true) {
+            byte[] record;
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > MAX_RECORD_SIZE) {
+                    return position;
+                }
+                record = new byte[length];
+                in.readFully(record);
+                CRC32 crc = new CRC32();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    return position;
+                }
+            } catch (EOFException e) {
+                return position;
+            }
+
+            apply(new DataInputStream(new ByteArrayInputStream(record)), handler, file);
+            position += RECORD_HEADER_SIZE + record.length;
+        }
+    }
+
+    private static void apply(DataInput in, ChangeHandler handler, Path file) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_ORDER:
+                handler.addOrder(readOrder(in));
+                break;
+            case SHIPMENT_SHIPPED:
+                handler.markShipmentShipped(in.readUTF(), in.readUTF(), readDate(in));
+                break;
+            case SHIPMENT_DELIVERED:
+                handler.markShipmentDelivered(in.readUTF(), in.readUTF(), readDate(in));
+                break;
+            case ORDER_CONDITION:
+                handler.updateOrderCondition(in.readUTF(), in.readInt());
+                break;
+            default:
+                // the checksum matched, so this was written by a newer version rather than damaged
+                throw new IOException(String.format("%s has a change of unknown type %d", file, type));
+        }
+    }
+
+    private static void writeOrder(DataOutput out, OrderData orderData) throws IOException {
+        writeNullableUtf(out, orderData.getOrderId());
+        writeNullableUtf(out, orderData.getCustomerId());
+        writeNullableUtf(out, orderData.getMarketplaceId());
+        out.writeInt(orderData.getCondition());
+        writeNullableUtf(out, orderData.getShipOption());
+        writeDate(out, orderData.getOrderDate());
+
+        List<OrderItemData> orderItems = orderData.getCustomerOrderItemList();
+        out.writeInt(orderItems.size());
+        for (OrderItemData orderItem : orderItems) {
+            writeNullableUtf(out, orderItem.getCustomerOrderItemId());
+            out.writeInt(orderItem.getQuantity());
+            writeDate(out, orderItem.getApprovalDate());
+            writeNullableUtf(out, orderItem.getOrderId());
+            writeNullableUtf(out, orderItem.getMerchantId());
+            writeNullableUtf(out, orderItem.getAsin());
+            writeNullableUtf(out, orderItem.getSupplyCode());
+            writeNullableUtf(out, orderItem.getTitle());
+            writeDate(out, orderItem.getSupplyCodeDate());
+            out.writeBoolean(orderItem.isConfidenceTracked());
+            out.writeInt(orderItem.getConfidence());
+        }
+
+        List<OrderShipmentData> shipments = orderData.getCustomerShipments();
+        out.writeInt(shipments.size());
+        for (OrderShipmentData shipment : shipments) {
+            writeNullableUtf(out, shipment.getShipmentId());
+            writeNullableUtf(out, shipment.getZip());
+            writeNullableUtf(out, shipment.getCondition());
+            writeNullableUtf(out, shipment.getWarehouseId());
+            List<OrderShipmentData.CustomerShipmentItemData> shipmentItems = shipment.getCustomerShipmentItems();
+            out.writeInt(shipmentItems.size());
+            for (OrderShipmentData.CustomerShipmentItemData shipmentItem : shipmentItems) {
+                writeNullableUtf(out, shipmentItem.getCustomerOrderItemId());
+                out.writeInt(shipmentItem.getQuantity());
+            }
+            writeDate(out, shipment.getShipDate());
+            writeDate(out, shipment.getCreationDate());
+            writeNullableUtf(out, shipment.getShipmentShipOption());
+            writeDate(out, shipment.getDeliveryDate());
+            out.writeBoolean(shipment.isDpsPromiseActive());
+            out.writeBoolean(shipment.doDpsAndOfsPromisesAgree());
+        }
+    }
+
+    private static OrderData readOrder(DataInput in) throws IOException {
+        OrderData.Builder order = OrderData.builder()
+                                      .withOrderId(readNullableUtf(in))
+                                      .withCustomerId(readNullableUtf(in))
+                                      .withMarketplaceId(readNullableUtf(in))
+                                      .withCondition(in.readInt())
+                                      .withShipOption(readNullableUtf(in))
+                                      .withOrderDate(readDate(in));
+
+        int numOrderItems = in.readInt();
+        List<OrderItemData> orderItems = new ArrayList<>(numOrderItems);
+        for (int i = 0; i < numOrderItems; i++) {
+            orderItems.add(OrderItemData.builder()
+                               .withCustomerOrderItemId(readNullableUtf(in))
+                               .withQuantity(in.readInt())
+                               .withApprovalDate(readDate(in))
+                               .withOrderId(readNullableUtf(in))
+                               .withMerchantId(readNullableUtf(in))
+                               .withAsin(readNullableUtf(in))
+                               .withSupplyCode(readNullableUtf(in))
+                               .withTitle(readNullableUtf(in))
+                               .withSupplyCodeDate(readDate(in))
+                               .withIsConfidenceTracked(in.readBoolean())
+                               .withConfidence(in.readInt())
+                               .build());
+        }
+
+        int numShipments = in.readInt();
+        List<OrderShipmentData> shipments = new ArrayList<>(numShipments);
+        for (int i = 0; i < numShipments; i++) {
+            OrderShipmentData.Builder shipment = OrderShipmentData.builder()
+                                                     .withShipmentId(readNullableUtf(in))
+                                                     .withZip(readNullableUtf(in))
+                                                     .withCondition(readNullableUtf(in))
+                                                     .withWarehouseId(readNullableUtf(in));
+            int numShipmentItems = in.readInt();
+            List<OrderShipmentData.CustomerShipmentItemData> shipmentItems = new ArrayList<>(numShipmentItems);
+            for (int j = 0; j < numShipmentItems; j++) {
+                shipmentItems.add(new OrderShipmentData.CustomerShipmentItemData(readNullableUtf(in), in.readInt()));
+            }
+            shipments.add(shipment.withCustomerShipmentItems(shipmentItems)
+                              .withShipDate(readDate(in))
+                              .withCreationDate(readDate(in))
+                              .withShipmentShipOption(readNullableUtf(in))
+                              .withDeliveryDate(readDate(in))
+                              .withOnlyDpsPromisePresentAndActive(in.readBoolean())
+                              .withDoDpsAndOfsPromisesAgree(in.readBoolean())
+                              .build());
+        }
+
+        return order.withCustomerOrderItemList(orderItems)
+                   .withCustomerShipments(shipments)
+                   .build();
+    }
+
+    private static void writeDate(DataOutput out, ZonedDateTime date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeLong(date.toEpochSecond());
+            out.writeInt(date.getNano());
+            out.writeUTF(date.getZone().getId());
+        }
+    }
+
+    private static ZonedDateTime readDate(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        return ZonedDateTime.ofInstant(instant, ZoneId.of(in.readUTF()));
+    }
+
+    private static void writeNullableUtf(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUtf(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static byte[] encode(RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            // only a ByteArrayOutputStream is written to, and that never throws
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+}
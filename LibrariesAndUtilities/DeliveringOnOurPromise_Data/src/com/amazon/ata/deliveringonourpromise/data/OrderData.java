@@ -2,10 +2,14 @@ package com.amazon.ata.deliveringonourpromise.data;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Data object from shared data provider that represents an Order.
+ * Data object from shared data provider that represents an Order. Orders can't be changed once built, so they're
+ * safe to share between threads; the datastore's changes replace an order with a changed copy instead.
  *
  * @see OrderDatastore
  */
@@ -18,26 +22,62 @@ public final class OrderData {
     private List<OrderShipmentData> customerShipments;
     private String shipOption;
     private ZonedDateTime orderDate;
+    // order item ID : the shipments including it, in shipment order. Built on first use, and shared with copies
+    // that share this order's shipments.
+    private volatile Map<String, List<OrderShipmentData>> shipmentsByOrderItemId;
 
     private OrderData() {
     }
 
     /**
-     * Allow setting the orderId after building to match incoming order ID requested.
+     * Returns a view of this order, and of its items, as belonging to the given order ID. Orders can't be changed,
+     * so the view shares everything but the order ID with this order, and this order is left untouched.
      *
-     * @param orderId the new order ID for the data object
+     * @param newOrderId the order ID of the view
+     * @return a view of this order with the given order ID
      */
-    public void setOrderId(String orderId) {
-        this.orderId = orderId;
+    OrderData copyWithOrderId(String newOrderId) {
+        List<OrderItemData> itemViews = new ArrayList<>(customerOrderItemList.size());
+        for (OrderItemData orderItemData : customerOrderItemList) {
+            itemViews.add(orderItemData.copyWithOrderId(newOrderId));
+        }
+
+        OrderData copy = new OrderData();
+        copy.orderId = newOrderId;
+        copy.customerId = customerId;
+        copy.marketplaceId = marketplaceId;
+        copy.condition = condition;
+        copy.customerOrderItemList = itemViews;
+        copy.customerShipments = customerShipments;
+        copy.shipmentsByOrderItemId = shipmentsByOrderItemId;
+        copy.shipOption = shipOption;
+        copy.orderDate = orderDate;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of this order with the given condition, sharing everything else with this order.
+     *
+     * @param newCondition the condition of the copy
+     * @return a copy of this order with the given condition
+     */
+    OrderData copyWithCondition(int newCondition) {
+        OrderData copy = copyWithOrderId(orderId);
+        copy.condition = newCondition;
+        return copy;
     }
 
     /**
-     * Allow replacing order item list for flexibility.
+     * Returns a copy of this order with the given shipments, sharing everything else with this order.
      *
-     * @param customerOrderItemList replacement {@code List<OrderItemData>}
+     * @param newCustomerShipments the shipments of the copy
+     * @return a copy of this order with the given shipments
      */
-    public void setCustomerOrderItemList(List<OrderItemData> customerOrderItemList) {
-        this.customerOrderItemList = customerOrderItemList;
+    OrderData copyWithShipments(List<OrderShipmentData> newCustomerShipments) {
+        OrderData copy = copyWithOrderId(orderId);
+        copy.customerShipments = new ArrayList<>(newCustomerShipments);
+        copy.shipmentsByOrderItemId = null;
+        return copy;
     }
 
     public String getOrderId() {
@@ -64,6 +104,19 @@ public final class OrderData {
         return new ArrayList<>(customerShipments);
     }
 
+    /**
+     * Returns the shipments that include the given order item, in the order getCustomerShipments returns them.
+     * Looks the item up in an index of this order's shipments, built the first time it's needed, so finding every
+     * item's shipments takes time in proportion to the number of items rather than items times shipments.
+     *
+     * @param customerOrderItemId the order item to find the shipments of
+     * @return an unmodifiable list of the shipments including the item; empty if none do
+     */
+    public List<OrderShipmentData> getShipmentsForOrderItem(String customerOrderItemId) {
+        List<OrderShipmentData> shipments = getShipmentsByOrderItemId().get(customerOrderItemId);
+        return null == shipments ? Collections.emptyList() : shipments;
+    }
+
     public String getShipOption() {
         return shipOption;
     }
@@ -72,6 +125,33 @@ public final class OrderData {
         return orderDate;
     }
 
+    /*
+     * Returns the item to shipments index, building it if this is the first time it's needed. Building it twice at
+     * once does no harm: both threads build the same index, and the volatile field publishes it safely.
+     */
+    private Map<String, List<OrderShipmentData>> getShipmentsByOrderItemId() {
+        Map<String, List<OrderShipmentData>> index = shipmentsByOrderItemId;
+        if (null == index) {
+            Map<String, List<OrderShipmentData>> shipmentsByItem = new HashMap<>();
+            for (OrderShipmentData shipment : getCustomerShipments()) {
+                for (OrderShipmentData.CustomerShipmentItemData item : shipment.getCustomerShipmentItemsView()) {
+                    List<OrderShipmentData> itemShipments = shipmentsByItem.get(item.getCustomerOrderItemId());
+                    // a shipment lists an item once, but don't count on it
+                    if (null == itemShipments) {
+                        shipmentsByItem.put(item.getCustomerOrderItemId(), Collections.singletonList(shipment));
+                    } else if (itemShipments.get(itemShipments.size() - 1) != shipment) {
+                        List<OrderShipmentData> moreShipments = new ArrayList<>(itemShipments);
+                        moreShipments.add(shipment);
+                        shipmentsByItem.put(item.getCustomerOrderItemId(), Collections.unmodifiableList(moreShipments));
+                    }
+                }
+            }
+            index = shipmentsByItem;
+            shipmentsByOrderItemId = index;
+        }
+        return index;
+    }
+
     @Override
     public String toString() {
         return "OrderData{"
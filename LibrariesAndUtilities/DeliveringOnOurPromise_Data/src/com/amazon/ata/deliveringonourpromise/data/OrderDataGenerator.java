@@ -19,10 +19,10 @@ final class OrderDataGenerator {
     );
 
     // default values
-    private static final String DEFAULT_MARKETPLACE_ID = "1 - US";
+    static final String DEFAULT_MARKETPLACE_ID = "1 - US";
     // "CLOSED" magic number: 4 ==> OrderCondition.CLOSED
-    private static final int DEFAULT_CONDITION = 4;
-    private static final String DEFAULT_SHIP_OPTION = "second";
+    static final int DEFAULT_CONDITION = 4;
+    static final String DEFAULT_SHIP_OPTION = "second";
 
     // singleton instance
     private static final OrderDataGenerator ORDER_GENERATOR_INSTANCE = new OrderDataGenerator();
@@ -1,13 +1,29 @@
 package com.amazon.ata.deliveringonourpromise.data;
 
+import com.amazon.ata.order.OrderId;
 import com.amazon.ata.string.TextTable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
 
 /**
  * Creates sample Order data and associated Order-Item data that is internally consistent (e.g. order IDs
@@ -24,7 +40,6 @@ import java.util.regex.Pattern;
  * </p>
  */
 public final class OrderDatastore {
-    private static final String ORDER_FORMAT = "\\d{3}-\\d{7}-\\d{7}";
 
     private static final OrderDatastore ORDER_DATASTORE_INSTANCE = new OrderDatastore();
 
@@ -34,16 +49,37 @@ public final class OrderDatastore {
     private final OrderItemDataGenerator orderItemDataGenerator = OrderItemDataGenerator.getGenerator();
     private final OrderFixtureGenerator orderFixtureGenerator = OrderFixtureGenerator.getGenerator();
 
-    // sample data state
-    private boolean isDataPopulated = false;
+    // where the sample orders and fixtures come from
+    private final Supplier<OrderStore> sampleOrdersSupplier;
+    private final Supplier<Map<String, OrderFixture>> orderFixturesSupplier;
 
-    // storage of data created so far
-    private List<OrderData> orderDatasLookup = new ArrayList<>();
-    private Map<String, OrderItemData> orderItemDatasByOrderItemId = new HashMap<>();
-    private Map<String, OrderFixture> orderFixtures = new HashMap<>();
-    private Map<String, OrderItemData> orderFixtureItemData = new HashMap<>();
+    // sample data, built on first use and never modified afterwards. Readers only ever read this reference, so
+    // once it has been published no lookup takes a lock.
+    private volatile Snapshot snapshot;
+    // lookups by customer, ASIN and warehouse, built on first use since building them reads every order
+    private volatile SecondaryIndexes secondaryIndexes;
+    // orders added or changed since the datastore was loaded, which take the place of its own data for their IDs
+    private final ChangedOrders changedOrders = new ChangedOrders();
+    private final List<Consumer<OrderData>> orderChangeListeners = new CopyOnWriteArrayList<>();
+    // per-item tables, by the function computing their values: the codec of every table added, and the tables
+    // built so far. Tables added before the sample data is loaded are built and published along with it, later ones
+    // as they're added. Every change updates the tables in updatedOrderItemTables, which tables join as they're
+    // published in orderItemTables.
+    private final Map<BiFunction<?, ?, ?>, OrderItemTable.Codec<?>> orderItemTableCodecs = new HashMap<>();
+    private final ConcurrentMap<BiFunction<?, ?, ?>, OrderItemTable<?>> orderItemTables = new ConcurrentHashMap<>();
+    private final List<OrderItemTable<?>> updatedOrderItemTables = new CopyOnWriteArrayList<>();
+    // where changes are made durable, if anywhere
+    private volatile OrderChangeLog changeLog;
 
     private OrderDatastore() {
+        this.sampleOrdersSupplier = () -> new ObjectOrderStore(buildDefaultSampleOrders());
+        this.orderFixturesSupplier = orderFixtureGenerator::generateOrderFixtures;
+    }
+
+    private OrderDatastore(Supplier<OrderStore> sampleOrdersSupplier,
+                           Supplier<Map<String, OrderFixture>> orderFixturesSupplier) {
+        this.sampleOrdersSupplier = sampleOrdersSupplier;
+        this.orderFixturesSupplier = orderFixturesSupplier;
     }
 
     /**
@@ -55,49 +91,624 @@ public final class OrderDatastore {
         return ORDER_DATASTORE_INSTANCE;
     }
 
+    /**
+     * Returns a new OrderDatastore whose sample data is numOrders generated orders instead of the default eight,
+     * for load testing. Every order is a pure function of its index, so the same numOrders always produces the
+     * same data. The orders are generated on the common ForkJoinPool on first use. Fixtures are the same as
+     * getDatastore()'s.
+     *
+     * @param numOrders how many distinct orders to generate, at most 10,000,000
+     * @return an OrderDatastore backed by numOrders generated orders
+     */
+    public static OrderDatastore withGeneratedOrders(int numOrders) {
+        return withGeneratedOrders(numOrders, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a new OrderDatastore whose sample data is numOrders generated orders, generated on the given pool.
+     *
+     * @param numOrders how many distinct orders to generate, at most 10,000,000
+     * @param pool the ForkJoinPool to generate the orders on
+     * @return an OrderDatastore backed by numOrders generated orders
+     */
+    public static OrderDatastore withGeneratedOrders(int numOrders, ForkJoinPool pool) {
+        return withGeneratedOrders(numOrders, pool, OrderStorage.OBJECTS);
+    }
+
+    /**
+     * Returns a new OrderDatastore whose sample data is numOrders generated orders, generated on the given pool
+     * and held in memory as the given storage says. COLUMNAR storage lets far more orders fit in the same heap, and
+     * OFF_HEAP or MEMORY_MAPPED storage keeps them out of the heap altogether.
+     *
+     * @param numOrders how many distinct orders to generate, at most 10,000,000
+     * @param pool the ForkJoinPool to generate the orders on
+     * @param storage how to hold the orders in memory
+     * @return an OrderDatastore backed by numOrders generated orders
+     */
+    public static OrderDatastore withGeneratedOrders(int numOrders, ForkJoinPool pool, OrderStorage storage) {
+        if (numOrders < 1 || numOrders > IndexedOrderDataGenerator.MAX_ORDERS) {
+            throw new IllegalArgumentException(String.format(
+                "Number of generated orders must be between 1 and %d, but was %d",
+                IndexedOrderDataGenerator.MAX_ORDERS, numOrders
+            ));
+        }
+
+        Supplier<OrderStore> sampleOrders;
+        switch (storage) {
+            case OBJECTS:
+                sampleOrders = () -> new ObjectOrderStore(
+                    new IndexedOrderDataGenerator().buildOrderDatas(numOrders, pool)
+                );
+                break;
+            case COLUMNAR:
+                sampleOrders = () -> new IndexedOrderDataGenerator()
+                                         .buildPackedOrderStore(numOrders, pool, ColumnarOrderStore::new);
+                break;
+            case OFF_HEAP:
+                sampleOrders = () -> new IndexedOrderDataGenerator()
+                                         .buildPackedOrderStore(numOrders, pool, OffHeapOrderStore::allocateDirect);
+                break;
+            case MEMORY_MAPPED:
+                sampleOrders = () -> new IndexedOrderDataGenerator()
+                                         .buildPackedOrderStore(numOrders, pool, OffHeapOrderStore::mapTempFile);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported order storage: " + storage);
+        }
+
+        return new OrderDatastore(sampleOrders, () -> getDatastore().getOrderFixtures());
+    }
+
+    /**
+     * Returns a new OrderDatastore holding the sample orders and fixtures saved in the given snapshot file by
+     * writeSnapshot. The orders are memory-mapped from the file rather than read in, so loading takes well under a
+     * second even for millions of orders. The snapshot's header and metadata are checked against their checksums;
+     * use verifySnapshot to check the orders too.
+     *
+     * @param file the snapshot file to load
+     * @return an OrderDatastore returning the same data as the one the snapshot was written from
+     * @throws IOException if the file can't be read, isn't a snapshot of a version this class can read, or is
+     *                     damaged
+     */
+    public static OrderDatastore loadSnapshot(Path file) throws IOException {
+        OrderSnapshotFile snapshotFile = OrderSnapshotFile.read(file, false);
+        return new OrderDatastore(snapshotFile::getSampleOrders, snapshotFile::getOrderFixtures);
+    }
+
+    /**
+     * Reads the whole of the given snapshot file, checking every part of it against its checksum. Takes time in
+     * proportion to the size of the snapshot, unlike loadSnapshot.
+     *
+     * @param file the snapshot file to check
+     * @throws IOException if the file can't be read, isn't a snapshot of a version this class can read, or is
+     *                     damaged
+     */
+    public static void verifySnapshot(Path file) throws IOException {
+        OrderSnapshotFile.read(file, true);
+    }
+
     /**
      * Get OrderData for the given order ID. Will return valid data if order ID is well-formed. Otherwise
      * may return data, or may throw IllegalArgumentException.
      *
      * @param orderId The order ID to fetch sample data for
      * @return OrderData object with zero to many OrderItemData entries. orderIds will all be set to orderId.
+     *         Non-fixture orders are a view of the shared sample order carrying orderId.
      */
     public OrderData getOrderData(String orderId) {
-        ensureDataPopulated();
-
         // return null if malformed
-        if (null == orderId || !Pattern.matches(ORDER_FORMAT, orderId)) {
+        long packedOrderId = OrderId.parse(orderId);
+        if (OrderId.INVALID == packedOrderId) {
             return null;
         }
 
-        if (orderFixtures.containsKey(orderId)) {
-            return orderFixtures.get(orderId).getOrderData();
-        }
-
-        OrderData orderData = orderDatasLookup.get(orderIdToIndex(orderId));
-        orderData.setOrderId(orderId);
-        for (OrderItemData itemData : orderData.getCustomerOrderItemList()) {
-            itemData.setOrderId(orderId);
+        OrderData changedOrder = changedOrders.get(orderId);
+        if (changedOrder != null) {
+            return changedOrder;
         }
-
-        return orderData;
+        return getUnchangedOrderData(orderId, packedOrderId);
     }
 
     /**
      * Returns OrderItemData for the given customer order item ID. Will only return non-null if the
-     * given customerOrderItemId corresponds to one of the sample data Orders.
+     * given customerOrderItemId corresponds to one of the sample data Orders. An item of a sample order stands in
+     * for the items of every order ID that maps to the order, so it carries the stand-in order ID that getOrderData
+     * maps back to the same order.
      *
      * @param customerOrderItemId customer order item ID to fetch order-item data for
      * @return OrderItemData corresponding to the given ID if found. Otherwise, returns null
      */
     public OrderItemData getOrderItemData(String customerOrderItemId) {
-        ensureDataPopulated();
+        OrderData changedOrder = changedOrders.findOrderForItem(customerOrderItemId);
+        if (changedOrder != null) {
+            for (OrderItemData orderItemData : changedOrder.getCustomerOrderItemList()) {
+                if (customerOrderItemId.equals(orderItemData.getCustomerOrderItemId())) {
+                    return orderItemData;
+                }
+            }
+        }
+
+        Snapshot data = getSnapshot();
+
+        int fixtureSlot = data.fixtureItemIndex.slotOf(customerOrderItemId);
+        if (fixtureSlot != OrderItemIndex.NO_SLOT) {
+            return data.fixtureItemIndex.getItem(fixtureSlot);
+        }
 
-        if (orderFixtureItemData.containsKey(customerOrderItemId)) {
-            return orderFixtureItemData.get(customerOrderItemId);
+        int itemRow = data.sampleOrders.findOrderItem(customerOrderItemId);
+        if (OrderStore.NO_ROW == itemRow) {
+            return null;
+        }
+
+        int sampleIndex = data.sampleOrders.getOrderRowForItem(itemRow);
+        return data.sampleOrders.getOrderItemData(itemRow, IndexedOrderDataGenerator.orderIdForIndex(sampleIndex));
+    }
+
+    /**
+     * Returns the OrderShipmentData for the shipment containing the given customer order item ID. Like
+     * getOrderItemData, will only return non-null if the order item belongs to one of the sample data Orders.
+     *
+     * @param customerOrderItemId customer order item ID to fetch the shipment for
+     * @return OrderShipmentData for the shipment including the order item if found. Otherwise, returns null
+     */
+    public OrderShipmentData getOrderShipmentDataByOrderItemId(String customerOrderItemId) {
+        OrderData changedOrder = changedOrders.findOrderForItem(customerOrderItemId);
+        if (changedOrder != null) {
+            // an item split across shipments is found in the last of them, as for the datastore's own orders
+            List<OrderShipmentData> shipments = changedOrder.getShipmentsForOrderItem(customerOrderItemId);
+            return shipments.isEmpty() ? null : shipments.get(shipments.size() - 1);
+        }
+
+        Snapshot data = getSnapshot();
+
+        int fixtureSlot = data.fixtureItemIndex.slotOf(customerOrderItemId);
+        if (fixtureSlot != OrderItemIndex.NO_SLOT) {
+            return data.fixtureItemIndex.getShipment(fixtureSlot);
+        }
+
+        int itemRow = data.sampleOrders.findOrderItem(customerOrderItemId);
+        return OrderStore.NO_ROW == itemRow ? null : data.sampleOrders.getOrderShipmentDataForItem(itemRow);
+    }
+
+    /**
+     * Adds the given order to the datastore, replacing the order with the same order ID if there is one. From then
+     * on every lookup returns the added order in its place, including lookups of its items and shipments and the
+     * index lookups. Safe to call while other threads are reading or changing orders. If a change log is open,
+     * returns once the change is on disk.
+     * <p>
+     * Item lookups take only an item ID, so an item can belong to one order only. The order can't include an item
+     * the datastore's own data puts in another order: a fixture's items belong to the fixture, and a sample
+     * order's items to its stand-in order ID (see getOrderItemData), not to the other order IDs sharing it.
+     * </p>
+     *
+     * @param orderData the order to add
+     * @throws IllegalArgumentException if the order or its order ID is malformed, or it includes an item that
+     *                                  belongs to another order
+     * @throws UncheckedIOException if the change couldn't be written to the change log
+     */
+    public void addOrder(OrderData orderData) {
+        if (null == orderData || !OrderId.isValid(orderData.getOrderId())) {
+            throw new IllegalArgumentException("Can't add an order without a well-formed order ID: " + orderData);
+        }
+        String itemOfAnotherOrder = findItemOfAnotherOrder(orderData);
+        if (itemOfAnotherOrder != null) {
+            throw new IllegalArgumentException("Can't add order " + orderData.getOrderId() + " with item "
+                                                   + itemOfAnotherOrder + ", which belongs to order "
+                                                   + getOwnOrderIdForItem(itemOfAnotherOrder));
+        }
+
+        addOrder(orderData, changeLog);
+    }
+
+    /**
+     * Records that the given shipment of the given order shipped at the given time. Readers see either the order
+     * as it was or the order with the shipment shipped, never a mix, and never wait for the change. If a change
+     * log is open, returns once the change is on disk.
+     * <p>
+     * Only orders that own their items can be changed, as addOrder describes: an order ID sharing a sample order
+     * with its stand-in order ID has none of its own, as item lookups find the sample order's items in the
+     * stand-in, so changing it is refused rather than changing the order without its items.
+     * </p>
+     *
+     * @param orderId the order the shipment belongs to
+     * @param shipmentId the shipment that shipped
+     * @param shipDate when the shipment shipped
+     * @return true if the shipment was found and changed, false if there is no such order or shipment, or the
+     *         order doesn't own its items
+     * @throws UncheckedIOException if the change couldn't be written to the change log
+     */
+    public boolean markShipmentShipped(String orderId, String shipmentId, ZonedDateTime shipDate) {
+        if (null == shipDate) {
+            throw new IllegalArgumentException("Ship date must not be null");
         }
+        return markShipmentShipped(orderId, shipmentId, shipDate, changeLog);
+    }
+
+    /**
+     * Records that the given shipment of the given order was delivered at the given time, as
+     * markShipmentShipped records shipping.
+     *
+     * @param orderId the order the shipment belongs to
+     * @param shipmentId the shipment that was delivered
+     * @param deliveryDate when the shipment was delivered
+     * @return true if the shipment was found and changed, false if there is no such order or shipment, or the
+     *         order doesn't own its items
+     * @throws UncheckedIOException if the change couldn't be written to the change log
+     */
+    public boolean markShipmentDelivered(String orderId, String shipmentId, ZonedDateTime deliveryDate) {
+        if (null == deliveryDate) {
+            throw new IllegalArgumentException("Delivery date must not be null");
+        }
+        return markShipmentDelivered(orderId, shipmentId, deliveryDate, changeLog);
+    }
 
-        return orderItemDatasByOrderItemId.get(customerOrderItemId);
+    /**
+     * Changes the condition of the given order, as markShipmentShipped changes a shipment.
+     *
+     * @param orderId the order to change
+     * @param condition the order's new condition
+     * @return true if the order was found and changed, false if there is no such order, or it doesn't own its
+     *         items, as for markShipmentShipped
+     * @throws UncheckedIOException if the change couldn't be written to the change log
+     */
+    public boolean updateOrderCondition(String orderId, int condition) {
+        return updateOrderCondition(orderId, condition, changeLog);
+    }
+
+    /**
+     * Replays the changes in the given write-ahead log, creating it if it doesn't exist, then appends every later
+     * change to it, so that changes survive a crash or restart. Each change method returns only once its change is
+     * on disk, but changes made at the same time from different threads are written together, with one force to
+     * disk between them, so the more threads are changing orders the more changes each force covers. No lookup
+     * sees a change before it's on disk; a change that can't be written is left unmade.
+     * <p>
+     * Open the log on a datastore holding the same orders as the one that wrote it, such as one loaded from the
+     * same snapshot, and before changing any orders. Anything at the end of the log that was only partly written
+     * when the process stopped is dropped.
+     * </p>
+     *
+     * @param file the change log to replay and append to
+     * @throws IOException if the log can't be read or created, or isn't a change log of a version this class can
+     *                     read
+     * @throws IllegalStateException if a change log is already open, or orders have already been changed
+     */
+    public synchronized void openChangeLog(Path file) throws IOException {
+        if (changeLog != null || !changedOrders.isEmpty()) {
+            throw new IllegalStateException("A change log must be opened before any orders are changed, and once");
+        }
+        changeLog = OrderChangeLog.open(file, new ChangeReplayer());
+    }
+
+    /**
+     * Writes any changes not yet on disk to the change log and closes it. Later changes aren't logged; changes
+     * racing with the close may fail with IllegalStateException.
+     *
+     * @throws IOException if the last changes couldn't be written
+     */
+    public synchronized void closeChangeLog() throws IOException {
+        OrderChangeLog log = changeLog;
+        if (log != null) {
+            changeLog = null;
+            log.close();
+        }
+    }
+
+    /**
+     * Registers a listener to be called with every order that addOrder, markShipmentShipped,
+     * markShipmentDelivered or updateOrderCondition changes, after the change is visible to readers. Listeners are
+     * called on the thread that made the change, and should be quick.
+     *
+     * @param listener called with each changed order
+     */
+    public void addOrderChangeListener(Consumer<OrderData> listener) {
+        orderChangeListeners.add(listener);
+    }
+
+    /**
+     * Adds a table of the values the given function computes from each order item and its order, such as the
+     * promise a promise provider makes for each item. The table holds a value for every item, packed into
+     * primitives by the codec, so looking one up is an index read, and the datastore recomputes the values of an
+     * order's items whenever the order changes. Get the table with getOrderItemTable.
+     * <p>
+     * A table added before the datastore's data is loaded is built while loading it, and one added afterwards is
+     * built before this method returns; either way, building reads every order once. Adding a table for the same
+     * function (compared by identity, so pass a constant) again does nothing. The function is called for sample
+     * orders carrying stand-in order IDs, so its values must not depend on the order ID. It's called while an order
+     * is being changed, so it should be quick and must not throw.
+     * </p>
+     *
+     * @param function computes an item's value from the item and its order, or null if the item has none
+     * @param codec packs the function's values into the table and rebuilds them from it
+     * @param <V> the type of value held for each item
+     */
+    public <V> void addOrderItemTable(BiFunction<OrderData, OrderItemData, V> function,
+                                      OrderItemTable.Codec<V> codec) {
+        synchronized (this) {
+            if (orderItemTableCodecs.containsKey(function)) {
+                return;
+            }
+
+            orderItemTableCodecs.put(function, codec);
+            Snapshot data = snapshot;
+            if (data != null) {
+                OrderItemTable<V> table = buildOrderItemTable(function, codec, data);
+                changedOrders.forEachOrder(table::orderChanged, () -> publishOrderItemTable(function, table));
+            }
+        }
+    }
+
+    /**
+     * Returns the table added for the given function by addOrderItemTable, loading the datastore's data if it
+     * hasn't been loaded yet. Never builds a table or waits for one to be built once the data has been loaded.
+     *
+     * @param function the function the table was added for
+     * @param <V> the type of value held for each item
+     * @return the table of the function's values
+     * @throws IllegalArgumentException if no table was added for the function
+     */
+    @SuppressWarnings("unchecked")
+    public <V> OrderItemTable<V> getOrderItemTable(BiFunction<OrderData, OrderItemData, V> function) {
+        getSnapshot();
+        OrderItemTable<?> table = orderItemTables.get(function);
+        if (null == table) {
+            throw new IllegalArgumentException("No order item table was added for " + function);
+        }
+        return (OrderItemTable<V>) table;
+    }
+
+    /*
+     * The order ID the datastore's own data puts the given item in, ignoring any change: its fixture's, or its
+     * sample order's stand-in ID. Null if its own data has no such item.
+     */
+    private String getOwnOrderIdForItem(String customerOrderItemId) {
+        Snapshot data = getSnapshot();
+
+        int fixtureSlot = data.fixtureItemIndex.slotOf(customerOrderItemId);
+        if (fixtureSlot != OrderItemIndex.NO_SLOT) {
+            return data.fixtureItemIndex.getItem(fixtureSlot).getOrderId();
+        }
+
+        int itemRow = data.sampleOrders.findOrderItem(customerOrderItemId);
+        if (OrderStore.NO_ROW == itemRow) {
+            return null;
+        }
+        return IndexedOrderDataGenerator.orderIdForIndex(data.sampleOrders.getOrderRowForItem(itemRow));
+    }
+
+    /*
+     * The first of the order's items that the datastore's own data puts in another order, or null if it owns every
+     * item it includes.
+     */
+    private String findItemOfAnotherOrder(OrderData orderData) {
+        for (OrderItemData orderItemData : orderData.getCustomerOrderItemList()) {
+            String customerOrderItemId = orderItemData.getCustomerOrderItemId();
+            String ownOrderId = null == customerOrderItemId ? null : getOwnOrderIdForItem(customerOrderItemId);
+            if (ownOrderId != null && !ownOrderId.equals(orderData.getOrderId())) {
+                return customerOrderItemId;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * The datastore's own version of an order, ignoring any change to it: the fixture, or a sample order carrying
+     * the requested ID.
+     */
+    private OrderData getUnchangedOrderData(String orderId, long packedOrderId) {
+        Snapshot data = getSnapshot();
+
+        if (data.orderFixtures.containsKey(orderId)) {
+            return data.orderFixtures.get(orderId).getOrderData();
+        }
+
+        // the sample orders are shared by every order ID that maps to them, so hand out a view carrying the
+        // requested ID rather than changing the shared order
+        return data.sampleOrders.getOrderData(orderIdToIndex(packedOrderId, data), orderId);
+    }
+
+    private void addOrder(OrderData orderData, OrderChangeLog log) {
+        changeOrder(orderData.getOrderId(), () -> orderData, current -> orderData, log,
+                    () -> OrderChangeLog.addOrder(orderData));
+    }
+
+    private boolean markShipmentShipped(String orderId, String shipmentId, ZonedDateTime shipDate,
+                                        OrderChangeLog log) {
+        return changeShipment(orderId, shipmentId, shipment -> shipment.copyWithShipDate(shipDate), log,
+                              () -> OrderChangeLog.shipmentShipped(orderId, shipmentId, shipDate));
+    }
+
+    private boolean markShipmentDelivered(String orderId, String shipmentId, ZonedDateTime deliveryDate,
+                                          OrderChangeLog log) {
+        return changeShipment(orderId, shipmentId, shipment -> shipment.copyWithDeliveryDate(deliveryDate), log,
+                              () -> OrderChangeLog.shipmentDelivered(orderId, shipmentId, deliveryDate));
+    }
+
+    private boolean updateOrderCondition(String orderId, int condition, OrderChangeLog log) {
+        return changeOrder(orderId, orderData -> orderData.copyWithCondition(condition), log,
+                           () -> OrderChangeLog.orderCondition(orderId, condition));
+    }
+
+    /*
+     * Changes the shipment with the given ID, if the order has one.
+     */
+    private boolean changeShipment(String orderId, String shipmentId, UnaryOperator<OrderShipmentData> change,
+                                   OrderChangeLog log, Supplier<byte[]> record) {
+        return changeOrder(orderId, orderData -> {
+            List<OrderShipmentData> shipments = orderData.getCustomerShipments();
+            for (int i = 0; i < shipments.size(); i++) {
+                if (matchesKey(shipmentId, shipments.get(i).getShipmentId())) {
+                    shipments.set(i, change.apply(shipments.get(i)));
+                    return orderData.copyWithShipments(shipments);
+                }
+            }
+            return null;
+        }, log, record);
+    }
+
+    private boolean changeOrder(String orderId, UnaryOperator<OrderData> change, OrderChangeLog log,
+                                Supplier<byte[]> record) {
+        long packedOrderId = OrderId.parse(orderId);
+        if (OrderId.INVALID == packedOrderId) {
+            return false;
+        }
+        return changeOrder(orderId, () -> getUnchangedOrderData(orderId, packedOrderId), change, log, record);
+    }
+
+    /*
+     * Replaces the order with the copy change makes of it, atomically with respect to other changes to the same
+     * order. While the order is locked, and before the changed order is published, the change is written to the
+     * log and the per-item tables and secondary indexes are updated, so no reader sees a change that isn't on disk.
+     * If the log can't be written the order is left as it was; the log refuses every later change too (see
+     * OrderChangeLog.commit). Then tells the listeners.
+     */
+    private boolean changeOrder(String orderId, Supplier<OrderData> unchangedOrder, UnaryOperator<OrderData> change,
+                                OrderChangeLog log, Supplier<byte[]> record) {
+        // changes apply on top of the loaded data, and its tables, so load it before the order is locked
+        getSnapshot();
+        OrderData changedOrder = changedOrders.update(orderId, unchangedOrder, orderData -> {
+            OrderData changed = change.apply(orderData);
+            if (changed != null && findItemOfAnotherOrder(changed) != null) {
+                // refused, so that no item is claimed by two orders (see addOrder)
+                return null;
+            }
+            if (changed != null && log != null) {
+                // logged while the order is locked, so each order's changes are logged in the order they're made;
+                // changes to other orders are still written in the same batch while this one waits for the disk
+                try {
+                    log.commit(log.append(record.get()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not log the change to order " + orderId, e);
+                }
+            }
+            if (changed != null) {
+                for (OrderItemTable<?> table : updatedOrderItemTables) {
+                    table.orderChanged(changed);
+                }
+                SecondaryIndexes indexes = secondaryIndexes;
+                if (indexes != null) {
+                    indexChangedOrder(indexes, changed);
+                }
+            }
+            return changed;
+        });
+        if (null == changedOrder) {
+            return false;
+        }
+        notifyOrderChanged(changedOrder);
+        return true;
+    }
+
+    private void notifyOrderChanged(OrderData orderData) {
+        for (Consumer<OrderData> listener : orderChangeListeners) {
+            listener.accept(orderData);
+        }
+    }
+
+    /**
+     * Returns one page of the orders placed by the given customer: sample orders first, in the order they're
+     * stored, then fixtures, by order ID. Like getOrderItemData's items, sample orders carry their stand-in order
+     * IDs.
+     * <p>
+     * Looks the customer up in an index rather than scanning every order. The first call to this method,
+     * getOrderItemDatasByAsin, getOrderShipmentDatasByWarehouseId or the date range lookups builds the indexes,
+     * which reads every order once.
+     * </p>
+     *
+     * @param customerId the customer whose orders to return
+     * @param offset how many of the customer's orders to skip
+     * @param limit the most orders to return
+     * @return up to limit of the customer's orders; empty if the customer has no orders after offset
+     */
+    public List<OrderData> getOrderDatasByCustomerId(String customerId, int offset, int limit) {
+        return getIndexedOrders(offset, limit,
+                                indexes -> IndexRange.of(indexes.ordersByCustomerId, indexes.ordersByCustomerIdDelta,
+                                                         customerId),
+                                (orderData, ordinal) -> orderData);
+    }
+
+    /**
+     * Returns one page of the order items for the given ASIN, across every order, in the same order as
+     * getOrderDatasByCustomerId returns orders. Uses the same indexes.
+     *
+     * @param asin the ASIN whose order items to return
+     * @param offset how many of the ASIN's order items to skip
+     * @param limit the most order items to return
+     * @return up to limit of the ASIN's order items; empty if it has none after offset
+     */
+    public List<OrderItemData> getOrderItemDatasByAsin(String asin, int offset, int limit) {
+        return getIndexedOrders(offset, limit,
+                                indexes -> IndexRange.of(indexes.itemsByAsin, indexes.itemsByAsinDelta, asin),
+                                (orderData, ordinal) -> orderData.getCustomerOrderItemList().get(ordinal));
+    }
+
+    /**
+     * Returns one page of the shipments sent from the given warehouse, across every order, in the same order as
+     * getOrderDatasByCustomerId returns orders. Uses the same indexes.
+     *
+     * @param warehouseId the warehouse whose shipments to return
+     * @param offset how many of the warehouse's shipments to skip
+     * @param limit the most shipments to return
+     * @return up to limit of the warehouse's shipments; empty if it has none after offset
+     */
+    public List<OrderShipmentData> getOrderShipmentDatasByWarehouseId(String warehouseId, int offset, int limit) {
+        return getIndexedOrders(offset, limit,
+                                indexes -> IndexRange.of(indexes.shipmentsByWarehouseId,
+                                                         indexes.shipmentsByWarehouseIdDelta, warehouseId),
+                                (orderData, ordinal) -> orderData.getCustomerShipments().get(ordinal));
+    }
+
+    /**
+     * Returns one page of the orders placed in the given time range, earliest first, carrying order IDs as
+     * getOrderDatasByCustomerId's do. Looks the range up in a sorted index of order dates, built along with the
+     * other indexes, so a narrow window is cheap however many orders there are. Times in any zone may be given.
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @param to the end of the range, exclusive; null for no end
+     * @param offset how many of the range's orders to skip
+     * @param limit the most orders to return
+     * @return up to limit of the orders placed in the range; empty if there are none after offset
+     */
+    public List<OrderData> getOrderDatasByOrderDate(ZonedDateTime from, ZonedDateTime to, int offset, int limit) {
+        return getIndexedOrders(offset, limit,
+                                indexes -> IndexRange.of(indexes.ordersByOrderDate, indexes.ordersByOrderDateDelta,
+                                                         from, to),
+                                (orderData, ordinal) -> orderData);
+    }
+
+    /**
+     * Returns one page of the shipments shipped in the given time range, earliest first. Shipments that haven't
+     * shipped are in no range.
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @param to the end of the range, exclusive; null for no end
+     * @param offset how many of the range's shipments to skip
+     * @param limit the most shipments to return
+     * @return up to limit of the shipments shipped in the range; empty if there are none after offset
+     */
+    public List<OrderShipmentData> getOrderShipmentDatasByShipDate(ZonedDateTime from, ZonedDateTime to, int offset,
+                                                                   int limit) {
+        return getIndexedOrders(offset, limit,
+                                indexes -> IndexRange.of(indexes.shipmentsByShipDate,
+                                                         indexes.shipmentsByShipDateDelta, from, to),
+                                (orderData, ordinal) -> orderData.getCustomerShipments().get(ordinal));
+    }
+
+    /**
+     * Returns one page of the shipments delivered in the given time range, earliest first. Shipments that haven't
+     * been delivered are in no range.
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @param to the end of the range, exclusive; null for no end
+     * @param offset how many of the range's shipments to skip
+     * @param limit the most shipments to return
+     * @return up to limit of the shipments delivered in the range; empty if there are none after offset
+     */
+    public List<OrderShipmentData> getOrderShipmentDatasByDeliveryDate(ZonedDateTime from, ZonedDateTime to,
+                                                                       int offset, int limit) {
+        return getIndexedOrders(offset, limit,
+                                indexes -> IndexRange.of(indexes.shipmentsByDeliveryDate,
+                                                         indexes.shipmentsByDeliveryDateDelta, from, to),
+                                (orderData, ordinal) -> orderData.getCustomerShipments().get(ordinal));
     }
 
     /**
@@ -106,8 +717,7 @@ public final class OrderDatastore {
      * @return the number of distinct order records returnable by the datastore
      */
     public int getNumOrders() {
-        ensureDataPopulated();
-        return orderDatasLookup.size();
+        return getSnapshot().sampleOrders.getNumOrders();
     }
 
     /**
@@ -116,9 +726,21 @@ public final class OrderDatastore {
      * @return Map from order ID : OrderFixture
      */
     public Map<String, OrderFixture> getOrderFixtures() {
-        ensureDataPopulated();
+        return new HashMap<>(getSnapshot().orderFixtures);
+    }
 
-        return new HashMap<>(orderFixtures);
+    /**
+     * Saves this datastore's sample orders and fixtures to a snapshot file that loadSnapshot can load in a later
+     * JVM, instead of generating them again. The file is versioned and checksummed, and is replaced atomically if
+     * it already exists. Orders added or changed since the datastore was loaded aren't saved; keep those in a
+     * change log (see openChangeLog) instead.
+     *
+     * @param file where to write the snapshot
+     * @throws IOException if the snapshot can't be written
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        Snapshot data = getSnapshot();
+        OrderSnapshotFile.write(file, data.sampleOrders, data.orderFixtures);
     }
 
     /**
@@ -127,8 +749,6 @@ public final class OrderDatastore {
      * @return Text table containing all of the order fixtures, including their description and order item IDs
      */
     public String getOrderFixturesTable() {
-        ensureDataPopulated();
-
         Map<String, OrderFixture> orderFixtures = getOrderFixtures();
         List<String> headers = Arrays.asList("ORDER ID",
                                              "# ITEMS",
@@ -177,75 +797,310 @@ public final class OrderDatastore {
     }
 
     /*
-     *  lazily populate orders, their shipments and order items.
+     * Returns the sample data, building it on first use, along with the per-item tables added so far. Double-checked
+     * so that only the very first callers synchronize; after that, readers just read the volatile reference. Every
+     * change loads the data first, so no order has changed yet when the tables are built.
      */
-    private synchronized void ensureDataPopulated() {
-        if (!isDataPopulated) {
-
-            // samples with different numbers of order items
-            orderDatasLookup.add(orderDataGenerator.buildOrderData(1).build());
-            orderDatasLookup.add(orderDataGenerator.buildOrderData(2).build());
-            orderDatasLookup.add(orderDataGenerator.buildOrderData(2).build());
-            orderDatasLookup.add(orderDataGenerator.buildOrderData(2).build());
-            orderDatasLookup.add(orderDataGenerator.buildOrderData(3).build());
-            orderDatasLookup.add(orderDataGenerator.buildOrderData(3).build());
-            orderDatasLookup.add(orderDataGenerator.buildOrderData(4).build());
-            orderDatasLookup.add(orderDataGenerator.buildOrderData(10).build());
+    private Snapshot getSnapshot() {
+        Snapshot data = snapshot;
+        if (null == data) {
+            synchronized (this) {
+                data = snapshot;
+                if (null == data) {
+                    data = buildSnapshot();
+                    buildOrderItemTables(data);
+                    snapshot = data;
+                }
+            }
+        }
+        return data;
+    }
 
-            // fetch and store fixtures
-            orderFixtures.putAll(orderFixtureGenerator.generateOrderFixtures());
+    @SuppressWarnings("unchecked")
+    private void buildOrderItemTables(Snapshot data) {
+        for (Map.Entry<BiFunction<?, ?, ?>, OrderItemTable.Codec<?>> entry : orderItemTableCodecs.entrySet()) {
+            BiFunction<OrderData, OrderItemData, Object> function =
+                (BiFunction<OrderData, OrderItemData, Object>) entry.getKey();
+            publishOrderItemTable(function,
+                                  buildOrderItemTable(function, (OrderItemTable.Codec<Object>) entry.getValue(), data));
+        }
+    }
 
-            // populate order items fixtures lookup
-            for (Map.Entry<String, OrderFixture> orderFixtureEntry : orderFixtures.entrySet()) {
-                // skip any fixtures representing missing orders
-                if (orderFixtureEntry.getValue().getOrderData() == null) {
-                    continue;
-                }
-                for (OrderItemData orderItem : orderFixtureEntry.getValue().getOrderData().getCustomerOrderItemList()) {
-                    orderFixtureItemData.put(orderItem.getCustomerOrderItemId(), orderItem);
+    /*
+     * Returns the secondary indexes, building them on first use, double-checked like getSnapshot. Once built, every
+     * change to an order updates them through indexChangedOrder.
+     */
+    private SecondaryIndexes getSecondaryIndexes() {
+        SecondaryIndexes indexes = secondaryIndexes;
+        if (null == indexes) {
+            synchronized (this) {
+                indexes = secondaryIndexes;
+                if (null == indexes) {
+                    SecondaryIndexes built = buildSecondaryIndexes(getSnapshot());
+                    // orders changed while the indexes were being built are indexed before any change can miss them
+                    changedOrders.forEachOrder(orderData -> indexChangedOrder(built, orderData),
+                                               () -> secondaryIndexes = built);
+                    indexes = built;
                 }
             }
+        }
+        return indexes;
+    }
 
-            // now populate the order items lookup
-            for (OrderData orderData : orderDatasLookup) {
-                for (OrderItemData orderItemData : orderData.getCustomerOrderItemList()) {
-                    orderItemDatasByOrderItemId.put(orderItemData.getCustomerOrderItemId(), orderItemData);
-                }
+    /*
+     * Indexes every sample order, then every fixture order by order ID. Fixture orders are numbered on from the
+     * last sample order, so one order row identifies either.
+     */
+    private SecondaryIndexes buildSecondaryIndexes(Snapshot data) {
+        List<String> fixtureOrderIds = new ArrayList<>(data.orderFixtures.keySet());
+        fixtureOrderIds.sort(String::compareTo);
+        List<OrderData> fixtureOrders = new ArrayList<>();
+        for (String orderId : fixtureOrderIds) {
+            OrderData orderData = data.orderFixtures.get(orderId).getOrderData();
+            if (orderData != null) {
+                fixtureOrders.add(orderData);
             }
+        }
+
+        SecondaryIndex.Builder ordersByCustomerId = SecondaryIndex.builder();
+        SecondaryIndex.Builder itemsByAsin = SecondaryIndex.builder();
+        SecondaryIndex.Builder shipmentsByWarehouseId = SecondaryIndex.builder();
+        TimeIndex.Builder ordersByOrderDate = TimeIndex.builder();
+        TimeIndex.Builder shipmentsByShipDate = TimeIndex.builder();
+        TimeIndex.Builder shipmentsByDeliveryDate = TimeIndex.builder();
+        int numSampleOrders = data.sampleOrders.getNumOrders();
+        for (int orderRow = 0; orderRow < numSampleOrders + fixtureOrders.size(); orderRow++) {
+            OrderData orderData = getIndexedOrder(orderRow, data, fixtureOrders);
 
-            isDataPopulated = true;
+            ordersByCustomerId.add(orderData.getCustomerId(), SecondaryIndex.entry(orderRow, 0));
+            ordersByOrderDate.add(orderData.getOrderDate(), SecondaryIndex.entry(orderRow, 0));
+            List<OrderItemData> orderItems = orderData.getCustomerOrderItemList();
+            for (int ordinal = 0; ordinal < orderItems.size(); ordinal++) {
+                itemsByAsin.add(orderItems.get(ordinal).getAsin(), SecondaryIndex.entry(orderRow, ordinal));
+            }
+            List<OrderShipmentData> shipments = orderData.getCustomerShipments();
+            for (int ordinal = 0; ordinal < shipments.size(); ordinal++) {
+                OrderShipmentData shipment = shipments.get(ordinal);
+                long entry = SecondaryIndex.entry(orderRow, ordinal);
+                shipmentsByWarehouseId.add(shipment.getWarehouseId(), entry);
+                shipmentsByShipDate.add(shipment.getShipDate(), entry);
+                shipmentsByDeliveryDate.add(shipment.getDeliveryDate(), entry);
+            }
         }
+
+        return new SecondaryIndexes(fixtureOrders,
+                                    numSampleOrders,
+                                    ordersByCustomerId.build(),
+                                    itemsByAsin.build(),
+                                    shipmentsByWarehouseId.build(),
+                                    ordersByOrderDate.build(),
+                                    shipmentsByShipDate.build(),
+                                    shipmentsByDeliveryDate.build());
     }
 
     /*
-     * Computes hash for the given orderId. Make it simple, based on the digits after the last '-' in the order
-     * ID, so that one can 'walk' through the sample data by incrementing the order ID suffix.
+     * Builds a per-item table from the datastore's own orders. Orders changed since are left to the caller.
      */
-    private int orderIdToIndex(String orderId) {
-        return getOrderIdSuffixInt(orderId) % orderDatasLookup.size();
+    private <V> OrderItemTable<V> buildOrderItemTable(BiFunction<OrderData, OrderItemData, V> function,
+                                                      OrderItemTable.Codec<V> codec, Snapshot data) {
+        List<OrderData> fixtureOrders = new ArrayList<>();
+        for (OrderFixture orderFixture : data.orderFixtures.values()) {
+            if (orderFixture.getOrderData() != null) {
+                fixtureOrders.add(orderFixture.getOrderData());
+            }
+        }
+
+        return OrderItemTable.build(function, codec, data.sampleOrders, data.fixtureItemIndex, fixtureOrders,
+                                    changedOrders);
     }
 
     /*
-     * Given an order ID, extracts the int after the last hyphen. raises IllegalArgumentException if expected format
-     * not found.
+     * Starts updating a built table as orders change, and hands it out. Called while no order can change.
      */
-    private int getOrderIdSuffixInt(String orderId) {
-        String[] idSegments = orderId.split("-");
+    private void publishOrderItemTable(BiFunction<?, ?, ?> function, OrderItemTable<?> table) {
+        updatedOrderItemTables.add(table);
+        orderItemTables.put(function, table);
+    }
 
-        if (idSegments.length != 3) {
+    /*
+     * Looks a page of entries up in one of the secondary indexes, and picks each entry's order, item or shipment out
+     * of its order. Consecutive entries from the same order share one view of it.
+     *
+     * Changed orders take the place of their entries in the index: those are tombstoned, and skipped by counting the
+     * tombstones before the page, so the page is still found by position. The changed orders' own entries come from
+     * the index's delta, after the index's entries for a key, or merged into them by time for a time range. The
+     * tombstones and changed entries are read from the delta together, once, so every order appears exactly once.
+     */
+    private <T> List<T> getIndexedOrders(int offset, int limit, IndexLookup lookup,
+                                         BiFunction<OrderData, Integer, T> selector) {
+        if (offset < 0 || limit < 0) {
             throw new IllegalArgumentException(String.format(
-                "Expected three segments in order ID '%s', but found %d", orderId, idSegments.length
+                "Offset and limit must not be negative, but were %d and %d", offset, limit
             ));
         }
 
-        String suffix = idSegments[2];
-        if (suffix.length() != 7) {
-            throw new IllegalArgumentException(String.format(
-                "Expected order ID ('%s') suffix to contain 7 digits, but suffix was '%s' instead", orderId, suffix
-            ));
+        SecondaryIndexes indexes = getSecondaryIndexes();
+        return getIndexedOrders(offset, limit, lookup.lookUp(indexes), indexes, selector);
+    }
+
+    private <T, K extends Comparable<K>> List<T> getIndexedOrders(int offset, int limit, IndexRange<K> range,
+                                                                  SecondaryIndexes indexes,
+                                                                  BiFunction<OrderData, Integer, T> selector) {
+        Snapshot data = getSnapshot();
+
+        // how many of the index's live entries come before each changed entry
+        List<IndexDelta.Entry<K>> changedEntries = range.changedEntries;
+        int[] tombstones = range.tombstones;
+        int[] liveEntriesBefore = new int[changedEntries.size()];
+        for (int i = 0; i < liveEntriesBefore.length; i++) {
+            int position = Math.max(range.start, Math.min(range.end, range.changedPosition(changedEntries.get(i))));
+            liveEntriesBefore[i] = position - range.start
+                                       - IndexDelta.countTombstones(tombstones, range.start, position);
+        }
+
+        // skip the changed entries before the page, then as many of the index's live entries as are left to skip
+        int nextChangedEntry = 0;
+        while (nextChangedEntry < liveEntriesBefore.length
+                   && liveEntriesBefore[nextChangedEntry] + nextChangedEntry < offset) {
+            nextChangedEntry++;
+        }
+        int liveEntries = offset - nextChangedEntry;
+        int position = IndexDelta.skipLiveEntries(tombstones, range.start, range.end, liveEntries);
+
+        List<T> results = new ArrayList<>();
+        int lastOrderRow = OrderStore.NO_ROW;
+        OrderData orderData = null;
+        while (results.size() < limit) {
+            if (nextChangedEntry < liveEntriesBefore.length && liveEntriesBefore[nextChangedEntry] <= liveEntries) {
+                IndexDelta.Entry<K> changedEntry = changedEntries.get(nextChangedEntry++);
+                results.add(selector.apply(changedEntry.getOrderData(), changedEntry.getOrdinal()));
+                continue;
+            }
+
+            while (position < range.end && IndexDelta.isTombstone(tombstones, position)) {
+                position++;
+            }
+            if (position >= range.end) {
+                break;
+            }
+
+            long entry = range.index.applyAsLong(position++);
+            int orderRow = SecondaryIndex.orderRowOf(entry);
+            if (orderRow != lastOrderRow) {
+                orderData = getIndexedOrder(orderRow, data, indexes.fixtureOrders);
+                lastOrderRow = orderRow;
+            }
+            results.add(selector.apply(orderData, SecondaryIndex.ordinalOf(entry)));
+            liveEntries++;
+        }
+        return results;
+    }
+
+    /*
+     * Brings the secondary indexes up to date with a change to an order: the first time the order changes, the
+     * index entries of the datastore's own version of it are tombstoned, and every time, the changed entries of its
+     * previous version are replaced with its new version's, in one step per index. Called while the order is locked.
+     */
+    private void indexChangedOrder(SecondaryIndexes indexes, OrderData changedOrder) {
+        String orderId = changedOrder.getOrderId();
+        SecondaryIndexes.IndexChanges changes = indexes.newIndexChanges();
+        OrderData previous = indexes.indexedChangedOrders.put(orderId, changedOrder);
+        if (previous != null) {
+            changes.remove(previous);
+        } else {
+            Snapshot data = getSnapshot();
+            Integer fixtureOrderRow = indexes.fixtureOrderRows.get(orderId);
+            if (fixtureOrderRow != null) {
+                changes.tombstone(fixtureOrderRow, getIndexedOrder(fixtureOrderRow, data, indexes.fixtureOrders));
+            }
+            long packedOrderId = OrderId.parse(orderId);
+            if (packedOrderId != OrderId.INVALID) {
+                int sampleOrderRow = orderIdToIndex(packedOrderId, data);
+                // the index holds sample orders under their stand-in order IDs, so only those replace them
+                if (IndexedOrderDataGenerator.orderIdForIndex(sampleOrderRow).equals(orderId)) {
+                    changes.tombstone(sampleOrderRow, getIndexedOrder(sampleOrderRow, data, indexes.fixtureOrders));
+                }
+            }
+        }
+        changes.add(changedOrder);
+        changes.apply();
+    }
+
+    /*
+     * Whether value is the given key. Null keys match nothing, as the indexes don't index null values.
+     */
+    private static boolean matchesKey(String key, String value) {
+        return key != null && key.equals(value);
+    }
+
+
+    /*
+     * A time as the time indexes key it, or null for no time.
+     */
+    private static Long toEpochNanos(ZonedDateTime time) {
+        return null == time ? null : TimeIndex.toEpochNanos(time);
+    }
+
+    /*
+     * Returns the order with the given secondary index order row: a sample order, carrying its stand-in order ID,
+     * or a fixture order.
+     */
+    private OrderData getIndexedOrder(int orderRow, Snapshot data, List<OrderData> fixtureOrders) {
+        int numSampleOrders = data.sampleOrders.getNumOrders();
+        if (orderRow >= numSampleOrders) {
+            return fixtureOrders.get(orderRow - numSampleOrders);
+        }
+        return data.sampleOrders.getOrderData(orderRow, IndexedOrderDataGenerator.orderIdForIndex(orderRow));
+    }
+
+    /*
+     *  populate orders, their shipments and order items.
+     */
+    private Snapshot buildSnapshot() {
+        OrderStore sampleOrders = sampleOrdersSupplier.get();
+        Map<String, OrderFixture> orderFixtures = new HashMap<>();
+        OrderItemIndex fixtureItemIndex = new OrderItemIndex(0);
+
+        // fetch and store fixtures
+        orderFixtures.putAll(orderFixturesSupplier.get());
+
+        // populate order items fixtures lookup
+        for (Map.Entry<String, OrderFixture> orderFixtureEntry : orderFixtures.entrySet()) {
+            // skip any fixtures representing missing orders
+            if (orderFixtureEntry.getValue().getOrderData() == null) {
+                continue;
+            }
+            for (OrderItemData orderItem : orderFixtureEntry.getValue().getOrderData().getCustomerOrderItemList()) {
+                fixtureItemIndex.add(orderItem, OrderItemIndex.FIXTURE_ITEM);
+            }
+            fixtureItemIndex.addShipments(orderFixtureEntry.getValue().getOrderData());
         }
 
-        return Integer.parseInt(suffix);
+        return new Snapshot(sampleOrders, fixtureItemIndex, orderFixtures);
+    }
+
+    /*
+     * The default sample orders: eight orders with different numbers of order items.
+     */
+    private List<OrderData> buildDefaultSampleOrders() {
+        List<OrderData> orderDatas = new ArrayList<>();
+        orderDatas.add(orderDataGenerator.buildOrderData(1).build());
+        orderDatas.add(orderDataGenerator.buildOrderData(2).build());
+        orderDatas.add(orderDataGenerator.buildOrderData(2).build());
+        orderDatas.add(orderDataGenerator.buildOrderData(2).build());
+        orderDatas.add(orderDataGenerator.buildOrderData(3).build());
+        orderDatas.add(orderDataGenerator.buildOrderData(3).build());
+        orderDatas.add(orderDataGenerator.buildOrderData(4).build());
+        orderDatas.add(orderDataGenerator.buildOrderData(10).build());
+        return orderDatas;
+    }
+
+    /*
+     * Computes hash for the given orderId. Make it simple, based on the digits after the last '-' in the order
+     * ID, so that one can 'walk' through the sample data by incrementing the order ID suffix.
+     */
+    private int orderIdToIndex(long packedOrderId, Snapshot data) {
+        return OrderId.getSuffix(packedOrderId) % data.sampleOrders.getNumOrders();
     }
 
     /*
@@ -400,8 +1255,242 @@ public final class OrderDatastore {
         }
     }
 
+    /*
+     * Lookups by something other than order or order item ID. Order rows past the last sample order are fixture
+     * orders.
+     */
+    private static final class SecondaryIndexes {
+        // fixture orders that exist, by order ID, and each one's order row
+        private final List<OrderData> fixtureOrders;
+        private final Map<String, Integer> fixtureOrderRows = new HashMap<>();
+        private final SecondaryIndex ordersByCustomerId;
+        private final SecondaryIndex itemsByAsin;
+        private final SecondaryIndex shipmentsByWarehouseId;
+        private final TimeIndex ordersByOrderDate;
+        private final TimeIndex shipmentsByShipDate;
+        private final TimeIndex shipmentsByDeliveryDate;
+        // what has changed in each index since it was built, and the version of each changed order indexed there
+        private final IndexDelta<String> ordersByCustomerIdDelta = new IndexDelta<>();
+        private final IndexDelta<String> itemsByAsinDelta = new IndexDelta<>();
+        private final IndexDelta<String> shipmentsByWarehouseIdDelta = new IndexDelta<>();
+        private final IndexDelta<Long> ordersByOrderDateDelta = new IndexDelta<>();
+        private final IndexDelta<Long> shipmentsByShipDateDelta = new IndexDelta<>();
+        private final IndexDelta<Long> shipmentsByDeliveryDateDelta = new IndexDelta<>();
+        private final ConcurrentMap<String, OrderData> indexedChangedOrders = new ConcurrentHashMap<>();
+
+        private SecondaryIndexes(List<OrderData> fixtureOrders,
+                                 int firstFixtureOrderRow,
+                                 SecondaryIndex ordersByCustomerId,
+                                 SecondaryIndex itemsByAsin,
+                                 SecondaryIndex shipmentsByWarehouseId,
+                                 TimeIndex ordersByOrderDate,
+                                 TimeIndex shipmentsByShipDate,
+                                 TimeIndex shipmentsByDeliveryDate) {
+            this.fixtureOrders = Collections.unmodifiableList(fixtureOrders);
+            this.ordersByCustomerId = ordersByCustomerId;
+            this.itemsByAsin = itemsByAsin;
+            this.shipmentsByWarehouseId = shipmentsByWarehouseId;
+            this.ordersByOrderDate = ordersByOrderDate;
+            this.shipmentsByShipDate = shipmentsByShipDate;
+            this.shipmentsByDeliveryDate = shipmentsByDeliveryDate;
+            for (int i = 0; i < fixtureOrders.size(); i++) {
+                fixtureOrderRows.put(fixtureOrders.get(i).getOrderId(), firstFixtureOrderRow + i);
+            }
+        }
+
+        private IndexChanges newIndexChanges() {
+            return new IndexChanges();
+        }
+
+        /*
+         * The changes one change to an order makes to each of the indexes, gathered up and then applied to each
+         * index's delta in one step.
+         */
+        private final class IndexChanges {
+            private final IndexDelta.Change<String> ordersByCustomerIdChange = new IndexDelta.Change<>();
+            private final IndexDelta.Change<String> itemsByAsinChange = new IndexDelta.Change<>();
+            private final IndexDelta.Change<String> shipmentsByWarehouseIdChange = new IndexDelta.Change<>();
+            private final IndexDelta.Change<Long> ordersByOrderDateChange = new IndexDelta.Change<>();
+            private final IndexDelta.Change<Long> shipmentsByShipDateChange = new IndexDelta.Change<>();
+            private final IndexDelta.Change<Long> shipmentsByDeliveryDateChange = new IndexDelta.Change<>();
+
+            /*
+             * Tombstones every index entry of the datastore's own version of an order, at the given order row.
+             */
+            private void tombstone(int orderRow, OrderData orderData) {
+                long orderEntry = SecondaryIndex.entry(orderRow, 0);
+                tombstone(ordersByCustomerIdChange, ordersByCustomerId.positionOf(orderData.getCustomerId(),
+                                                                                  orderEntry));
+                tombstone(ordersByOrderDateChange, ordersByOrderDate.positionOf(orderData.getOrderDate(),
+                                                                                orderEntry));
+                List<OrderItemData> orderItems = orderData.getCustomerOrderItemList();
+                for (int ordinal = 0; ordinal < orderItems.size(); ordinal++) {
+                    long entry = SecondaryIndex.entry(orderRow, ordinal);
+                    tombstone(itemsByAsinChange, itemsByAsin.positionOf(orderItems.get(ordinal).getAsin(), entry));
+                }
+                List<OrderShipmentData> shipments = orderData.getCustomerShipments();
+                for (int ordinal = 0; ordinal < shipments.size(); ordinal++) {
+                    OrderShipmentData shipment = shipments.get(ordinal);
+                    long entry = SecondaryIndex.entry(orderRow, ordinal);
+                    tombstone(shipmentsByWarehouseIdChange,
+                              shipmentsByWarehouseId.positionOf(shipment.getWarehouseId(), entry));
+                    tombstone(shipmentsByShipDateChange,
+                              shipmentsByShipDate.positionOf(shipment.getShipDate(), entry));
+                    tombstone(shipmentsByDeliveryDateChange,
+                              shipmentsByDeliveryDate.positionOf(shipment.getDeliveryDate(), entry));
+                }
+            }
+
+            private void add(OrderData orderData) {
+                ordersByCustomerIdChange.add(orderData.getCustomerId(), orderData, 0);
+                ordersByOrderDateChange.add(toEpochNanos(orderData.getOrderDate()), orderData, 0);
+                List<OrderItemData> orderItems = orderData.getCustomerOrderItemList();
+                for (int ordinal = 0; ordinal < orderItems.size(); ordinal++) {
+                    itemsByAsinChange.add(orderItems.get(ordinal).getAsin(), orderData, ordinal);
+                }
+                List<OrderShipmentData> shipments = orderData.getCustomerShipments();
+                for (int ordinal = 0; ordinal < shipments.size(); ordinal++) {
+                    OrderShipmentData shipment = shipments.get(ordinal);
+                    shipmentsByWarehouseIdChange.add(shipment.getWarehouseId(), orderData, ordinal);
+                    shipmentsByShipDateChange.add(toEpochNanos(shipment.getShipDate()), orderData, ordinal);
+                    shipmentsByDeliveryDateChange.add(toEpochNanos(shipment.getDeliveryDate()), orderData, ordinal);
+                }
+            }
+
+            private void remove(OrderData orderData) {
+                ordersByCustomerIdChange.remove(orderData.getCustomerId(), orderData, 0);
+                ordersByOrderDateChange.remove(toEpochNanos(orderData.getOrderDate()), orderData, 0);
+                List<OrderItemData> orderItems = orderData.getCustomerOrderItemList();
+                for (int ordinal = 0; ordinal < orderItems.size(); ordinal++) {
+                    itemsByAsinChange.remove(orderItems.get(ordinal).getAsin(), orderData, ordinal);
+                }
+                List<OrderShipmentData> shipments = orderData.getCustomerShipments();
+                for (int ordinal = 0; ordinal < shipments.size(); ordinal++) {
+                    OrderShipmentData shipment = shipments.get(ordinal);
+                    shipmentsByWarehouseIdChange.remove(shipment.getWarehouseId(), orderData, ordinal);
+                    shipmentsByShipDateChange.remove(toEpochNanos(shipment.getShipDate()), orderData, ordinal);
+                    shipmentsByDeliveryDateChange.remove(toEpochNanos(shipment.getDeliveryDate()), orderData,
+                                                         ordinal);
+                }
+            }
+
+            private void apply() {
+                ordersByCustomerIdDelta.apply(ordersByCustomerIdChange);
+                itemsByAsinDelta.apply(itemsByAsinChange);
+                shipmentsByWarehouseIdDelta.apply(shipmentsByWarehouseIdChange);
+                ordersByOrderDateDelta.apply(ordersByOrderDateChange);
+                shipmentsByShipDateDelta.apply(shipmentsByShipDateChange);
+                shipmentsByDeliveryDateDelta.apply(shipmentsByDeliveryDateChange);
+            }
+
+            private void tombstone(IndexDelta.Change<?> change, int position) {
+                if (position >= 0) {
+                    change.tombstone(position);
+                }
+            }
+        }
+    }
+
+    /*
+     * Applies the changes replayed from a change log, without logging them again.
+     */
+    private final class ChangeReplayer implements OrderChangeLog.ChangeHandler {
+        @Override
+        public void addOrder(OrderData orderData) {
+            OrderDatastore.this.addOrder(orderData, null);
+        }
+
+        @Override
+        public void markShipmentShipped(String orderId, String shipmentId, ZonedDateTime shipDate) {
+            OrderDatastore.this.markShipmentShipped(orderId, shipmentId, shipDate, null);
+        }
+
+        @Override
+        public void markShipmentDelivered(String orderId, String shipmentId, ZonedDateTime deliveryDate) {
+            OrderDatastore.this.markShipmentDelivered(orderId, shipmentId, deliveryDate, null);
+        }
+
+        @Override
+        public void updateOrderCondition(String orderId, int condition) {
+            OrderDatastore.this.updateOrderCondition(orderId, condition, null);
+        }
+    }
+
+    /*
+     * Finds the range of entries a lookup reads in one of the secondary indexes.
+     */
+    @FunctionalInterface
+    private interface IndexLookup {
+        IndexRange<?> lookUp(SecondaryIndexes indexes);
+    }
+
+    /*
+     * The entries one lookup reads from a secondary index: the index's entries at positions [start, end), less the
+     * tombstoned ones, and the changed orders' entries with the same key or in the same time range, each of which
+     * goes before the index entry at changedPositions' position for its key. The tombstones and changed entries come
+     * from one view of the index's delta.
+     */
+    private static final class IndexRange<K extends Comparable<K>> {
+        private final IntToLongFunction index;
+        private final int start;
+        private final int end;
+        private final int[] tombstones;
+        private final List<IndexDelta.Entry<K>> changedEntries;
+        private final ToIntFunction<K> changedPositions;
+
+        private IndexRange(IntToLongFunction index, int start, int end, IndexDelta.View<K> changes,
+                           ToIntFunction<K> changedPositions) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+            this.tombstones = changes.getTombstones();
+            this.changedEntries = changes.getChangedEntries();
+            this.changedPositions = changedPositions;
+        }
+
+        /*
+         * A key's entries. Its changed entries go after the index's.
+         */
+        private static IndexRange<String> of(SecondaryIndex index, IndexDelta<String> delta, String key) {
+            int end = index.endOf(key);
+            return new IndexRange<>(index::entryAt, index.startOf(key), end, delta.view(key), changedKey -> end);
+        }
+
+        /*
+         * The entries in a time range. Its changed entries go after the index's entries with the same time.
+         */
+        private static IndexRange<Long> of(TimeIndex index, IndexDelta<Long> delta, ZonedDateTime from,
+                                           ZonedDateTime to) {
+            return new IndexRange<>(index::entryAt, index.startOf(from), index.endOf(to),
+                                    delta.view(toEpochNanos(from), toEpochNanos(to)), index::positionAfter);
+        }
+
+        private int changedPosition(IndexDelta.Entry<K> changedEntry) {
+            return changedPositions.applyAsInt(changedEntry.getKey());
+        }
+    }
+
+
     private enum ConfidenceStatus {
         POSITIVE, NEGATIVE, UNTRACKED;
     }
 
+    /*
+     * All of the datastore's lookups, held in final fields (and never modified once built) so that any thread that
+     * sees the Snapshot reference also sees fully built lookups. Reads never write to it.
+     */
+    private static final class Snapshot {
+        private final OrderStore sampleOrders;
+        // fixture items are looked up here first, so they win over any sample item with the same ID
+        private final OrderItemIndex fixtureItemIndex;
+        private final Map<String, OrderFixture> orderFixtures;
+
+        private Snapshot(OrderStore sampleOrders,
+                         OrderItemIndex fixtureItemIndex,
+                         Map<String, OrderFixture> orderFixtures) {
+            this.sampleOrders = sampleOrders;
+            this.fixtureItemIndex = fixtureItemIndex;
+            this.orderFixtures = Collections.unmodifiableMap(orderFixtures);
+        }
+    }
 }
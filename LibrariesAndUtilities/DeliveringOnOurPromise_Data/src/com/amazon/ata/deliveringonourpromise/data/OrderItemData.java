@@ -1,46 +1,49 @@
 package com.amazon.ata.deliveringonourpromise.data;
 
 import java.time.ZonedDateTime;
+import java.util.Objects;
 
 /**
- * Data object from shared data provider that represents an Order item from an Order.
+ * Data object from shared data provider that represents an Order item from an Order. Items can't be changed once
+ * built, so they're safe to share between threads, and an item handed out as belonging to another order ID is a
+ * view sharing everything else with the original.
  *
  * @see OrderDatastore
  * @see OrderData
  */
 public final class OrderItemData {
-    private String customerOrderItemId;
-    private int quantity;
-    private ZonedDateTime approvalDate;
-    private String orderId;
-    private String merchantId;
-    private String asin;
-    private String supplyCode;
-    private String title;
-    private ZonedDateTime supplyCodeDate;
-    private boolean isConfidenceTracked;
-    private int confidence;
-
-    private OrderItemData() {}
+    private final String orderId;
+    // everything but the order ID, shared by every order ID's view of the item
+    private final Values values;
+
+    private OrderItemData(String orderId, Values values) {
+        this.orderId = orderId;
+        this.values = values;
+    }
 
     /**
-     * Sets the order ID, allowing overwriting to match the requested order ID.
-     * @param orderId The new order ID
+     * Returns a view of this item as belonging to the given order ID. Items can't be changed, so the view shares
+     * everything else with this item, and this item is left untouched.
+     * @param newOrderId The order ID of the view
+     * @return this item if it already belongs to newOrderId, otherwise a view of it with the given order ID
      */
-    public void setOrderId(String orderId) {
-        this.orderId = orderId;
+    OrderItemData copyWithOrderId(String newOrderId) {
+        if (Objects.equals(orderId, newOrderId)) {
+            return this;
+        }
+        return new OrderItemData(newOrderId, values);
     }
 
     public String getCustomerOrderItemId() {
-        return customerOrderItemId;
+        return values.customerOrderItemId;
     }
 
     public int getQuantity() {
-        return quantity;
+        return values.quantity;
     }
 
     public ZonedDateTime getApprovalDate() {
-        return approvalDate;
+        return values.approvalDate;
     }
 
     public String getOrderId() {
@@ -48,53 +51,63 @@ public final class OrderItemData {
     }
 
     public String getMerchantId() {
-        return merchantId;
+        return values.merchantId;
     }
 
     public String getAsin() {
-        return asin;
+        return values.asin;
     }
 
     public String getSupplyCode() {
-        return supplyCode;
+        return values.supplyCode;
     }
 
     public String getTitle() {
-        return title;
+        return values.title;
     }
 
     public ZonedDateTime getSupplyCodeDate() {
-        return supplyCodeDate;
+        return values.supplyCodeDate;
     }
 
     public boolean isConfidenceTracked() {
-        return isConfidenceTracked;
+        return values.isConfidenceTracked;
     }
 
-    public void setConfidenceTracked(final boolean confidenceTracked) {
-        isConfidenceTracked = confidenceTracked;
+    public int getConfidence() {
+        return values.confidence;
     }
 
-    public int getConfidence() {
-        return confidence;
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        OrderItemData that = (OrderItemData) o;
+        return Objects.equals(orderId, that.orderId)
+               && (values == that.values || values.equals(that.values));
     }
 
-    public void setConfidence(final int confidence) {
-        this.confidence = confidence;
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(orderId) + values.hashCode();
     }
 
     @Override
     public String toString() {
         return "OrderItemData{"
-               + "customerOrderItemId='" + customerOrderItemId + '\''
-               + ", quantity=" + quantity
-               + ", approvalDate=" + approvalDate
+               + "customerOrderItemId='" + values.customerOrderItemId + '\''
+               + ", quantity=" + values.quantity
+               + ", approvalDate=" + values.approvalDate
                + ", orderId='" + orderId + '\''
-               + ", merchantId='" + merchantId + '\''
-               + ", asin='" + asin + '\''
-               + ", supplyCode='" + supplyCode + '\''
-               + ", title='" + title + '\''
-               + ", supplyCodeDate=" + supplyCodeDate
+               + ", merchantId='" + values.merchantId + '\''
+               + ", asin='" + values.asin + '\''
+               + ", supplyCode='" + values.supplyCode + '\''
+               + ", title='" + values.title + '\''
+               + ", supplyCodeDate=" + values.supplyCodeDate
                + '}';
     }
 
@@ -186,21 +199,63 @@ public final class OrderItemData {
          * @return populated OrderItemData object
          */
         public OrderItemData build() {
-            OrderItemData data = new OrderItemData();
-
-            data.customerOrderItemId = customerOrderItemId;
-            data.quantity = quantity;
-            data.approvalDate = approvalDate;
-            data.orderId = orderId;
-            data.merchantId = merchantId;
-            data.asin = asin;
-            data.supplyCode = supplyCode;
-            data.title = title;
-            data.supplyCodeDate = supplyCodeDate;
-            data.isConfidenceTracked = isConfidenceTracked;
-            data.confidence = confidence;
-
-            return data;
+            Values values = new Values();
+
+            values.customerOrderItemId = customerOrderItemId;
+            values.quantity = quantity;
+            values.approvalDate = approvalDate;
+            values.merchantId = merchantId;
+            values.asin = asin;
+            values.supplyCode = supplyCode;
+            values.title = title;
+            values.supplyCodeDate = supplyCodeDate;
+            values.isConfidenceTracked = isConfidenceTracked;
+            values.confidence = confidence;
+
+            return new OrderItemData(orderId, values);
+        }
+    }
+
+    /*
+     * An item's fields other than its order ID. Set once, by the Builder, before the item is published.
+     */
+    private static final class Values {
+        private String customerOrderItemId;
+        private int quantity;
+        private ZonedDateTime approvalDate;
+        private String merchantId;
+        private String asin;
+        private String supplyCode;
+        private String title;
+        private ZonedDateTime supplyCodeDate;
+        private boolean isConfidenceTracked;
+        private int confidence;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Values that = (Values) o;
+            return quantity == that.quantity
+                   && isConfidenceTracked == that.isConfidenceTracked
+                   && confidence == that.confidence
+                   && Objects.equals(customerOrderItemId, that.customerOrderItemId)
+                   && Objects.equals(approvalDate, that.approvalDate)
+                   && Objects.equals(merchantId, that.merchantId)
+                   && Objects.equals(asin, that.asin)
+                   && Objects.equals(supplyCode, that.supplyCode)
+                   && Objects.equals(title, that.title)
+                   && Objects.equals(supplyCodeDate, that.supplyCodeDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(customerOrderItemId, quantity, approvalDate, merchantId, asin, supplyCode, title,
+                                supplyCodeDate, isConfidenceTracked, confidence);
         }
     }
 }
@@ -15,8 +15,8 @@ import java.util.Random;
  */
 final class OrderItemDataGenerator {
     // default values
-    private static final int DEFAULT_QUANTITY = 1;
-    private static final String DEFAULT_SUPPLY_CODE = "65";
+    static final int DEFAULT_QUANTITY = 1;
+    static final String DEFAULT_SUPPLY_CODE = "65";
 
     // singleton instance
     private static final OrderItemDataGenerator ORDER_ITEM_GENERATOR_INSTANCE = new OrderItemDataGenerator();
@@ -63,6 +63,19 @@ final class OrderItemDataGenerator {
                    .withConfidence(createConfidence(asin));
     }
 
+    /*
+     * Returns the ASINs items are drawn from, in the order buildOrderItemData rotates through them. The ASIN
+     * lookups are never modified after construction, so these are safe to call from any thread.
+     */
+    List<String> getAsins() {
+        return new ArrayList<>(asinTitles);
+    }
+
+    /* Returns the product title for one of the ASINs returned by getAsins */
+    String getTitleForAsin(String asin) {
+        return createItemTitleForAsin(asin);
+    }
+
     /*
      * Creates a List of one-entry maps from ASIN -> product title (for selecting ASIN/titles),
      * and creates a single lookup Map from ASIN -> title for finding the title to match a given ASIN.
@@ -124,11 +137,11 @@ final class OrderItemDataGenerator {
         return currentItemSupplyCodeDate;
     }
 
-    private boolean createIsConfidenceTracked(String asin) {
+    boolean createIsConfidenceTracked(String asin) {
         return asin.matches(CONFIDENCE_TRACKING_PATTERN);
     }
 
-    private int createConfidence(String asin) {
+    int createConfidence(String asin) {
         if (asin.matches(CONFIDENCE_TRACKING_PATTERN)) {
             return new Random((int) asin.charAt(2)).nextInt(201) - 100;
         } else {
@@ -0,0 +1,150 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The OrderDatastore's lookup from customer order item ID to the item, the sample order it belongs to and the
+ * shipment it ships in.
+ *
+ * Each item gets a slot in a set of flat arrays. Order item IDs are 14-digit numbers, so they are parsed to a
+ * long and found through a LongIntHashIndex, without hashing the String or boxing anything. IDs that aren't
+ * plain numbers fall back to a String-keyed map.
+ *
+ * Not thread safe while being built; safe to read from any number of threads once safely published.
+ */
+final class OrderItemIndex {
+    /** Returned by slotOf when the item isn't indexed. */
+    static final int NO_SLOT = -1;
+    /** Sample index recorded for items that belong to a fixture rather than a sample order. */
+    static final int FIXTURE_ITEM = -1;
+
+    // the most digits that always fit in a long
+    private static final int MAX_NUMERIC_ID_LENGTH = 18;
+
+    private final LongIntHashIndex slotsByNumericId;
+    private final Map<String, Integer> slotsByOtherId = new HashMap<>();
+
+    private OrderItemData[] items;
+    private int[] sampleIndexes;
+    private OrderShipmentData[] shipments;
+    private int size;
+
+    /**
+     * Creates an index sized for about expectedSize items.
+     *
+     * @param expectedSize the number of items expected to be added
+     */
+    OrderItemIndex(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        slotsByNumericId = new LongIntHashIndex(capacity);
+        items = new OrderItemData[capacity];
+        sampleIndexes = new int[capacity];
+        shipments = new OrderShipmentData[capacity];
+    }
+
+    /**
+     * Adds an item, unless an item with the same ID has already been added.
+     *
+     * @param item the item to add
+     * @param sampleIndex index of the sample order the item belongs to, or FIXTURE_ITEM
+     */
+    void add(OrderItemData item, int sampleIndex) {
+        String orderItemId = item.getCustomerOrderItemId();
+        if (slotOf(orderItemId) != NO_SLOT) {
+            return;
+        }
+
+        if (size == items.length) {
+            int newCapacity = items.length * 2;
+            items = Arrays.copyOf(items, newCapacity);
+            sampleIndexes = Arrays.copyOf(sampleIndexes, newCapacity);
+            shipments = Arrays.copyOf(shipments, newCapacity);
+        }
+
+        int slot = size++;
+        items[slot] = item;
+        sampleIndexes[slot] = sampleIndex;
+
+        long numericId = parseNumericId(orderItemId);
+        if (numericId >= 0) {
+            slotsByNumericId.put(numericId, slot);
+        } else {
+            slotsByOtherId.put(orderItemId, slot);
+        }
+    }
+
+    /**
+     * Records the shipment of every item in the given order.
+     *
+     * @param orderData the order whose items' shipments to record
+     */
+    void addShipments(OrderData orderData) {
+        for (OrderShipmentData shipment : orderData.getCustomerShipments()) {
+            for (OrderShipmentData.CustomerShipmentItemData shipmentItem : shipment.getCustomerShipmentItems()) {
+                int slot = slotOf(shipmentItem.getCustomerOrderItemId());
+                if (slot != NO_SLOT) {
+                    shipments[slot] = shipment;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of the item with the given ID.
+     *
+     * @param orderItemId the customer order item ID
+     * @return the item's slot, or NO_SLOT if it isn't indexed
+     */
+    int slotOf(String orderItemId) {
+        if (null == orderItemId) {
+            return NO_SLOT;
+        }
+
+        long numericId = parseNumericId(orderItemId);
+        if (numericId >= 0) {
+            return slotsByNumericId.get(numericId);
+        }
+
+        Integer slot = slotsByOtherId.get(orderItemId);
+        return null == slot ? NO_SLOT : slot;
+    }
+
+    OrderItemData getItem(int slot) {
+        return items[slot];
+    }
+
+    int getSampleIndex(int slot) {
+        return sampleIndexes[slot];
+    }
+
+    OrderShipmentData getShipment(int slot) {
+        return shipments[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /*
+     * Parses an ID made only of digits, with no leading zero, into a long. Any other ID returns -1, so that each
+     * numeric key corresponds to exactly one String.
+     */
+    static long parseNumericId(String orderItemId) {
+        int length = orderItemId.length();
+        if (0 == length || length > MAX_NUMERIC_ID_LENGTH || (orderItemId.charAt(0) == '0' && length > 1)) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = orderItemId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
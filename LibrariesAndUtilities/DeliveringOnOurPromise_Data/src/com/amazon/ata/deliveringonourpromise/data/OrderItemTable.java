@@ -0,0 +1,254 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+/**
+ * A value computed from each order item and its order, such as the promise a promise provider makes for the item,
+ * materialized for every item in an OrderDatastore so that looking one up is an index read rather than a
+ * computation. Register one with OrderDatastore.addOrderItemTable and get it from OrderDatastore.getOrderItemTable,
+ * which keeps it up to date as orders change.
+ *
+ * Each value is packed by a Codec into one date and a set of flags. Items of the datastore's own orders have
+ * theirs in flat primitive arrays (epoch seconds, nanoseconds, zone codes and flags), by the same item rows and
+ * fixture slots the datastore finds the items by, so the table holds no object per item; the value is rebuilt on
+ * every get. Items of changed orders have their values in a map, replaced whenever their order changes. Sample
+ * orders stand in for many order IDs, so the function computing the values must not depend on the order ID.
+ *
+ * Safe to read from any number of threads.
+ *
+ * @param <V> the type of value held for each item
+ */
+public final class OrderItemTable<V> {
+    // set in the stored flags of every item that has a value, so Codec flags can use every other bit
+    private static final int HAS_VALUE = 1 << 31;
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    // zone codes are stored in a byte each, read back as unsigned
+    private static final int MAX_ZONES = 256;
+
+    private final BiFunction<OrderData, OrderItemData, V> function;
+    private final Codec<V> codec;
+    private final OrderStore sampleOrders;
+    private final OrderItemIndex fixtureItemIndex;
+    private final ChangedOrders changedOrders;
+    // values of the datastore's own items, by sample item row and by fixture item slot
+    private final Columns sampleValues;
+    private final Columns fixtureValues;
+    // values of the items of changed orders, by order item ID
+    private final ConcurrentMap<String, V> changedValues = new ConcurrentHashMap<>();
+
+    private OrderItemTable(BiFunction<OrderData, OrderItemData, V> function, Codec<V> codec,
+                           OrderStore sampleOrders, OrderItemIndex fixtureItemIndex, ChangedOrders changedOrders,
+                           Columns sampleValues, Columns fixtureValues) {
+        this.function = function;
+        this.codec = codec;
+        this.sampleOrders = sampleOrders;
+        this.fixtureItemIndex = fixtureItemIndex;
+        this.changedOrders = changedOrders;
+        this.sampleValues = sampleValues;
+        this.fixtureValues = fixtureValues;
+    }
+
+    /**
+     * Computes the value of every item of the given sample and fixture orders. The items of changed orders are
+     * left for orderChanged.
+     *
+     * @param function computes an item's value, or null if it has none
+     * @param codec packs the function's values into the table's columns
+     * @param sampleOrders the datastore's sample orders
+     * @param fixtureItemIndex the datastore's fixture items
+     * @param fixtureOrders the orders the fixture items belong to
+     * @param changedOrders the datastore's changed orders, which take the place of its own
+     * @param <V> the type of value held for each item
+     * @return the table
+     */
+    static <V> OrderItemTable<V> build(BiFunction<OrderData, OrderItemData, V> function, Codec<V> codec,
+                                       OrderStore sampleOrders, OrderItemIndex fixtureItemIndex,
+                                       List<OrderData> fixtureOrders, ChangedOrders changedOrders) {
+        ColumnDictionary<ZoneId> zones = new ColumnDictionary<>();
+        int numOrders = sampleOrders.getNumOrders();
+        Columns sampleValues = new Columns(Math.max(16, numOrders * 2), zones);
+        for (int orderRow = 0; orderRow < numOrders; orderRow++) {
+            OrderData orderData =
+                sampleOrders.getOrderData(orderRow, IndexedOrderDataGenerator.orderIdForIndex(orderRow));
+            for (OrderItemData orderItemData : orderData.getCustomerOrderItemList()) {
+                int itemRow = sampleOrders.findOrderItem(orderItemData.getCustomerOrderItemId());
+                // an item ID repeated in a later order belongs to the first, as findOrderItem finds it there
+                if (OrderStore.NO_ROW == itemRow || sampleOrders.getOrderRowForItem(itemRow) != orderRow) {
+                    continue;
+                }
+                sampleValues = sampleValues.ensureCapacity(itemRow + 1);
+                sampleValues.set(itemRow, function.apply(orderData, orderItemData), codec);
+            }
+        }
+
+        Columns fixtureValues = new Columns(fixtureItemIndex.size(), zones);
+        for (OrderData orderData : fixtureOrders) {
+            for (OrderItemData orderItemData : orderData.getCustomerOrderItemList()) {
+                int slot = fixtureItemIndex.slotOf(orderItemData.getCustomerOrderItemId());
+                if (slot != OrderItemIndex.NO_SLOT) {
+                    fixtureValues.set(slot, function.apply(orderData, orderItemData), codec);
+                }
+            }
+        }
+
+        return new OrderItemTable<>(function, codec, sampleOrders, fixtureItemIndex, changedOrders,
+                                    sampleValues, fixtureValues);
+    }
+
+    /**
+     * Returns the value of the item with the given ID, as of the item's order's latest change.
+     *
+     * @param customerOrderItemId the order item to look up
+     * @return the item's value, or null if there's no such item or it has no value
+     */
+    public V get(String customerOrderItemId) {
+        if (null == customerOrderItemId) {
+            return null;
+        }
+        if (changedOrders.containsOrderItem(customerOrderItemId)) {
+            return changedValues.get(customerOrderItemId);
+        }
+
+        int fixtureSlot = fixtureItemIndex.slotOf(customerOrderItemId);
+        if (fixtureSlot != OrderItemIndex.NO_SLOT) {
+            return fixtureValues.get(fixtureSlot, codec);
+        }
+
+        int itemRow = sampleOrders.findOrderItem(customerOrderItemId);
+        return OrderStore.NO_ROW == itemRow ? null : sampleValues.get(itemRow, codec);
+    }
+
+    /**
+     * Recomputes the values of the given order's items. Called with each changed order while the order is locked
+     * against other changes, before the change is visible to readers, so an order's changes reach the table in the
+     * order they're made.
+     *
+     * @param changedOrder the order as changed
+     */
+    void orderChanged(OrderData changedOrder) {
+        for (OrderItemData orderItemData : changedOrder.getCustomerOrderItemList()) {
+            String customerOrderItemId = orderItemData.getCustomerOrderItemId();
+            if (null == customerOrderItemId) {
+                continue;
+            }
+
+            V value = function.apply(changedOrder, orderItemData);
+            if (null == value) {
+                changedValues.remove(customerOrderItemId);
+            } else {
+                changedValues.put(customerOrderItemId, value);
+            }
+        }
+    }
+
+    /**
+     * Packs a table's values into one date and a set of flags each, and rebuilds them from those, so that the table
+     * can hold its values as primitives.
+     *
+     * @param <V> the type of value packed
+     */
+    public interface Codec<V> {
+        /**
+         * Returns the date the value is rebuilt from.
+         *
+         * @param value the value to pack
+         * @return the value's date; may be null
+         */
+        ZonedDateTime getDate(V value);
+
+        /**
+         * Returns the flags the value is rebuilt from.
+         *
+         * @param value the value to pack
+         * @return the value's flags; only the lowest 31 bits are kept
+         */
+        int getFlags(V value);
+
+        /**
+         * Rebuilds a value from its date and flags.
+         *
+         * @param date the value's date, in the zone it was packed in; null if it was null
+         * @param flags the value's flags
+         * @return the value
+         */
+        V decode(ZonedDateTime date, int flags);
+    }
+
+    /*
+     * One value per row, packed into primitive arrays as DateColumn packs dates. Rows are only set while the table
+     * is being built, before it's published.
+     */
+    private static final class Columns {
+        private final ColumnDictionary<ZoneId> zones;
+        private final long[] epochSeconds;
+        private final int[] nanos;
+        private final byte[] zoneCodes;
+        // 0 for rows with no value
+        private final int[] flags;
+
+        private Columns(int numRows, ColumnDictionary<ZoneId> zones) {
+            this(zones, new long[numRows], new int[numRows], new byte[numRows], new int[numRows]);
+        }
+
+        private Columns(ColumnDictionary<ZoneId> zones, long[] epochSeconds, int[] nanos, byte[] zoneCodes,
+                        int[] flags) {
+            this.zones = zones;
+            this.epochSeconds = epochSeconds;
+            this.nanos = nanos;
+            this.zoneCodes = zoneCodes;
+            this.flags = flags;
+        }
+
+        private Columns ensureCapacity(int numRows) {
+            if (numRows <= flags.length) {
+                return this;
+            }
+
+            int capacity = Math.max(numRows, flags.length * 2);
+            return new Columns(zones, Arrays.copyOf(epochSeconds, capacity), Arrays.copyOf(nanos, capacity),
+                               Arrays.copyOf(zoneCodes, capacity), Arrays.copyOf(flags, capacity));
+        }
+
+        private <V> void set(int row, V value, Codec<V> codec) {
+            if (null == value) {
+                flags[row] = 0;
+                return;
+            }
+
+            ZonedDateTime date = codec.getDate(value);
+            if (null == date) {
+                epochSeconds[row] = NULL_DATE;
+            } else {
+                int zoneCode = zones.encode(date.getZone());
+                if (zoneCode >= MAX_ZONES) {
+                    throw new IllegalStateException("An order item table can hold dates in at most " + MAX_ZONES
+                                                        + " time zones");
+                }
+                epochSeconds[row] = date.toEpochSecond();
+                nanos[row] = date.getNano();
+                zoneCodes[row] = (byte) zoneCode;
+            }
+            flags[row] = HAS_VALUE | codec.getFlags(value);
+        }
+
+        private <V> V get(int row, Codec<V> codec) {
+            if (row >= flags.length || 0 == (flags[row] & HAS_VALUE)) {
+                return null;
+            }
+
+            ZonedDateTime date = null;
+            if (epochSeconds[row] != NULL_DATE) {
+                date = ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds[row], nanos[row]),
+                                               zones.decode(zoneCodes[row] & 0xFF));
+            }
+            return codec.decode(date, flags[row] & ~HAS_VALUE);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.amazon.ata.deliveringonourpromise.data;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -24,6 +25,28 @@ public final class OrderShipmentData {
 
     private OrderShipmentData() {}
 
+    /**
+     * Returns a copy of this shipment with the given ship date, leaving this shipment untouched.
+     * @param newShipDate the ship date of the copy
+     * @return a copy of this shipment with the given ship date
+     */
+    OrderShipmentData copyWithShipDate(ZonedDateTime newShipDate) {
+        OrderShipmentData copy = copy();
+        copy.shipDate = newShipDate;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of this shipment with the given delivery date, leaving this shipment untouched.
+     * @param newDeliveryDate the delivery date of the copy
+     * @return a copy of this shipment with the given delivery date
+     */
+    OrderShipmentData copyWithDeliveryDate(ZonedDateTime newDeliveryDate) {
+        OrderShipmentData copy = copy();
+        copy.deliveryDate = newDeliveryDate;
+        return copy;
+    }
+
     public String getShipmentId() {
         return shipmentId;
     }
@@ -44,6 +67,14 @@ public final class OrderShipmentData {
         return new ArrayList<>(customerShipmentItems);
     }
 
+    /**
+     * Returns this shipment's items without copying them, for code in this package that only reads them.
+     * @return an unmodifiable view of the shipment items
+     */
+    List<CustomerShipmentItemData> getCustomerShipmentItemsView() {
+        return Collections.unmodifiableList(customerShipmentItems);
+    }
+
     public ZonedDateTime getShipDate() {
         return shipDate;
     }
@@ -82,7 +113,7 @@ public final class OrderShipmentData {
      * @return true if this shipment includes orderItemId; false otherwise
      */
     public boolean includesOrderItem(String orderItemId) {
-        for (CustomerShipmentItemData shipmentItem : getCustomerShipmentItems()) {
+        for (CustomerShipmentItemData shipmentItem : customerShipmentItems) {
             if (shipmentItem.getCustomerOrderItemId().equals(orderItemId)) {
                 return true;
             }
@@ -91,6 +122,23 @@ public final class OrderShipmentData {
         return false;
     }
 
+    private OrderShipmentData copy() {
+        OrderShipmentData copy = new OrderShipmentData();
+        copy.shipmentId = shipmentId;
+        copy.zip = zip;
+        copy.condition = condition;
+        copy.warehouseId = warehouseId;
+        copy.customerShipmentItems = customerShipmentItems;
+        copy.shipDate = shipDate;
+        copy.creationDate = creationDate;
+        copy.shipmentShipOption = shipmentShipOption;
+        copy.deliveryDate = deliveryDate;
+        copy.isDpsPromiseActive = isDpsPromiseActive;
+        copy.isOfsPromiseActive = isOfsPromiseActive;
+        copy.doDpsAndOfsPromisesAgree = doDpsAndOfsPromisesAgree;
+        return copy;
+    }
+
     @Override
     public String toString() {
         return "OrderShipmentData{"
@@ -9,16 +9,16 @@ import java.util.List;
  * OrderDataGenerator.
  */
 final class OrderShipmentDataGenerator {
-    private static final String DEFAULT_ZIP = "98109";
-    private static final String DEFAULT_SHIPMENT_CONDITION = "6";
-    private static final String DEFAULT_SHIP_OPTION = "second";
+    static final String DEFAULT_ZIP = "98109";
+    static final String DEFAULT_SHIPMENT_CONDITION = "6";
+    static final String DEFAULT_SHIP_OPTION = "second";
 
     // singleton instance
     private static final OrderShipmentDataGenerator ORDER_SHIPMENT_GENERATOR_INSTANCE =
         new OrderShipmentDataGenerator();
 
     // valid warehouses to select from
-    private static final List<String> WAREHOUSES = Arrays.asList("BFI4", "BFI7", "SEA8");
+    static final List<String> WAREHOUSES = Arrays.asList("BFI4", "BFI7", "SEA8");
 
     // data that increment as we generate more data
     private long currentShipmentId = 10350858571111L;
@@ -0,0 +1,251 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes OrderDatastore snapshot files: a datastore's sample orders and fixtures, saved so that a later
+ * JVM can load them in well under a second rather than generating them all over again.
+ *
+ * A snapshot file holds, in order:
+ * <ul>
+ *     <li>a header page: magic number, format version, and where the metadata is, with its checksum</li>
+ *     <li>the sample orders' records, then the fixture orders' records, laid out as OffHeapOrderStore lays them
+ *     out</li>
+ *     <li>the metadata: each store's record counts, dictionaries and record checksums, then the fixture table</li>
+ * </ul>
+ * Reading a snapshot only reads the header and the metadata, and memory-maps the records, so it takes about the
+ * same time however many orders the file holds. The records themselves are only checked against their checksums
+ * when asked to, since that means reading every one of them.
+ */
+final class OrderSnapshotFile {
+    /** The only format version this class reads and writes. Bump it whenever the layout changes. */
+    static final int VERSION = 1;
+
+    // "ORDERSNP" in ASCII
+    private static final long MAGIC = 0x4F52444552534E50L;
+    // magic, version, metadata position, metadata length, metadata checksum
+    private static final int HEADER_SIZE = 8 + 4 + 8 + 4 + 8;
+    // the records start on the page after the header
+    private static final long RECORDS_POSITION = 4096;
+
+    private final OrderStore sampleOrders;
+    private final Map<String, OrderFixture> orderFixtures;
+
+    private OrderSnapshotFile(OrderStore sampleOrders, Map<String, OrderFixture> orderFixtures) {
+        this.sampleOrders = sampleOrders;
+        this.orderFixtures = orderFixtures;
+    }
+
+    /**
+     * Writes a snapshot of the given sample orders and fixtures. The snapshot is written next to the file and
+     * only moved into place once it is complete, so a failed write never leaves half a snapshot behind, and any
+     * datastore still reading an older snapshot at the same path keeps reading it undisturbed.
+     *
+     * @param file where to write the snapshot; replaced if it exists
+     * @param sampleOrders the sample orders to save
+     * @param orderFixtures the fixtures to save, by order ID
+     * @throws IOException if the snapshot can't be written
+     */
+    static void write(Path file, OrderStore sampleOrders, Map<String, OrderFixture> orderFixtures)
+        throws IOException {
+        Path absoluteFile = file.toAbsolutePath();
+        Path tempFile = Files.createTempFile(absoluteFile.getParent(), absoluteFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                write(channel, sampleOrders, orderFixtures);
+                channel.force(true);
+            }
+            Files.move(tempFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Reads a snapshot written by write. The header and metadata are always checked against their checksums.
+     *
+     * @param file the snapshot to read
+     * @param verifyRecords true to also check every order record against its checksum, which means reading the
+     *                      whole file rather than mapping it in
+     * @return the snapshot's sample orders and fixtures
+     * @throws IOException if the file can't be read, isn't a snapshot, is a version this class can't read, or is
+     *                     damaged
+     */
+    static OrderSnapshotFile read(Path file, boolean verifyRecords) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE, file);
+            if (header.getLong() != MAGIC) {
+                throw new IOException(file + " is not an order snapshot file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(String.format(
+                    "%s is version %d of the order snapshot format, but only version %d can be read",
+                    file, version, VERSION
+                ));
+            }
+
+            long metadataPosition = header.getLong();
+            int metadataLength = header.getInt();
+            long metadataChecksum = header.getLong();
+            if (metadataPosition < RECORDS_POSITION || metadataLength < 0) {
+                throw new IOException(file + " has a damaged header");
+            }
+            byte[] metadataBytes = readFully(channel, metadataPosition, metadataLength, file).array();
+            if (checksum(metadataBytes) != metadataChecksum) {
+                throw new IOException(file + " has damaged metadata");
+            }
+
+            DataInputStream metadata = new DataInputStream(new ByteArrayInputStream(metadataBytes));
+            OffHeapOrderStore sampleOrders =
+                OffHeapOrderStore.mapFinished(channel, RECORDS_POSITION, metadata, verifyRecords);
+            long fixturesPosition = metadata.readLong();
+            OffHeapOrderStore fixtureOrders =
+                OffHeapOrderStore.mapFinished(channel, fixturesPosition, metadata, verifyRecords);
+
+            // there are only a handful of fixtures, and callers expect them as OrderData, so build them up front
+            int numFixtures = metadata.readInt();
+            Map<String, OrderFixture> orderFixtures = new HashMap<>();
+            for (int i = 0; i < numFixtures; i++) {
+                String orderId = metadata.readUTF();
+                String dataDescription = readNullableUtf(metadata);
+                int fixtureRow = metadata.readInt();
+                OrderData orderData =
+                    OrderStore.NO_ROW == fixtureRow ? null : fixtureOrders.getOrderData(fixtureRow, orderId);
+                orderFixtures.put(orderId, new OrderFixture(orderData, dataDescription));
+            }
+
+            return new OrderSnapshotFile(sampleOrders, orderFixtures);
+        }
+    }
+
+    OrderStore getSampleOrders() {
+        return sampleOrders;
+    }
+
+    Map<String, OrderFixture> getOrderFixtures() {
+        return new HashMap<>(orderFixtures);
+    }
+
+    private static void write(FileChannel channel, OrderStore sampleOrders, Map<String, OrderFixture> orderFixtures)
+        throws IOException {
+        // sample orders come back under whichever order ID is requested, so any ID that parses will do here
+        OffHeapOrderStore sampleRecords = pack(channel, RECORDS_POSITION, sampleOrders.getNumOrders(), row ->
+            sampleOrders.getOrderData(row, IndexedOrderDataGenerator.orderIdForIndex(row))
+        );
+
+        List<String> fixtureOrderIds = new ArrayList<>(orderFixtures.keySet());
+        fixtureOrderIds.sort(String::compareTo);
+        List<OrderData> fixtureOrderDatas = new ArrayList<>();
+        for (String orderId : fixtureOrderIds) {
+            OrderData orderData = orderFixtures.get(orderId).getOrderData();
+            if (orderData != null) {
+                fixtureOrderDatas.add(orderData);
+            }
+        }
+        long fixturesPosition = RECORDS_POSITION + sampleRecords.getSizeInBytes();
+        OffHeapOrderStore fixtureRecords =
+            pack(channel, fixturesPosition, fixtureOrderDatas.size(), fixtureOrderDatas::get);
+
+        ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+        DataOutputStream metadata = new DataOutputStream(metadataBytes);
+        sampleRecords.writeMetadata(metadata);
+        metadata.writeLong(fixturesPosition);
+        fixtureRecords.writeMetadata(metadata);
+        metadata.writeInt(fixtureOrderIds.size());
+        int fixtureRow = 0;
+        for (String orderId : fixtureOrderIds) {
+            OrderFixture orderFixture = orderFixtures.get(orderId);
+            metadata.writeUTF(orderId);
+            writeNullableUtf(metadata, orderFixture.getDataDescription());
+            metadata.writeInt(null == orderFixture.getOrderData() ? OrderStore.NO_ROW : fixtureRow++);
+        }
+        metadata.flush();
+
+        long metadataPosition = fixturesPosition + fixtureRecords.getSizeInBytes();
+        writeFully(channel, metadataPosition, ByteBuffer.wrap(metadataBytes.toByteArray()));
+
+        // the header goes last, so a snapshot that was cut off part way through never looks complete
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putLong(MAGIC)
+            .putInt(VERSION)
+            .putLong(metadataPosition)
+            .putInt(metadataBytes.size())
+            .putLong(checksum(metadataBytes.toByteArray()));
+        header.flip();
+        writeFully(channel, 0, header);
+    }
+
+    /*
+     * Packs orders into an OffHeapOrderStore mapped onto the file at the given position.
+     */
+    private static OffHeapOrderStore pack(FileChannel channel, long position, int numOrders,
+                                          IntFunction<OrderData> orderForRow) throws IOException {
+        try {
+            return PackedOrderStore.pack(numOrders, orderForRow, (orders, items, shipments, shipmentItems) -> {
+                try {
+                    return OffHeapOrderStore.map(channel, FileChannel.MapMode.READ_WRITE, position,
+                                                 orders, items, shipments, shipmentItems);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length, Path file)
+        throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException(file + " is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static void writeNullableUtf(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUtf(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
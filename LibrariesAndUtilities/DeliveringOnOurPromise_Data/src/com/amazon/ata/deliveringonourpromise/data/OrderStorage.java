@@ -0,0 +1,32 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+/**
+ * How an OrderDatastore holds its sample orders in memory. Either way the datastore returns the same data.
+ */
+public enum OrderStorage {
+    /**
+     * One OrderData object (with its items, shipments, Strings and dates) per order. Cheapest to read, since
+     * lookups only copy objects that already exist, but the heap grows by several hundred bytes per order item.
+     */
+    OBJECTS,
+
+    /**
+     * One primitive array per field, with IDs as longs, dates as epoch seconds and repeated Strings dictionary
+     * encoded. Uses a fraction of the heap of OBJECTS and is cheap to scan, but builds new objects on every
+     * lookup.
+     */
+    COLUMNAR,
+
+    /**
+     * Fixed-size records in direct ByteBuffers, outside the heap, so that holding tens of millions of orders
+     * doesn't slow down garbage collection. Direct memory is capped by -XX:MaxDirectMemorySize, which defaults to
+     * the maximum heap size. Builds new objects on every lookup, like COLUMNAR.
+     */
+    OFF_HEAP,
+
+    /**
+     * The same records as OFF_HEAP, but in a memory-mapped temporary file, so the operating system pages them in
+     * and out as needed and the data isn't limited by the heap or by direct memory, only by disk space.
+     */
+    MEMORY_MAPPED
+}
@@ -0,0 +1,64 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+/**
+ * Storage for the sample orders an OrderDatastore serves. Orders are numbered by row, 0 through
+ * getNumOrders() - 1, and their items by item row.
+ *
+ * Every sample order stands in for many order IDs, so orders and items are handed out carrying whichever order ID
+ * the caller asks for.
+ *
+ * Implementations are built once, and are then safe to read from any number of threads once safely published.
+ */
+interface OrderStore {
+    /** Returned by findOrderItem when there is no item with the ID. */
+    int NO_ROW = -1;
+
+    /**
+     * Returns the number of orders in the store.
+     *
+     * @return the number of orders
+     */
+    int getNumOrders();
+
+    /**
+     * Returns the order in the given row, with its items, as belonging to the given order ID.
+     *
+     * @param orderRow the order's row
+     * @param orderId the order ID the returned order (and its items) should carry
+     * @return the order
+     */
+    OrderData getOrderData(int orderRow, String orderId);
+
+    /**
+     * Finds the item with the given customer order item ID.
+     *
+     * @param customerOrderItemId the ID to look for
+     * @return the item's row, or NO_ROW if no order has the item
+     */
+    int findOrderItem(String customerOrderItemId);
+
+    /**
+     * Returns the row of the order the given item belongs to.
+     *
+     * @param itemRow the item's row, as returned by findOrderItem
+     * @return the row of the item's order
+     */
+    int getOrderRowForItem(int itemRow);
+
+    /**
+     * Returns the item in the given row, as belonging to the given order ID.
+     *
+     * @param itemRow the item's row, as returned by findOrderItem
+     * @param orderId the order ID the returned item should carry
+     * @return the item
+     */
+    OrderItemData getOrderItemData(int itemRow, String orderId);
+
+    /**
+     * Returns the shipment containing the item in the given row.
+     *
+     * @param itemRow the item's row, as returned by findOrderItem
+     * @return the item's shipment, or null if the item isn't in any shipment
+     */
+    OrderShipmentData getOrderShipmentDataForItem(int itemRow);
+}
@@ -0,0 +1,106 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * An OrderStore that packs orders, items, shipments and shipment items into rows allocated up front, rather than
+ * holding OrderData objects. Each order's items and shipments, and each shipment's items, take up consecutive
+ * rows.
+ *
+ * The store is filled by setOrder, which may be called from several threads at once for different orders, and
+ * must then be finished with finish() before it is read.
+ */
+interface PackedOrderStore extends OrderStore {
+
+    /**
+     * Encodes an order, and its items and shipments, into the given rows. The caller decides where each order's
+     * records go, so orders can be encoded in parallel; every row must end up set exactly once.
+     *
+     * @param orderRow row for the order
+     * @param firstItemRow row for the order's first item, the rest following it
+     * @param firstShipmentRow row for the order's first shipment, the rest following it
+     * @param firstShipmentItemRow row for the first shipment's first item, the rest following it
+     * @param orderData the order to encode
+     */
+    void setOrder(int orderRow, int firstItemRow, int firstShipmentRow, int firstShipmentItemRow,
+                  OrderData orderData);
+
+    /**
+     * Builds the order item lookup. Must be called once every order has been set, and before the store is read.
+     */
+    void finish();
+
+    /**
+     * Packs the given orders, in the order given, into a new store from the given factory, and finishes it.
+     *
+     * @param orderDatas the orders to store
+     * @param factory creates a store with room for the orders
+     * @param <T> the type of store
+     * @return the finished store
+     */
+    static <T extends PackedOrderStore> T pack(List<OrderData> orderDatas, Factory<T> factory) {
+        return pack(orderDatas.size(), orderDatas::get, factory);
+    }
+
+    /**
+     * Packs numOrders orders into a new store from the given factory, and finishes it. Each order is fetched twice,
+     * once to size the store and once to fill it, so orders can come from another store without all of them being
+     * held in memory at once.
+     *
+     * @param numOrders number of orders to store
+     * @param orderForRow returns the order to store in a row, the same one each time it is called with that row
+     * @param factory creates a store with room for the orders
+     * @param <T> the type of store
+     * @return the finished store
+     */
+    static <T extends PackedOrderStore> T pack(int numOrders, IntFunction<OrderData> orderForRow, Factory<T> factory) {
+        int numItems = 0;
+        int numShipments = 0;
+        int numShipmentItems = 0;
+        for (int orderRow = 0; orderRow < numOrders; orderRow++) {
+            OrderData orderData = orderForRow.apply(orderRow);
+            numItems += orderData.getCustomerOrderItemList().size();
+            for (OrderShipmentData shipment : orderData.getCustomerShipments()) {
+                numShipments++;
+                numShipmentItems += shipment.getCustomerShipmentItems().size();
+            }
+        }
+
+        T store = factory.create(numOrders, numItems, numShipments, numShipmentItems);
+        int itemRow = 0;
+        int shipmentRow = 0;
+        int shipmentItemRow = 0;
+        for (int orderRow = 0; orderRow < numOrders; orderRow++) {
+            OrderData orderData = orderForRow.apply(orderRow);
+            store.setOrder(orderRow, itemRow, shipmentRow, shipmentItemRow, orderData);
+
+            itemRow += orderData.getCustomerOrderItemList().size();
+            for (OrderShipmentData shipment : orderData.getCustomerShipments()) {
+                shipmentRow++;
+                shipmentItemRow += shipment.getCustomerShipmentItems().size();
+            }
+        }
+        store.finish();
+        return store;
+    }
+
+    /**
+     * Creates an empty PackedOrderStore with room for exactly the given number of records.
+     *
+     * @param <T> the type of store created
+     */
+    @FunctionalInterface
+    interface Factory<T extends PackedOrderStore> {
+        /**
+         * Creates an empty store.
+         *
+         * @param numOrders number of orders
+         * @param numItems total number of order items across all orders
+         * @param numShipments total number of shipments across all orders
+         * @param numShipmentItems total number of shipment items across all shipments
+         * @return the empty store
+         */
+        T create(int numOrders, int numItems, int numShipments, int numShipmentItems);
+    }
+}
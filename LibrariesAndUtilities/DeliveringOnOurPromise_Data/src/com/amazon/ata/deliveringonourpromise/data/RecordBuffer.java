@@ -0,0 +1,163 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A fixed number of fixed-size records held outside the Java heap, in direct ByteBuffers or in a memory-mapped
+ * file. A single ByteBuffer can't exceed 2GB, so the records are split across as many buffers (segments) as
+ * needed, each holding a whole number of records.
+ *
+ * Fields are read and written by record number and byte offset within the record, always little-endian. Records
+ * may be written from different threads as long as no two threads write the same record; reads are safe from any
+ * number of threads once the writes have been safely published.
+ */
+final class RecordBuffer {
+    // largest segment, comfortably below ByteBuffer's 2GB limit
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    private final int recordSize;
+    private final int numRecords;
+    private final int recordsPerSegment;
+    private final ByteBuffer[] segments;
+
+    private RecordBuffer(int recordSize, int numRecords, ByteBuffer[] segments) {
+        this.recordSize = recordSize;
+        this.numRecords = numRecords;
+        this.recordsPerSegment = recordsPerSegment(recordSize);
+        this.segments = segments;
+    }
+
+    /**
+     * Allocates zeroed records in direct (off-heap) memory.
+     *
+     * @param recordSize bytes per record
+     * @param numRecords number of records
+     * @return the new RecordBuffer
+     */
+    static RecordBuffer allocateDirect(int recordSize, int numRecords) {
+        ByteBuffer[] segments = new ByteBuffer[numSegments(recordSize, numRecords)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect(segmentBytes(recordSize, numRecords, i))
+                              .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new RecordBuffer(recordSize, numRecords, segments);
+    }
+
+    /**
+     * Maps records onto a region of a file, starting at the given position. The file grows to fit the region if
+     * needed. The mapping stays valid after the channel is closed.
+     *
+     * @param channel channel of the file to map
+     * @param mode whether the records can be written or only read
+     * @param position offset in the file of the first record
+     * @param recordSize bytes per record
+     * @param numRecords number of records
+     * @return the new RecordBuffer
+     * @throws IOException if the file can't be mapped
+     */
+    static RecordBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, int recordSize,
+                            int numRecords) throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[numSegments(recordSize, numRecords)];
+        long segmentPosition = position;
+        for (int i = 0; i < segments.length; i++) {
+            int bytes = segmentBytes(recordSize, numRecords, i);
+            segments[i] = channel.map(mode, segmentPosition, bytes).order(ByteOrder.LITTLE_ENDIAN);
+            segmentPosition += bytes;
+        }
+        return new RecordBuffer(recordSize, numRecords, segments);
+    }
+
+    long getLong(int record, int offset) {
+        return segment(record).getLong(position(record, offset));
+    }
+
+    void putLong(int record, int offset, long value) {
+        segment(record).putLong(position(record, offset), value);
+    }
+
+    int getInt(int record, int offset) {
+        return segment(record).getInt(position(record, offset));
+    }
+
+    void putInt(int record, int offset, int value) {
+        segment(record).putInt(position(record, offset), value);
+    }
+
+    byte getByte(int record, int offset) {
+        return segment(record).get(position(record, offset));
+    }
+
+    void putByte(int record, int offset, byte value) {
+        segment(record).put(position(record, offset), value);
+    }
+
+    int getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Returns the number of bytes the records take up.
+     *
+     * @return recordSize * numRecords
+     */
+    long getSizeInBytes() {
+        return (long) recordSize * numRecords;
+    }
+
+    /**
+     * Computes a CRC-32 checksum of every record's bytes, so that a file the records were mapped from can be
+     * checked for damage.
+     *
+     * @return the checksum, between 0 and 2^32 - 1
+     */
+    long checksum() {
+        CRC32 crc = new CRC32();
+        for (ByteBuffer segment : segments) {
+            // the records are only ever read and written at absolute positions, so a duplicate covers all of them
+            crc.update(segment.duplicate());
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes any changes to memory-mapped records back to the file. Does nothing for direct records.
+     */
+    void force() {
+        for (ByteBuffer segment : segments) {
+            if (segment instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) segment).force();
+            }
+        }
+    }
+
+    private ByteBuffer segment(int record) {
+        return segments[record / recordsPerSegment];
+    }
+
+    private int position(int record, int offset) {
+        return (record % recordsPerSegment) * recordSize + offset;
+    }
+
+    private static int recordsPerSegment(int recordSize) {
+        return MAX_SEGMENT_BYTES / recordSize;
+    }
+
+    private static int numSegments(int recordSize, int numRecords) {
+        int recordsPerSegment = recordsPerSegment(recordSize);
+        return Math.max(1, (int) ((numRecords + (long) recordsPerSegment - 1) / recordsPerSegment));
+    }
+
+    /*
+     * Size of the given segment: full, except perhaps for the last one.
+     */
+    private static int segmentBytes(int recordSize, int numRecords, int segment) {
+        int recordsPerSegment = recordsPerSegment(recordSize);
+        int records = Math.min(recordsPerSegment, numRecords - segment * recordsPerSegment);
+        return records * recordSize;
+    }
+}
@@ -0,0 +1,184 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.util.Arrays;
+
+/**
+ * Index from a String key (a customer ID, an ASIN, a warehouse ID) to every entry with that key, where an entry
+ * identifies an order, or one of an order's items or shipments, by order row and ordinal. Stored in compressed
+ * sparse row form: the entries sorted by key in one flat long array, and each key's first entry in an int array,
+ * so the whole index is three objects however many entries it holds, and a key's entries can be paged through
+ * without copying the rest.
+ *
+ * Built once by a Builder; safe to read from any number of threads once it has been safely published.
+ */
+final class SecondaryIndex {
+    private final ColumnDictionary<String> keys;
+    // entries for the key with code c are entries[firstEntries[c]] up to, but excluding, entries[firstEntries[c + 1]]
+    private final int[] firstEntries;
+    private final long[] entries;
+
+    private SecondaryIndex(ColumnDictionary<String> keys, int[] firstEntries, long[] entries) {
+        this.keys = keys;
+        this.firstEntries = firstEntries;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns a new Builder, which adds entries in the order they should be returned.
+     *
+     * @return a new Builder
+     */
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the entry for the given order row and ordinal.
+     *
+     * @param orderRow the order's row
+     * @param ordinal which of the order's items or shipments the entry is for; 0 for the order itself
+     * @return the entry
+     */
+    static long entry(int orderRow, int ordinal) {
+        return ((long) orderRow << Integer.SIZE) | ordinal;
+    }
+
+    static int orderRowOf(long entry) {
+        return (int) (entry >>> Integer.SIZE);
+    }
+
+    static int ordinalOf(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Returns how many entries have the given key.
+     *
+     * @param key the key to count
+     * @return the number of entries with the key, 0 if there are none
+     */
+    int count(String key) {
+        int code = keys.codeOf(key);
+        return ColumnDictionary.NO_CODE == code ? 0 : firstEntries[code + 1] - firstEntries[code];
+    }
+
+    /**
+     * Returns one page of the entries with the given key, in the order they were added.
+     *
+     * @param key the key to look up
+     * @param offset how many of the key's entries to skip
+     * @param limit the most entries to return
+     * @return the page of entries; empty if the key has no entries at or after offset
+     */
+    long[] getEntries(String key, int offset, int limit) {
+        int code = keys.codeOf(key);
+        if (ColumnDictionary.NO_CODE == code) {
+            return new long[0];
+        }
+
+        int from = (int) Math.min((long) firstEntries[code] + offset, firstEntries[code + 1]);
+        int to = (int) Math.min((long) from + limit, firstEntries[code + 1]);
+        return Arrays.copyOfRange(entries, from, to);
+    }
+
+    /**
+     * Returns the position in the index of the given key's first entry. The key's entries are at positions
+     * startOf(key) up to, but excluding, endOf(key).
+     *
+     * @param key the key to look up
+     * @return the position of the key's first entry
+     */
+    int startOf(String key) {
+        int code = null == key ? ColumnDictionary.NO_CODE : keys.codeOf(key);
+        return ColumnDictionary.NO_CODE == code ? 0 : firstEntries[code];
+    }
+
+    /**
+     * Returns the position in the index just past the given key's last entry.
+     *
+     * @param key the key to look up
+     * @return the position just past the key's last entry
+     */
+    int endOf(String key) {
+        int code = null == key ? ColumnDictionary.NO_CODE : keys.codeOf(key);
+        return ColumnDictionary.NO_CODE == code ? 0 : firstEntries[code + 1];
+    }
+
+    long entryAt(int position) {
+        return entries[position];
+    }
+
+    /**
+     * Returns the position of the given entry among the given key's entries, which are in entry order, as entries
+     * are added by order row.
+     *
+     * @param key the entry's key
+     * @param entry the entry to find
+     * @return the entry's position in the index, or -1 if the key has no such entry
+     */
+    int positionOf(String key, long entry) {
+        int start = startOf(key);
+        int end = endOf(key);
+        int position = Arrays.binarySearch(entries, start, end, entry);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Collects entries, then sorts them by key into a SecondaryIndex. Not thread safe.
+     */
+    static final class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final ColumnDictionary<String> keys = new ColumnDictionary<>();
+        private int[] keyCodes = new int[INITIAL_CAPACITY];
+        private long[] entries = new long[INITIAL_CAPACITY];
+        private int size;
+
+        private Builder() {}
+
+        /**
+         * Adds an entry under the given key. Null keys aren't indexed.
+         *
+         * @param key the entry's key
+         * @param entry the entry, from SecondaryIndex.entry
+         * @return this Builder
+         */
+        Builder add(String key, long entry) {
+            if (null == key) {
+                return this;
+            }
+
+            if (size == entries.length) {
+                keyCodes = Arrays.copyOf(keyCodes, size * 2);
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            keyCodes[size] = keys.encode(key);
+            entries[size] = entry;
+            size++;
+            return this;
+        }
+
+        /**
+         * Builds the index: a counting sort of the entries by key, which keeps each key's entries in the order
+         * they were added.
+         *
+         * @return the index
+         */
+        SecondaryIndex build() {
+            int[] firstEntries = new int[keys.size() + 1];
+            for (int i = 0; i < size; i++) {
+                firstEntries[keyCodes[i] + 1]++;
+            }
+            for (int code = 0; code < keys.size(); code++) {
+                firstEntries[code + 1] += firstEntries[code];
+            }
+
+            int[] nextEntries = Arrays.copyOf(firstEntries, keys.size());
+            long[] sortedEntries = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedEntries[nextEntries[keyCodes[i]]++] = entries[i];
+            }
+            return new SecondaryIndex(keys, firstEntries, sortedEntries);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Index from a point in time (an order date, a ship date, a delivery date) to the entries, as in SecondaryIndex,
+ * that have it. Stored as two flat arrays sorted by time, epoch nanoseconds and entries, so that every entry in a
+ * time range is found with two binary searches and sits in one contiguous run of the arrays, whichever time zone
+ * the times were recorded in.
+ *
+ * Built once by a Builder; safe to read from any number of threads once it has been safely published.
+ */
+final class TimeIndex {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // epoch nanoseconds in a long run out in 1677 and 2262; times outside that are pinned to the nearest end
+    private static final long MIN_EPOCH_SECOND = Long.MIN_VALUE / NANOS_PER_SECOND;
+    private static final long MAX_EPOCH_SECOND = Long.MAX_VALUE / NANOS_PER_SECOND;
+
+    // times[i] is the time of entries[i]; sorted by time, then by entry
+    private final long[] times;
+    private final long[] entries;
+
+    private TimeIndex(long[] times, long[] entries) {
+        this.times = times;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns a new Builder.
+     *
+     * @return a new Builder
+     */
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns how many entries have a time in the given range.
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @param to the end of the range, exclusive; null for no end
+     * @return the number of entries in the range
+     */
+    int count(ZonedDateTime from, ZonedDateTime to) {
+        return Math.max(0, upperBound(to) - lowerBound(from));
+    }
+
+    /**
+     * Returns one page of the entries with a time in the given range, earliest first. Entries with the same time
+     * are in entry order.
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @param to the end of the range, exclusive; null for no end
+     * @param offset how many of the range's entries to skip
+     * @param limit the most entries to return
+     * @return the page of entries; empty if the range has no entries at or after offset
+     */
+    long[] getEntries(ZonedDateTime from, ZonedDateTime to, int offset, int limit) {
+        int start = lowerBound(from);
+        int end = upperBound(to);
+        if (start >= end) {
+            return new long[0];
+        }
+
+        int pageStart = (int) Math.min((long) start + offset, end);
+        int pageEnd = (int) Math.min((long) pageStart + limit, end);
+        return Arrays.copyOfRange(entries, pageStart, pageEnd);
+    }
+
+    /**
+     * Returns the position in the index of the first entry at or after from. The entries in a range are at
+     * positions startOf(from) up to, but excluding, endOf(to).
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @return the position of the range's first entry
+     */
+    int startOf(ZonedDateTime from) {
+        return lowerBound(from);
+    }
+
+    /**
+     * Returns the position in the index just past the last entry before to.
+     *
+     * @param to the end of the range, exclusive; null for no end
+     * @return the position just past the range's last entry
+     */
+    int endOf(ZonedDateTime to) {
+        return upperBound(to);
+    }
+
+    /**
+     * Returns the position in the index just past the last entry at or before the given time, where an entry at
+     * that time would go if it were added after every entry already there.
+     *
+     * @param epochNanos the time, from toEpochNanos
+     * @return the position of the first entry after the time
+     */
+    int positionAfter(long epochNanos) {
+        return Long.MAX_VALUE == epochNanos ? times.length : firstIndexAtOrAfter(epochNanos + 1);
+    }
+
+    long entryAt(int position) {
+        return entries[position];
+    }
+
+    /**
+     * Returns the position of the given entry, added at the given time.
+     *
+     * @param time the entry's time
+     * @param entry the entry to find
+     * @return the entry's position in the index, or -1 if there's no such entry at that time
+     */
+    int positionOf(ZonedDateTime time, long entry) {
+        if (null == time) {
+            return -1;
+        }
+
+        long epochNanos = toEpochNanos(time);
+        for (int position = firstIndexAtOrAfter(epochNanos);
+             position < times.length && times[position] == epochNanos && entries[position] <= entry; position++) {
+            if (entries[position] == entry) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Index of the first entry at or after from.
+     */
+    private int lowerBound(ZonedDateTime from) {
+        return null == from ? 0 : firstIndexAtOrAfter(toEpochNanos(from));
+    }
+
+    /*
+     * Index just past the last entry before to.
+     */
+    private int upperBound(ZonedDateTime to) {
+        return null == to ? times.length : firstIndexAtOrAfter(toEpochNanos(to));
+    }
+
+    private int firstIndexAtOrAfter(long time) {
+        int low = 0;
+        int high = times.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the given time in epoch nanoseconds, as the index stores it.
+     *
+     * @param time the time to convert
+     * @return the time in epoch nanoseconds, pinned to the range a long can hold
+     */
+    static long toEpochNanos(ZonedDateTime time) {
+        long epochSecond = time.toEpochSecond();
+        if (epochSecond <= MIN_EPOCH_SECOND) {
+            return Long.MIN_VALUE;
+        }
+        if (epochSecond >= MAX_EPOCH_SECOND) {
+            return Long.MAX_VALUE;
+        }
+        return epochSecond * NANOS_PER_SECOND + time.getNano();
+    }
+
+    /**
+     * Collects entries, then sorts them by time into a TimeIndex. Not thread safe.
+     */
+    static final class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] times = new long[INITIAL_CAPACITY];
+        private long[] entries = new long[INITIAL_CAPACITY];
+        private int size;
+
+        private Builder() {}
+
+        /**
+         * Adds an entry at the given time. Null times aren't indexed, so that an undelivered shipment, say, is in
+         * no delivery date range.
+         *
+         * @param time the entry's time
+         * @param entry the entry, from SecondaryIndex.entry
+         * @return this Builder
+         */
+        Builder add(ZonedDateTime time, long entry) {
+            if (null == time) {
+                return this;
+            }
+
+            if (size == entries.length) {
+                times = Arrays.copyOf(times, size * 2);
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            times[size] = toEpochNanos(time);
+            entries[size] = entry;
+            size++;
+            return this;
+        }
+
+        /**
+         * Builds the index, sorting the entries by time, then by entry.
+         *
+         * @return the index
+         */
+        TimeIndex build() {
+            long[] sortedTimes = Arrays.copyOf(times, size);
+            long[] sortedEntries = Arrays.copyOf(entries, size);
+            mergeSort(sortedTimes, sortedEntries, new long[size], new long[size], 0, size);
+            return new TimeIndex(sortedTimes, sortedEntries);
+        }
+
+        /*
+         * Sorts times and entries[from, to) together, by time then entry, using the scratch arrays as merge
+         * buffers. Sorting the two primitive arrays in step avoids boxing a pair object per entry.
+         */
+        private static void mergeSort(long[] times, long[] entries, long[] scratchTimes, long[] scratchEntries,
+                                      int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            mergeSort(times, entries, scratchTimes, scratchEntries, from, middle);
+            mergeSort(times, entries, scratchTimes, scratchEntries, middle, to);
+            if (!isBefore(times, entries, middle, middle - 1)) {
+                // already in order, as when entries are added in time order
+                return;
+            }
+
+            System.arraycopy(times, from, scratchTimes, from, to - from);
+            System.arraycopy(entries, from, scratchEntries, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && !isBefore(scratchTimes, scratchEntries, right, left))) {
+                    times[i] = scratchTimes[left];
+                    entries[i] = scratchEntries[left++];
+                } else {
+                    times[i] = scratchTimes[right];
+                    entries[i] = scratchEntries[right++];
+                }
+            }
+        }
+
+        private static boolean isBefore(long[] times, long[] entries, int i, int j) {
+            return times[i] < times[j] || (times[i] == times[j] && entries[i] < entries[j]);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ColumnarOrderStoreTest {
+    private static final ZonedDateTime ORDER_DATE =
+        ZonedDateTime.of(2019, 3, 10, 1, 30, 0, 123_456_789, ZoneId.of("America/Los_Angeles"));
+
+    @Test
+    public void getOrderData_afterEncoding_matchesOriginalOrder() {
+        // GIVEN
+        OrderData orderData = buildOrder("111-0000000-0000001", "20", "10", "item-a");
+        ColumnarOrderStore store = ColumnarOrderStore.of(Collections.singletonList(orderData));
+
+        // WHEN
+        OrderData decoded = store.getOrderData(0, "111-0000000-0000001");
+
+        // THEN
+        assertEquals(orderData.toString(), decoded.toString());
+        assertEquals(ORDER_DATE, decoded.getOrderDate());
+        assertEquals(ORDER_DATE.getZone(), decoded.getOrderDate().getZone());
+    }
+
+    @Test
+    public void findOrderItem_unsortedAndNonNumericIds_findsEveryItem() {
+        // GIVEN
+        List<OrderData> orderDatas = Arrays.asList(buildOrder("111-0000000-0000001", "20", "10", "item-a"),
+                                                   buildOrder("111-0000000-0000002", "5", "0042", "item-b"));
+        ColumnarOrderStore store = ColumnarOrderStore.of(orderDatas);
+
+        // WHEN + THEN
+        for (int orderRow = 0; orderRow < orderDatas.size(); orderRow++) {
+            for (OrderItemData item : orderDatas.get(orderRow).getCustomerOrderItemList()) {
+                int itemRow = store.findOrderItem(item.getCustomerOrderItemId());
+                assertEquals(orderRow, store.getOrderRowForItem(itemRow));
+                assertEquals(item.getCustomerOrderItemId(),
+                             store.getOrderItemData(itemRow, "111-0000000-0000009").getCustomerOrderItemId());
+            }
+        }
+        assertEquals(OrderStore.NO_ROW, store.findOrderItem("42"));
+        assertEquals(OrderStore.NO_ROW, store.findOrderItem("item-c"));
+        assertEquals(OrderStore.NO_ROW, store.findOrderItem(null));
+    }
+
+    @Test
+    public void getOrderShipmentDataForItem_itemNotInAnyShipment_returnsNull() {
+        // GIVEN
+        OrderData orderData = buildOrder("111-0000000-0000001", "20", "10", "item-a");
+        ColumnarOrderStore store = ColumnarOrderStore.of(Collections.singletonList(orderData));
+
+        // WHEN
+        OrderShipmentData shipped = store.getOrderShipmentDataForItem(store.findOrderItem("20"));
+        OrderShipmentData unshipped = store.getOrderShipmentDataForItem(store.findOrderItem("item-a"));
+
+        // THEN
+        assertEquals(orderData.getCustomerShipments().get(0).toString(), shipped.toString());
+        assertNull(unshipped);
+    }
+
+    @Test
+    public void of_malformedOrderId_throwsIllegalArgumentException() {
+        // GIVEN
+        List<OrderData> orderDatas = Collections.singletonList(buildOrder("not-an-order-id", "20", "10", "item-a"));
+
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class, () -> ColumnarOrderStore.of(orderDatas));
+    }
+
+    /*
+     * An order with three items, the first two of which are in one shipment, and a shipment with no ship or
+     * delivery date yet.
+     */
+    private OrderData buildOrder(String orderId, String firstItemId, String secondItemId, String thirdItemId) {
+        List<OrderItemData> items = Arrays.asList(buildItem(orderId, firstItemId, "B00ASIN001"),
+                                                  buildItem(orderId, secondItemId, "B00ASIN002"),
+                                                  buildItem(orderId, thirdItemId, "B00ASIN001"));
+        OrderShipmentData shipment = OrderShipmentData.builder()
+                                         .withShipmentId("S-" + orderId)
+                                         .withZip("98109")
+                                         .withCondition("6")
+                                         .withWarehouseId("BFI4")
+                                         .withShipDate(ORDER_DATE.plusHours(7))
+                                         .withCreationDate(ORDER_DATE.plusMinutes(23))
+                                         .withShipmentShipOption("second")
+                                         .withDeliveryDate(null)
+                                         .withDoDpsAndOfsPromisesAgree(true)
+                                         .withOnlyDpsPromisePresentAndActive(true)
+                                         .withCustomerShipmentItems(Arrays.asList(
+                                             new OrderShipmentData.CustomerShipmentItemData(firstItemId, 1),
+                                             new OrderShipmentData.CustomerShipmentItemData(secondItemId, 2)))
+                                         .build();
+
+        return OrderData.builder()
+                   .withOrderId(orderId)
+                   .withCustomerId("475944385")
+                   .withMarketplaceId("1")
+                   .withCondition(1)
+                   .withShipOption("second")
+                   .withOrderDate(ORDER_DATE)
+                   .withCustomerOrderItemList(items)
+                   .withCustomerShipments(Collections.singletonList(shipment))
+                   .build();
+    }
+
+    private OrderItemData buildItem(String orderId, String orderItemId, String asin) {
+        return OrderItemData.builder()
+                   .withCustomerOrderItemId(orderItemId)
+                   .withOrderId(orderId)
+                   .withAsin(asin)
+                   .withTitle("Title of " + asin)
+                   .withQuantity(2)
+                   .withMerchantId(null)
+                   .withApprovalDate(ORDER_DATE.plusMonths(1))
+                   .withSupplyCode("Sourceable")
+                   .withSupplyCodeDate(null)
+                   .withIsConfidenceTracked(true)
+                   .withConfidence(-3)
+                   .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IndexDeltaTest {
+
+    @Test
+    public void skipLiveEntries_tombstonesBeforePosition_skipsOnlyLiveEntries() {
+        // GIVEN - positions 2, 3 and 7 replaced by changed orders, one of them twice
+        IndexDelta<String> delta = new IndexDelta<>();
+        IndexDelta.Change<String> change = new IndexDelta.Change<>();
+        change.tombstone(7);
+        change.tombstone(2);
+        change.tombstone(3);
+        delta.apply(change);
+        IndexDelta.Change<String> again = new IndexDelta.Change<>();
+        again.tombstone(3);
+        delta.apply(again);
+        int[] tombstones = delta.view("key").getTombstones();
+
+        // WHEN
+        int pastTwoLiveEntries = IndexDelta.skipLiveEntries(tombstones, 0, 20, 2);
+        int pastThreeLiveEntries = IndexDelta.skipLiveEntries(tombstones, 0, 20, 3);
+        int pastTheEnd = IndexDelta.skipLiveEntries(tombstones, 0, 6, 10);
+
+        // THEN - positions 0, 1 and 4 are the first live entries
+        assertEquals(2, pastTwoLiveEntries);
+        assertEquals(5, pastThreeLiveEntries);
+        assertEquals(6, pastTheEnd);
+        assertEquals(3, IndexDelta.countTombstones(tombstones, 0, 8));
+        assertEquals(1, IndexDelta.countTombstones(tombstones, 3, 7));
+        assertTrue(IndexDelta.isTombstone(tombstones, 3));
+        assertFalse(IndexDelta.isTombstone(tombstones, 4));
+    }
+
+    @Test
+    public void view_keyRange_returnsEntriesByKeyThenOrderIdThenOrdinal() {
+        // GIVEN
+        IndexDelta<Long> delta = new IndexDelta<>();
+        OrderData first = OrderData.builder().withOrderId("111-0000000-0000001").build();
+        OrderData second = OrderData.builder().withOrderId("111-0000000-0000002").build();
+        IndexDelta.Change<Long> change = new IndexDelta.Change<>();
+        change.add(20L, second, 0);
+        change.add(20L, first, 1);
+        change.add(20L, first, 0);
+        change.add(10L, second, 3);
+        change.add(30L, first, 2);
+        change.add(null, first, 4);
+        delta.apply(change);
+        IndexDelta.Change<Long> removal = new IndexDelta.Change<>();
+        removal.remove(10L, second, 3);
+        delta.apply(removal);
+
+        // WHEN
+        List<IndexDelta.Entry<Long>> entries = delta.view(10L, 30L).getChangedEntries();
+
+        // THEN - the end of the range is exclusive
+        assertEquals(3, entries.size());
+        assertEquals("111-0000000-0000001/0, 111-0000000-0000001/1, 111-0000000-0000002/0",
+                     entries.stream()
+                         .map(entry -> entry.getOrderData().getOrderId() + "/" + entry.getOrdinal())
+                         .collect(Collectors.joining(", ")));
+        assertEquals(4, delta.view(null, null).getChangedEntries().size());
+        assertEquals(0, delta.view(30L, 10L).getChangedEntries().size());
+        assertEquals(1, delta.view(30L).getChangedEntries().size());
+        assertEquals(0, delta.view(10L).getChangedEntries().size());
+    }
+
+    @Test
+    public void apply_changeReplacingOrdersEntry_viewHasOnlyNewVersion() {
+        // GIVEN - an order indexed under a key
+        IndexDelta<String> delta = new IndexDelta<>();
+        OrderData previous = OrderData.builder().withOrderId("111-0000000-0000001").withCondition(1).build();
+        OrderData changed = OrderData.builder().withOrderId("111-0000000-0000001").withCondition(2).build();
+        IndexDelta.Change<String> added = new IndexDelta.Change<>();
+        added.tombstone(5);
+        added.add("key", previous, 0);
+        delta.apply(added);
+        IndexDelta.View<String> before = delta.view("key");
+
+        // WHEN
+        IndexDelta.Change<String> replaced = new IndexDelta.Change<>();
+        replaced.remove("key", previous, 0);
+        replaced.tombstone(9);
+        replaced.add("key", changed, 0);
+        delta.apply(replaced);
+
+        // THEN - the new view holds only the new version, and the earlier view is unchanged
+        List<IndexDelta.Entry<String>> entries = delta.view("key").getChangedEntries();
+        assertEquals(1, entries.size());
+        assertSame(changed, entries.get(0).getOrderData());
+        assertEquals(1, IndexDelta.countTombstones(before.getTombstones(), 0, 10));
+        assertSame(previous, before.getChangedEntries().get(0).getOrderData());
+    }
+}
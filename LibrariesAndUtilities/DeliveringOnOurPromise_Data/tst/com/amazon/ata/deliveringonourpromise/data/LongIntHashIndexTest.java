@@ -0,0 +1,63 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LongIntHashIndexTest {
+
+    @Test
+    public void get_afterPut_returnsValue() {
+        // GIVEN
+        LongIntHashIndex index = new LongIntHashIndex(4);
+
+        // WHEN
+        index.put(20655079937534L, 7);
+
+        // THEN
+        assertEquals(7, index.get(20655079937534L));
+        assertEquals(LongIntHashIndex.NO_VALUE, index.get(20655079937547L));
+    }
+
+    @Test
+    public void put_existingKey_replacesValue() {
+        // GIVEN
+        LongIntHashIndex index = new LongIntHashIndex(4);
+        index.put(42L, 1);
+
+        // WHEN
+        index.put(42L, 2);
+
+        // THEN
+        assertEquals(2, index.get(42L));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void put_manyMoreKeysThanExpected_growsAndKeepsEveryKey() {
+        // GIVEN
+        LongIntHashIndex index = new LongIntHashIndex(1);
+
+        // WHEN - IDs step by 13, like the generated order item IDs
+        for (int i = 0; i < 100_000; i++) {
+            index.put(20655079937521L + 13L * i, i);
+        }
+
+        // THEN
+        assertEquals(100_000, index.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, index.get(20655079937521L + 13L * i));
+        }
+    }
+
+    @Test
+    public void put_reservedKey_throwsIllegalArgumentException() {
+        // GIVEN
+        LongIntHashIndex index = new LongIntHashIndex(4);
+
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class, () -> index.put(Long.MIN_VALUE, 1));
+        assertEquals(LongIntHashIndex.NO_VALUE, index.get(Long.MIN_VALUE));
+    }
+}
@@ -0,0 +1,131 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class OffHeapOrderStoreTest {
+    private static final ZonedDateTime ORDER_DATE =
+        ZonedDateTime.of(2019, 11, 3, 1, 30, 0, 987_654_321, ZoneId.of("America/Los_Angeles"));
+
+    @Test
+    public void getOrderData_directAndMappedStores_matchOriginalOrders() {
+        // GIVEN
+        List<OrderData> orderDatas = Arrays.asList(buildOrder("111-0000000-0000001", "30", "item-a"),
+                                                   buildOrder("111-0000000-0000002", "10", "item-b"));
+
+        List<PackedOrderStore.Factory<OffHeapOrderStore>> factories =
+            Arrays.asList(OffHeapOrderStore::allocateDirect, OffHeapOrderStore::mapTempFile);
+
+        for (PackedOrderStore.Factory<OffHeapOrderStore> factory : factories) {
+            // WHEN
+            OffHeapOrderStore store = PackedOrderStore.pack(orderDatas, factory);
+
+            // THEN
+            assertEquals(orderDatas.size(), store.getNumOrders());
+            for (int orderRow = 0; orderRow < orderDatas.size(); orderRow++) {
+                OrderData orderData = orderDatas.get(orderRow);
+                assertEquals(orderData.toString(), store.getOrderData(orderRow, orderData.getOrderId()).toString());
+            }
+        }
+    }
+
+    @Test
+    public void findOrderItem_unsortedIds_findsItemsAndTheirShipments() {
+        // GIVEN
+        List<OrderData> orderDatas = Arrays.asList(buildOrder("111-0000000-0000001", "30", "item-a"),
+                                                   buildOrder("111-0000000-0000002", "10", "item-b"));
+        OffHeapOrderStore store = PackedOrderStore.pack(orderDatas, OffHeapOrderStore::allocateDirect);
+
+        // WHEN
+        int shippedItemRow = store.findOrderItem("10");
+        int unshippedItemRow = store.findOrderItem("item-a");
+
+        // THEN
+        assertEquals(1, store.getOrderRowForItem(shippedItemRow));
+        assertEquals("10", store.getOrderItemData(shippedItemRow, "111-0000000-0000009").getCustomerOrderItemId());
+        assertEquals(orderDatas.get(1).getCustomerShipments().get(0).toString(),
+                     store.getOrderShipmentDataForItem(shippedItemRow).toString());
+        assertEquals(0, store.getOrderRowForItem(unshippedItemRow));
+        assertNull(store.getOrderShipmentDataForItem(unshippedItemRow));
+        assertEquals(OrderStore.NO_ROW, store.findOrderItem("20"));
+        assertEquals(OrderStore.NO_ROW, store.findOrderItem("item-c"));
+    }
+
+    @Test
+    public void findOrderItem_sortedIds_findsEveryItem() {
+        // GIVEN
+        List<OrderData> orderDatas = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            orderDatas.add(buildOrder(String.format("111-0000000-%07d", i), String.valueOf(1000 + 2 * i), null));
+        }
+        OffHeapOrderStore store = PackedOrderStore.pack(orderDatas, OffHeapOrderStore::allocateDirect);
+
+        // WHEN + THEN
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i - 1, store.findOrderItem(String.valueOf(1000 + 2 * i)));
+            assertEquals(OrderStore.NO_ROW, store.findOrderItem(String.valueOf(1001 + 2 * i)));
+        }
+    }
+
+    /*
+     * An order whose first item is shipped, and whose optional second item isn't.
+     */
+    private OrderData buildOrder(String orderId, String shippedItemId, String unshippedItemId) {
+        List<OrderItemData> items = new ArrayList<>();
+        items.add(buildItem(orderId, shippedItemId));
+        if (unshippedItemId != null) {
+            items.add(buildItem(orderId, unshippedItemId));
+        }
+
+        OrderShipmentData shipment = OrderShipmentData.builder()
+                                         .withShipmentId("5" + shippedItemId)
+                                         .withZip("98109")
+                                         .withCondition("6")
+                                         .withWarehouseId("SEA8")
+                                         .withShipDate(null)
+                                         .withCreationDate(ORDER_DATE.plusMinutes(23))
+                                         .withShipmentShipOption("second")
+                                         .withDeliveryDate(null)
+                                         .withDoDpsAndOfsPromisesAgree(false)
+                                         .withOnlyDpsPromisePresentAndActive(true)
+                                         .withCustomerShipmentItems(Collections.singletonList(
+                                             new OrderShipmentData.CustomerShipmentItemData(shippedItemId, 1)))
+                                         .build();
+
+        return OrderData.builder()
+                   .withOrderId(orderId)
+                   .withCustomerId("cust-" + orderId)
+                   .withMarketplaceId("1")
+                   .withCondition(3)
+                   .withShipOption(null)
+                   .withOrderDate(ORDER_DATE)
+                   .withCustomerOrderItemList(items)
+                   .withCustomerShipments(Collections.singletonList(shipment))
+                   .build();
+    }
+
+    private OrderItemData buildItem(String orderId, String orderItemId) {
+        return OrderItemData.builder()
+                   .withCustomerOrderItemId(orderItemId)
+                   .withOrderId(orderId)
+                   .withAsin("B00ASIN001")
+                   .withTitle("Title of B00ASIN001")
+                   .withQuantity(1)
+                   .withMerchantId("24263472722")
+                   .withApprovalDate(ORDER_DATE.plusMonths(1))
+                   .withSupplyCode("Sourceable")
+                   .withSupplyCodeDate(ORDER_DATE.withZoneSameInstant(ZoneId.of("UTC")))
+                   .withIsConfidenceTracked(true)
+                   .withConfidence(-3)
+                   .build();
+    }
+}
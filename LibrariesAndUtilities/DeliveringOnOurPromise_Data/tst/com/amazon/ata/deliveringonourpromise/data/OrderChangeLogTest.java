@@ -0,0 +1,154 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderChangeLogTest {
+    private static final ZonedDateTime DELIVERY_DATE =
+        ZonedDateTime.of(2019, 11, 3, 12, 0, 0, 0, ZoneId.of("America/Los_Angeles"));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void open_afterConcurrentCommits_replaysEveryChangeInOrderPerOrder() throws Exception {
+        // GIVEN - several threads each logging a run of changes to their own order
+        Path file = tempDir.resolve("orders.log");
+        OrderChangeLog log = OrderChangeLog.open(file, new RecordingHandler());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                String orderId = String.format("111-0000000-%07d", thread);
+                tasks.add(executor.submit(() -> {
+                    for (int condition = 0; condition < 500; condition++) {
+                        log.commit(log.append(OrderChangeLog.orderCondition(orderId, condition)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        log.append(OrderChangeLog.shipmentDelivered("111-0000000-0000000", "shipment-1", DELIVERY_DATE));
+        log.close();
+
+        // WHEN
+        RecordingHandler replayed = new RecordingHandler();
+        OrderChangeLog.open(file, replayed).close();
+
+        // THEN - close committed the last change, and each order's changes come back in the order they were made
+        assertEquals(8 * 500 + 1, replayed.changes.size());
+        for (int thread = 0; thread < 8; thread++) {
+            String orderId = String.format("111-0000000-%07d", thread);
+            List<String> expected = new ArrayList<>();
+            List<String> actual = new ArrayList<>();
+            for (int condition = 0; condition < 500; condition++) {
+                expected.add("condition " + orderId + " " + condition);
+            }
+            for (String change : replayed.changes) {
+                if (change.startsWith("condition " + orderId)) {
+                    actual.add(change);
+                }
+            }
+            assertEquals(expected, actual);
+        }
+        assertEquals("delivered 111-0000000-0000000 shipment-1 " + DELIVERY_DATE,
+                     replayed.changes.get(replayed.changes.size() - 1));
+    }
+
+    @Test
+    public void open_lastRecordCutOff_dropsItAndAppendsAfterTheRest() throws IOException {
+        // GIVEN - a log whose last record was only partly written
+        Path file = tempDir.resolve("orders.log");
+        OrderChangeLog log = OrderChangeLog.open(file, new RecordingHandler());
+        log.commit(log.append(OrderChangeLog.shipmentShipped("111-0000000-0000001", "shipment-1", DELIVERY_DATE)));
+        log.commit(log.append(OrderChangeLog.orderCondition("111-0000000-0000001", 3)));
+        log.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        // WHEN
+        RecordingHandler replayed = new RecordingHandler();
+        OrderChangeLog reopened = OrderChangeLog.open(file, replayed);
+        reopened.commit(reopened.append(OrderChangeLog.orderCondition("111-0000000-0000001", 4)));
+        reopened.close();
+        RecordingHandler replayedAgain = new RecordingHandler();
+        OrderChangeLog.open(file, replayedAgain).close();
+
+        // THEN
+        assertEquals(Collections.singletonList("shipped 111-0000000-0000001 shipment-1 " + DELIVERY_DATE),
+                     replayed.changes);
+        assertEquals(2, replayedAgain.changes.size());
+        assertEquals("condition 111-0000000-0000001 4", replayedAgain.changes.get(1));
+    }
+
+    @Test
+    public void open_notAChangeLog_throwsIOException() throws IOException {
+        // GIVEN
+        Path file = tempDir.resolve("orders.log");
+        Files.write(file, "not a change log".getBytes(StandardCharsets.UTF_8));
+
+        // WHEN + THEN
+        assertThrows(IOException.class, () -> OrderChangeLog.open(file, new RecordingHandler()));
+    }
+
+    @Test
+    public void append_afterClose_throwsIllegalStateException() throws IOException {
+        // GIVEN
+        OrderChangeLog log = OrderChangeLog.open(tempDir.resolve("orders.log"), new RecordingHandler());
+        log.close();
+
+        // WHEN + THEN
+        assertThrows(IllegalStateException.class,
+            () -> log.append(OrderChangeLog.orderCondition("111-0000000-0000001", 1)));
+        assertTrue(Files.size(tempDir.resolve("orders.log")) > 0);
+    }
+
+    private static final class RecordingHandler implements OrderChangeLog.ChangeHandler {
+        private final List<String> changes = new ArrayList<>();
+
+        @Override
+        public void addOrder(OrderData orderData) {
+            changes.add("added " + orderData.getOrderId());
+        }
+
+        @Override
+        public void markShipmentShipped(String orderId, String shipmentId, ZonedDateTime shipDate) {
+            changes.add("shipped " + orderId + " " + shipmentId + " " + shipDate);
+        }
+
+        @Override
+        public void markShipmentDelivered(String orderId, String shipmentId, ZonedDateTime deliveryDate) {
+            changes.add("delivered " + orderId + " " + shipmentId + " " + deliveryDate);
+        }
+
+        @Override
+        public void updateOrderCondition(String orderId, int condition) {
+            changes.add("condition " + orderId + " " + condition);
+        }
+    }
+}
@@ -1,19 +1,41 @@
 package com.amazon.ata.deliveringonourpromise.data;
 
+import com.amazon.ata.order.OrderId;
+
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -41,6 +63,9 @@ public class OrderDatastoreTest {
 
     private OrderDatastore orderDatastore = OrderDatastore.getDatastore();
 
+    @TempDir
+    Path tempDir;
+
     @BeforeAll
     public static void setup() {
         allFixtureOrderIds = new ArrayList<>();
@@ -398,6 +423,60 @@ public class OrderDatastoreTest {
         assertNull(missingOrder);
     }
 
+    @Test
+    public void getOrderData_orderIdsSharingSampleOrder_doNotOverwriteEachOther() {
+        // GIVEN - two order IDs that map to the same sample order
+        String firstOrderId = "111-7497023-0000001";
+        String secondOrderId = String.format("111-7497023-%07d", 1 + orderDatastore.getNumOrders());
+
+        // WHEN
+        OrderData first = orderDatastore.getOrderData(firstOrderId);
+        OrderData second = orderDatastore.getOrderData(secondOrderId);
+
+        // THEN - same items, each carrying its own order ID
+        assertEquals(first.getCustomerOrderItemList().get(0).getCustomerOrderItemId(),
+                     second.getCustomerOrderItemList().get(0).getCustomerOrderItemId());
+        assertEquals(firstOrderId, first.getOrderId());
+        assertEquals(secondOrderId, second.getOrderId());
+        for (OrderItemData item : first.getCustomerOrderItemList()) {
+            assertEquals(firstOrderId, item.getOrderId());
+        }
+        for (OrderItemData item : second.getCustomerOrderItemList()) {
+            assertEquals(secondOrderId, item.getOrderId());
+        }
+    }
+
+    @Test
+    public void getOrderItemData_sampleOrderItem_orderIdLeadsBackToSameOrder() {
+        // GIVEN
+        OrderData orderData = orderDatastore.getOrderData("111-7497023-2960779");
+        String orderItemId = orderData.getCustomerOrderItemList().get(0).getCustomerOrderItemId();
+
+        // WHEN
+        OrderItemData itemData = orderDatastore.getOrderItemData(orderItemId);
+
+        // THEN
+        OrderData itemOrderData = orderDatastore.getOrderData(itemData.getOrderId());
+        assertEquals(orderItemId, itemOrderData.getCustomerOrderItemList().get(0).getCustomerOrderItemId());
+    }
+
+    @Test
+    public void getOrderItemData_whileOrderIdsSharingSampleOrderAreRequested_reportsSameOrderId() {
+        // GIVEN - an item of a sample order, and another order ID sharing that order
+        OrderData orderData = orderDatastore.getOrderData("111-7497023-2960779");
+        String orderItemId = orderData.getCustomerOrderItemList().get(0).getCustomerOrderItemId();
+        String sharingOrderId = String.format("111-7497023-%07d", 2960779 + orderDatastore.getNumOrders());
+        String itemOrderId = orderDatastore.getOrderItemData(orderItemId).getOrderId();
+
+        // WHEN
+        OrderData sharingOrderData = orderDatastore.getOrderData(sharingOrderId);
+        OrderItemData itemData = orderDatastore.getOrderItemData(orderItemId);
+
+        // THEN - asking for an order doesn't change which order its items report, and the views share shipments
+        assertEquals(itemOrderId, itemData.getOrderId());
+        assertSame(orderData.getCustomerShipments().get(0), sharingOrderData.getCustomerShipments().get(0));
+    }
+
     @Test
     public void getOrderItemData_agreesWithGetOrderData() {
         // GIVEN
@@ -412,8 +491,12 @@ public class OrderDatastoreTest {
         for (OrderData data : orderDatas) {
             for (OrderItemData itemData : data.getCustomerOrderItemList()) {
                 OrderItemData fetchedItemData = orderDatastore.getOrderItemData(itemData.getCustomerOrderItemId());
+                // a sample order's items belong to its stand-in order ID, which leads back to the same order
+                assertTrue(orderDatastore.getOrderData(fetchedItemData.getOrderId())
+                               .getCustomerOrderItemList()
+                               .contains(fetchedItemData));
                 assertEquals(itemData,
-                             fetchedItemData,
+                             fetchedItemData.copyWithOrderId(data.getOrderId()),
                              String.format("Expected order '%s' to have order item '%s' "
                                            + "that matches the order item returned by datastore but they do not. "
                                            + "order's order item: %s | getOrderItemData('%s') returns: %s",
@@ -428,6 +511,702 @@ public class OrderDatastoreTest {
         }
     }
 
+    @Test
+    public void getOrderItemData_concurrentReaders_allSeeFixtureItems() throws Exception {
+        // GIVEN
+        List<String> orderItemIds = new ArrayList<>();
+        for (String orderId : TRIPLE_ITEM_ORDER_FIXTURES) {
+            for (OrderItemData item : orderDatastore.getOrderData(orderId).getCustomerOrderItemList()) {
+                orderItemIds.add(item.getCustomerOrderItemId());
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // WHEN - many threads read the same items at once
+            List<Future<Integer>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> {
+                    int found = 0;
+                    for (int round = 0; round < 1_000; round++) {
+                        for (String orderItemId : orderItemIds) {
+                            OrderItemData item = orderDatastore.getOrderItemData(orderItemId);
+                            if (orderItemId.equals(item.getCustomerOrderItemId())) {
+                                found++;
+                            }
+                        }
+                    }
+                    return found;
+                }));
+            }
+
+            // THEN
+            for (Future<Integer> lookup : lookups) {
+                assertEquals(1_000 * orderItemIds.size(), lookup.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getOrderShipmentDataByOrderItemId_agreesWithGetOrderDataShipments() {
+        // GIVEN
+        List<String> orderIds = generateOrderIds("112-7497023-1961247");
+        orderIds.addAll(SINGLE_ITEM_ORDER_FIXTURES);
+        orderIds.addAll(TRIPLE_ITEM_ORDER_FIXTURES);
+
+        for (String orderId : orderIds) {
+            for (OrderShipmentData shipment : orderDatastore.getOrderData(orderId).getCustomerShipments()) {
+                for (OrderShipmentData.CustomerShipmentItemData item : shipment.getCustomerShipmentItems()) {
+                    // WHEN
+                    OrderShipmentData fetchedShipment =
+                        orderDatastore.getOrderShipmentDataByOrderItemId(item.getCustomerOrderItemId());
+
+                    // THEN
+                    assertNotNull(fetchedShipment);
+                    assertEquals(shipment.getShipmentId(), fetchedShipment.getShipmentId());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getOrderShipmentDataByOrderItemId_nonexistentOrderItemId_returnsNull() {
+        // WHEN + THEN
+        assertNull(orderDatastore.getOrderShipmentDataByOrderItemId("20"));
+    }
+
+    @Test
+    public void getShipmentsForOrderItem_agreesWithScanOfShipments() {
+        // GIVEN - sample and fixture orders, plus one whose first shipment's items are shipped again at the end
+        List<OrderData> orderDatas = new ArrayList<>();
+        List<String> orderIds = generateOrderIds("112-7497023-1961247");
+        orderIds.addAll(SINGLE_ITEM_ORDER_FIXTURES);
+        orderIds.addAll(DOUBLE_ITEM_ORDER_FIXTURES);
+        orderIds.addAll(TRIPLE_ITEM_ORDER_FIXTURES);
+        for (String orderId : orderIds) {
+            orderDatas.add(orderDatastore.getOrderData(orderId));
+        }
+        OrderData orderData = orderDatas.get(0);
+        List<OrderShipmentData> shipments = orderData.getCustomerShipments();
+        shipments.add(shipments.get(0).copyWithShipDate(shipments.get(0).getShipDate().plusDays(1)));
+        orderDatas.add(orderData.copyWithShipments(shipments));
+
+        for (OrderData order : orderDatas) {
+            for (OrderItemData item : order.getCustomerOrderItemList()) {
+                String customerOrderItemId = item.getCustomerOrderItemId();
+                List<String> expectedShipmentIds = new ArrayList<>();
+                for (OrderShipmentData shipment : order.getCustomerShipments()) {
+                    if (shipment.includesOrderItem(customerOrderItemId)) {
+                        expectedShipmentIds.add(shipment.getShipmentId() + " " + shipment.getShipDate());
+                    }
+                }
+
+                // WHEN
+                List<String> shipmentIds = order.getShipmentsForOrderItem(customerOrderItemId).stream()
+                                               .map(shipment -> shipment.getShipmentId() + " " + shipment.getShipDate())
+                                               .collect(Collectors.toList());
+
+                // THEN
+                assertEquals(expectedShipmentIds, shipmentIds);
+            }
+        }
+        String splitItemId = shipments.get(0).getCustomerShipmentItems().get(0).getCustomerOrderItemId();
+        assertEquals(2, orderDatas.get(orderDatas.size() - 1).getShipmentsForOrderItem(splitItemId).size());
+        assertTrue(orderData.getShipmentsForOrderItem(NON_EXISTING_ORDER_ID).isEmpty());
+    }
+
+    @Test
+    public void withGeneratedOrders_sameNumberOfOrders_generatesSameDataOnAnyPool() {
+        // GIVEN
+        ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+        ForkJoinPool multiThreadPool = new ForkJoinPool(4);
+
+        try {
+            OrderDatastore sequential = OrderDatastore.withGeneratedOrders(20_000, singleThreadPool);
+            OrderDatastore parallel = OrderDatastore.withGeneratedOrders(20_000, multiThreadPool);
+
+            // WHEN
+            List<String> orderIds = Arrays.asList("111-0000000-0000000", "111-2345678-0012345", "111-2345678-0019999");
+
+            // THEN
+            assertEquals(20_000, parallel.getNumOrders());
+            for (String orderId : orderIds) {
+                assertEquals(sequential.getOrderData(orderId).toString(), parallel.getOrderData(orderId).toString());
+            }
+        } finally {
+            singleThreadPool.shutdown();
+            multiThreadPool.shutdown();
+        }
+    }
+
+    @Test
+    public void withGeneratedOrders_everyOrderItem_isFoundWithItsShipment() {
+        // GIVEN
+        OrderDatastore generated = OrderDatastore.withGeneratedOrders(1_000);
+
+        // WHEN + THEN
+        for (int i = 0; i < generated.getNumOrders(); i++) {
+            OrderData orderData = generated.getOrderData(String.format("112-0000000-%07d", i));
+            for (OrderItemData item : orderData.getCustomerOrderItemList()) {
+                assertNotNull(generated.getOrderItemData(item.getCustomerOrderItemId()));
+                assertTrue(generated.getOrderShipmentDataByOrderItemId(item.getCustomerOrderItemId())
+                               .includesOrderItem(item.getCustomerOrderItemId()));
+            }
+        }
+    }
+
+    @Test
+    public void withGeneratedOrders_fixtures_matchDefaultDatastore() {
+        // GIVEN
+        OrderDatastore generated = OrderDatastore.withGeneratedOrders(100);
+
+        // WHEN + THEN
+        for (String orderId : allFixtureOrderIds) {
+            assertEquals(String.valueOf(orderDatastore.getOrderData(orderId)),
+                         String.valueOf(generated.getOrderData(orderId)));
+        }
+    }
+
+    @Test
+    public void withGeneratedOrders_packedStorages_returnSameDataAsObjects() {
+        // GIVEN
+        OrderDatastore objects = OrderDatastore.withGeneratedOrders(2_000, ForkJoinPool.commonPool(),
+                                                                    OrderStorage.OBJECTS);
+
+        for (OrderStorage storage : Arrays.asList(OrderStorage.COLUMNAR,
+                                                  OrderStorage.OFF_HEAP,
+                                                  OrderStorage.MEMORY_MAPPED)) {
+            OrderDatastore packed = OrderDatastore.withGeneratedOrders(2_000, ForkJoinPool.commonPool(), storage);
+
+            // WHEN + THEN
+            assertEquals(objects.getNumOrders(), packed.getNumOrders());
+            for (int i = 0; i < objects.getNumOrders(); i += 7) {
+                String orderId = String.format("113-0000000-%07d", i);
+                OrderData orderData = objects.getOrderData(orderId);
+                assertEquals(orderData.toString(), packed.getOrderData(orderId).toString(), storage.name());
+
+                for (OrderItemData item : orderData.getCustomerOrderItemList()) {
+                    String orderItemId = item.getCustomerOrderItemId();
+                    assertEquals(objects.getOrderItemData(orderItemId).toString(),
+                                 packed.getOrderItemData(orderItemId).toString(), storage.name());
+                    assertEquals(objects.getOrderShipmentDataByOrderItemId(orderItemId).toString(),
+                                 packed.getOrderShipmentDataByOrderItemId(orderItemId).toString(), storage.name());
+                }
+            }
+            for (String orderId : allFixtureOrderIds) {
+                assertEquals(String.valueOf(objects.getOrderData(orderId)),
+                             String.valueOf(packed.getOrderData(orderId)), storage.name());
+            }
+            assertNull(packed.getOrderItemData("20"), storage.name());
+        }
+    }
+
+    @Test
+    public void withGeneratedOrders_tooManyOrders_throwsIllegalArgumentException() {
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class, () -> OrderDatastore.withGeneratedOrders(10_000_001));
+    }
+
+    @Test
+    public void getOrderItemDatasByAsin_pagedThrough_matchesScanOfEveryOrder() {
+        // GIVEN
+        OrderDatastore datastore = OrderDatastore.withGeneratedOrders(500, ForkJoinPool.commonPool(),
+                                                                      OrderStorage.COLUMNAR);
+        String asin = datastore.getOrderData(IndexedOrderDataGenerator.orderIdForIndex(0))
+                          .getCustomerOrderItemList().get(0).getAsin();
+
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i < datastore.getNumOrders(); i++) {
+            orderIds.add(IndexedOrderDataGenerator.orderIdForIndex(i));
+        }
+        orderIds.addAll(datastore.getOrderFixtures().keySet().stream().sorted().collect(Collectors.toList()));
+
+        List<String> expectedItems = new ArrayList<>();
+        for (String orderId : orderIds) {
+            OrderData orderData = datastore.getOrderData(orderId);
+            if (orderData != null) {
+                for (OrderItemData item : orderData.getCustomerOrderItemList()) {
+                    if (asin.equals(item.getAsin())) {
+                        expectedItems.add(item.toString());
+                    }
+                }
+            }
+        }
+
+        // WHEN
+        List<String> items = new ArrayList<>();
+        List<OrderItemData> page;
+        do {
+            page = datastore.getOrderItemDatasByAsin(asin, items.size(), 7);
+            page.forEach(item -> items.add(item.toString()));
+        } while (!page.isEmpty());
+
+        // THEN
+        assertTrue(expectedItems.size() > 7);
+        assertEquals(expectedItems, items);
+    }
+
+    @Test
+    public void getOrderDatasByCustomerId_fixtureCustomer_returnsOnlyThatCustomersOrders() {
+        // GIVEN
+        OrderData fixtureOrder = orderDatastore.getOrderData(SINGLE_ITEM_ORDER_FIXTURES.get(0));
+
+        // WHEN
+        List<OrderData> orders = orderDatastore.getOrderDatasByCustomerId(fixtureOrder.getCustomerId(), 0, 100);
+
+        // THEN
+        assertTrue(orders.stream().anyMatch(order -> fixtureOrder.getOrderId().equals(order.getOrderId())));
+        for (OrderData order : orders) {
+            assertEquals(fixtureOrder.getCustomerId(), order.getCustomerId());
+        }
+        assertTrue(orderDatastore.getOrderDatasByCustomerId("not a customer", 0, 100).isEmpty());
+    }
+
+    @Test
+    public void getOrderShipmentDatasByDeliveryDate_dayWindow_matchesScanOfEveryOrder() {
+        // GIVEN
+        OrderDatastore datastore = OrderDatastore.withGeneratedOrders(500, ForkJoinPool.commonPool(),
+                                                                      OrderStorage.OFF_HEAP);
+        List<OrderShipmentData> allShipments = new ArrayList<>();
+        for (int i = 0; i < datastore.getNumOrders(); i++) {
+            allShipments.addAll(datastore.getOrderData(IndexedOrderDataGenerator.orderIdForIndex(i))
+                                    .getCustomerShipments());
+        }
+        datastore.getOrderFixtures().values().stream()
+            .filter(fixture -> fixture.getOrderData() != null)
+            .forEach(fixture -> allShipments.addAll(fixture.getOrderData().getCustomerShipments()));
+
+        ZonedDateTime from = allShipments.stream()
+                                 .map(OrderShipmentData::getDeliveryDate)
+                                 .filter(Objects::nonNull)
+                                 .min(ZonedDateTime::compareTo)
+                                 .get();
+        ZonedDateTime to = from.plusDays(1);
+        List<String> expectedShipmentIds = allShipments.stream()
+                                               .filter(shipment -> shipment.getDeliveryDate() != null)
+                                               .filter(shipment -> !shipment.getDeliveryDate().isBefore(from))
+                                               .filter(shipment -> shipment.getDeliveryDate().isBefore(to))
+                                               .map(OrderShipmentData::getShipmentId)
+                                               .sorted()
+                                               .collect(Collectors.toList());
+
+        // WHEN
+        List<OrderShipmentData> shipments =
+            datastore.getOrderShipmentDatasByDeliveryDate(from, to, 0, Integer.MAX_VALUE);
+
+        // THEN
+        assertFalse(shipments.isEmpty());
+        for (int i = 1; i < shipments.size(); i++) {
+            assertFalse(shipments.get(i).getDeliveryDate().isBefore(shipments.get(i - 1).getDeliveryDate()));
+        }
+        assertEquals(expectedShipmentIds, shipments.stream()
+                                              .map(OrderShipmentData::getShipmentId)
+                                              .sorted()
+                                              .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void getOrderShipmentDatasByWarehouseId_negativeOffset_throwsIllegalArgumentException() {
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class,
+                     () -> orderDatastore.getOrderShipmentDatasByWarehouseId("ABE2", -1, 10));
+    }
+
+    @Test
+    public void getOrderShipmentDatasByDeliveryDate_pagesAfterChanges_returnEveryShipmentOnceInTimeOrder() {
+        // GIVEN - shipments of stand-in orders, delivered within the range
+        OrderDatastore datastore = OrderDatastore.withGeneratedOrders(200);
+        ZonedDateTime from = ZonedDateTime.of(2100, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        ZonedDateTime to = from.plusDays(10);
+        datastore.getOrderShipmentDatasByDeliveryDate(null, null, 0, 1);
+        for (int i = 0; i < 20; i++) {
+            String orderId = IndexedOrderDataGenerator.orderIdForIndex(i);
+            List<OrderShipmentData> shipments = datastore.getOrderData(orderId).getCustomerShipments();
+            for (int ordinal = 0; ordinal < shipments.size(); ordinal++) {
+                datastore.markShipmentDelivered(orderId, shipments.get(ordinal).getShipmentId(),
+                                                from.plusHours(i % 7).plusMinutes(ordinal));
+            }
+        }
+        List<String> allShipments = datastore.getOrderShipmentDatasByDeliveryDate(null, null, 0, Integer.MAX_VALUE)
+                                        .stream()
+                                        .map(shipment -> shipment.getShipmentId() + "@" + shipment.getDeliveryDate())
+                                        .collect(Collectors.toList());
+
+        // WHEN
+        List<OrderShipmentData> paged = new ArrayList<>();
+        List<OrderShipmentData> page;
+        do {
+            page = datastore.getOrderShipmentDatasByDeliveryDate(null, null, paged.size(), 7);
+            paged.addAll(page);
+        } while (!page.isEmpty());
+        List<OrderShipmentData> inRange = datastore.getOrderShipmentDatasByDeliveryDate(from, to, 0, 1000);
+
+        // THEN
+        assertEquals(allShipments, paged.stream()
+                                       .map(shipment -> shipment.getShipmentId() + "@" + shipment.getDeliveryDate())
+                                       .collect(Collectors.toList()));
+        for (int i = 1; i < paged.size(); i++) {
+            assertFalse(paged.get(i).getDeliveryDate().isBefore(paged.get(i - 1).getDeliveryDate()));
+        }
+        int changedShipments = 0;
+        for (int i = 0; i < 20; i++) {
+            changedShipments += datastore.getOrderData(IndexedOrderDataGenerator.orderIdForIndex(i))
+                                    .getCustomerShipments().size();
+        }
+        assertEquals(changedShipments, inRange.size());
+    }
+
+    @Test
+    public void markShipmentDelivered_sampleShipment_isSeenByLookupsOfThatOrderOnly() {
+        // GIVEN - a shipment, and another order ID that maps to the same sample order
+        OrderDatastore datastore = OrderDatastore.withGeneratedOrders(200);
+        String orderId = IndexedOrderDataGenerator.orderIdForIndex(7);
+        OrderShipmentData shipment = datastore.getOrderData(orderId).getCustomerShipments().get(0);
+        String sharingOrderId = OrderId.format(OrderId.parse(orderId) + datastore.getNumOrders());
+        String orderItemId = shipment.getCustomerShipmentItems().get(0).getCustomerOrderItemId();
+        ZonedDateTime deliveryDate = ZonedDateTime.of(2100, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+        // WHEN
+        boolean delivered = datastore.markShipmentDelivered(orderId, shipment.getShipmentId(), deliveryDate);
+
+        // THEN
+        assertTrue(delivered);
+        assertEquals(deliveryDate, findShipment(datastore.getOrderData(orderId), shipment.getShipmentId())
+                                       .getDeliveryDate());
+        assertEquals(orderId, datastore.getOrderItemData(orderItemId).getOrderId());
+        assertEquals(deliveryDate, datastore.getOrderShipmentDataByOrderItemId(orderItemId).getDeliveryDate());
+        assertEquals(shipment.getDeliveryDate(),
+                     findShipment(datastore.getOrderData(sharingOrderId), shipment.getShipmentId())
+                         .getDeliveryDate());
+        List<OrderShipmentData> deliveredThen =
+            datastore.getOrderShipmentDatasByDeliveryDate(deliveryDate, deliveryDate.plusSeconds(1), 0, 10);
+        assertEquals(1, deliveredThen.size());
+        assertEquals(shipment.getShipmentId(), deliveredThen.get(0).getShipmentId());
+        assertFalse(datastore.markShipmentDelivered(orderId, "no-such-shipment", deliveryDate));
+        assertFalse(datastore.markShipmentDelivered("not an order ID", shipment.getShipmentId(), deliveryDate));
+    }
+
+    @Test
+    public void markShipmentDelivered_orderSharingSampleOrder_isRefused() {
+        // GIVEN - a sample order's items belong to its stand-in order ID, not the other order IDs sharing it
+        OrderDatastore datastore = OrderDatastore.withGeneratedOrders(200);
+        String orderId = IndexedOrderDataGenerator.orderIdForIndex(7);
+        String sharingOrderId = OrderId.format(OrderId.parse(orderId) + datastore.getNumOrders());
+        OrderData sharingOrder = datastore.getOrderData(sharingOrderId);
+        OrderShipmentData shipment = sharingOrder.getCustomerShipments().get(0);
+        String orderItemId = shipment.getCustomerShipmentItems().get(0).getCustomerOrderItemId();
+        OrderItemData orderItemData = datastore.getOrderItemData(orderItemId);
+        ZonedDateTime deliveryDate = ZonedDateTime.of(2100, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+        // WHEN
+        boolean delivered = datastore.markShipmentDelivered(sharingOrderId, shipment.getShipmentId(), deliveryDate);
+        boolean changed = datastore.updateOrderCondition(sharingOrderId, 42);
+
+        // THEN - nothing changed, rather than the order changing without its items
+        assertFalse(delivered);
+        assertFalse(changed);
+        assertEquals(sharingOrder.toString(), datastore.getOrderData(sharingOrderId).toString());
+        assertEquals(orderItemData, datastore.getOrderItemData(orderItemId));
+        assertEquals(shipment.getDeliveryDate(),
+                     datastore.getOrderShipmentDataByOrderItemId(orderItemId).getDeliveryDate());
+        assertThrows(IllegalArgumentException.class, () -> datastore.addOrder(sharingOrder));
+        assertTrue(datastore.markShipmentDelivered(orderId, shipment.getShipmentId(), deliveryDate));
+        assertEquals(deliveryDate, datastore.getOrderShipmentDataByOrderItemId(orderItemId).getDeliveryDate());
+    }
+
+    @Test
+    public void addOrder_replacingSampleOrder_isReturnedByLookupsAndIndexes() {
+        // GIVEN
+        OrderDatastore datastore = OrderDatastore.withGeneratedOrders(200);
+        String orderId = IndexedOrderDataGenerator.orderIdForIndex(7);
+        OrderData replaced = datastore.getOrderData(orderId);
+        String customerId = datastore.getOrderData(IndexedOrderDataGenerator.orderIdForIndex(0)).getCustomerId();
+        int customerOrders = datastore.getOrderDatasByCustomerId(customerId, 0, Integer.MAX_VALUE).size();
+        OrderData added = OrderData.builder()
+                              .withOrderId(orderId)
+                              .withCustomerId(customerId)
+                              .withCondition(replaced.getCondition())
+                              .withCustomerOrderItemList(Arrays.asList(
+                                  OrderItemData.builder()
+                                      .withCustomerOrderItemId("added-item-1")
+                                      .withOrderId(orderId)
+                                      .withAsin("B00ADDED01")
+                                      .withQuantity(1)
+                                      .build()))
+                              .withCustomerShipments(new ArrayList<>())
+                              .withOrderDate(ZonedDateTime.of(2100, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC))
+                              .build();
+        List<String> changes = new ArrayList<>();
+        datastore.addOrderChangeListener(orderData -> changes.add(orderData.getOrderId()));
+
+        // WHEN
+        datastore.addOrder(added);
+
+        // THEN
+        assertEquals(Arrays.asList(orderId), changes);
+        assertEquals(customerId, datastore.getOrderData(orderId).getCustomerId());
+        assertEquals(orderId, datastore.getOrderItemData("added-item-1").getOrderId());
+        assertEquals("added-item-1", datastore.getOrderItemDatasByAsin("B00ADDED01", 0, 10).get(0)
+                                         .getCustomerOrderItemId());
+        List<OrderData> byCustomer = datastore.getOrderDatasByCustomerId(customerId, 0, Integer.MAX_VALUE);
+        assertEquals(customerId.equals(replaced.getCustomerId()) ? customerOrders : customerOrders + 1,
+                     byCustomer.size());
+        assertEquals(1, byCustomer.stream().filter(orderData -> orderId.equals(orderData.getOrderId())).count());
+        List<OrderData> byDate = datastore.getOrderDatasByOrderDate(added.getOrderDate(), null, 0, 10);
+        assertEquals(1, byDate.size());
+        assertEquals(orderId, byDate.get(0).getOrderId());
+        assertThrows(IllegalArgumentException.class,
+            () -> datastore.addOrder(OrderData.builder().withOrderId("not an order ID").build()));
+    }
+
+    @Test
+    public void getOrderItemTable_ordersChangedBeforeAndAfterBuilding_matchesFunctionOfCurrentOrders() {
+        // GIVEN - a value that changes with the item's first shipment and the order's condition
+        OrderDatastore datastore = OrderDatastore.withGeneratedOrders(200);
+        BiFunction<OrderData, OrderItemData, Map.Entry<ZonedDateTime, Integer>> conditionAndShipDates =
+            (orderData, orderItemData) -> {
+                List<OrderShipmentData> shipments =
+                    orderData.getShipmentsForOrderItem(orderItemData.getCustomerOrderItemId());
+                ZonedDateTime shipDate = shipments.isEmpty() ? null : shipments.get(0).getShipDate();
+                return new AbstractMap.SimpleImmutableEntry<>(shipDate, orderData.getCondition());
+            };
+        OrderItemTable.Codec<Map.Entry<ZonedDateTime, Integer>> codec =
+            new OrderItemTable.Codec<Map.Entry<ZonedDateTime, Integer>>() {
+                @Override
+                public ZonedDateTime getDate(Map.Entry<ZonedDateTime, Integer> value) {
+                    return value.getKey();
+                }
+
+                @Override
+                public int getFlags(Map.Entry<ZonedDateTime, Integer> value) {
+                    return value.getValue();
+                }
+
+                @Override
+                public Map.Entry<ZonedDateTime, Integer> decode(ZonedDateTime date, int flags) {
+                    return new AbstractMap.SimpleImmutableEntry<>(date, flags);
+                }
+            };
+        String changedBefore = IndexedOrderDataGenerator.orderIdForIndex(3);
+        String changedAfter = IndexedOrderDataGenerator.orderIdForIndex(7);
+        OrderShipmentData shipment = datastore.getOrderData(changedAfter).getCustomerShipments().get(0);
+        datastore.updateOrderCondition(changedBefore, 42);
+
+        // WHEN
+        datastore.addOrderItemTable(conditionAndShipDates, codec);
+        OrderItemTable<Map.Entry<ZonedDateTime, Integer>> table = datastore.getOrderItemTable(conditionAndShipDates);
+        datastore.updateOrderCondition(changedAfter, 43);
+        datastore.markShipmentShipped(changedAfter, shipment.getShipmentId(), shipment.getShipDate().plusDays(3));
+        datastore.updateOrderCondition(changedBefore, 44);
+
+        // THEN - every item's value is the function of the order as it is now
+        datastore.addOrderItemTable(conditionAndShipDates, codec);
+        assertSame(table, datastore.getOrderItemTable(conditionAndShipDates));
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i < datastore.getNumOrders(); i++) {
+            orderIds.add(IndexedOrderDataGenerator.orderIdForIndex(i));
+        }
+        orderIds.addAll(SINGLE_ITEM_ORDER_FIXTURES);
+        orderIds.addAll(DOUBLE_ITEM_ORDER_FIXTURES);
+        orderIds.addAll(TRIPLE_ITEM_ORDER_FIXTURES);
+        for (String orderId : orderIds) {
+            OrderData orderData = datastore.getOrderData(orderId);
+            for (OrderItemData item : orderData.getCustomerOrderItemList()) {
+                assertEquals(conditionAndShipDates.apply(orderData, item), table.get(item.getCustomerOrderItemId()),
+                             "Wrong value for item " + item.getCustomerOrderItemId() + " of order " + orderId);
+            }
+        }
+        String changedItemId = datastore.getOrderData(changedBefore).getCustomerOrderItemList().get(0)
+                                   .getCustomerOrderItemId();
+        assertEquals(44, table.get(changedItemId).getValue());
+        assertNull(table.get(NON_EXISTING_ORDER_ID));
+        assertThrows(IllegalArgumentException.class,
+            () -> datastore.getOrderItemTable((orderData, orderItemData) -> orderData.getCondition()));
+    }
+
+    @Test
+    public void getOrderItemTable_addedBeforeLoading_isBuiltWithTheData() {
+        // GIVEN - a table added to a datastore that hasn't loaded its data yet
+        OrderDatastore datastore = OrderDatastore.withGeneratedOrders(50);
+        BiFunction<OrderData, OrderItemData, ZonedDateTime> orderDates =
+            (orderData, orderItemData) -> orderData.getOrderDate();
+        datastore.addOrderItemTable(orderDates, new OrderItemTable.Codec<ZonedDateTime>() {
+            @Override
+            public ZonedDateTime getDate(ZonedDateTime value) {
+                return value;
+            }
+
+            @Override
+            public int getFlags(ZonedDateTime value) {
+                return 0;
+            }
+
+            @Override
+            public ZonedDateTime decode(ZonedDateTime date, int flags) {
+                return date;
+            }
+        });
+        String orderId = IndexedOrderDataGenerator.orderIdForIndex(5);
+
+        // WHEN
+        OrderData orderData = datastore.getOrderData(orderId);
+        OrderItemTable<ZonedDateTime> table = datastore.getOrderItemTable(orderDates);
+
+        // THEN
+        for (OrderItemData item : orderData.getCustomerOrderItemList()) {
+            assertEquals(orderData.getOrderDate(), table.get(item.getCustomerOrderItemId()));
+        }
+    }
+
+    @Test
+    public void updateOrderCondition_concurrentWritersAndReaders_readersSeeWholeOrders() throws Exception {
+        // GIVEN - writers flipping order conditions while readers read them
+        OrderDatastore datastore = OrderDatastore.withGeneratedOrders(50);
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i < datastore.getNumOrders(); i++) {
+            orderIds.add(IndexedOrderDataGenerator.orderIdForIndex(i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // WHEN
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                boolean writer = thread % 2 == 0;
+                tasks.add(executor.submit(() -> {
+                    for (int round = 0; round < 200; round++) {
+                        for (String orderId : orderIds) {
+                            if (writer) {
+                                assertTrue(datastore.updateOrderCondition(orderId, round));
+                            } else {
+                                OrderData orderData = datastore.getOrderData(orderId);
+                                assertEquals(orderId, orderData.getOrderId());
+                                assertFalse(orderData.getCustomerOrderItemList().isEmpty());
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // THEN - every writer's last change set the same condition
+        for (String orderId : orderIds) {
+            assertEquals(199, datastore.getOrderData(orderId).getCondition());
+        }
+    }
+
+    @Test
+    public void loadSnapshot_afterWriteSnapshot_returnsSameData() throws IOException {
+        // GIVEN
+        Path snapshotFile = tempDir.resolve("orders.snapshot");
+        for (OrderDatastore original : Arrays.asList(orderDatastore,
+                                                     OrderDatastore.withGeneratedOrders(
+                                                         500, ForkJoinPool.commonPool(), OrderStorage.COLUMNAR))) {
+            original.writeSnapshot(snapshotFile);
+
+            // WHEN
+            OrderDatastore loaded = OrderDatastore.loadSnapshot(snapshotFile);
+
+            // THEN
+            OrderDatastore.verifySnapshot(snapshotFile);
+            assertEquals(original.getNumOrders(), loaded.getNumOrders());
+            for (int i = 0; i < original.getNumOrders(); i += 3) {
+                String orderId = String.format("114-0000000-%07d", i);
+                OrderData orderData = original.getOrderData(orderId);
+                assertEquals(orderData.toString(), loaded.getOrderData(orderId).toString());
+
+                for (OrderItemData item : orderData.getCustomerOrderItemList()) {
+                    String orderItemId = item.getCustomerOrderItemId();
+                    assertEquals(original.getOrderItemData(orderItemId).toString(),
+                                 loaded.getOrderItemData(orderItemId).toString());
+                    assertEquals(String.valueOf(original.getOrderShipmentDataByOrderItemId(orderItemId)),
+                                 String.valueOf(loaded.getOrderShipmentDataByOrderItemId(orderItemId)));
+                }
+            }
+            for (String orderId : allFixtureOrderIds) {
+                assertEquals(String.valueOf(original.getOrderData(orderId)),
+                             String.valueOf(loaded.getOrderData(orderId)));
+            }
+            assertEquals(original.getOrderFixturesTable(), loaded.getOrderFixturesTable());
+        }
+    }
+
+    @Test
+    public void loadSnapshot_damagedOrWrongVersion_throwsIOException() throws IOException {
+        // GIVEN - one snapshot with its format version changed, one with its last (metadata) byte changed
+        Path wrongVersion = tempDir.resolve("wrong-version.snapshot");
+        orderDatastore.writeSnapshot(wrongVersion);
+        flipByte(wrongVersion, 11);
+
+        Path damagedMetadata = tempDir.resolve("damaged-metadata.snapshot");
+        orderDatastore.writeSnapshot(damagedMetadata);
+        flipByte(damagedMetadata, Files.size(damagedMetadata) - 1);
+
+        Path notASnapshot = tempDir.resolve("not-a.snapshot");
+        Files.write(notASnapshot, "111-0000000-0000001".getBytes(StandardCharsets.UTF_8));
+
+        // WHEN + THEN
+        for (Path snapshotFile : Arrays.asList(wrongVersion, damagedMetadata, notASnapshot)) {
+            assertThrows(IOException.class, () -> OrderDatastore.loadSnapshot(snapshotFile), snapshotFile.toString());
+        }
+    }
+
+    @Test
+    public void verifySnapshot_damagedOrderRecords_throwsIOException() throws IOException {
+        // GIVEN - the first order record's customer ID changed
+        Path snapshotFile = tempDir.resolve("damaged-records.snapshot");
+        orderDatastore.writeSnapshot(snapshotFile);
+        flipByte(snapshotFile, 4096 + 8);
+
+        // WHEN + THEN - loading only checks the metadata, verifying checks everything
+        assertNotNull(OrderDatastore.loadSnapshot(snapshotFile));
+        assertThrows(IOException.class, () -> OrderDatastore.verifySnapshot(snapshotFile));
+    }
+
+    @Test
+    public void openChangeLog_afterRestart_replaysChangesOnTopOfSnapshot() throws IOException {
+        // GIVEN - changes logged against a snapshot, then the process stops without closing the log
+        Path snapshotFile = tempDir.resolve("orders.snapshot");
+        Path changeLogFile = tempDir.resolve("orders.log");
+        OrderDatastore.withGeneratedOrders(100).writeSnapshot(snapshotFile);
+        OrderDatastore original = OrderDatastore.loadSnapshot(snapshotFile);
+        original.openChangeLog(changeLogFile);
+
+        String deliveredOrderId = IndexedOrderDataGenerator.orderIdForIndex(3);
+        String shipmentId = original.getOrderData(deliveredOrderId).getCustomerShipments().get(0).getShipmentId();
+        ZonedDateTime deliveryDate = ZonedDateTime.of(2100, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        assertTrue(original.markShipmentDelivered(deliveredOrderId, shipmentId, deliveryDate));
+        String changedOrderId = IndexedOrderDataGenerator.orderIdForIndex(4);
+        assertTrue(original.updateOrderCondition(changedOrderId, 2));
+        String addedOrderId = IndexedOrderDataGenerator.orderIdForIndex(5);
+        original.addOrder(original.getOrderData(addedOrderId).copyWithCondition(7));
+
+        try {
+            // WHEN
+            OrderDatastore restarted = OrderDatastore.loadSnapshot(snapshotFile);
+            restarted.openChangeLog(changeLogFile);
+
+            // THEN
+            for (String orderId : Arrays.asList(deliveredOrderId, changedOrderId, addedOrderId)) {
+                assertEquals(original.getOrderData(orderId).toString(), restarted.getOrderData(orderId).toString());
+            }
+            assertEquals(deliveryDate, findShipment(restarted.getOrderData(deliveredOrderId), shipmentId)
+                                           .getDeliveryDate());
+            assertEquals(2, restarted.getOrderData(changedOrderId).getCondition());
+            assertThrows(IllegalStateException.class, () -> restarted.openChangeLog(changeLogFile));
+            restarted.closeChangeLog();
+        } finally {
+            original.closeChangeLog();
+        }
+    }
+
     @Test
     public void getOrderFixtures_containsExpectedSingleItemOrders() {
         // GIVEN - singleItemOrderFixtures
@@ -569,4 +1348,23 @@ public class OrderDatastoreTest {
 
         return orderIds;
     }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) ~buffer.get(0));
+            buffer.rewind();
+            channel.write(buffer, position);
+        }
+    }
+
+    private static OrderShipmentData findShipment(OrderData orderData, String shipmentId) {
+        for (OrderShipmentData shipment : orderData.getCustomerShipments()) {
+            if (shipmentId.equals(shipment.getShipmentId())) {
+                return shipment;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,52 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class OrderItemIndexTest {
+
+    @Test
+    public void slotOf_numericAndNonNumericIds_findsBoth() {
+        // GIVEN
+        OrderItemIndex index = new OrderItemIndex(2);
+        OrderItemData numeric = OrderItemData.builder().withCustomerOrderItemId("20655079937534").build();
+        OrderItemData nonNumeric = OrderItemData.builder().withCustomerOrderItemId("item-1").build();
+
+        // WHEN
+        index.add(numeric, 0);
+        index.add(nonNumeric, OrderItemIndex.FIXTURE_ITEM);
+
+        // THEN
+        assertSame(numeric, index.getItem(index.slotOf("20655079937534")));
+        assertSame(nonNumeric, index.getItem(index.slotOf("item-1")));
+        assertEquals(OrderItemIndex.FIXTURE_ITEM, index.getSampleIndex(index.slotOf("item-1")));
+        assertEquals(OrderItemIndex.NO_SLOT, index.slotOf(null));
+    }
+
+    @Test
+    public void slotOf_leadingZeroId_isNotConfusedWithNumericId() {
+        // GIVEN
+        OrderItemIndex index = new OrderItemIndex(2);
+        index.add(OrderItemData.builder().withCustomerOrderItemId("123").build(), 0);
+        index.add(OrderItemData.builder().withCustomerOrderItemId("0123").build(), 1);
+
+        // WHEN + THEN
+        assertEquals(2, index.size());
+        assertNotEquals(index.slotOf("123"), index.slotOf("0123"));
+        assertEquals("0123", index.getItem(index.slotOf("0123")).getCustomerOrderItemId());
+    }
+
+    @Test
+    public void parseNumericId_nonCanonicalIds_returnNegative() {
+        // WHEN + THEN
+        assertEquals(20655079937534L, OrderItemIndex.parseNumericId("20655079937534"));
+        assertEquals(0L, OrderItemIndex.parseNumericId("0"));
+        assertEquals(-1L, OrderItemIndex.parseNumericId(""));
+        assertEquals(-1L, OrderItemIndex.parseNumericId("007"));
+        assertEquals(-1L, OrderItemIndex.parseNumericId("12a"));
+        assertEquals(-1L, OrderItemIndex.parseNumericId("1234567890123456789"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SecondaryIndexTest {
+
+    @Test
+    public void getEntries_interleavedKeys_returnsEachKeysEntriesInOrderAdded() {
+        // GIVEN
+        SecondaryIndex index = SecondaryIndex.builder()
+                                   .add("B07BHHC4S1", SecondaryIndex.entry(0, 0))
+                                   .add("B01MZEEFNX", SecondaryIndex.entry(0, 1))
+                                   .add("B07BHHC4S1", SecondaryIndex.entry(3, 0))
+                                   .add(null, SecondaryIndex.entry(4, 0))
+                                   .add("B07BHHC4S1", SecondaryIndex.entry(7, 2))
+                                   .build();
+
+        // WHEN
+        long[] entries = index.getEntries("B07BHHC4S1", 0, 10);
+
+        // THEN
+        assertArrayEquals(new long[] {SecondaryIndex.entry(0, 0), SecondaryIndex.entry(3, 0),
+                                      SecondaryIndex.entry(7, 2)}, entries);
+        assertEquals(3, index.count("B07BHHC4S1"));
+        assertEquals(1, index.count("B01MZEEFNX"));
+        assertEquals(0, index.count("B00UNKNOWN"));
+        assertEquals(0, index.getEntries("B00UNKNOWN", 0, 10).length);
+    }
+
+    @Test
+    public void getEntries_pages_returnEveryEntryOnce() {
+        // GIVEN
+        SecondaryIndex.Builder builder = SecondaryIndex.builder();
+        for (int orderRow = 0; orderRow < 1_000; orderRow++) {
+            builder.add("warehouse-" + orderRow % 3, SecondaryIndex.entry(orderRow, orderRow % 5));
+        }
+        SecondaryIndex index = builder.build();
+
+        // WHEN
+        long[] firstPage = index.getEntries("warehouse-1", 0, 200);
+        long[] lastPage = index.getEntries("warehouse-1", 200, 200);
+        long[] pastTheEnd = index.getEntries("warehouse-1", 400, Integer.MAX_VALUE);
+
+        // THEN - 333 of the rows are 1 mod 3
+        assertEquals(200, firstPage.length);
+        assertEquals(133, lastPage.length);
+        assertEquals(0, pastTheEnd.length);
+        assertEquals(1, SecondaryIndex.orderRowOf(firstPage[0]));
+        assertEquals(1, SecondaryIndex.ordinalOf(firstPage[0]));
+        assertEquals(997, SecondaryIndex.orderRowOf(lastPage[lastPage.length - 1]));
+        assertEquals(2, SecondaryIndex.ordinalOf(lastPage[lastPage.length - 1]));
+    }
+}
@@ -0,0 +1,62 @@
+package com.amazon.ata.deliveringonourpromise.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TimeIndexTest {
+    private static final ZonedDateTime NOON = ZonedDateTime.of(2019, 11, 3, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    public void getEntries_timesInDifferentZones_returnsRangeInTimeOrder() {
+        // GIVEN - 11:00 UTC given in Los Angeles time, and two entries at the same instant
+        TimeIndex index = TimeIndex.builder()
+                              .add(NOON.plusHours(1), SecondaryIndex.entry(0, 0))
+                              .add(NOON.minusHours(1).withZoneSameInstant(ZoneId.of("America/Los_Angeles")),
+                                   SecondaryIndex.entry(1, 0))
+                              .add(null, SecondaryIndex.entry(2, 0))
+                              .add(NOON, SecondaryIndex.entry(4, 0))
+                              .add(NOON, SecondaryIndex.entry(3, 1))
+                              .add(NOON.plusHours(2), SecondaryIndex.entry(5, 0))
+                              .build();
+
+        // WHEN
+        long[] entries = index.getEntries(NOON.minusHours(1), NOON.plusHours(2), 0, 10);
+
+        // THEN - the end of the range is exclusive
+        assertArrayEquals(new long[] {SecondaryIndex.entry(1, 0), SecondaryIndex.entry(3, 1),
+                                      SecondaryIndex.entry(4, 0), SecondaryIndex.entry(0, 0)}, entries);
+        assertEquals(5, index.count(null, null));
+        assertEquals(2, index.count(NOON, NOON.plusNanos(1)));
+        assertEquals(0, index.count(NOON.plusHours(3), null));
+        assertEquals(0, index.count(NOON, NOON.minusHours(1)));
+    }
+
+    @Test
+    public void getEntries_pagesOfManyUnsortedTimes_returnsEveryEntryOnceInOrder() {
+        // GIVEN - times added out of order, as generated orders' dates are
+        TimeIndex.Builder builder = TimeIndex.builder();
+        for (int orderRow = 0; orderRow < 10_000; orderRow++) {
+            builder.add(NOON.plusSeconds((orderRow * 7_919L) % 10_000), SecondaryIndex.entry(orderRow, 0));
+        }
+        TimeIndex index = builder.build();
+
+        // WHEN
+        long[] firstPage = index.getEntries(NOON.plusSeconds(100), NOON.plusSeconds(200), 0, 60);
+        long[] secondPage = index.getEntries(NOON.plusSeconds(100), NOON.plusSeconds(200), 60, 60);
+
+        // THEN - 7,919 is coprime to 10,000, so every second from 0 to 9,999 has exactly one order
+        assertEquals(60, firstPage.length);
+        assertEquals(40, secondPage.length);
+        for (int i = 0; i < 100; i++) {
+            long entry = i < 60 ? firstPage[i] : secondPage[i - 60];
+            long second = (SecondaryIndex.orderRowOf(entry) * 7_919L) % 10_000;
+            assertEquals(100 + i, second);
+        }
+    }
+}
@@ -3,21 +3,32 @@ package com.amazon.ata.deliverypromiseservice.service;
 import com.amazon.ata.deliveringonourpromise.data.OrderData;
 import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
 import com.amazon.ata.deliveringonourpromise.data.OrderItemData;
+import com.amazon.ata.deliveringonourpromise.data.OrderItemTable;
 import com.amazon.ata.deliveringonourpromise.data.OrderShipmentData;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 /**
  * Mocks DeliveryPromiseService, returning Delivery Promises for customer order item IDs.
  */
 public class DeliveryPromiseService {
     private static final String CUSTOMER_ORDER_ID_PATTERN = "-?\\d+(\\.\\d+)?";
+    // the datastore keeps a table of these for every item, recomputed whenever an item's order changes
+    private static final BiFunction<OrderData, OrderItemData, PromiseDates> PROMISE_DATES =
+        DeliveryPromiseService::computePromiseDates;
+    private static final OrderItemTable.Codec<PromiseDates> PROMISE_DATES_CODEC = new PromiseDatesCodec();
+    private static final int IS_ACTIVE = 1;
 
     private OrderDatastore orderDatastore;
 
     /**
      * Constructs a DeliveryPromiseService instance, which will used the provided OrderDatastore
-     * to ensure consistent order data.
+     * to ensure consistent order data. The datastore must have the table of promise dates the service reads,
+     * added with addPromiseDatesTable where the datastore is set up.
      *
      * @param orderDatastore The order datastore to use for fetching order/item data
      */
@@ -25,6 +36,17 @@ public class DeliveryPromiseService {
         this.orderDatastore = orderDatastore;
     }
 
+    /**
+     * Adds the table of promise dates every DeliveryPromiseService reads to the given datastore. Call it once,
+     * where the datastore is set up, before any service using the datastore is called; adding it again does
+     * nothing.
+     *
+     * @param orderDatastore the datastore the services will read
+     */
+    public static void addPromiseDatesTable(OrderDatastore orderDatastore) {
+        orderDatastore.addOrderItemTable(PROMISE_DATES, PROMISE_DATES_CODEC);
+    }
+
     /**
      * Given a customer order ID String, return the Delivery corresponding to that order ID,
      * or null otherwise.
@@ -38,36 +60,106 @@ public class DeliveryPromiseService {
             return null;
         }
 
-        OrderData orderData = orderDatastore.getOrderData(orderItemData.getOrderId());
-        if (null == orderData) {
+        PromiseDates promiseDates = orderDatastore.getOrderItemTable(PROMISE_DATES).get(customerOrderItemId);
+        if (null == promiseDates) {
             return null;
         }
 
-        ZonedDateTime orderDate = orderData.getOrderDate();
-        ZonedDateTime promiseEffectiveDate = orderDate.plusHours(1);
-        ZonedDateTime promiseLatestArrivalDate = promiseEffectiveDate.plusDays(2);
-        ZonedDateTime promiseLatestShipDate = promiseLatestArrivalDate.minusHours(18);
+        return buildDeliveryPromise(orderItemData, promiseDates);
+    }
 
-        boolean isDpsPromiseActive = false;
-        for (OrderShipmentData shipment : orderData.getCustomerShipments()) {
-            if (shipment.includesOrderItem(customerOrderItemId)) {
-                isDpsPromiseActive = shipment.isDpsPromiseActive();
+    /**
+     * Returns the Delivery Promises for several customer order item IDs at once. Each item's promise is read from
+     * the datastore's table of promise dates, so no order is fetched.
+     *
+     * @param customerOrderItemIds The order item IDs to fetch the Delivery Promises for
+     * @return The delivery promises by order item ID, in the order the IDs were given. IDs with no promise are
+     *         left out.
+     */
+    public Map<String, DeliveryPromise> getDeliveryPromises(Collection<String> customerOrderItemIds) {
+        OrderItemTable<PromiseDates> promiseTable = orderDatastore.getOrderItemTable(PROMISE_DATES);
+
+        Map<String, DeliveryPromise> deliveryPromises = new LinkedHashMap<>();
+        for (String customerOrderItemId : customerOrderItemIds) {
+            if (null == customerOrderItemId || deliveryPromises.containsKey(customerOrderItemId)) {
+                continue;
+            }
+
+            OrderItemData orderItemData = orderDatastore.getOrderItemData(customerOrderItemId);
+            PromiseDates promiseDates = promiseTable.get(customerOrderItemId);
+            if (orderItemData != null && promiseDates != null) {
+                deliveryPromises.put(customerOrderItemId, buildDeliveryPromise(orderItemData, promiseDates));
             }
         }
 
+        return deliveryPromises;
+    }
+
+    private DeliveryPromise buildDeliveryPromise(OrderItemData orderItemData, PromiseDates promiseDates) {
         return DeliveryPromise.builder()
-                   .withCustomerOrderId(orderData.getOrderId())
+                   .withCustomerOrderId(orderItemData.getOrderId())
                    .withCustomerOrderItemId(orderItemData.getCustomerOrderItemId())
                    .withPromiseQuantity(orderItemData.getQuantity())
                    .withFulfillmentSvcSubclassId("2")
                    .withPromiseDataSource("SLAM")
-                   .withPromiseEffectiveDate(promiseEffectiveDate)
-                   .withIsActive(isDpsPromiseActive)
-                   .withPromiseLatestShipDate(promiseLatestShipDate)
+                   .withPromiseEffectiveDate(promiseDates.promiseEffectiveDate)
+                   .withIsActive(promiseDates.isActive)
+                   .withPromiseLatestShipDate(promiseDates.promiseLatestShipDate)
                    .withPromiseProvidedBy("DPS")
                    .withAsin(orderItemData.getAsin())
                    .withPlanQualityTypeCode("Normal")
-                   .withPromiseLatestArrivalDate(promiseLatestArrivalDate)
+                   .withPromiseLatestArrivalDate(promiseDates.promiseLatestArrivalDate)
                    .build();
     }
+
+    /*
+     * Computes the promise dates for an order item, for the datastore's table of them. The dates follow from the
+     * order date alone; an item split across shipments takes its promise's active flag from the last of them.
+     */
+    private static PromiseDates computePromiseDates(OrderData orderData, OrderItemData orderItemData) {
+        boolean isDpsPromiseActive = false;
+        for (OrderShipmentData shipment : orderData.getShipmentsForOrderItem(orderItemData.getCustomerOrderItemId())) {
+            isDpsPromiseActive = shipment.isDpsPromiseActive();
+        }
+
+        return new PromiseDates(orderData.getOrderDate().plusHours(1), isDpsPromiseActive);
+    }
+
+    /*
+     * The parts of an item's delivery promise that are computed from its order rather than copied from the item.
+     * The latest arrival and ship dates follow from the effective date.
+     */
+    private static final class PromiseDates {
+        private final ZonedDateTime promiseEffectiveDate;
+        private final ZonedDateTime promiseLatestArrivalDate;
+        private final ZonedDateTime promiseLatestShipDate;
+        private final boolean isActive;
+
+        private PromiseDates(ZonedDateTime promiseEffectiveDate, boolean isActive) {
+            this.promiseEffectiveDate = promiseEffectiveDate;
+            this.promiseLatestArrivalDate = promiseEffectiveDate.plusDays(2);
+            this.promiseLatestShipDate = promiseLatestArrivalDate.minusHours(18);
+            this.isActive = isActive;
+        }
+    }
+
+    /*
+     * Packs PromiseDates into the datastore's table as their effective date and active flag.
+     */
+    private static final class PromiseDatesCodec implements OrderItemTable.Codec<PromiseDates> {
+        @Override
+        public ZonedDateTime getDate(PromiseDates promiseDates) {
+            return promiseDates.promiseEffectiveDate;
+        }
+
+        @Override
+        public int getFlags(PromiseDates promiseDates) {
+            return promiseDates.isActive ? IS_ACTIVE : 0;
+        }
+
+        @Override
+        public PromiseDates decode(ZonedDateTime promiseEffectiveDate, int flags) {
+            return new PromiseDates(promiseEffectiveDate, (flags & IS_ACTIVE) != 0);
+        }
+    }
 }
@@ -2,11 +2,19 @@ package com.amazon.ata.deliverypromiseservice.service;
 
 import com.amazon.ata.deliveringonourpromise.data.OrderData;
 import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
+import com.amazon.ata.deliveringonourpromise.data.OrderItemData;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -18,10 +26,12 @@ public class DeliveryPromiseServiceTest {
     @BeforeEach
     private void setup() {
         OrderDatastore orderDatastore = OrderDatastore.getDatastore();
+        DeliveryPromiseService.addPromiseDatesTable(orderDatastore);
         dps = new DeliveryPromiseService(orderDatastore);
-        orderId = "111-7497023-2969385";
-        OrderData orderData = orderDatastore.getOrderData(orderId);
+        OrderData orderData = orderDatastore.getOrderData("111-7497023-2969385");
         orderItemId = orderData.getCustomerOrderItemList().get(0).getCustomerOrderItemId();
+        // a sample order's items belong to its stand-in order ID, whichever of the order IDs sharing it was asked for
+        orderId = orderDatastore.getOrderItemData(orderItemId).getOrderId();
     }
 
     @Test
@@ -126,4 +136,67 @@ public class DeliveryPromiseServiceTest {
         assertNotNull(deliveryPromise.getPromiseLatestArrivalDate());
     }
 
+
+    @Test
+    public void getDeliveryPromises_itemsOfSeveralOrders_matchGetDeliveryPromise() {
+        // GIVEN - every item of a three item order and of this test's order, with a repeat, a null and a missing ID
+        OrderDatastore orderDatastore = OrderDatastore.getDatastore();
+        List<String> orderItemIds = new ArrayList<>();
+        for (String id : Arrays.asList("900-3746403-0000001", orderId)) {
+            for (OrderItemData item : orderDatastore.getOrderData(id).getCustomerOrderItemList()) {
+                orderItemIds.add(item.getCustomerOrderItemId());
+            }
+        }
+        List<String> requestedIds = new ArrayList<>(orderItemIds);
+        requestedIds.addAll(Arrays.asList(orderItemId, null, "1"));
+
+        // WHEN
+        Map<String, DeliveryPromise> deliveryPromises = dps.getDeliveryPromises(requestedIds);
+
+        // THEN
+        assertEquals(orderItemIds, new ArrayList<>(deliveryPromises.keySet()));
+        for (String id : orderItemIds) {
+            DeliveryPromise expected = dps.getDeliveryPromise(id);
+            DeliveryPromise actual = deliveryPromises.get(id);
+            assertEquals(expected.getCustomerOrderId(), actual.getCustomerOrderId());
+            assertEquals(expected.getCustomerOrderItemId(), actual.getCustomerOrderItemId());
+            assertEquals(expected.getPromiseLatestArrivalDate(), actual.getPromiseLatestArrivalDate());
+            assertEquals(expected.isActive(), actual.isActive());
+            assertEquals(expected.getPromiseQuantity(), actual.getPromiseQuantity());
+            assertEquals(expected.getAsin(), actual.getAsin());
+        }
+        assertFalse(deliveryPromises.containsKey("1"));
+    }
+
+    @Test
+    public void getDeliveryPromise_orderReplaced_hasNewOrdersPromiseDates() {
+        // GIVEN - a datastore of its own, so the change isn't seen by other tests, and the order ID its sample
+        // order's items belong to
+        OrderDatastore orderDatastore = OrderDatastore.withGeneratedOrders(100);
+        DeliveryPromiseService.addPromiseDatesTable(orderDatastore);
+        DeliveryPromiseService generatedDps = new DeliveryPromiseService(orderDatastore);
+        OrderData orderData = orderDatastore.getOrderData("111-0000000-0000005");
+        String itemId = orderData.getCustomerOrderItemList().get(0).getCustomerOrderItemId();
+        ZonedDateTime originalEffectiveDate = generatedDps.getDeliveryPromise(itemId).getPromiseEffectiveDate();
+        ZonedDateTime newOrderDate = orderData.getOrderDate().plusDays(10);
+
+        // WHEN
+        orderDatastore.addOrder(OrderData.builder()
+                                    .withOrderId(orderData.getOrderId())
+                                    .withCustomerId(orderData.getCustomerId())
+                                    .withMarketplaceId(orderData.getMarketplaceId())
+                                    .withCondition(orderData.getCondition())
+                                    .withCustomerOrderItemList(orderData.getCustomerOrderItemList())
+                                    .withCustomerShipments(orderData.getCustomerShipments())
+                                    .withShipOption(orderData.getShipOption())
+                                    .withOrderDate(newOrderDate)
+                                    .build());
+        DeliveryPromise deliveryPromise = generatedDps.getDeliveryPromise(itemId);
+
+        // THEN
+        assertEquals(orderData.getOrderDate().plusHours(1), originalEffectiveDate);
+        assertEquals(newOrderDate.plusHours(1), deliveryPromise.getPromiseEffectiveDate());
+        assertEquals(newOrderDate.plusHours(1).plusDays(2), deliveryPromise.getPromiseLatestArrivalDate());
+        assertEquals(orderData.getOrderId(), deliveryPromise.getCustomerOrderId());
+    }
 }
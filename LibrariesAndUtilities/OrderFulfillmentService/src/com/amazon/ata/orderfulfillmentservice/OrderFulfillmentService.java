@@ -3,22 +3,37 @@ package com.amazon.ata.orderfulfillmentservice;
 import com.amazon.ata.deliveringonourpromise.data.OrderData;
 import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
 import com.amazon.ata.deliveringonourpromise.data.OrderItemData;
+import com.amazon.ata.deliveringonourpromise.data.OrderItemTable;
 import com.amazon.ata.deliveringonourpromise.data.OrderShipmentData;
 import com.amazon.ata.deliverypromiseservice.service.DeliveryPromise;
 import com.amazon.ata.deliverypromiseservice.service.DeliveryPromiseService;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 /**
  * The service providing information on orders that are routing to or have come through order fulfillment.
  * This order information includes customer promises.
  */
 public class OrderFulfillmentService {
+    // the datastore keeps a table of these for every item, recomputed whenever an item's order changes
+    private static final BiFunction<OrderData, OrderItemData, PromiseTerms> PROMISE_TERMS =
+        OrderFulfillmentService::computePromiseTerms;
+    private static final OrderItemTable.Codec<PromiseTerms> PROMISE_TERMS_CODEC = new PromiseTermsCodec();
+    private static final int MATCHES_DPS_PROMISE_DATE = 1;
+    private static final int IS_ACTIVE = 2;
+
     private OrderDatastore orderDatastore;
     private DeliveryPromiseService deliveryPromiseService;
 
     /**
-     * Constructs an OrderFulfillmentService instance, using the provided OrderDatastore.
+     * Constructs an OrderFulfillmentService instance, using the provided OrderDatastore. The datastore must have
+     * the table of promise terms the service reads, added with addPromiseTermsTable where the datastore is set up.
      *
      * @param orderDatastore         the datastore to use for pulling Order details
      * @param deliveryPromiseService reference to the DeliveryPromiseService to fetch promises that can be kept
@@ -29,7 +44,19 @@ public class OrderFulfillmentService {
     }
 
     /**
-     * Returns the OrderPromise for the given order item, if any such promise exists.
+     * Adds the table of promise terms every OrderFulfillmentService reads to the given datastore. Call it once,
+     * where the datastore is set up, before any service using the datastore is called; adding it again does
+     * nothing.
+     *
+     * @param orderDatastore the datastore the services will read
+     */
+    public static void addPromiseTermsTable(OrderDatastore orderDatastore) {
+        orderDatastore.addOrderItemTable(PROMISE_TERMS, PROMISE_TERMS_CODEC);
+    }
+
+    /**
+     * Returns the OrderPromise for the given order item, if any such promise exists. The item's promise terms are
+     * read from the datastore's table of them rather than computed from its order.
      *
      * @param customerOrderItemId The customer order item ID for the item being queried
      * @return an OrderPromise for the given order item, if such a promise exists; null, otherwise (including if the
@@ -41,43 +68,75 @@ public class OrderFulfillmentService {
             return null;
         }
 
-        OrderData orderData = orderDatastore.getOrderData(orderItemData.getOrderId());
-        if (null == orderData) {
+        PromiseTerms promiseTerms = orderDatastore.getOrderItemTable(PROMISE_TERMS).get(customerOrderItemId);
+        if (null == promiseTerms) {
             return null;
         }
 
-        return buildOrderPromise(orderData, orderItemData);
+        DeliveryPromise deliveryPromise =
+            deliveryPromiseService.getDeliveryPromise(orderItemData.getCustomerOrderItemId());
+        return buildOrderPromise(orderItemData.getOrderId(), orderItemData, promiseTerms, deliveryPromise);
     }
 
-    /*
-     * Build the OrderPromise for the given order item.
-     *
-     * Service mocking:
-     * * In order to create the scenario of a delivery promise existing but no order promise existing,
-     *   buildOrderPromise refers to the Order record to see if the OFS promise should exist or not. We wouldn't
-     *   expect OFS to actually work this way (it would have created the promise itself or not, based on where
-     *   the shipments are in the fulfillment pipeline).
+    /**
+     * Returns the OrderPromises for several order items at once. Each item's promise terms are read from the
+     * datastore's table of them rather than computed from its order, and the delivery promises of the items with
+     * an OrderPromise are fetched from DeliveryPromiseService in a single call.
      *
-     * * Similarly, to create scenarios of the delivery and order promises agreeing/disagreeing,
-     *   buildOrderPromise consults the Order record to see if they should have the same promise date.
-     *   We wouldn't expect OFS to work in exactly this way (though it might be aware of the earlier DPS promise
-     *   made and endeavor to honor it).
+     * @param customerOrderItemIds The customer order item IDs for the items being queried
+     * @return the OrderPromises by order item ID, in the order the IDs were given. Items without an OrderPromise
+     * (including order item IDs that do not exist) are left out.
      */
-    private OrderPromise buildOrderPromise(OrderData orderData, OrderItemData orderItemData) {
-        String customerOrderItemId = orderItemData.getCustomerOrderItemId();
-        if (!isOfsPromiseActiveForOrderItem(orderData, customerOrderItemId)) {
+    public Map<String, OrderPromise> getOrderPromises(Collection<String> customerOrderItemIds) {
+        OrderItemTable<PromiseTerms> promiseTable = orderDatastore.getOrderItemTable(PROMISE_TERMS);
+        Map<String, OrderItemData> promisedItems = new LinkedHashMap<>();
+        Map<String, PromiseTerms> promisedTerms = new HashMap<>();
+
+        for (String customerOrderItemId : customerOrderItemIds) {
+            if (null == customerOrderItemId || promisedItems.containsKey(customerOrderItemId)) {
+                continue;
+            }
+
+            OrderItemData orderItemData = orderDatastore.getOrderItemData(customerOrderItemId);
+            PromiseTerms promiseTerms = promiseTable.get(customerOrderItemId);
+            if (orderItemData != null && promiseTerms != null) {
+                promisedItems.put(customerOrderItemId, orderItemData);
+                promisedTerms.put(customerOrderItemId, promiseTerms);
+            }
+        }
+
+        Map<String, DeliveryPromise> deliveryPromises =
+            deliveryPromiseService.getDeliveryPromises(promisedItems.keySet());
+
+        Map<String, OrderPromise> orderPromises = new LinkedHashMap<>();
+        for (Map.Entry<String, OrderItemData> entry : promisedItems.entrySet()) {
+            OrderPromise orderPromise = buildOrderPromise(entry.getValue().getOrderId(),
+                                                          entry.getValue(),
+                                                          promisedTerms.get(entry.getKey()),
+                                                          deliveryPromises.get(entry.getKey()));
+            if (orderPromise != null) {
+                orderPromises.put(entry.getKey(), orderPromise);
+            }
+        }
+        return orderPromises;
+    }
+
+    /*
+     * Build the OrderPromise for the given order item, from its promise terms and its delivery promise. Returns
+     * null if DPS had no promise to build on.
+     */
+    private OrderPromise buildOrderPromise(String customerOrderId, OrderItemData orderItemData,
+                                           PromiseTerms promiseTerms, DeliveryPromise deliveryPromise) {
+        if (null == deliveryPromise) {
             return null;
         }
 
-        ZonedDateTime orderDate = orderData.getOrderDate();
-        ZonedDateTime promiseEffectiveDate = orderDate.plusHours(8);
         ZonedDateTime promiseLatestArrivalDate;
         ZonedDateTime promiseLatestShipDate;
-        DeliveryPromise deliveryPromise = deliveryPromiseService.getDeliveryPromise(customerOrderItemId);
 
         // If the Order record indicates that DPS and OFS dates should match, maintain the DPS promises dates
         // Otherwise, compute later promise arrival dates for OFS.
-        if (matchesDpsPromiseDate(orderData, customerOrderItemId)) {
+        if (promiseTerms.matchesDpsPromiseDate) {
             promiseLatestArrivalDate = deliveryPromise.getPromiseLatestArrivalDate();
             promiseLatestShipDate = deliveryPromise.getPromiseLatestShipDate();
         } else {
@@ -86,12 +145,12 @@ public class OrderFulfillmentService {
         }
 
         return OrderPromise.builder()
-                   .withCustomerOrderId(orderData.getOrderId())
-                   .withCustomerOrderItemId(customerOrderItemId)
+                   .withCustomerOrderId(customerOrderId)
+                   .withCustomerOrderItemId(orderItemData.getCustomerOrderItemId())
                    .withAsin(orderItemData.getAsin())
-                   .withIsActive(isOfsPromiseActiveForOrderItem(orderData, customerOrderItemId))
+                   .withIsActive(promiseTerms.isActive)
                    .withPromiseQuantity(orderItemData.getQuantity())
-                   .withPromiseEffectiveDate(promiseEffectiveDate)
+                   .withPromiseEffectiveDate(promiseTerms.promiseEffectiveDate)
                    .withPromiseLatestShipDate(promiseLatestShipDate)
                    .withPromiseLatestArrivalDate(promiseLatestArrivalDate)
                    .withFulfillmentSvcSubclassId("1")
@@ -102,28 +161,68 @@ public class OrderFulfillmentService {
     }
 
     /*
-     * Consults the Order record to determine if OFS's promise (arrival) date should match DPS's.
+     * Computes the terms of the given order item's OrderPromise from its order, or returns null if there should be
+     * no OrderPromise, for the datastore's table of promise terms.
+     *
+     * Service mocking:
+     * * In order to create the scenario of a delivery promise existing but no order promise existing,
+     *   this refers to the Order record to see if the OFS promise should exist or not. We wouldn't
+     *   expect OFS to actually work this way (it would have created the promise itself or not, based on where
+     *   the shipments are in the fulfillment pipeline).
+     *
+     * * Similarly, to create scenarios of the delivery and order promises agreeing/disagreeing,
+     *   this consults the Order record to see if they should have the same promise date.
+     *   We wouldn't expect OFS to work in exactly this way (though it might be aware of the earlier DPS promise
+     *   made and endeavor to honor it).
+     *
+     * Both come from the first shipment including the item.
      */
-    private boolean matchesDpsPromiseDate(OrderData orderData, String customerOrderItemId) {
-        for (OrderShipmentData shipment : orderData.getCustomerShipments()) {
-            if (shipment.includesOrderItem(customerOrderItemId)) {
-                return shipment.doDpsAndOfsPromisesAgree();
-            }
+    private static PromiseTerms computePromiseTerms(OrderData orderData, OrderItemData orderItemData) {
+        List<OrderShipmentData> shipments = orderData.getShipmentsForOrderItem(orderItemData.getCustomerOrderItemId());
+        if (shipments.isEmpty() || !shipments.get(0).isOfsPromiseActive()) {
+            return null;
         }
 
-        return false;
+        OrderShipmentData shipment = shipments.get(0);
+        return new PromiseTerms(orderData.getOrderDate().plusHours(8),
+                                shipment.doDpsAndOfsPromisesAgree(),
+                                shipment.isOfsPromiseActive());
     }
 
     /*
-     * Consults the Order record to determine if there should be an OFS promise (true) or not (false).
+     * The parts of an item's OrderPromise that come from its order rather than from the item or DPS's promise.
      */
-    private boolean isOfsPromiseActiveForOrderItem(OrderData orderData, String customerOrderItemId) {
-        for (OrderShipmentData shipment : orderData.getCustomerShipments()) {
-            if (shipment.includesOrderItem(customerOrderItemId)) {
-                return shipment.isOfsPromiseActive();
-            }
+    private static final class PromiseTerms {
+        private final ZonedDateTime promiseEffectiveDate;
+        private final boolean matchesDpsPromiseDate;
+        private final boolean isActive;
+
+        private PromiseTerms(ZonedDateTime promiseEffectiveDate, boolean matchesDpsPromiseDate, boolean isActive) {
+            this.promiseEffectiveDate = promiseEffectiveDate;
+            this.matchesDpsPromiseDate = matchesDpsPromiseDate;
+            this.isActive = isActive;
+        }
+    }
+
+    /*
+     * Packs PromiseTerms into the datastore's table as their effective date and flags.
+     */
+    private static final class PromiseTermsCodec implements OrderItemTable.Codec<PromiseTerms> {
+        @Override
+        public ZonedDateTime getDate(PromiseTerms promiseTerms) {
+            return promiseTerms.promiseEffectiveDate;
         }
 
-        return false;
+        @Override
+        public int getFlags(PromiseTerms promiseTerms) {
+            return (promiseTerms.matchesDpsPromiseDate ? MATCHES_DPS_PROMISE_DATE : 0)
+                       | (promiseTerms.isActive ? IS_ACTIVE : 0);
+        }
+
+        @Override
+        public PromiseTerms decode(ZonedDateTime promiseEffectiveDate, int flags) {
+            return new PromiseTerms(promiseEffectiveDate, (flags & MATCHES_DPS_PROMISE_DATE) != 0,
+                                    (flags & IS_ACTIVE) != 0);
+        }
     }
 }
@@ -11,21 +11,26 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 public class OrderFulfillmentServiceTest {
     private OrderFulfillmentService ofs;
     private DeliveryPromiseService mockDeliveryPromiseService;
-    private OrderDatastore spyOrderDatastore;
+    private OrderDatastore orderDatastore;
     private DeliveryPromise deliveryPromiseServicePromise;
 
     // test data
@@ -36,18 +41,40 @@ public class OrderFulfillmentServiceTest {
 
     @BeforeEach
     private void setup() {
-        spyOrderDatastore = spy(OrderDatastore.getDatastore());
+        // a datastore of its own, so the orders the tests replace aren't seen by other tests
+        orderDatastore = OrderDatastore.withGeneratedOrders(100);
+        OrderFulfillmentService.addPromiseTermsTable(orderDatastore);
         mockDeliveryPromiseService = mock(DeliveryPromiseService.class);
-        ofs = new OrderFulfillmentService(spyOrderDatastore, mockDeliveryPromiseService);
-
-        orderId = "111-7497023-2969386";
-        orderData = spyOrderDatastore.getOrderData(orderId);
-        orderItemData = orderData.getCustomerOrderItemList().get(0);
+        ofs = new OrderFulfillmentService(orderDatastore, mockDeliveryPromiseService);
+
+        // the first sample order whose first item has an OFS promise, by the order ID its items belong to
+        for (int i = 0; null == orderData; i++) {
+            OrderData candidate = orderDatastore.getOrderData(String.format("111-0000000-%07d", i));
+            OrderItemData candidateItem = candidate.getCustomerOrderItemList().get(0);
+            if (candidate.getShipmentsForOrderItem(candidateItem.getCustomerOrderItemId()).get(0)
+                    .isOfsPromiseActive()) {
+                orderData = candidate;
+                orderItemData = candidateItem;
+            }
+        }
+        orderId = orderData.getOrderId();
         orderItemId = orderItemData.getCustomerOrderItemId();
 
         deliveryPromiseServicePromise = stubDeliveryPromiseService();
     }
 
+    @Test
+    public void constructor_mockDatastore_leavesDatastoreUntouched() {
+        // GIVEN
+        OrderDatastore mockDatastore = mock(OrderDatastore.class);
+
+        // WHEN
+        new OrderFulfillmentService(mockDatastore, mockDeliveryPromiseService);
+
+        // THEN
+        verifyNoInteractions(mockDatastore);
+    }
+
     @Test
     public void getOrderPromise_returnNullOnNonexistentOrderItemId() {
         // GIVEN - too short to be a valid ID
@@ -208,6 +235,37 @@ public class OrderFulfillmentServiceTest {
                    ));
     }
 
+    @Test
+    public void getOrderPromises_itemsOfSeveralOrders_matchGetOrderPromise() {
+        // GIVEN - real services, and every item of the fixture orders, some of which have no OFS promise
+        DeliveryPromiseService.addPromiseDatesTable(orderDatastore);
+        OrderFulfillmentService realOfs =
+            new OrderFulfillmentService(orderDatastore, new DeliveryPromiseService(orderDatastore));
+        List<String> orderItemIds = new ArrayList<>();
+        for (String id : Arrays.asList("900-3746401-0000001", "900-3746402-0000001", "900-3746402-0000002",
+                                       "900-3746403-0000001", "900-3746403-0000002", orderId)) {
+            for (OrderItemData item : orderDatastore.getOrderData(id).getCustomerOrderItemList()) {
+                orderItemIds.add(item.getCustomerOrderItemId());
+            }
+        }
+        orderItemIds.add("101");
+
+        // WHEN
+        Map<String, OrderPromise> orderPromises = realOfs.getOrderPromises(orderItemIds);
+
+        // THEN
+        List<String> expectedIds = new ArrayList<>();
+        for (String id : orderItemIds) {
+            OrderPromise expected = realOfs.getOrderPromise(id);
+            if (expected != null) {
+                expectedIds.add(id);
+                assertEquals(expected.toString(), orderPromises.get(id).toString());
+            }
+        }
+        assertEquals(expectedIds, new ArrayList<>(orderPromises.keySet()));
+        assertFalse(orderPromises.containsKey("101"));
+    }
+
     /* Sets up DPS to return a spy DeliveryPromise, on which we can modify behavior */
     private DeliveryPromise stubDeliveryPromiseService() {
         ZonedDateTime orderDate = orderData.getOrderDate();
@@ -227,21 +285,36 @@ public class OrderFulfillmentServiceTest {
     }
 
     /*
-     * Forces OrderDatastore to return OrderData that contains a ShipmentData in which we've
+     * Replaces the order in the datastore with one whose shipments have OFS promises, in which we've
      * overwritten the doDpsAndOfsAgree state...
      */
     private void forceOrderDataStoreToReturnDoDpsAndOfsPromisesAgree(boolean doDpsAndOfsAgree) {
-        OrderData orderDataWithDpsOfsAgreement = spy(this.orderData);
-        for (OrderShipmentData shipment : this.orderData.getCustomerShipments()) {
-            if (shipment.includesOrderItem(orderItemId)) {
-                OrderShipmentData shipmentWithDpsOpsAgreeing = spy(shipment);
-                when(shipmentWithDpsOpsAgreeing.doDpsAndOfsPromisesAgree()).thenReturn(doDpsAndOfsAgree);
-                when(shipmentWithDpsOpsAgreeing.isOfsPromiseActive()).thenReturn(true);
-                when(orderDataWithDpsOfsAgreement.getCustomerShipments())
-                    .thenReturn(Arrays.asList(shipmentWithDpsOpsAgreeing));
-                when(spyOrderDatastore.getOrderData(orderId)).thenReturn(orderDataWithDpsOfsAgreement);
-            }
+        List<OrderShipmentData> shipmentsWithDpsOfsAgreement = new ArrayList<>();
+        for (OrderShipmentData shipment : orderData.getCustomerShipments()) {
+            shipmentsWithDpsOfsAgreement.add(OrderShipmentData.builder()
+                                                 .withShipmentId(shipment.getShipmentId())
+                                                 .withZip(shipment.getZip())
+                                                 .withCondition(shipment.getCondition())
+                                                 .withWarehouseId(shipment.getWarehouseId())
+                                                 .withCustomerShipmentItems(shipment.getCustomerShipmentItems())
+                                                 .withShipDate(shipment.getShipDate())
+                                                 .withCreationDate(shipment.getCreationDate())
+                                                 .withShipmentShipOption(shipment.getShipmentShipOption())
+                                                 .withDeliveryDate(shipment.getDeliveryDate())
+                                                 .withOnlyDpsPromisePresentAndActive(false)
+                                                 .withDoDpsAndOfsPromisesAgree(doDpsAndOfsAgree)
+                                                 .build());
         }
+        orderDatastore.addOrder(OrderData.builder()
+                                    .withOrderId(orderData.getOrderId())
+                                    .withCustomerId(orderData.getCustomerId())
+                                    .withMarketplaceId(orderData.getMarketplaceId())
+                                    .withCondition(orderData.getCondition())
+                                    .withCustomerOrderItemList(orderData.getCustomerOrderItemList())
+                                    .withCustomerShipments(shipmentsWithDpsOfsAgreement)
+                                    .withShipOption(orderData.getShipOption())
+                                    .withOrderDate(orderData.getOrderDate())
+                                    .build());
     }
 
     /*
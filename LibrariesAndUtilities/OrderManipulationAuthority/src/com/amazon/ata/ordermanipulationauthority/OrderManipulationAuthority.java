@@ -5,8 +5,12 @@ import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
 import com.amazon.ata.deliveringonourpromise.data.OrderItemData;
 import com.amazon.ata.deliveringonourpromise.data.OrderShipmentData;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * local fake service for OrderManipulationAuthority, vending order
@@ -58,6 +62,183 @@ public class OrderManipulationAuthority {
         return convertOrderItemDataToOrderResultItem(orderItemData);
     }
 
+    /**
+     * Given a customer order item ID, return the delivery date of the shipment containing that order item.
+     * Cheaper than fetching the order item and its whole order to search the order's shipments.
+     *
+     * @param orderItemId the order-item identifier to fetch the delivery date for
+     * @return the delivery date of the order item's shipment, or null if the order item doesn't exist or its
+     *         shipment hasn't been delivered
+     */
+    public ZonedDateTime getDeliveryDateByOrderItemId(String orderItemId) {
+        OrderShipmentData orderShipmentData = orderDatastore.getOrderShipmentDataByOrderItemId(orderItemId);
+
+        if (null == orderShipmentData) {
+            return null;
+        }
+
+        return orderShipmentData.getDeliveryDate();
+    }
+
+    /**
+     * Given a collection of customer order IDs, return the Orders corresponding to those order IDs, keyed by
+     * order ID. Order IDs that don't correspond to an Order (including null and malformed IDs) are omitted from
+     * the result, as are duplicates after their first occurrence.
+     *
+     * @param orderIds The order IDs to fetch Orders for
+     * @return Map from order ID to the corresponding Order, in the iteration order of orderIds
+     */
+    public Map<String, OrderResult> getCustomerOrdersByOrderIds(Collection<String> orderIds) {
+        Map<String, OrderResult> orderResults = new LinkedHashMap<>();
+
+        for (String orderId : orderIds) {
+            if (orderResults.containsKey(orderId)) {
+                continue;
+            }
+
+            // convert right away: the datastore may hand back the same OrderData for several order IDs
+            OrderData orderData = orderDatastore.getOrderData(orderId);
+            if (null == orderData) {
+                continue;
+            }
+
+            orderResults.put(orderId, convertOrderDataToOrderResult(orderData));
+        }
+
+        return orderResults;
+    }
+
+    /**
+     * Given a collection of customer order item IDs, return the corresponding OrderResultItems, keyed by
+     * order item ID. Order item IDs that don't correspond to an order item are omitted from the result.
+     *
+     * @param orderItemIds the order-item identifiers to fetch
+     * @return Map from order item ID to the corresponding OrderResultItem, in the iteration order of orderItemIds
+     */
+    public Map<String, OrderResultItem> getCustomerOrderItemsByOrderItemIds(Collection<String> orderItemIds) {
+        Map<String, OrderResultItem> orderResultItems = new LinkedHashMap<>();
+
+        for (String orderItemId : orderItemIds) {
+            if (orderResultItems.containsKey(orderItemId)) {
+                continue;
+            }
+
+            OrderItemData orderItemData = orderDatastore.getOrderItemData(orderItemId);
+            if (null == orderItemData) {
+                continue;
+            }
+
+            orderResultItems.put(orderItemId, convertOrderItemDataToOrderResultItem(orderItemData));
+        }
+
+        return orderResultItems;
+    }
+
+    /**
+     * Given a customer ID, return one page of that customer's Orders. Looked up in an index, so it doesn't get
+     * any slower as the number of orders grows.
+     *
+     * @param customerId the customer whose Orders to fetch
+     * @param offset how many of the customer's Orders to skip
+     * @param limit the most Orders to return
+     * @return up to limit of the customer's Orders, empty if there are none after offset
+     */
+    public List<OrderResult> getCustomerOrdersByCustomerId(String customerId, int offset, int limit) {
+        List<OrderResult> orderResults = new ArrayList<>();
+        for (OrderData orderData : orderDatastore.getOrderDatasByCustomerId(customerId, offset, limit)) {
+            orderResults.add(convertOrderDataToOrderResult(orderData));
+        }
+        return orderResults;
+    }
+
+    /**
+     * Given an ASIN, return one page of the order items, across all Orders, for that ASIN.
+     *
+     * @param asin the ASIN whose order items to fetch
+     * @param offset how many of the ASIN's order items to skip
+     * @param limit the most order items to return
+     * @return up to limit of the ASIN's OrderResultItems, empty if there are none after offset
+     */
+    public List<OrderResultItem> getCustomerOrderItemsByAsin(String asin, int offset, int limit) {
+        List<OrderResultItem> orderResultItems = new ArrayList<>();
+        for (OrderItemData orderItemData : orderDatastore.getOrderItemDatasByAsin(asin, offset, limit)) {
+            orderResultItems.add(convertOrderItemDataToOrderResultItem(orderItemData));
+        }
+        return orderResultItems;
+    }
+
+    /**
+     * Given a warehouse ID, return one page of the shipments, across all Orders, sent from that warehouse.
+     *
+     * @param warehouseId the warehouse whose shipments to fetch
+     * @param offset how many of the warehouse's shipments to skip
+     * @param limit the most shipments to return
+     * @return up to limit of the warehouse's OrderShipments, empty if there are none after offset
+     */
+    public List<OrderShipment> getOrderShipmentsByWarehouseId(String warehouseId, int offset, int limit) {
+        return convertOrderShipmentDatas(
+            orderDatastore.getOrderShipmentDatasByWarehouseId(warehouseId, offset, limit)
+        );
+    }
+
+    /**
+     * Return one page of the Orders placed in the given time range, earliest first. Handy for reports over a day's
+     * or an hour's orders, which would otherwise need every order to be fetched.
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @param to the end of the range, exclusive; null for no end
+     * @param offset how many of the range's Orders to skip
+     * @param limit the most Orders to return
+     * @return up to limit of the Orders placed in the range, empty if there are none after offset
+     */
+    public List<OrderResult> getCustomerOrdersByOrderDate(ZonedDateTime from, ZonedDateTime to, int offset,
+                                                          int limit) {
+        List<OrderResult> orderResults = new ArrayList<>();
+        for (OrderData orderData : orderDatastore.getOrderDatasByOrderDate(from, to, offset, limit)) {
+            orderResults.add(convertOrderDataToOrderResult(orderData));
+        }
+        return orderResults;
+    }
+
+    /**
+     * Return one page of the shipments shipped in the given time range, earliest first.
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @param to the end of the range, exclusive; null for no end
+     * @param offset how many of the range's shipments to skip
+     * @param limit the most shipments to return
+     * @return up to limit of the OrderShipments shipped in the range, empty if there are none after offset
+     */
+    public List<OrderShipment> getOrderShipmentsByShipDate(ZonedDateTime from, ZonedDateTime to, int offset,
+                                                           int limit) {
+        return convertOrderShipmentDatas(orderDatastore.getOrderShipmentDatasByShipDate(from, to, offset, limit));
+    }
+
+    /**
+     * Return one page of the shipments delivered in the given time range, earliest first. For instance, the
+     * shipments delivered in the last hour are those from an hour ago up to now.
+     *
+     * @param from the start of the range, inclusive; null for no start
+     * @param to the end of the range, exclusive; null for no end
+     * @param offset how many of the range's shipments to skip
+     * @param limit the most shipments to return
+     * @return up to limit of the OrderShipments delivered in the range, empty if there are none after offset
+     */
+    public List<OrderShipment> getOrderShipmentsByDeliveryDate(ZonedDateTime from, ZonedDateTime to, int offset,
+                                                               int limit) {
+        return convertOrderShipmentDatas(
+            orderDatastore.getOrderShipmentDatasByDeliveryDate(from, to, offset, limit)
+        );
+    }
+
+    private List<OrderShipment> convertOrderShipmentDatas(List<OrderShipmentData> orderShipmentDatas) {
+        List<OrderShipment> orderShipments = new ArrayList<>();
+        for (OrderShipmentData orderShipmentData : orderShipmentDatas) {
+            orderShipments.add(convertOrderShipmentDataToOrderResultShipment(orderShipmentData));
+        }
+        return orderShipments;
+    }
+
     private OrderResult convertOrderDataToOrderResult(OrderData orderData) {
         List<OrderResultItem> orderResultItems = new ArrayList<>();
         for (OrderItemData orderItemData : orderData.getCustomerOrderItemList()) {
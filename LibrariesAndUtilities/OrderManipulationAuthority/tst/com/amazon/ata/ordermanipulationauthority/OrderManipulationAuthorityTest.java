@@ -5,7 +5,11 @@ import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -460,4 +464,192 @@ public class OrderManipulationAuthorityTest {
                    )
         );
     }
+
+    // getDeliveryDateByOrderItemId
+
+    @Test
+    public void getDeliveryDateByOrderItemId_deliveredOrderItem_returnsShipmentDeliveryDate() {
+        // GIVEN - single item fixture, shipped and delivered
+        OrderResult order = oma.getCustomerOrderByOrderId("900-3746401-0000003");
+        String orderItemId = order.getCustomerOrderItemList().get(0).getCustomerOrderItemId();
+
+        // WHEN
+        ZonedDateTime deliveryDate = oma.getDeliveryDateByOrderItemId(orderItemId);
+
+        // THEN
+        assertNotNull(deliveryDate);
+        assertEquals(order.getOrderShipmentList().get(0).getDeliveryDate(), deliveryDate);
+    }
+
+    @Test
+    public void getDeliveryDateByOrderItemId_undeliveredOrderItem_returnsNull() {
+        // GIVEN - single item fixture, shipped, not delivered
+        OrderResult order = oma.getCustomerOrderByOrderId("900-3746401-0000002");
+        String orderItemId = order.getCustomerOrderItemList().get(0).getCustomerOrderItemId();
+
+        // WHEN
+        ZonedDateTime deliveryDate = oma.getDeliveryDateByOrderItemId(orderItemId);
+
+        // THEN
+        assertNull(deliveryDate);
+    }
+
+    @Test
+    public void getDeliveryDateByOrderItemId_nonexistentOrderItemId_returnsNull() {
+        // WHEN + THEN
+        assertNull(oma.getDeliveryDateByOrderItemId("20"));
+    }
+
+    // getCustomerOrdersByOrderIds
+
+    @Test
+    public void getCustomerOrdersByOrderIds_mixedOrderIds_omitsUnrecognizedOrderIds() {
+        // GIVEN
+        String orderId = "101-9374937-9275653";
+        String missingOrderId = "900-0000000-0000000";
+        String malformedOrderId = "NOT AN ORDER ID";
+
+        // WHEN
+        Map<String, OrderResult> orders =
+            oma.getCustomerOrdersByOrderIds(Arrays.asList(orderId, missingOrderId, malformedOrderId));
+
+        // THEN
+        assertEquals(1, orders.size(), String.format("Expected only '%s' in results, but found: %s",
+                                                     orderId,
+                                                     orders.keySet()
+        ));
+        assertEquals(orderId, orders.get(orderId).getOrderId());
+    }
+
+    @Test
+    public void getCustomerOrdersByOrderIds_orderIdsSharingSampleData_eachOrderKeepsItsOwnOrderId() {
+        // GIVEN - suffixes 8 apart land on the same sample order
+        List<String> orderIds = Arrays.asList("101-9374937-9275654", "101-9374937-9275662");
+
+        // WHEN
+        Map<String, OrderResult> orders = oma.getCustomerOrdersByOrderIds(orderIds);
+
+        // THEN
+        assertEquals(orderIds, new ArrayList<>(orders.keySet()));
+        for (String orderId : orderIds) {
+            OrderResult order = orders.get(orderId);
+            assertEquals(orderId, order.getOrderId());
+            for (OrderResultItem item : order.getCustomerOrderItemList()) {
+                assertEquals(orderId, item.getOrderId());
+            }
+        }
+    }
+
+    @Test
+    public void getCustomerOrdersByOrderIds_matchesSingleOrderLookup() {
+        // GIVEN
+        String orderId = "101-9374937-9275655";
+        OrderResult expected = oma.getCustomerOrderByOrderId(orderId);
+
+        // WHEN
+        OrderResult order = oma.getCustomerOrdersByOrderIds(Arrays.asList(orderId, orderId)).get(orderId);
+
+        // THEN
+        assertEquals(expected.getCustomerId(), order.getCustomerId());
+        assertEquals(expected.getOrderDate(), order.getOrderDate());
+        assertEquals(expected.getCustomerOrderItemList().size(), order.getCustomerOrderItemList().size());
+        assertEquals(expected.getOrderShipmentList().size(), order.getOrderShipmentList().size());
+    }
+
+    // getCustomerOrderItemsByOrderItemIds
+
+    @Test
+    public void getCustomerOrderItemsByOrderItemIds_mixedOrderItemIds_returnsOnlyExistingOrderItems() {
+        // GIVEN
+        OrderResult order = oma.getCustomerOrderByOrderId("101-9374937-9275656");
+        List<String> orderItemIds = order.getCustomerOrderItemList().stream()
+                                        .map(OrderResultItem::getCustomerOrderItemId)
+                                        .collect(Collectors.toList());
+        List<String> requestedIds = new ArrayList<>(orderItemIds);
+        requestedIds.add("20");
+
+        // WHEN
+        Map<String, OrderResultItem> orderItems = oma.getCustomerOrderItemsByOrderItemIds(requestedIds);
+
+        // THEN
+        assertEquals(orderItemIds, new ArrayList<>(orderItems.keySet()));
+        for (Map.Entry<String, OrderResultItem> entry : orderItems.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue().getCustomerOrderItemId());
+        }
+    }
+
+    // getCustomerOrdersByCustomerId
+
+    @Test
+    public void getCustomerOrdersByCustomerId_existingCustomer_returnsPageOfTheirOrders() {
+        // GIVEN
+        OrderResult order = oma.getCustomerOrderByOrderId("900-3746402-0000001");
+
+        // WHEN
+        List<OrderResult> orders = oma.getCustomerOrdersByCustomerId(order.getCustomerId(), 0, 1);
+
+        // THEN
+        assertEquals(1, orders.size());
+        assertEquals(order.getCustomerId(), orders.get(0).getCustomerId());
+        assertTrue(oma.getCustomerOrdersByCustomerId(order.getCustomerId(), 1_000, 1).isEmpty());
+    }
+
+    // getCustomerOrderItemsByAsin, getOrderShipmentsByWarehouseId
+
+    @Test
+    public void getCustomerOrderItemsByAsin_asinOfExistingItem_returnsItemsWithThatAsin() {
+        // GIVEN
+        OrderResult order = oma.getCustomerOrderByOrderId("900-3746403-0000001");
+        String asin = order.getCustomerOrderItemList().get(0).getAsin();
+        String warehouseId = order.getOrderShipmentList().get(0).getWarehouseId();
+
+        // WHEN
+        List<OrderResultItem> items = oma.getCustomerOrderItemsByAsin(asin, 0, 50);
+        List<OrderShipment> shipments = oma.getOrderShipmentsByWarehouseId(warehouseId, 0, 50);
+
+        // THEN
+        assertFalse(items.isEmpty());
+        for (OrderResultItem item : items) {
+            assertEquals(asin, item.getAsin());
+        }
+        assertFalse(shipments.isEmpty());
+        for (OrderShipment shipment : shipments) {
+            assertEquals(warehouseId, shipment.getWarehouseId());
+        }
+    }
+
+    // getCustomerOrdersByOrderDate, getOrderShipmentsByDeliveryDate
+
+    @Test
+    public void getCustomerOrdersByOrderDate_rangeAroundExistingOrder_returnsOrdersInRange() {
+        // GIVEN
+        OrderResult order = oma.getCustomerOrderByOrderId("900-3746401-0000003");
+        ZonedDateTime from = order.getOrderDate().minusMinutes(1);
+        ZonedDateTime to = order.getOrderDate().plusMinutes(1);
+
+        // WHEN
+        List<OrderResult> orders = oma.getCustomerOrdersByOrderDate(from, to, 0, 100);
+
+        // THEN
+        assertTrue(orders.stream().anyMatch(result -> order.getOrderId().equals(result.getOrderId())));
+        for (OrderResult result : orders) {
+            assertFalse(result.getOrderDate().isBefore(from));
+            assertTrue(result.getOrderDate().isBefore(to));
+        }
+    }
+
+    @Test
+    public void getOrderShipmentsByDeliveryDate_exactDeliveryDate_includesDeliveredShipment() {
+        // GIVEN
+        OrderShipment delivered = oma.getCustomerOrderByOrderId("900-3746401-0000003").getOrderShipmentList().get(0);
+        ZonedDateTime deliveryDate = delivered.getDeliveryDate();
+
+        // WHEN
+        List<OrderShipment> shipments = oma.getOrderShipmentsByDeliveryDate(deliveryDate, deliveryDate.plusNanos(1),
+                                                                           0, 100);
+
+        // THEN
+        assertTrue(shipments.stream().anyMatch(shipment -> delivered.getShipmentId().equals(shipment.getShipmentId())));
+        assertTrue(oma.getOrderShipmentsByDeliveryDate(deliveryDate.plusNanos(1), deliveryDate, 0, 100).isEmpty());
+    }
 }
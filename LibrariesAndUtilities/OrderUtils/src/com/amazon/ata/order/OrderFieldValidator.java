@@ -1,12 +1,9 @@
 package com.amazon.ata.order;
 
-import java.util.regex.Pattern;
-
 /**
  * Provides validation methods for Amazon customer order fields.
  */
 public class OrderFieldValidator {
-    private static final Pattern ORDER_ID_PATTERN = Pattern.compile("\\d{3}-\\d{7}-\\d{7}");
     private static final int MIN_CONDITION_CODE = 0;
     private static final int MAX_CONDITION_CODE = 6;
 
@@ -17,11 +14,7 @@ public class OrderFieldValidator {
      * @return true if orderId is a valid order ID; false otherwise.
      */
     public boolean isValidOrderId(String orderId) {
-        if (null == orderId) {
-            return false;
-        }
-
-        return ORDER_ID_PATTERN.matcher(orderId).matches();
+        return OrderId.isValid(orderId);
     }
 
     /**
@@ -0,0 +1,112 @@
+package com.amazon.ata.order;
+
+/**
+ * Codec for Amazon customer order IDs, which have the form ddd-ddddddd-ddddddd.
+ *
+ * An order ID is validated and packed into a single long in one pass over its characters, without allocating:
+ * the 17 digits are read as one decimal number, so the packed value orders the same way the ID strings do.
+ * The segments can then be pulled back out of the long arithmetically.
+ */
+public final class OrderId {
+    /** Returned by parse for anything that isn't a well-formed order ID. */
+    public static final long INVALID = -1L;
+
+    private static final int LENGTH = 19;
+    private static final int FIRST_HYPHEN = 3;
+    private static final int SECOND_HYPHEN = 11;
+    private static final long SEGMENT_SCALE = 10_000_000L;
+
+    /* don't instantiate me */
+    private OrderId() {}
+
+    /**
+     * Validates and packs the given order ID.
+     *
+     * @param orderId the candidate order ID
+     * @return the packed order ID, or INVALID if orderId is null or not of the form ddd-ddddddd-ddddddd
+     */
+    public static long parse(CharSequence orderId) {
+        if (null == orderId || orderId.length() != LENGTH) {
+            return INVALID;
+        }
+
+        long packed = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = orderId.charAt(i);
+            if (FIRST_HYPHEN == i || SECOND_HYPHEN == i) {
+                if (c != '-') {
+                    return INVALID;
+                }
+            } else if (c >= '0' && c <= '9') {
+                packed = packed * 10 + (c - '0');
+            } else {
+                return INVALID;
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Indicates if the given String is a well-formed order ID.
+     *
+     * @param orderId the candidate order ID
+     * @return true if orderId is of the form ddd-ddddddd-ddddddd; false otherwise
+     */
+    public static boolean isValid(CharSequence orderId) {
+        return parse(orderId) != INVALID;
+    }
+
+    /**
+     * Returns the last (7-digit) segment of a packed order ID.
+     *
+     * @param packedOrderId an order ID returned by parse
+     * @return the order ID's suffix, between 0 and 9,999,999
+     */
+    public static int getSuffix(long packedOrderId) {
+        return (int) (packedOrderId % SEGMENT_SCALE);
+    }
+
+    /**
+     * Returns the middle (7-digit) segment of a packed order ID.
+     *
+     * @param packedOrderId an order ID returned by parse
+     * @return the order ID's middle segment, between 0 and 9,999,999
+     */
+    public static int getMiddle(long packedOrderId) {
+        return (int) (packedOrderId / SEGMENT_SCALE % SEGMENT_SCALE);
+    }
+
+    /**
+     * Returns the first (3-digit) segment of a packed order ID.
+     *
+     * @param packedOrderId an order ID returned by parse
+     * @return the order ID's prefix, between 0 and 999
+     */
+    public static int getPrefix(long packedOrderId) {
+        return (int) (packedOrderId / SEGMENT_SCALE / SEGMENT_SCALE);
+    }
+
+    /**
+     * Formats a packed order ID back into its ddd-ddddddd-ddddddd String form.
+     *
+     * @param packedOrderId an order ID returned by parse
+     * @return the order ID String
+     */
+    public static String format(long packedOrderId) {
+        if (packedOrderId < 0 || getPrefix(packedOrderId) > 999) {
+            throw new IllegalArgumentException("Not a packed order ID: " + packedOrderId);
+        }
+
+        char[] chars = new char[LENGTH];
+        long remaining = packedOrderId;
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            if (FIRST_HYPHEN == i || SECOND_HYPHEN == i) {
+                chars[i] = '-';
+            } else {
+                chars[i] = (char) ('0' + remaining % 10);
+                remaining /= 10;
+            }
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,92 @@
+package com.amazon.ata.order;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderIdTest {
+
+    @Test
+    public void parse_validOrderId_packsAllDigits() {
+        // GIVEN
+        String orderId = "111-7497023-2960775";
+
+        // WHEN
+        long packed = OrderId.parse(orderId);
+
+        // THEN
+        assertEquals(11174970232960775L, packed);
+        assertEquals(111, OrderId.getPrefix(packed));
+        assertEquals(7497023, OrderId.getMiddle(packed));
+        assertEquals(2960775, OrderId.getSuffix(packed));
+    }
+
+    @Test
+    public void parse_malformedOrderIds_returnInvalid() {
+        // GIVEN
+        String[] malformedOrderIds = {
+            null,
+            "",
+            "111-7497023-296077",
+            "111-7497023-29607755",
+            "111_7497023-2960775",
+            "1117-497023-2960775",
+            "111-7497023-296077a",
+            "111-7497023 2960775",
+            "111-7497023-2960775\n",
+        };
+
+        for (String malformedOrderId : malformedOrderIds) {
+            // WHEN
+            long packed = OrderId.parse(malformedOrderId);
+
+            // THEN
+            assertEquals(OrderId.INVALID, packed,
+                         String.format("Expected parse('%s') to return INVALID", malformedOrderId));
+            assertFalse(OrderId.isValid(malformedOrderId));
+        }
+    }
+
+    @Test
+    public void format_packedOrderId_roundTrips() {
+        // GIVEN
+        String[] orderIds = {"000-0000000-0000000", "111-0000000-0000042", "999-9999999-9999999"};
+
+        for (String orderId : orderIds) {
+            // WHEN
+            String formatted = OrderId.format(OrderId.parse(orderId));
+
+            // THEN
+            assertEquals(orderId, formatted);
+            assertTrue(OrderId.isValid(formatted));
+        }
+    }
+
+    @Test
+    public void parse_orderIds_sortSameAsStrings() {
+        // GIVEN
+        String lower = "111-7497023-2960775";
+        String higher = "112-0000000-0000000";
+
+        // WHEN
+        long packedLower = OrderId.parse(lower);
+        long packedHigher = OrderId.parse(higher);
+
+        // THEN
+        assertTrue(lower.compareTo(higher) < 0);
+        assertTrue(packedLower < packedHigher);
+    }
+
+    @Test
+    public void format_notAPackedOrderId_throwsIllegalArgumentException() {
+        // GIVEN
+        long notPacked = 100_000_000_000_000_000L;
+
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class, () -> OrderId.format(OrderId.INVALID));
+        assertThrows(IllegalArgumentException.class, () -> OrderId.format(notPacked));
+    }
+}
@@ -1,20 +1,97 @@
 package com.amazon.ata.deliveringonourpromise;
 
 import com.amazon.ata.deliveringonourpromise.activity.GetPromiseHistoryByOrderIdActivity;
+import com.amazon.ata.deliveringonourpromise.dao.CachingDao;
+import com.amazon.ata.deliveringonourpromise.dao.NegativeLookupCache;
 import com.amazon.ata.deliveringonourpromise.dao.OrderDao;
 import com.amazon.ata.deliveringonourpromise.dao.PromiseDao;
+import com.amazon.ata.deliveringonourpromise.dao.PromiseSource;
+import com.amazon.ata.deliveringonourpromise.dao.ReadOnlyDao;
+import com.amazon.ata.deliveringonourpromise.data.OrderData;
 import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
+import com.amazon.ata.deliveringonourpromise.data.OrderItemData;
 import com.amazon.ata.deliveringonourpromise.deliverypromiseservice.DeliveryPromiseServiceClient;
+import com.amazon.ata.deliveringonourpromise.dependencysimulator.DependencySimulator;
+import com.amazon.ata.deliveringonourpromise.dependencysimulator.SimulatedDeliveryPromiseService;
+import com.amazon.ata.deliveringonourpromise.dependencysimulator.SimulatedOrderFulfillmentService;
+import com.amazon.ata.deliveringonourpromise.dependencysimulator.SimulatedOrderManipulationAuthority;
+import com.amazon.ata.deliveringonourpromise.dependencysimulator.SimulationProfile;
+import com.amazon.ata.deliveringonourpromise.orderfulfillmentservice.OrderFulfillmentServiceClient;
 import com.amazon.ata.deliveringonourpromise.ordermanipulationauthority.OrderManipulationAuthorityClient;
 import com.amazon.ata.deliveringonourpromise.promisehistoryservice.PromiseHistoryClient;
+import com.amazon.ata.deliveringonourpromise.promisehistoryservice.SingleFlight;
+import com.amazon.ata.deliveringonourpromise.types.Order;
+import com.amazon.ata.deliveringonourpromise.types.Promise;
+import com.amazon.ata.deliveringonourpromise.types.PromiseHistory;
 import com.amazon.ata.deliverypromiseservice.service.DeliveryPromiseService;
+import com.amazon.ata.orderfulfillmentservice.OrderFulfillmentService;
 import com.amazon.ata.ordermanipulationauthority.OrderManipulationAuthority;
 
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Provides inversion of control for the DeliveringOnOurPromise project by instantiating all of the
  * dependencies needed by the Shell and its dependency classes.
  */
 public class App {
+    // how many of an order's items may have promise lookups in flight at once, and for how long
+    public static final int MAX_CONCURRENT_PROMISE_LOOKUPS = 16;
+    public static final Duration PROMISE_LOOKUP_TIMEOUT = Duration.ofSeconds(2);
+    // how long the PromiseDao waits on each promise source before returning without its promise
+    public static final Duration DPS_PROMISE_TIMEOUT = Duration.ofMillis(500);
+    public static final Duration OFS_PROMISE_TIMEOUT = Duration.ofMillis(500);
+
+    // set -Ddeliveringonourpromise.caching=true to put read-through caches in front of the order and promise DAOs
+    public static final String CACHING_ENABLED_PROPERTY = "deliveringonourpromise.caching";
+    public static final int ORDER_CACHE_SIZE = 1_000;
+    public static final int PROMISE_CACHE_SIZE = 5_000;
+    public static final Duration ORDER_CACHE_TTL = Duration.ofMinutes(5);
+    // promises still change until the item is delivered; delivered items' promises are final
+    public static final Duration UNDELIVERED_PROMISE_CACHE_TTL = Duration.ofSeconds(30);
+    public static final Duration DELIVERED_PROMISE_CACHE_TTL = Duration.ofMinutes(10);
+
+    // set -Ddeliveringonourpromise.snapshot=<file> to load the sample data from a snapshot written by
+    // OrderDatastore.writeSnapshot instead of generating it
+    public static final String SNAPSHOT_FILE_PROPERTY = "deliveringonourpromise.snapshot";
+    // set -Ddeliveringonourpromise.changelog=<file> to keep order changes in a write-ahead log, replayed on startup
+    public static final String CHANGE_LOG_FILE_PROPERTY = "deliveringonourpromise.changelog";
+
+    // set -Ddeliveringonourpromise.simulation=fixed|lognormal|tail to give OMA, DPS and OFS the latency, failures and
+    // concurrency limits of remote services (see SimulationProfile), so that benchmarks see realistic dependencies
+    public static final String SIMULATION_PROFILE_PROPERTY = "deliveringonourpromise.simulation";
+    public static final Duration OMA_SIMULATED_LATENCY = Duration.ofMillis(20);
+    public static final Duration DPS_SIMULATED_LATENCY = Duration.ofMillis(15);
+    // OFS calls DPS, so its calls take this on top of DPS's
+    public static final Duration OFS_SIMULATED_LATENCY = Duration.ofMillis(10);
+
+    // order IDs that weren't found are answered from memory for a short while
+    public static final int MISSING_ORDER_ID_CACHE_SIZE = 10_000;
+    public static final Duration MISSING_ORDER_ID_CACHE_TTL = Duration.ofSeconds(10);
+
+    private static final NegativeLookupCache<String> MISSING_ORDER_IDS =
+        new NegativeLookupCache<>(MISSING_ORDER_ID_CACHE_SIZE, MISSING_ORDER_ID_CACHE_TTL);
+    // shared by every PromiseHistoryClient, so concurrent requests for an order share a lookup across clients
+    private static final SingleFlight<String, PromiseHistory> PROMISE_HISTORY_REQUESTS = new SingleFlight<>();
+    private static final ExecutorService PROMISE_LOOKUP_EXECUTOR = newPromiseLookupExecutor();
+    // one simulator per dependency, shared by all of its clients so that its concurrency limit holds
+    private static final Map<String, DependencySimulator> DEPENDENCY_SIMULATORS = new HashMap<>();
+
+    private static CachingDao<String, Order> cachingOrderDao;
+    private static CachingDao<String, List<Promise>> cachingPromiseDao;
+    private static OrderDatastore orderDatastore;
+
     /* don't instantiate me */
     private App() {}
 
@@ -23,43 +100,203 @@ public class App {
      * @return fully loaded PromiseHistoryClient, ready for service! (er, client)
      */
     public static PromiseHistoryClient getPromiseHistoryClient() {
-        return new PromiseHistoryClient(getPromiseHistoryByOrderIdActivity());
+        return new PromiseHistoryClient(getPromiseHistoryByOrderIdActivity(),
+                                        getMissingOrderIdCache(),
+                                        getPromiseHistoryRequests());
     }
 
     /* helpers */
 
     public static GetPromiseHistoryByOrderIdActivity getPromiseHistoryByOrderIdActivity() {
-        return new GetPromiseHistoryByOrderIdActivity(getOrderDao(), getPromiseDao());
+        boolean cachingEnabled = Boolean.getBoolean(CACHING_ENABLED_PROPERTY);
+        return new GetPromiseHistoryByOrderIdActivity(cachingEnabled ? getCachingOrderDao() : getOrderDao(),
+                                                      cachingEnabled ? getCachingPromiseDao() : getPromiseDao(),
+                                                      getPromiseLookupExecutor(),
+                                                      MAX_CONCURRENT_PROMISE_LOOKUPS,
+                                                      PROMISE_LOOKUP_TIMEOUT
+        );
+    }
+
+    // caches
+    public static NegativeLookupCache<String> getMissingOrderIdCache() {
+        return MISSING_ORDER_IDS;
+    }
+
+    public static SingleFlight<String, PromiseHistory> getPromiseHistoryRequests() {
+        return PROMISE_HISTORY_REQUESTS;
+    }
+
+    // executors
+    public static ExecutorService getPromiseLookupExecutor() {
+        return PROMISE_LOOKUP_EXECUTOR;
     }
 
     // DAOs
     public static OrderDao getOrderDao() {
         return new OrderDao(getOrderManipulationAuthorityClient());
     }
+    public static synchronized CachingDao<String, Order> getCachingOrderDao() {
+        if (null == cachingOrderDao) {
+            cachingOrderDao = new CachingDao<>(getOrderDao(), ORDER_CACHE_SIZE, ORDER_CACHE_TTL);
+        }
+        return cachingOrderDao;
+    }
+    public static synchronized CachingDao<String, List<Promise>> getCachingPromiseDao() {
+        if (null == cachingPromiseDao) {
+            cachingPromiseDao = new CachingDao<>(getPromiseDao(),
+                                                 PROMISE_CACHE_SIZE,
+                                                 App::getPromiseCacheTimeToLive,
+                                                 Ticker.systemTicker()
+            );
+        }
+        return cachingPromiseDao;
+    }
     public static PromiseDao getPromiseDao() {
-        return new PromiseDao(getDeliveryPromiseServiceClient(),
-                              getOrderManipulationAuthorityClient()
+        return new PromiseDao(Arrays.asList(new PromiseSource(getDeliveryPromiseServiceClient(), DPS_PROMISE_TIMEOUT),
+                                            new PromiseSource(getOrderFulfillmentServiceClient(), OFS_PROMISE_TIMEOUT)),
+                              getOrderManipulationAuthorityClient(),
+                              getPromiseLookupExecutor()
         );
     }
 
     // service clients
     public static OrderManipulationAuthorityClient getOrderManipulationAuthorityClient() {
-        return new OrderManipulationAuthorityClient(getOrderManipulationAuthority());
+        return new OrderManipulationAuthorityClient(getOrderManipulationAuthority(), getPromiseLookupExecutor());
     }
     public static DeliveryPromiseServiceClient getDeliveryPromiseServiceClient() {
-        return new DeliveryPromiseServiceClient(getDeliveryPromiseService());
+        return new DeliveryPromiseServiceClient(getDeliveryPromiseService(), getPromiseLookupExecutor());
+    }
+    public static OrderFulfillmentServiceClient getOrderFulfillmentServiceClient() {
+        return new OrderFulfillmentServiceClient(getOrderFulfillmentService());
     }
 
     // dependency services
     public static OrderManipulationAuthority getOrderManipulationAuthority() {
+        DependencySimulator simulator = getDependencySimulator("OMA", OMA_SIMULATED_LATENCY);
+        if (simulator != null) {
+            return new SimulatedOrderManipulationAuthority(getOrderDatastore(), simulator);
+        }
         return new OrderManipulationAuthority(getOrderDatastore());
     }
     public static DeliveryPromiseService getDeliveryPromiseService() {
+        DependencySimulator simulator = getDependencySimulator("DPS", DPS_SIMULATED_LATENCY);
+        if (simulator != null) {
+            return new SimulatedDeliveryPromiseService(getOrderDatastore(), simulator);
+        }
         return new DeliveryPromiseService(getOrderDatastore());
     }
+    public static OrderFulfillmentService getOrderFulfillmentService() {
+        DependencySimulator simulator = getDependencySimulator("OFS", OFS_SIMULATED_LATENCY);
+        if (simulator != null) {
+            return new SimulatedOrderFulfillmentService(getOrderDatastore(), getDeliveryPromiseService(), simulator);
+        }
+        return new OrderFulfillmentService(getOrderDatastore(), getDeliveryPromiseService());
+    }
+
+    /*
+     * Returns the simulator the named dependency's calls go through under the configured simulation profile, or
+     * null if no profile is configured and calls go straight to the in-process service.
+     */
+    private static synchronized DependencySimulator getDependencySimulator(String name, Duration typicalLatency) {
+        String profileName = System.getProperty(SIMULATION_PROFILE_PROPERTY);
+        if (null == profileName) {
+            return null;
+        }
+        return DEPENDENCY_SIMULATORS.computeIfAbsent(name + "/" + profileName,
+            key -> SimulationProfile.fromName(profileName)
+                                    .newSimulatorBuilder(typicalLatency)
+                                    .withName(name)
+                                    .build()
+        );
+    }
 
     // sample data
-    public static OrderDatastore getOrderDatastore() {
-        return OrderDatastore.getDatastore();
+    public static synchronized OrderDatastore getOrderDatastore() {
+        if (null == orderDatastore) {
+            orderDatastore = loadOrderDatastore();
+            // the per-item tables DPS and OFS read, kept up to date by the datastore as orders change
+            DeliveryPromiseService.addPromiseDatesTable(orderDatastore);
+            OrderFulfillmentService.addPromiseTermsTable(orderDatastore);
+            orderDatastore.addOrderChangeListener(App::invalidateCachedOrder);
+        }
+        return orderDatastore;
+    }
+
+    private static OrderDatastore loadOrderDatastore() {
+        String snapshotFile = System.getProperty(SNAPSHOT_FILE_PROPERTY);
+        OrderDatastore datastore = OrderDatastore.getDatastore();
+        if (snapshotFile != null) {
+            try {
+                datastore = OrderDatastore.loadSnapshot(Paths.get(snapshotFile));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load order snapshot " + snapshotFile, e);
+            }
+        }
+
+        String changeLogFile = System.getProperty(CHANGE_LOG_FILE_PROPERTY);
+        if (changeLogFile != null) {
+            try {
+                datastore.openChangeLog(Paths.get(changeLogFile));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open order change log " + changeLogFile, e);
+            }
+        }
+        return datastore;
+    }
+
+    /*
+     * Drops everything cached about an order that has just changed, so that its promise history shows the change
+     * (a delivery, say) straight away rather than once the cached copies expire.
+     */
+    private static void invalidateCachedOrder(OrderData orderData) {
+        MISSING_ORDER_IDS.invalidate(orderData.getOrderId());
+
+        CachingDao<String, Order> orderCache;
+        CachingDao<String, List<Promise>> promiseCache;
+        synchronized (App.class) {
+            orderCache = cachingOrderDao;
+            promiseCache = cachingPromiseDao;
+        }
+        if (orderCache != null) {
+            orderCache.invalidate(orderData.getOrderId());
+        }
+        if (promiseCache != null) {
+            for (OrderItemData orderItemData : orderData.getCustomerOrderItemList()) {
+                promiseCache.invalidate(orderItemData.getCustomerOrderItemId());
+            }
+        }
+    }
+
+    /*
+     * Keeps an item's promises for longer once the item has been delivered, since they can no longer change.
+     */
+    private static Duration getPromiseCacheTimeToLive(List<Promise> promises) {
+        if (promises.isEmpty()) {
+            return UNDELIVERED_PROMISE_CACHE_TTL;
+        }
+        for (Promise promise : promises) {
+            if (null == promise.getDeliveryDate()) {
+                return UNDELIVERED_PROMISE_CACHE_TTL;
+            }
+        }
+        return DELIVERED_PROMISE_CACHE_TTL;
+    }
+
+    /*
+     * Uses a virtual thread per task when the JVM supports them, so that blocked dependency calls don't tie up
+     * platform threads; the OMA and DPS clients' async calls and PromiseDao's source lookups all block a thread of
+     * this executor each. Otherwise falls back to a cached pool of daemon threads. The per-item lookups block on
+     * the per-source and OMA lookups they start on this same executor, so it must not be a bounded pool.
+     */
+    private static ExecutorService newPromiseLookupExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                                                     .setNameFormat("promise-lookup-%d")
+                                                     .setDaemon(true)
+                                                     .build()
+            );
+        }
     }
 }
@@ -1,6 +1,5 @@
 package com.amazon.ata.deliveringonourpromise;
 
-import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
 import com.amazon.ata.deliveringonourpromise.promisehistoryservice.PromiseHistoryClient;
 import com.amazon.ata.deliveringonourpromise.types.Order;
 import com.amazon.ata.deliveringonourpromise.types.Promise;
@@ -211,6 +210,6 @@ public class Shell {
     }
 
     private String renderFixtures() {
-        return OrderDatastore.getDatastore().getOrderFixturesTable();
+        return App.getOrderDatastore().getOrderFixturesTable();
     }
 }
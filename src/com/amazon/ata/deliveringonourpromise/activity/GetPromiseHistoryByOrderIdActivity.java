@@ -6,31 +6,76 @@ import com.amazon.ata.deliveringonourpromise.types.OrderItem;
 import com.amazon.ata.deliveringonourpromise.types.Promise;
 import com.amazon.ata.deliveringonourpromise.types.PromiseHistory;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Activity class, handling the GetPromiseHistoryByOrderId API.
+ *
+ * Promises for each of the order's items are fetched concurrently on the provided executor, with at most
+ * maxConcurrentPromiseLookups lookups in flight at once. Lookups that haven't finished by the time the
+ * promise lookup timeout runs out are cancelled and left out of the PromiseHistory.
  */
 public class GetPromiseHistoryByOrderIdActivity {
+    private static final Duration DEFAULT_PROMISE_LOOKUP_TIMEOUT = Duration.ofSeconds(5);
+
     private ReadOnlyDao<String, Order> orderDao;
     private ReadOnlyDao<String, List<Promise>> promiseDao;
+    private ExecutorService promiseLookupExecutor;
+    private int maxConcurrentPromiseLookups;
+    private Duration promiseLookupTimeout;
 
     /**
      * Instantiates an activity for handling the API, accepting the relevant DAOs to
-     * perform its work.
+     * perform its work. Promises are fetched one item at a time on the calling thread.
      *
      * @param orderDao data access object fo retrieving Orders by order ID
      * @param promiseDao data access object for retrieving Promises by order item ID
      */
     public GetPromiseHistoryByOrderIdActivity(ReadOnlyDao<String, Order> orderDao,
                                               ReadOnlyDao<String, List<Promise>> promiseDao) {
+        this(orderDao, promiseDao, MoreExecutors.newDirectExecutorService(), 1, DEFAULT_PROMISE_LOOKUP_TIMEOUT);
+    }
+
+    /**
+     * Instantiates an activity for handling the API, fetching the promises for an order's items concurrently.
+     *
+     * @param orderDao data access object fo retrieving Orders by order ID
+     * @param promiseDao data access object for retrieving Promises by order item ID
+     * @param promiseLookupExecutor executor to run the per-item promise lookups on
+     * @param maxConcurrentPromiseLookups the most promise lookups a single request may have in flight at once
+     * @param promiseLookupTimeout how long a request may spend fetching promises for all of its items
+     */
+    public GetPromiseHistoryByOrderIdActivity(ReadOnlyDao<String, Order> orderDao,
+                                              ReadOnlyDao<String, List<Promise>> promiseDao,
+                                              ExecutorService promiseLookupExecutor,
+                                              int maxConcurrentPromiseLookups,
+                                              Duration promiseLookupTimeout) {
+        if (maxConcurrentPromiseLookups < 1) {
+            throw new IllegalArgumentException("maxConcurrentPromiseLookups must be at least 1");
+        }
+
         this.orderDao = orderDao;
         this.promiseDao = promiseDao;
+        this.promiseLookupExecutor = promiseLookupExecutor;
+        this.maxConcurrentPromiseLookups = maxConcurrentPromiseLookups;
+        this.promiseLookupTimeout = promiseLookupTimeout;
     }
 
     /**
      * Returns the PromiseHistory for the given order ID, if the order exists. If the order does
      * not exist a PromiseHistory with a null order and no promises will be returned.
+     *
+     * Promises are returned grouped by order item, in the order the items appear in the order.
      * @param orderId The order ID to fetch PromiseHistory for
      * @return PromiseHistory containing the order and promise history for that order
      */
@@ -41,21 +86,101 @@ public class GetPromiseHistoryByOrderIdActivity {
 
         Order order = orderDao.get(orderId);
 
-        List<OrderItem> customerOrderItems = order.getCustomerOrderItemList();
-        OrderItem customerOrderItem = null;
-        if (customerOrderItems != null && !customerOrderItems.isEmpty()) {
-            customerOrderItem = customerOrderItems.get(0);
+        PromiseHistory history = new PromiseHistory(order);
+        if (null == order || null == order.getCustomerOrderItemList()) {
+            return history;
         }
 
-        PromiseHistory history = new PromiseHistory(order);
-        if (customerOrderItem != null) {
-            List<Promise> promises = promiseDao.get(customerOrderItem.getCustomerOrderItemId());
-            for (Promise promise : promises) {
-                promise.setConfidence(customerOrderItem.isConfidenceTracked(), customerOrderItem.getConfidence());
-                history.addPromise(promise);
+        List<OrderItem> customerOrderItems = order.getCustomerOrderItemList();
+        List<List<Promise>> promisesByItem = fetchPromises(customerOrderItems);
+        for (int i = 0; i < customerOrderItems.size(); i++) {
+            OrderItem customerOrderItem = customerOrderItems.get(i);
+            for (Promise promise : promisesByItem.get(i)) {
+                // the DAO's promises may be cached and shared with other requests, so set confidence on a copy
+                Promise itemPromise = copyOf(promise);
+                itemPromise.setConfidence(customerOrderItem.isConfidenceTracked(), customerOrderItem.getConfidence());
+                history.addPromise(itemPromise);
             }
         }
 
         return history;
     }
+
+    /*
+     * Fetches the promises for each of the given order items, returning them in the same order as the items.
+     * Items whose lookup didn't finish before the deadline get an empty list.
+     */
+    private List<List<Promise>> fetchPromises(List<OrderItem> customerOrderItems) {
+        long deadline = System.nanoTime() + promiseLookupTimeout.toNanos();
+        Semaphore lookupPermits = new Semaphore(maxConcurrentPromiseLookups);
+        List<Future<List<Promise>>> lookups = new ArrayList<>();
+
+        try {
+            for (OrderItem customerOrderItem : customerOrderItems) {
+                if (!lookupPermits.tryAcquire(remainingNanos(deadline), TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+                lookups.add(submitLookup(customerOrderItem.getCustomerOrderItemId(), lookupPermits));
+            }
+
+            List<List<Promise>> promisesByItem = new ArrayList<>();
+            for (int i = 0; i < customerOrderItems.size(); i++) {
+                promisesByItem.add(i < lookups.size() ? awaitLookup(lookups.get(i), deadline) : new ArrayList<>());
+            }
+            return promisesByItem;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching promises", e);
+        } finally {
+            for (Future<List<Promise>> lookup : lookups) {
+                lookup.cancel(true);
+            }
+        }
+    }
+
+    private Future<List<Promise>> submitLookup(String customerOrderItemId, Semaphore lookupPermits) {
+        try {
+            return promiseLookupExecutor.submit(() -> {
+                try {
+                    return promiseDao.get(customerOrderItemId);
+                } finally {
+                    lookupPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            lookupPermits.release();
+            throw e;
+        }
+    }
+
+    private List<Promise> awaitLookup(Future<List<Promise>> lookup, long deadline) throws InterruptedException {
+        try {
+            List<Promise> promises = lookup.get(remainingNanos(deadline), TimeUnit.NANOSECONDS);
+            return null == promises ? new ArrayList<>() : promises;
+        } catch (TimeoutException e) {
+            return new ArrayList<>();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Promise lookup failed", e.getCause());
+        }
+    }
+
+    private static Promise copyOf(Promise promise) {
+        return Promise.builder()
+                   .withCustomerOrderItemId(promise.getCustomerOrderItemId())
+                   .withAsin(promise.getAsin())
+                   .withIsActive(promise.isActive())
+                   .withPromiseEffectiveDate(promise.getPromiseEffectiveDate())
+                   .withPromiseLatestArrivalDate(promise.getPromiseLatestArrivalDate())
+                   .withPromiseLatestShipDate(promise.getPromiseLatestShipDate())
+                   .withDeliveryDate(promise.getDeliveryDate())
+                   .withPromiseProvidedBy(promise.getPromiseProvidedBy())
+                   .build();
+    }
+
+    private static long remainingNanos(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
 }
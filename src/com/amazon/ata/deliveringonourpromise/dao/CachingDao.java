@@ -0,0 +1,282 @@
+package com.amazon.ata.deliveringonourpromise.dao;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Read-through caching decorator for any ReadOnlyDao.
+ *
+ * Entries are kept in a segmented LRU: a newly loaded value starts out in the probation segment and is only
+ * promoted to the (larger) protected segment once it is read again. Values evicted from the protected segment
+ * drop back to probation, and only probation entries are ever evicted from the cache, so a burst of one-off
+ * lookups can't push out the orders that keep being looked up. Each entry also expires after the time to live
+ * computed for its value.
+ *
+ * Null results are not cached. Values are loaded outside the cache's lock, so a value whose input is invalidated
+ * while it's being loaded may predate the change that caused the invalidation; such a value is returned to its
+ * caller but not cached. A cached value is handed as is to every caller that reads it, so callers must
+ * treat the values they get as read-only, and copy them before changing them.
+ *
+ * @param <I> the DAO's input (key) type
+ * @param <O> the DAO's output (value) type
+ */
+public class CachingDao<I, O> implements ReadOnlyDao<I, O> {
+    private final ReadOnlyDao<I, O> delegate;
+    private final Function<O, Duration> timeToLive;
+    private final Ticker ticker;
+    private final int probationCapacity;
+    private final int protectedCapacity;
+
+    // both segments are kept in access order, least recently used first
+    private final LinkedHashMap<I, CacheEntry<O>> probationSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<I, CacheEntry<O>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    // bumped by every invalidation. Inputs being loaded are tracked with how many loads of them are in flight and
+    // the generation they were last invalidated in, so a load can tell whether its input was invalidated meanwhile
+    private long generation;
+    private long allInvalidatedGeneration;
+    private final Map<I, InFlightLoads> inFlightLoads = new HashMap<>();
+
+    private long hitCount;
+    private long missCount;
+    private long loadSuccessCount;
+    private long loadExceptionCount;
+    private long totalLoadTime;
+    private long evictionCount;
+
+    /**
+     * Wraps the given DAO in a cache holding at most maximumSize values, each for the same time to live.
+     *
+     * @param delegate the DAO to load values from on a cache miss
+     * @param maximumSize the most values the cache will hold
+     * @param timeToLive how long a value stays in the cache after it was loaded
+     */
+    public CachingDao(ReadOnlyDao<I, O> delegate, int maximumSize, Duration timeToLive) {
+        this(delegate, maximumSize, value -> timeToLive, Ticker.systemTicker());
+    }
+
+    /**
+     * Wraps the given DAO in a cache holding at most maximumSize values, each for the time to live computed
+     * for it when it was loaded.
+     *
+     * @param delegate the DAO to load values from on a cache miss
+     * @param maximumSize the most values the cache will hold
+     * @param timeToLive computes how long a freshly loaded value stays in the cache
+     * @param ticker time source used to expire values
+     */
+    public CachingDao(ReadOnlyDao<I, O> delegate, int maximumSize, Function<O, Duration> timeToLive, Ticker ticker) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        }
+
+        this.delegate = delegate;
+        this.timeToLive = timeToLive;
+        this.ticker = ticker;
+        this.protectedCapacity = maximumSize * 4 / 5;
+        this.probationCapacity = maximumSize - protectedCapacity;
+    }
+
+    /**
+     * Returns the cached value for the given input if there is an unexpired one, otherwise loads it from the
+     * wrapped DAO and caches it.
+     *
+     * @param input the input to look up
+     * @return the value for the given input, or null if the wrapped DAO returns null
+     */
+    @Override
+    public O get(I input) {
+        CacheEntry<O> cached = lookup(input);
+        if (cached != null) {
+            return cached.value;
+        }
+
+        long loadGeneration = startLoad(input);
+        long loadStart = ticker.read();
+        O value;
+        try {
+            value = delegate.get(input);
+        } catch (RuntimeException e) {
+            finishLoad(input, loadGeneration, null);
+            recordLoad(false, ticker.read() - loadStart);
+            throw e;
+        }
+        long loadEnd = ticker.read();
+        recordLoad(true, loadEnd - loadStart);
+
+        finishLoad(input, loadGeneration,
+                   null == value ? null : new CacheEntry<>(value, loadEnd + timeToLive.apply(value).toNanos()));
+        return value;
+    }
+
+    /**
+     * Removes any cached value for the given input, so the next get loads it again.
+     *
+     * @param input the input whose value should be dropped
+     */
+    public synchronized void invalidate(I input) {
+        generation++;
+        InFlightLoads loads = inFlightLoads.get(input);
+        if (loads != null) {
+            loads.invalidatedGeneration = generation;
+        }
+        probationSegment.remove(input);
+        protectedSegment.remove(input);
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        allInvalidatedGeneration = generation;
+        probationSegment.clear();
+        protectedSegment.clear();
+    }
+
+    /**
+     * Returns the number of values currently held, including any that have expired but not been removed yet.
+     *
+     * @return the number of cached values
+     */
+    public synchronized int size() {
+        return probationSegment.size() + protectedSegment.size();
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss, load and eviction counts since this cache was created. Expired values
+     * that are removed count as evictions.
+     *
+     * @return the cache's statistics
+     */
+    public synchronized CacheStats stats() {
+        return new CacheStats(hitCount, missCount, loadSuccessCount, loadExceptionCount, totalLoadTime,
+                              evictionCount);
+    }
+
+    /*
+     * Finds an unexpired entry, promoting it to the protected segment. Records the hit or miss.
+     */
+    private synchronized CacheEntry<O> lookup(I input) {
+        long now = ticker.read();
+
+        CacheEntry<O> entry = protectedSegment.get(input);
+        if (entry != null) {
+            if (entry.isExpired(now)) {
+                protectedSegment.remove(input);
+                evictionCount++;
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            return entry;
+        }
+
+        entry = probationSegment.get(input);
+        if (entry != null) {
+            if (entry.isExpired(now)) {
+                probationSegment.remove(input);
+                evictionCount++;
+                missCount++;
+                return null;
+            }
+            if (protectedCapacity > 0) {
+                probationSegment.remove(input);
+                protectedSegment.put(input, entry);
+                demoteOverflow();
+            }
+            hitCount++;
+            return entry;
+        }
+
+        missCount++;
+        return null;
+    }
+
+    /*
+     * Registers a load of the given input, returning the generation it started in.
+     */
+    private synchronized long startLoad(I input) {
+        inFlightLoads.computeIfAbsent(input, key -> new InFlightLoads()).count++;
+        return generation;
+    }
+
+    /*
+     * Caches a loaded entry, unless its input was invalidated after the load started, and unregisters the load.
+     */
+    private synchronized void finishLoad(I input, long loadGeneration, CacheEntry<O> entry) {
+        InFlightLoads loads = inFlightLoads.get(input);
+        boolean invalidated = allInvalidatedGeneration > loadGeneration
+                                  || loads.invalidatedGeneration > loadGeneration;
+        if (--loads.count == 0) {
+            inFlightLoads.remove(input);
+        }
+
+        if (entry != null && !invalidated) {
+            insert(input, entry);
+        }
+    }
+
+    private void insert(I input, CacheEntry<O> entry) {
+        // another caller may have loaded the same input while we were; keep whichever segment it already earned
+        if (protectedSegment.containsKey(input)) {
+            protectedSegment.put(input, entry);
+            return;
+        }
+        probationSegment.put(input, entry);
+        evictOverflow();
+    }
+
+    private void demoteOverflow() {
+        while (protectedSegment.size() > protectedCapacity) {
+            Iterator<Map.Entry<I, CacheEntry<O>>> eldest = protectedSegment.entrySet().iterator();
+            Map.Entry<I, CacheEntry<O>> demoted = eldest.next();
+            eldest.remove();
+            probationSegment.put(demoted.getKey(), demoted.getValue());
+        }
+        evictOverflow();
+    }
+
+    private void evictOverflow() {
+        while (probationSegment.size() > probationCapacity) {
+            Iterator<I> eldest = probationSegment.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    private synchronized void recordLoad(boolean succeeded, long loadTime) {
+        if (succeeded) {
+            loadSuccessCount++;
+        } else {
+            loadExceptionCount++;
+        }
+        totalLoadTime += loadTime;
+    }
+
+    private static final class InFlightLoads {
+        private int count;
+        private long invalidatedGeneration;
+    }
+
+    private static final class CacheEntry<O> {
+        private final O value;
+        private final long expiresAt;
+
+        private CacheEntry(O value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.amazon.ata.deliveringonourpromise.dao;
+
+import com.google.common.base.Ticker;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Remembers, for a short time, keys that were recently looked up and found not to exist, so repeated lookups of
+ * the same missing key can be answered without going back to the dependency.
+ *
+ * Holds at most maximumSize keys, evicting the oldest first. A key is forgotten once its time to live has passed,
+ * or as soon as it is invalidated (e.g. because the record it refers to has been created).
+ *
+ * A lookup runs outside the cache's lock, so a key can be invalidated between the lookup and the miss being
+ * recorded. To keep such a stale miss out, take the cache's generation before looking the key up and pass it to
+ * recordMissing, which drops the miss if the key was invalidated since.
+ *
+ * @param <K> the type of key being remembered
+ */
+public class NegativeLookupCache<K> {
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final Ticker ticker;
+
+    // key -> ticker time at which it expires, oldest first
+    private final LinkedHashMap<K, Long> missingKeys = new LinkedHashMap<>();
+
+    // bumped by every invalidation; key -> the generation it was last invalidated in, for the most recently
+    // invalidated keys, oldest first. Once a key is dropped from there, its generation is folded into
+    // forgottenGeneration, so a miss from before it is still refused, along with any other key's from that far back
+    private final LinkedHashMap<K, Long> invalidatedKeys = new LinkedHashMap<>();
+    private long generation;
+    private long forgottenGeneration;
+
+    /**
+     * Creates a negative cache holding at most maximumSize keys for the given time to live.
+     *
+     * @param maximumSize the most missing keys to remember
+     * @param timeToLive how long a key is remembered as missing
+     */
+    public NegativeLookupCache(int maximumSize, Duration timeToLive) {
+        this(maximumSize, timeToLive, Ticker.systemTicker());
+    }
+
+    /**
+     * Creates a negative cache holding at most maximumSize keys for the given time to live.
+     *
+     * @param maximumSize the most missing keys to remember; 0 disables the cache
+     * @param timeToLive how long a key is remembered as missing
+     * @param ticker time source used to expire keys
+     */
+    public NegativeLookupCache(int maximumSize, Duration timeToLive, Ticker ticker) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize cannot be negative");
+        }
+
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Returns a cache that never remembers anything.
+     *
+     * @param <K> the type of key being remembered
+     * @return a disabled NegativeLookupCache
+     */
+    public static <K> NegativeLookupCache<K> disabled() {
+        return new NegativeLookupCache<>(0, Duration.ZERO);
+    }
+
+    /**
+     * Indicates whether the given key was recently found to be missing.
+     *
+     * @param key the key to check
+     * @return true if the key was recorded as missing and has neither expired nor been invalidated
+     */
+    public synchronized boolean isKnownMissing(K key) {
+        Long expiresAt = missingKeys.get(key);
+        if (null == expiresAt) {
+            return false;
+        }
+        if (ticker.read() - expiresAt >= 0) {
+            missingKeys.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cache's current generation, to pass to recordMissing(key, generation) once a lookup started
+     * after this call finds nothing.
+     *
+     * @return the current generation
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Records that the given key was just looked up and not found. Only use this when the key can't have been
+     * invalidated during the lookup; otherwise use recordMissing(key, generation).
+     *
+     * @param key the missing key
+     */
+    public synchronized void recordMissing(K key) {
+        recordMissing(key, generation);
+    }
+
+    /**
+     * Records that the given key was looked up and not found, unless it has been invalidated since the lookup
+     * started, in which case the miss may predate the record's creation and is dropped.
+     *
+     * @param key the missing key
+     * @param lookupGeneration the generation returned by generation() before the lookup started
+     */
+    public synchronized void recordMissing(K key, long lookupGeneration) {
+        if (0 == maximumSize || null == key) {
+            return;
+        }
+        Long invalidatedGeneration = invalidatedKeys.get(key);
+        if (forgottenGeneration > lookupGeneration
+                || invalidatedGeneration != null && invalidatedGeneration > lookupGeneration) {
+            return;
+        }
+
+        // re-insert so the key moves to the back of the eviction order
+        missingKeys.remove(key);
+        missingKeys.put(key, ticker.read() + timeToLiveNanos);
+
+        Iterator<K> oldest = missingKeys.keySet().iterator();
+        while (missingKeys.size() > maximumSize) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Forgets that the given key was missing, e.g. because the record it refers to has just been created.
+     *
+     * @param key the key that now exists
+     */
+    public synchronized void invalidate(K key) {
+        missingKeys.remove(key);
+        if (0 == maximumSize) {
+            return;
+        }
+
+        generation++;
+        invalidatedKeys.remove(key);
+        invalidatedKeys.put(key, generation);
+
+        Iterator<Long> oldest = invalidatedKeys.values().iterator();
+        while (invalidatedKeys.size() > maximumSize) {
+            forgottenGeneration = Math.max(forgottenGeneration, oldest.next());
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Forgets all keys recorded as missing.
+     */
+    public synchronized void invalidateAll() {
+        missingKeys.clear();
+        generation++;
+        invalidatedKeys.clear();
+        forgottenGeneration = generation;
+    }
+
+    /**
+     * Returns the number of keys currently remembered, including any that have expired but not been removed yet.
+     *
+     * @return the number of remembered keys
+     */
+    public synchronized int size() {
+        return missingKeys.size();
+    }
+}
@@ -16,6 +16,7 @@ import java.util.List;
 public class OrderDao implements ReadOnlyDao<String, Order> {
 
     private OrderManipulationAuthorityClient omaClient;
+    private OrderFieldValidator orderFieldValidator = new OrderFieldValidator();
 
     /**
      * OrderDao constructor.
@@ -35,13 +36,14 @@ public class OrderDao implements ReadOnlyDao<String, Order> {
      */
     @Override
     public Order get(String orderId) {
-        OrderResult omaOrder = omaClient.getCustomerOrderByOrderId(orderId);
-
-        if (null == omaOrder) {
+        // malformed order IDs can't exist, so don't bother asking OMA about them
+        if (! orderFieldValidator.isValidOrderId(orderId)) {
             return null;
         }
 
-        if (! new OrderFieldValidator().isValidOrderId(orderId)) {
+        OrderResult omaOrder = omaClient.getCustomerOrderByOrderId(orderId);
+
+        if (null == omaOrder) {
             return null;
         }
 
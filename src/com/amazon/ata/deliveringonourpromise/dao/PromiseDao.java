@@ -2,20 +2,42 @@ package com.amazon.ata.deliveringonourpromise.dao;
 
 import com.amazon.ata.deliveringonourpromise.deliverypromiseservice.DeliveryPromiseServiceClient;
 import com.amazon.ata.deliveringonourpromise.ordermanipulationauthority.OrderManipulationAuthorityClient;
+import com.amazon.ata.deliveringonourpromise.promiseclient.AsyncPromiseClient;
+import com.amazon.ata.deliveringonourpromise.promiseclient.PromiseClient;
 import com.amazon.ata.deliveringonourpromise.types.Promise;
-import com.amazon.ata.ordermanipulationauthority.OrderResult;
-import com.amazon.ata.ordermanipulationauthority.OrderResultItem;
-import com.amazon.ata.ordermanipulationauthority.OrderShipment;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * DAO implementation for Promises.
+ *
+ * Every registered PromiseSource is asked for its promise through an AsyncPromiseClient on the provided executor,
+ * while OMA is asked for the item's delivery date through its client's async call, so a lookup takes about as long
+ * as the slowest source rather than the sum of all of them. A source that doesn't answer within its own timeout is
+ * abandoned, and one that fails is logged; either way it's left out of the result, so one unhealthy source never
+ * costs the caller the others' promises. OMA gets as long as the most patient source; if it doesn't answer by then,
+ * or fails, that's logged too and the promises are returned without a delivery date.
  */
 public class PromiseDao implements ReadOnlyDao<String, List<Promise>> {
-    private DeliveryPromiseServiceClient dpsClient;
+    private static final Logger LOGGER = Logger.getLogger(PromiseDao.class.getName());
+    private static final Duration DEFAULT_PROMISE_SOURCE_TIMEOUT = Duration.ofSeconds(1);
+
+    private List<PromiseSource> promiseSources;
+    private List<AsyncPromiseClient> asyncPromiseClients;
     private OrderManipulationAuthorityClient omaClient;
 
     /**
@@ -24,58 +46,139 @@ public class PromiseDao implements ReadOnlyDao<String, List<Promise>> {
      * @param omaClient OrderManipulationAuthorityClient for DAO to access OMA
      */
     public PromiseDao(DeliveryPromiseServiceClient dpsClient, OrderManipulationAuthorityClient omaClient) {
-        this.dpsClient = dpsClient;
+        this(Collections.<PromiseClient>singletonList(dpsClient), omaClient);
+    }
+
+    /**
+     * PromiseDao constructor, accepting the promise clients to query and a service client for OMA.
+     * The promise clients are called one after the other on the calling thread.
+     * @param promiseClients the PromiseClients to fetch promises from, in the order their promises are returned
+     * @param omaClient OrderManipulationAuthorityClient for DAO to access OMA
+     */
+    public PromiseDao(List<PromiseClient> promiseClients, OrderManipulationAuthorityClient omaClient) {
+        this(toPromiseSources(promiseClients), omaClient, MoreExecutors.newDirectExecutorService());
+    }
+
+    /**
+     * PromiseDao constructor, querying each of the given promise sources concurrently. A source's lookup holds a
+     * thread of the executor until the source answers or gives up, even once its timeout has passed, so pass an
+     * executor whose threads are cheap to block, such as App's virtual-thread promise lookup executor.
+     * @param promiseSources the PromiseSources to fetch promises from, in the order their promises are returned
+     * @param omaClient OrderManipulationAuthorityClient for DAO to access OMA
+     * @param promiseSourceExecutor executor to run the promise source lookups on
+     */
+    public PromiseDao(List<PromiseSource> promiseSources,
+                      OrderManipulationAuthorityClient omaClient,
+                      ExecutorService promiseSourceExecutor) {
+        if (null == promiseSources || promiseSources.isEmpty()) {
+            throw new IllegalArgumentException("PromiseDao requires at least one promise source");
+        }
+
+        this.promiseSources = new ArrayList<>(promiseSources);
+        this.asyncPromiseClients = new ArrayList<>();
+        for (PromiseSource promiseSource : promiseSources) {
+            asyncPromiseClients.add(new AsyncPromiseClient(promiseSource.getPromiseClient(), promiseSourceExecutor));
+        }
         this.omaClient = omaClient;
     }
 
     /**
-     * Returns a list of all Promises associated with the given order item ID.
+     * Returns a list of all Promises associated with the given order item ID. Promises are listed in the
+     * order their sources were registered; sources that timed out, failed or had no promise are skipped.
      * @param customerOrderItemId the order item ID to fetch promise for
      * @return a List of promises for the given order item ID
      */
     @Override
     public List<Promise> get(String customerOrderItemId) {
-        // Fetch the delivery date, so we can add to any promises that we find
-        ZonedDateTime itemDeliveryDate = getDeliveryDateForOrderItem(customerOrderItemId);
+        long start = System.nanoTime();
+        List<Future<Promise>> lookups = new ArrayList<>();
 
-        List<Promise> promises = new ArrayList<>();
+        try {
+            // Kick off every source before doing anything else, so they all run while we wait on OMA
+            for (AsyncPromiseClient asyncPromiseClient : asyncPromiseClients) {
+                lookups.add(asyncPromiseClient.getPromiseByOrderItemIdAsync(customerOrderItemId));
+            }
 
-        // fetch Promise from Delivery Promise Service. If exists, add to list of Promises to return.
-        // Set delivery date
-        Promise dpsPromise = dpsClient.getDeliveryPromiseByOrderItemId(customerOrderItemId);
-        if (dpsPromise != null) {
-            dpsPromise.setDeliveryDate(itemDeliveryDate);
-            promises.add(dpsPromise);
-        }
+            // Fetch the delivery date alongside them, so we can add it to any promises that we find
+            CompletableFuture<ZonedDateTime> deliveryDateLookup =
+                omaClient.getDeliveryDateByOrderItemIdAsync(customerOrderItemId);
 
-        return promises;
+            List<Promise> promises = new ArrayList<>();
+            long latestDeadline = start;
+            for (int i = 0; i < promiseSources.size(); i++) {
+                long deadline = start + promiseSources.get(i).getTimeout().toNanos();
+                latestDeadline = Math.max(latestDeadline, deadline);
+                Promise promise = awaitLookup(promiseSources.get(i), lookups.get(i), deadline);
+                if (promise != null) {
+                    promises.add(promise);
+                }
+            }
+
+            ZonedDateTime itemDeliveryDate = awaitDeliveryDate(customerOrderItemId, deliveryDateLookup,
+                                                               latestDeadline);
+            for (Promise promise : promises) {
+                promise.setDeliveryDate(itemDeliveryDate);
+            }
+            return promises;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching promises", e);
+        } finally {
+            // abandons any lookup still running; its result is dropped when it finishes
+            for (Future<Promise> lookup : lookups) {
+                lookup.cancel(true);
+            }
+        }
     }
 
     /*
-     * Fetches the delivery date of the shipment containing the order item specified by the given order item ID,
-     * if there is one.
-     *
-     * If the order item ID doesn't correspond to a valid order item, or if the shipment hasn't been delivered
-     * yet, return null.
+     * Waits for a single source's promise until the deadline, returning null if it doesn't arrive in time or the
+     * source failed. A failure is logged rather than thrown, like a timeout, so the other sources' promises are
+     * still returned.
      */
-    private ZonedDateTime getDeliveryDateForOrderItem(String customerOrderItemId) {
-        OrderResultItem orderResultItem = omaClient.getCustomerOrderItemByOrderItemId(customerOrderItemId);
-
-        if (null == orderResultItem) {
+    private Promise awaitLookup(PromiseSource promiseSource, Future<Promise> lookup, long deadline)
+        throws InterruptedException {
+        try {
+            return lookup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.WARNING, "Skipping promise source " + promiseSource.getPromiseClient()
+                                          + ", which failed to look up a promise", e.getCause());
             return null;
         }
+    }
 
-        OrderResult orderResult = omaClient.getCustomerOrderByOrderId(orderResultItem.getOrderId());
+    /*
+     * Waits for OMA's delivery date until the deadline, returning null if it doesn't arrive in time or OMA failed.
+     * Either is logged rather than thrown, so the sources' promises are still returned, just without the date.
+     */
+    private static ZonedDateTime awaitDeliveryDate(String customerOrderItemId,
+                                                   CompletableFuture<ZonedDateTime> deliveryDateLookup,
+                                                   long deadline)
+        throws InterruptedException {
+        try {
+            return deliveryDateLookup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.log(Level.WARNING, "OMA didn't return the delivery date of order item " + customerOrderItemId
+                                          + " in time; returning its promises without one");
+            return null;
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.WARNING, "OMA failed to look up the delivery date of order item " + customerOrderItemId
+                                          + "; returning its promises without one", e.getCause());
+            return null;
+        }
+    }
 
-        for (OrderShipment shipment : orderResult.getOrderShipmentList()) {
-            for (OrderShipment.ShipmentItem shipmentItem : shipment.getCustomerShipmentItems()) {
-                if (shipmentItem.getCustomerOrderItemId().equals(customerOrderItemId)) {
-                    return shipment.getDeliveryDate();
-                }
-            }
+    private static List<PromiseSource> toPromiseSources(List<PromiseClient> promiseClients) {
+        if (null == promiseClients) {
+            throw new IllegalArgumentException("PromiseDao requires at least one promise source");
         }
 
-        // didn't find a delivery date!
-        return null;
+        List<PromiseSource> promiseSources = new ArrayList<>();
+        for (PromiseClient promiseClient : promiseClients) {
+            promiseSources.add(new PromiseSource(promiseClient, DEFAULT_PROMISE_SOURCE_TIMEOUT));
+        }
+        return promiseSources;
     }
 }
@@ -0,0 +1,35 @@
+package com.amazon.ata.deliveringonourpromise.dao;
+
+import com.amazon.ata.deliveringonourpromise.promiseclient.PromiseClient;
+
+import java.time.Duration;
+
+/**
+ * A PromiseClient registered with the PromiseDao, along with how long the DAO will wait for it to answer.
+ */
+public final class PromiseSource {
+    private final PromiseClient promiseClient;
+    private final Duration timeout;
+
+    /**
+     * Registers a promise client with the time the PromiseDao should wait on each of its lookups.
+     *
+     * @param promiseClient the client to fetch promises from
+     * @param timeout how long a single lookup may take before the DAO gives up on this source
+     */
+    public PromiseSource(PromiseClient promiseClient, Duration timeout) {
+        if (null == promiseClient || null == timeout) {
+            throw new IllegalArgumentException("PromiseSource requires a promise client and a timeout");
+        }
+        this.promiseClient = promiseClient;
+        this.timeout = timeout;
+    }
+
+    public PromiseClient getPromiseClient() {
+        return promiseClient;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
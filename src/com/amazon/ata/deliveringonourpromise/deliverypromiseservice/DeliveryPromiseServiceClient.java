@@ -1,22 +1,45 @@
 package com.amazon.ata.deliveringonourpromise.deliverypromiseservice;
 
+import com.amazon.ata.deliveringonourpromise.promiseclient.PromiseClient;
 import com.amazon.ata.deliveringonourpromise.types.Promise;
 import com.amazon.ata.deliverypromiseservice.service.DeliveryPromise;
 import com.amazon.ata.deliverypromiseservice.service.DeliveryPromiseService;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * Client for accessing the DeliveryPromiseService to retrieve Promises.
  */
-public class DeliveryPromiseServiceClient {
+public class DeliveryPromiseServiceClient implements PromiseClient {
     private DeliveryPromiseService dpService;
+    private Executor asyncExecutor;
 
     /**
-     * Create new client that calls DPS with the given service object.
+     * Create new client that calls DPS with the given service object. Async calls run on the calling thread.
      *
      * @param dpService The DeliveryPromiseService that this client will call.
      */
     public DeliveryPromiseServiceClient(DeliveryPromiseService dpService) {
+        this(dpService, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Create new client that calls DPS with the given service object, making async calls on the given executor.
+     * An async call occupies an executor thread until DPS answers, so give it an executor of virtual threads, such
+     * as App's promise lookup executor, rather than a small pool of platform threads.
+     *
+     * @param dpService The DeliveryPromiseService that this client will call.
+     * @param asyncExecutor executor to run the async calls on.
+     */
+    public DeliveryPromiseServiceClient(DeliveryPromiseService dpService, Executor asyncExecutor) {
         this.dpService = dpService;
+        this.asyncExecutor = asyncExecutor;
     }
 
     /**
@@ -32,6 +55,51 @@ public class DeliveryPromiseServiceClient {
             return null;
         }
 
+        return toPromise(deliveryPromise);
+    }
+
+    /**
+     * Fetches the Promise for the given order item ID on this client's async executor.
+     *
+     * @param customerOrderItemId String representing the order item ID to fetch the promise for.
+     * @return a future completed with the Promise for the given order item ID, or null if DPS has none; or
+     *         completed exceptionally if the call fails.
+     */
+    public CompletableFuture<Promise> getDeliveryPromiseByOrderItemIdAsync(String customerOrderItemId) {
+        return CompletableFuture.supplyAsync(() -> getDeliveryPromiseByOrderItemId(customerOrderItemId),
+                                             asyncExecutor);
+    }
+
+    /**
+     * Fetches the Promises for several order item IDs in one call to DPS, which fetches each order once however
+     * many of its items are asked for.
+     *
+     * @param customerOrderItemIds the order item IDs to fetch the promises for.
+     * @return the Promises by order item ID, in the order the IDs were given; IDs with no promise are left out.
+     */
+    public Map<String, Promise> getDeliveryPromisesByOrderItemIds(Collection<String> customerOrderItemIds) {
+        Map<String, DeliveryPromise> deliveryPromises = dpService.getDeliveryPromises(customerOrderItemIds);
+
+        Map<String, Promise> promises = new LinkedHashMap<>();
+        for (Map.Entry<String, DeliveryPromise> entry : deliveryPromises.entrySet()) {
+            promises.put(entry.getKey(), toPromise(entry.getValue()));
+        }
+        return promises;
+    }
+
+    /**
+     * Fetches the Promise for the given order item ID. Same as getDeliveryPromiseByOrderItemId, so that
+     * DPS can be registered with the PromiseDao alongside other promise sources.
+     *
+     * @param customerOrderItemId String representing the order item ID to fetch the promise for.
+     * @return the Promise for the given order item ID.
+     */
+    @Override
+    public Promise getPromiseByOrderItemId(String customerOrderItemId) {
+        return getDeliveryPromiseByOrderItemId(customerOrderItemId);
+    }
+
+    private Promise toPromise(DeliveryPromise deliveryPromise) {
         return Promise.builder()
                    .withPromiseLatestArrivalDate(deliveryPromise.getPromiseLatestArrivalDate())
                    .withCustomerOrderItemId(deliveryPromise.getCustomerOrderItemId())
@@ -0,0 +1,163 @@
+package com.amazon.ata.deliveringonourpromise.dependencysimulator;
+
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Makes calls to an in-process dependency behave like calls to a remote service: each call waits out a latency
+ * drawn from a distribution, some calls fail, some hang until they time out, and only so many calls are served
+ * at once. Benchmarks run against simulated dependencies show what caching, fan-out and hedging are worth when
+ * dependency calls are slow, which they can't show against in-process services that answer in microseconds.
+ *
+ * One simulator stands for one service, so every client of the service should share it.
+ */
+public class DependencySimulator {
+    private String name;
+    private LatencyDistribution latency;
+    private double errorRate;
+    private double timeoutRate;
+    private Duration timeout;
+    private Semaphore concurrentCalls;
+    private Random random;
+
+    private DependencySimulator() {}
+
+    /**
+     * Creates a new builder for a DependencySimulator.
+     * @return new builder ready to build.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Makes the given call as the simulated service would answer it. Waits for a free call slot if the service
+     * is already serving as many calls as it can, then either waits out the call's latency and makes the call, or
+     * fails it.
+     *
+     * @param call the in-process call to the dependency
+     * @param <T> the type the call returns
+     * @return what the call returns
+     * @throws IllegalStateException if the call fails, or the calling thread is interrupted while waiting
+     * @throws UncheckedTimeoutException if the call times out, after waiting out the timeout
+     */
+    public <T> T call(Supplier<T> call) {
+        acquireCallSlot();
+        try {
+            Random callRandom = null == random ? ThreadLocalRandom.current() : random;
+            if (callRandom.nextDouble() < timeoutRate) {
+                sleep(timeout.toNanos());
+                throw new UncheckedTimeoutException(name + " call timed out after " + timeout);
+            }
+
+            sleep(latency.sampleNanos(callRandom));
+            if (callRandom.nextDouble() < errorRate) {
+                throw new IllegalStateException(name + " call failed");
+            }
+            return call.get();
+        } finally {
+            if (concurrentCalls != null) {
+                concurrentCalls.release();
+            }
+        }
+    }
+
+    private void acquireCallSlot() {
+        if (null == concurrentCalls) {
+            return;
+        }
+        try {
+            concurrentCalls.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to call " + name, e);
+        }
+    }
+
+    private void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling " + name, e);
+        }
+    }
+
+    /**
+     * Builder for DependencySimulators. Without any settings, calls take no time and never fail.
+     */
+    public static class Builder {
+        private String name = "dependency";
+        private LatencyDistribution latency = LatencyDistribution.fixed(Duration.ZERO);
+        private double errorRate;
+        private double timeoutRate;
+        private Duration timeout = Duration.ZERO;
+        private int maxConcurrentCalls;
+        private Random random;
+
+        //CHECKSTYLE:OFF:HiddenField
+        //CHECKSTYLE:OFF:JavadocMethod
+        public Builder withName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder withLatency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        public Builder withErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Builder withTimeoutRate(double timeoutRate) {
+            this.timeoutRate = timeoutRate;
+            return this;
+        }
+
+        public Builder withTimeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Builder withMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        public Builder withRandom(Random random) {
+            this.random = random;
+            return this;
+        }
+        //CHECKSTYLE:ON:JavadocMethod
+        //CHECKSTYLE:ON:HiddenField
+
+        /**
+         * build the DependencySimulator from the provided settings. A maximum of zero concurrent calls means no
+         * limit; without a Random, each thread draws from its own.
+         * @return the DependencySimulator
+         */
+        public DependencySimulator build() {
+            DependencySimulator simulator = new DependencySimulator();
+            simulator.name = name;
+            simulator.latency = latency;
+            simulator.errorRate = errorRate;
+            simulator.timeoutRate = timeoutRate;
+            simulator.timeout = timeout;
+            simulator.concurrentCalls = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls, true) : null;
+            simulator.random = random;
+            return simulator;
+        }
+    }
+}
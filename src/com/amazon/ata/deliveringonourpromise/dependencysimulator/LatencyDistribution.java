@@ -0,0 +1,56 @@
+package com.amazon.ata.deliveringonourpromise.dependencysimulator;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * How long a simulated dependency takes to answer a call. Each call draws its latency from the distribution.
+ */
+public interface LatencyDistribution {
+
+    /**
+     * Draws the latency of one call.
+     *
+     * @param random the source of randomness to draw with
+     * @return the latency of the call, in nanoseconds
+     */
+    long sampleNanos(Random random);
+
+    /**
+     * Every call takes the same time.
+     *
+     * @param latency the latency of every call
+     * @return the distribution
+     */
+    static LatencyDistribution fixed(Duration latency) {
+        long latencyNanos = latency.toNanos();
+        return random -> latencyNanos;
+    }
+
+    /**
+     * Latencies are lognormally distributed, as a remote service's usually are: most calls take about the median,
+     * and a long right tail takes several times that.
+     *
+     * @param median the median latency
+     * @param sigma the standard deviation of the latency's logarithm; 0.5 puts the 99th percentile at about three
+     *              times the median
+     * @return the distribution
+     */
+    static LatencyDistribution logNormal(Duration median, double sigma) {
+        long medianNanos = median.toNanos();
+        return random -> (long) (medianNanos * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Most calls draw their latency from one distribution, and a few from a much slower one, like a service whose
+     * calls now and then hit a garbage collection pause or a cold cache.
+     *
+     * @param usual the latency of most calls
+     * @param tail the latency of the slow calls
+     * @param tailProbability the fraction of calls that are slow, between 0 and 1
+     * @return the distribution
+     */
+    static LatencyDistribution bimodal(LatencyDistribution usual, LatencyDistribution tail, double tailProbability) {
+        return random -> random.nextDouble() < tailProbability ? tail.sampleNanos(random) : usual.sampleNanos(random);
+    }
+}
@@ -0,0 +1,36 @@
+package com.amazon.ata.deliveringonourpromise.dependencysimulator;
+
+import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
+import com.amazon.ata.deliverypromiseservice.service.DeliveryPromise;
+import com.amazon.ata.deliverypromiseservice.service.DeliveryPromiseService;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * DeliveryPromiseService whose calls take as long, and fail as often, as a DependencySimulator says.
+ */
+public class SimulatedDeliveryPromiseService extends DeliveryPromiseService {
+    private DependencySimulator simulator;
+
+    /**
+     * Constructs a new simulated DPS, with the given order datastore.
+     *
+     * @param orderDatastore the order datastore to use to fetch order data
+     * @param simulator the simulator to make every call through
+     */
+    public SimulatedDeliveryPromiseService(OrderDatastore orderDatastore, DependencySimulator simulator) {
+        super(orderDatastore);
+        this.simulator = simulator;
+    }
+
+    @Override
+    public DeliveryPromise getDeliveryPromise(String customerOrderItemId) {
+        return simulator.call(() -> super.getDeliveryPromise(customerOrderItemId));
+    }
+
+    @Override
+    public Map<String, DeliveryPromise> getDeliveryPromises(Collection<String> customerOrderItemIds) {
+        return simulator.call(() -> super.getDeliveryPromises(customerOrderItemIds));
+    }
+}
@@ -0,0 +1,41 @@
+package com.amazon.ata.deliveringonourpromise.dependencysimulator;
+
+import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
+import com.amazon.ata.deliverypromiseservice.service.DeliveryPromiseService;
+import com.amazon.ata.orderfulfillmentservice.OrderFulfillmentService;
+import com.amazon.ata.orderfulfillmentservice.OrderPromise;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * OrderFulfillmentService whose calls take as long, and fail as often, as a DependencySimulator says. OFS calls
+ * DPS, so when given a simulated DPS its calls take their own latency plus DPS's.
+ */
+public class SimulatedOrderFulfillmentService extends OrderFulfillmentService {
+    private DependencySimulator simulator;
+
+    /**
+     * Constructs a new simulated OFS, with the given order datastore and DPS.
+     *
+     * @param orderDatastore the order datastore to use to fetch order data
+     * @param deliveryPromiseService reference to the DeliveryPromiseService to fetch promises that can be kept
+     * @param simulator the simulator to make every call through
+     */
+    public SimulatedOrderFulfillmentService(OrderDatastore orderDatastore,
+                                            DeliveryPromiseService deliveryPromiseService,
+                                            DependencySimulator simulator) {
+        super(orderDatastore, deliveryPromiseService);
+        this.simulator = simulator;
+    }
+
+    @Override
+    public OrderPromise getOrderPromise(String customerOrderItemId) {
+        return simulator.call(() -> super.getOrderPromise(customerOrderItemId));
+    }
+
+    @Override
+    public Map<String, OrderPromise> getOrderPromises(Collection<String> customerOrderItemIds) {
+        return simulator.call(() -> super.getOrderPromises(customerOrderItemIds));
+    }
+}
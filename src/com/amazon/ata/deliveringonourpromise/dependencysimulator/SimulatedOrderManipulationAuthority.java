@@ -0,0 +1,88 @@
+package com.amazon.ata.deliveringonourpromise.dependencysimulator;
+
+import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
+import com.amazon.ata.ordermanipulationauthority.OrderManipulationAuthority;
+import com.amazon.ata.ordermanipulationauthority.OrderResult;
+import com.amazon.ata.ordermanipulationauthority.OrderResultItem;
+import com.amazon.ata.ordermanipulationauthority.OrderShipment;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OrderManipulationAuthority whose calls take as long, and fail as often, as a DependencySimulator says.
+ */
+public class SimulatedOrderManipulationAuthority extends OrderManipulationAuthority {
+    private DependencySimulator simulator;
+
+    /**
+     * Constructs a new simulated OMA, with the given order datastore.
+     *
+     * @param orderDatastore the order datastore to use to fetch order data
+     * @param simulator the simulator to make every call through
+     */
+    public SimulatedOrderManipulationAuthority(OrderDatastore orderDatastore, DependencySimulator simulator) {
+        super(orderDatastore);
+        this.simulator = simulator;
+    }
+
+    @Override
+    public OrderResult getCustomerOrderByOrderId(String orderId) {
+        return simulator.call(() -> super.getCustomerOrderByOrderId(orderId));
+    }
+
+    @Override
+    public OrderResultItem getCustomerOrderItemByOrderItemId(String orderItemId) {
+        return simulator.call(() -> super.getCustomerOrderItemByOrderItemId(orderItemId));
+    }
+
+    @Override
+    public ZonedDateTime getDeliveryDateByOrderItemId(String orderItemId) {
+        return simulator.call(() -> super.getDeliveryDateByOrderItemId(orderItemId));
+    }
+
+    @Override
+    public Map<String, OrderResult> getCustomerOrdersByOrderIds(Collection<String> orderIds) {
+        return simulator.call(() -> super.getCustomerOrdersByOrderIds(orderIds));
+    }
+
+    @Override
+    public Map<String, OrderResultItem> getCustomerOrderItemsByOrderItemIds(Collection<String> orderItemIds) {
+        return simulator.call(() -> super.getCustomerOrderItemsByOrderItemIds(orderItemIds));
+    }
+
+    @Override
+    public List<OrderResult> getCustomerOrdersByCustomerId(String customerId, int offset, int limit) {
+        return simulator.call(() -> super.getCustomerOrdersByCustomerId(customerId, offset, limit));
+    }
+
+    @Override
+    public List<OrderResultItem> getCustomerOrderItemsByAsin(String asin, int offset, int limit) {
+        return simulator.call(() -> super.getCustomerOrderItemsByAsin(asin, offset, limit));
+    }
+
+    @Override
+    public List<OrderShipment> getOrderShipmentsByWarehouseId(String warehouseId, int offset, int limit) {
+        return simulator.call(() -> super.getOrderShipmentsByWarehouseId(warehouseId, offset, limit));
+    }
+
+    @Override
+    public List<OrderResult> getCustomerOrdersByOrderDate(ZonedDateTime from, ZonedDateTime to, int offset,
+                                                          int limit) {
+        return simulator.call(() -> super.getCustomerOrdersByOrderDate(from, to, offset, limit));
+    }
+
+    @Override
+    public List<OrderShipment> getOrderShipmentsByShipDate(ZonedDateTime from, ZonedDateTime to, int offset,
+                                                           int limit) {
+        return simulator.call(() -> super.getOrderShipmentsByShipDate(from, to, offset, limit));
+    }
+
+    @Override
+    public List<OrderShipment> getOrderShipmentsByDeliveryDate(ZonedDateTime from, ZonedDateTime to, int offset,
+                                                               int limit) {
+        return simulator.call(() -> super.getOrderShipmentsByDeliveryDate(from, to, offset, limit));
+    }
+}
@@ -0,0 +1,77 @@
+package com.amazon.ata.deliveringonourpromise.dependencysimulator;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Ready-made settings for simulating remote dependencies, from steady to badly behaved. Each profile scales its
+ * latencies to a dependency's typical latency, so one profile fits every dependency.
+ */
+public enum SimulationProfile {
+    /**
+     * Every call takes exactly the typical latency and succeeds.
+     */
+    FIXED {
+        @Override
+        public DependencySimulator.Builder newSimulatorBuilder(Duration typicalLatency) {
+            return DependencySimulator.builder()
+                       .withLatency(LatencyDistribution.fixed(typicalLatency));
+        }
+    },
+    /**
+     * Latencies are lognormal around the typical latency, one call in a thousand fails and another times out, and
+     * the dependency serves up to 64 calls at once.
+     */
+    LOGNORMAL {
+        @Override
+        public DependencySimulator.Builder newSimulatorBuilder(Duration typicalLatency) {
+            return DependencySimulator.builder()
+                       .withLatency(LatencyDistribution.logNormal(typicalLatency, SIGMA))
+                       .withErrorRate(0.001)
+                       .withTimeoutRate(0.001)
+                       .withTimeout(TIMEOUT)
+                       .withMaxConcurrentCalls(64);
+        }
+    },
+    /**
+     * Like LOGNORMAL, but one call in fifty takes twenty times as long, one in a hundred fails, one in two hundred
+     * times out, and the dependency serves only 32 calls at once: the slow tail that hedged requests are for.
+     */
+    TAIL {
+        @Override
+        public DependencySimulator.Builder newSimulatorBuilder(Duration typicalLatency) {
+            LatencyDistribution usual = LatencyDistribution.logNormal(typicalLatency, SIGMA);
+            LatencyDistribution tail = LatencyDistribution.logNormal(typicalLatency.multipliedBy(20), SIGMA);
+            return DependencySimulator.builder()
+                       .withLatency(LatencyDistribution.bimodal(usual, tail, 0.02))
+                       .withErrorRate(0.01)
+                       .withTimeoutRate(0.005)
+                       .withTimeout(TIMEOUT)
+                       .withMaxConcurrentCalls(32);
+        }
+    };
+
+    // how long calls that time out hang before failing, and how widely lognormal latencies spread
+    public static final Duration TIMEOUT = Duration.ofSeconds(1);
+    public static final double SIGMA = 0.5;
+
+    /**
+     * Starts a simulator for a dependency with the given typical latency, with this profile's settings. The
+     * caller names it, and may change any of the settings, before building it.
+     *
+     * @param typicalLatency the dependency's median latency
+     * @return a builder with this profile's settings
+     */
+    public abstract DependencySimulator.Builder newSimulatorBuilder(Duration typicalLatency);
+
+    /**
+     * Finds the profile with the given name, ignoring case.
+     *
+     * @param name the profile's name, such as "lognormal"
+     * @return the profile with that name
+     * @throws IllegalArgumentException if there's no profile with that name
+     */
+    public static SimulationProfile fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -4,18 +4,39 @@ import com.amazon.ata.ordermanipulationauthority.OrderManipulationAuthority;
 import com.amazon.ata.ordermanipulationauthority.OrderResult;
 import com.amazon.ata.ordermanipulationauthority.OrderResultItem;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * Client for accessing the OrderManipulationAuthority service.
  */
 public class OrderManipulationAuthorityClient {
     private OrderManipulationAuthority omaService;
+    private Executor asyncExecutor;
 
     /**
-     * Create new client that calls OMA with the given service object.
+     * Create new client that calls OMA with the given service object. Async calls run on the calling thread.
      * @param service The OrderManipulationAuthority that this client will call
      */
     public OrderManipulationAuthorityClient(OrderManipulationAuthority service) {
+        this(service, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Create new client that calls OMA with the given service object, making async calls on the given executor.
+     * Each async call blocks one of the executor's threads for as long as OMA takes, so this is meant for an
+     * executor of virtual threads, like App's promise lookup executor.
+     * @param service The OrderManipulationAuthority that this client will call
+     * @param asyncExecutor executor to run the async calls on
+     */
+    public OrderManipulationAuthorityClient(OrderManipulationAuthority service, Executor asyncExecutor) {
         this.omaService = service;
+        this.asyncExecutor = asyncExecutor;
     }
 
     /**
@@ -27,6 +48,16 @@ public class OrderManipulationAuthorityClient {
         return omaService.getCustomerOrderByOrderId(orderId);
     }
 
+    /**
+     * Fetches the Order for the given order ID on this client's async executor.
+     * @param orderId String representing the order ID to fetch the order for.
+     * @return a future completed with the Order for the given order ID if found, or null otherwise; or completed
+     *         exceptionally if the call fails
+     */
+    public CompletableFuture<OrderResult> getCustomerOrderByOrderIdAsync(String orderId) {
+        return CompletableFuture.supplyAsync(() -> getCustomerOrderByOrderId(orderId), asyncExecutor);
+    }
+
     /**
      * Fetches the OrderItem for the given order item ID, if it exists.
      * @param orderItemId the order item ID to fetch the order item ID for
@@ -35,4 +66,41 @@ public class OrderManipulationAuthorityClient {
     public OrderResultItem getCustomerOrderItemByOrderItemId(String orderItemId) {
         return omaService.getCustomerOrderItemByOrderItemId(orderItemId);
     }
+
+    /**
+     * Fetches the delivery date of the shipment containing the given order item, if it has been delivered.
+     * @param orderItemId the order item ID to fetch the delivery date for
+     * @return the delivery date for the given order item ID if delivered; or null, otherwise
+     */
+    public ZonedDateTime getDeliveryDateByOrderItemId(String orderItemId) {
+        return omaService.getDeliveryDateByOrderItemId(orderItemId);
+    }
+
+    /**
+     * Fetches the delivery date of the shipment containing the given order item on this client's async executor.
+     * @param orderItemId the order item ID to fetch the delivery date for
+     * @return a future completed with the delivery date for the given order item ID if delivered, or null
+     *         otherwise; or completed exceptionally if the call fails
+     */
+    public CompletableFuture<ZonedDateTime> getDeliveryDateByOrderItemIdAsync(String orderItemId) {
+        return CompletableFuture.supplyAsync(() -> getDeliveryDateByOrderItemId(orderItemId), asyncExecutor);
+    }
+
+    /**
+     * Fetches the Orders for the given order IDs in a single call.
+     * @param orderIds the order IDs to fetch orders for
+     * @return Map from order ID to Order; order IDs with no corresponding Order are omitted
+     */
+    public Map<String, OrderResult> getCustomerOrdersByOrderIds(Collection<String> orderIds) {
+        return omaService.getCustomerOrdersByOrderIds(orderIds);
+    }
+
+    /**
+     * Fetches the OrderItems for the given order item IDs in a single call.
+     * @param orderItemIds the order item IDs to fetch order items for
+     * @return Map from order item ID to OrderItem; order item IDs with no corresponding OrderItem are omitted
+     */
+    public Map<String, OrderResultItem> getCustomerOrderItemsByOrderItemIds(Collection<String> orderItemIds) {
+        return omaService.getCustomerOrderItemsByOrderItemIds(orderItemIds);
+    }
 }
@@ -0,0 +1,43 @@
+package com.amazon.ata.deliveringonourpromise.promiseclient;
+
+import com.amazon.ata.deliveringonourpromise.types.Promise;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Makes the calls of a PromiseClient asynchronously, on a given executor. Lets callers start a lookup with any
+ * promise-providing service (the OFS client, for one) and compose the result with other calls; PromiseDao starts
+ * every source's lookup this way.
+ *
+ * The wrapped client still blocks: each call holds one of the executor's threads until the service answers. The
+ * caller's thread is only freed up if the executor's threads are cheap to block, as the virtual threads of App's
+ * promise lookup executor are; on a direct executor the call runs on the caller's thread before returning.
+ */
+public class AsyncPromiseClient {
+    private PromiseClient promiseClient;
+    private Executor executor;
+
+    /**
+     * Create new async client that calls the given PromiseClient on the given executor.
+     *
+     * @param promiseClient the PromiseClient to call
+     * @param executor executor to run the calls on
+     */
+    public AsyncPromiseClient(PromiseClient promiseClient, Executor executor) {
+        this.promiseClient = promiseClient;
+        this.executor = executor;
+    }
+
+    /**
+     * Fetches the wrapped client's Promise for the given order item ID on this client's executor.
+     *
+     * @param customerOrderItemId String representing the order item ID to fetch the promise for
+     * @return a future completed with the Promise for the given order item ID, or null if the service has no
+     *         promise for it; or completed exceptionally if the call fails
+     */
+    public CompletableFuture<Promise> getPromiseByOrderItemIdAsync(String customerOrderItemId) {
+        return CompletableFuture.supplyAsync(() -> promiseClient.getPromiseByOrderItemId(customerOrderItemId),
+                                             executor);
+    }
+}
@@ -0,0 +1,18 @@
+package com.amazon.ata.deliveringonourpromise.promiseclient;
+
+import com.amazon.ata.deliveringonourpromise.types.Promise;
+
+/**
+ * A service client that can provide the Promise made for a customer order item. Each promise-providing
+ * service (DPS, OFS, ...) has a client implementing this interface, so the PromiseDao can treat them alike.
+ */
+public interface PromiseClient {
+
+    /**
+     * Fetches this service's Promise for the given order item ID.
+     *
+     * @param customerOrderItemId String representing the order item ID to fetch the promise for
+     * @return the Promise for the given order item ID, or null if this service has no promise for it
+     */
+    Promise getPromiseByOrderItemId(String customerOrderItemId);
+}
@@ -1,6 +1,8 @@
 package com.amazon.ata.deliveringonourpromise.promisehistoryservice;
 
 import com.amazon.ata.deliveringonourpromise.activity.GetPromiseHistoryByOrderIdActivity;
+import com.amazon.ata.deliveringonourpromise.dao.NegativeLookupCache;
+import com.amazon.ata.deliveringonourpromise.types.Promise;
 import com.amazon.ata.deliveringonourpromise.types.PromiseHistory;
 
 /**
@@ -10,6 +12,8 @@ import com.amazon.ata.deliveringonourpromise.types.PromiseHistory;
 public class PromiseHistoryClient {
 
     private GetPromiseHistoryByOrderIdActivity getPromiseHistoryByOrderIdActivity;
+    private NegativeLookupCache<String> missingOrderIds;
+    private SingleFlight<String, PromiseHistory> inFlightRequests;
 
     /**
      * Constructs a PromiseHistoryClient that will provide access the activity/ies needed
@@ -19,7 +23,39 @@ public class PromiseHistoryClient {
      *                                           handling GetPromiseHistoryByOrderId API
      */
     public PromiseHistoryClient(GetPromiseHistoryByOrderIdActivity getPromiseHistoryByOrderIdActivity) {
+        this(getPromiseHistoryByOrderIdActivity, NegativeLookupCache.disabled());
+    }
+
+    /**
+     * Constructs a PromiseHistoryClient that remembers order IDs it recently failed to find, answering repeated
+     * requests for them without calling the activity again. Whoever creates orders must invalidate their IDs in
+     * the cache, as App does whenever an order in its datastore changes.
+     *
+     * @param getPromiseHistoryByOrderIdActivity the activity for
+     *                                           handling GetPromiseHistoryByOrderId API
+     * @param missingOrderIds negative cache of order IDs that were recently not found
+     */
+    public PromiseHistoryClient(GetPromiseHistoryByOrderIdActivity getPromiseHistoryByOrderIdActivity,
+                                NegativeLookupCache<String> missingOrderIds) {
+        this(getPromiseHistoryByOrderIdActivity, missingOrderIds, new SingleFlight<>());
+    }
+
+    /**
+     * Constructs a PromiseHistoryClient that coalesces its requests with those of every other client sharing
+     * inFlightRequests, as App's clients do, so concurrent requests for the same order ID share one lookup even
+     * when they come through different clients.
+     *
+     * @param getPromiseHistoryByOrderIdActivity the activity for
+     *                                           handling GetPromiseHistoryByOrderId API
+     * @param missingOrderIds negative cache of order IDs that were recently not found
+     * @param inFlightRequests the requests in flight, shared with the other clients to coalesce with
+     */
+    public PromiseHistoryClient(GetPromiseHistoryByOrderIdActivity getPromiseHistoryByOrderIdActivity,
+                                NegativeLookupCache<String> missingOrderIds,
+                                SingleFlight<String, PromiseHistory> inFlightRequests) {
         this.getPromiseHistoryByOrderIdActivity = getPromiseHistoryByOrderIdActivity;
+        this.missingOrderIds = missingOrderIds;
+        this.inFlightRequests = inFlightRequests;
     }
 
     /**
@@ -28,11 +64,41 @@ public class PromiseHistoryClient {
      * Order info, but the history will be empty. When the order is not found,
      * the Promise history will contain a null order and no history.
      *
+     * Concurrent requests for the same order ID are coalesced into one lookup. Each caller gets its own
+     * PromiseHistory, so adding promises to it doesn't affect the others, but the Order and Promises in it are
+     * shared with them and shouldn't be changed.
+     *
      * @param orderId The order ID to retrieve the history for.
      * @return PromiseHistory for the order; may be empty if order not found
      *         or if no history is found.
      */
     public PromiseHistory getPromiseHistoryByOrderId(String orderId) {
-        return getPromiseHistoryByOrderIdActivity.getPromiseHistoryByOrderId(orderId);
+        if (missingOrderIds.isKnownMissing(orderId)) {
+            return new PromiseHistory(null);
+        }
+
+        // callers asking for the same order at the same time share one lookup, which records any miss itself
+        return copyOf(inFlightRequests.execute(orderId, this::lookUpPromiseHistory));
+    }
+
+    /*
+     * Calls the activity, remembering the order ID as missing if it isn't found, unless the ID was invalidated
+     * while the activity ran (e.g. because the order was just added), since the miss could predate the order.
+     */
+    private PromiseHistory lookUpPromiseHistory(String orderId) {
+        long generation = missingOrderIds.generation();
+        PromiseHistory history = getPromiseHistoryByOrderIdActivity.getPromiseHistoryByOrderId(orderId);
+        if (null == history.getOrder()) {
+            missingOrderIds.recordMissing(orderId, generation);
+        }
+        return history;
+    }
+
+    private static PromiseHistory copyOf(PromiseHistory history) {
+        PromiseHistory copy = new PromiseHistory(history.getOrder());
+        for (Promise promise : history.getPromises()) {
+            copy.addPromise(promise);
+        }
+        return copy;
     }
 }
@@ -0,0 +1,74 @@
+package com.amazon.ata.deliveringonourpromise.promisehistoryservice;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent calls for the same key into a single computation. The first caller for a key runs the
+ * computation on its own thread; any caller asking for the same key while that is still running waits for it
+ * and receives the same result (or exception). Once the computation finishes the key is forgotten, so results
+ * are never cached beyond the calls that overlapped with it.
+ *
+ * @param <K> the type of key calls are coalesced on
+ * @param <V> the type of value the computation produces
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the result of computing the given key, sharing the computation with any concurrent caller for the
+     * same key. A null key is never coalesced.
+     *
+     * @param key the key to compute a value for
+     * @param computation computes the value for a key; run at most once per group of overlapping callers
+     * @return the computed value
+     */
+    public V execute(K key, Function<K, V> computation) {
+        if (null == key) {
+            return computation.apply(key);
+        }
+
+        CompletableFuture<V> ours = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, ours);
+        if (leader != null) {
+            return await(leader);
+        }
+
+        try {
+            V value = computation.apply(key);
+            ours.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            ours.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ours);
+        }
+    }
+
+    /**
+     * Returns the number of keys currently being computed.
+     *
+     * @return the number of in-flight computations
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
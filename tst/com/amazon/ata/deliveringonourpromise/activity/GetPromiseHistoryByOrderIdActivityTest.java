@@ -3,14 +3,25 @@ package com.amazon.ata.deliveringonourpromise.activity;
 import com.amazon.ata.deliveringonourpromise.App;
 import com.amazon.ata.deliveringonourpromise.dao.ReadOnlyDao;
 import com.amazon.ata.deliveringonourpromise.types.Order;
+import com.amazon.ata.deliveringonourpromise.types.OrderItem;
 import com.amazon.ata.deliveringonourpromise.types.Promise;
 import com.amazon.ata.deliveringonourpromise.types.PromiseHistory;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -64,4 +75,141 @@ public class GetPromiseHistoryByOrderIdActivityTest {
                    )
         );
     }
+
+    @Test
+    public void getPromiseHistoryByOrderId_nonexistentOrder_returnsHistoryWithNullOrder() {
+        // GIVEN - a valid order ID with no order behind it
+        String orderId = "900-0000000-0000000";
+
+        // WHEN
+        PromiseHistory history = activity.getPromiseHistoryByOrderId(orderId);
+
+        // THEN
+        assertNull(history.getOrder());
+        assertTrue(history.getPromises().isEmpty());
+    }
+
+    @Test
+    public void getPromiseHistoryByOrderId_multipleItemOrder_returnsPromisesForEveryItemInItemOrder() {
+        // GIVEN - a three item order
+        String orderId = "900-3746403-0000001";
+        List<String> orderItemIds = orderDao.get(orderId).getCustomerOrderItemList().stream()
+                                        .map(OrderItem::getCustomerOrderItemId)
+                                        .collect(Collectors.toList());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        activity = new GetPromiseHistoryByOrderIdActivity(orderDao, promiseDao, executor, 4, Duration.ofSeconds(5));
+
+        try {
+            // WHEN
+            PromiseHistory history = activity.getPromiseHistoryByOrderId(orderId);
+
+            // THEN
+            List<String> promiseOrderItemIds = history.getPromises().stream()
+                                                   .map(Promise::getCustomerOrderItemId)
+                                                   .distinct()
+                                                   .collect(Collectors.toList());
+            assertEquals(orderItemIds, promiseOrderItemIds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getPromiseHistoryByOrderId_maxConcurrentPromiseLookups_isNeverExceeded() {
+        // GIVEN - a ten item order and a promise DAO that records how many calls overlap
+        Order order = orderWithItems("1", "2", "3", "4", "5", "6", "7", "8", "9", "10");
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ReadOnlyDao<String, List<Promise>> countingPromiseDao = orderItemId -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(20);
+            inFlight.decrementAndGet();
+            return Collections.singletonList(Promise.builder().withCustomerOrderItemId(orderItemId).build());
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        activity = new GetPromiseHistoryByOrderIdActivity(orderId -> order, countingPromiseDao, executor, 3,
+                                                          Duration.ofSeconds(5));
+
+        try {
+            // WHEN
+            PromiseHistory history = activity.getPromiseHistoryByOrderId("111-7497023-2960775");
+
+            // THEN
+            assertEquals(10, history.getPromises().size());
+            assertTrue(maxInFlight.get() <= 3,
+                       String.format("Expected at most 3 concurrent promise lookups, but saw %d", maxInFlight.get()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getPromiseHistoryByOrderId_slowPromiseLookup_returnsPromisesFetchedBeforeTimeout() {
+        // GIVEN - an order where one item's promise lookup never finishes in time
+        Order order = orderWithItems("fast1", "slow", "fast2");
+        ReadOnlyDao<String, List<Promise>> slowPromiseDao = orderItemId -> {
+            if ("slow".equals(orderItemId)) {
+                sleep(10_000);
+            }
+            return Collections.singletonList(Promise.builder().withCustomerOrderItemId(orderItemId).build());
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        activity = new GetPromiseHistoryByOrderIdActivity(orderId -> order, slowPromiseDao, executor, 3,
+                                                          Duration.ofMillis(200));
+
+        try {
+            // WHEN
+            PromiseHistory history = activity.getPromiseHistoryByOrderId("111-7497023-2960775");
+
+            // THEN
+            List<String> promiseOrderItemIds = history.getPromises().stream()
+                                                   .map(Promise::getCustomerOrderItemId)
+                                                   .collect(Collectors.toList());
+            assertEquals(Arrays.asList("fast1", "fast2"), promiseOrderItemIds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getPromiseHistoryByOrderId_sharedPromises_areNotModified() {
+        // GIVEN - a promise DAO that returns the same promise every time, as a cache would, and an order whose item
+        // has a tracked confidence
+        Promise sharedPromise = Promise.builder().withCustomerOrderItemId("1").withPromiseProvidedBy("DPS").build();
+        List<Promise> sharedPromises = Collections.singletonList(sharedPromise);
+        Order order = Order.builder()
+                          .withOrderId("111-7497023-2960775")
+                          .withCustomerOrderItemList(Collections.singletonList(
+                              OrderItem.builder()
+                                  .withCustomerOrderItemId("1")
+                                  .withIsConfidenceTracked(true)
+                                  .withConfidence(75)
+                                  .build()))
+                          .build();
+        activity = new GetPromiseHistoryByOrderIdActivity(orderId -> order, orderItemId -> sharedPromises);
+
+        // WHEN
+        PromiseHistory history = activity.getPromiseHistoryByOrderId("111-7497023-2960775");
+
+        // THEN
+        assertEquals(75, history.getPromises().get(0).getConfidence());
+        assertEquals("DPS", history.getPromises().get(0).getPromiseProvidedBy());
+        assertEquals(0, sharedPromise.getConfidence());
+    }
+
+    private Order orderWithItems(String... orderItemIds) {
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (String orderItemId : orderItemIds) {
+            orderItems.add(OrderItem.builder().withCustomerOrderItemId(orderItemId).build());
+        }
+        return Order.builder().withOrderId("111-7497023-2960775").withCustomerOrderItemList(orderItems).build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
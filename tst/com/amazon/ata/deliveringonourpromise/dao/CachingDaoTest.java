@@ -0,0 +1,203 @@
+package com.amazon.ata.deliveringonourpromise.dao;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingDaoTest {
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private ReadOnlyDao<String, String> delegate;
+    private AtomicLong nanos;
+    private Ticker ticker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    private void setup() {
+        delegate = mock(ReadOnlyDao.class);
+        when(delegate.get("A")).thenReturn("a");
+        when(delegate.get("B")).thenReturn("b");
+        when(delegate.get("C")).thenReturn("c");
+        when(delegate.get("D")).thenReturn("d");
+        when(delegate.get("E")).thenReturn("e");
+        when(delegate.get("F")).thenReturn("f");
+
+        nanos = new AtomicLong();
+        ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+    }
+
+    @Test
+    public void get_repeatedInput_loadsFromDelegateOnce() {
+        // GIVEN
+        CachingDao<String, String> cache = new CachingDao<>(delegate, 10, value -> TTL, ticker);
+
+        // WHEN
+        cache.get("A");
+        String result = cache.get("A");
+
+        // THEN
+        assertEquals("a", result);
+        verify(delegate, times(1)).get("A");
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test
+    public void get_delegateReturnsNull_doesNotCacheNull() {
+        // GIVEN
+        CachingDao<String, String> cache = new CachingDao<>(delegate, 10, value -> TTL, ticker);
+
+        // WHEN
+        cache.get("missing");
+        String result = cache.get("missing");
+
+        // THEN
+        assertNull(result);
+        verify(delegate, times(2)).get("missing");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void get_entryOlderThanTimeToLive_reloadsFromDelegate() {
+        // GIVEN
+        CachingDao<String, String> cache = new CachingDao<>(delegate, 10, value -> TTL, ticker);
+        cache.get("A");
+
+        // WHEN
+        nanos.addAndGet(TTL.toNanos());
+        cache.get("A");
+
+        // THEN
+        verify(delegate, times(2)).get("A");
+        assertEquals(1, cache.stats().evictionCount());
+    }
+
+    @Test
+    public void get_perEntryTimeToLive_expiresEachEntryOnItsOwnSchedule() {
+        // GIVEN - "a" lives for 1 second, everything else for 30
+        CachingDao<String, String> cache = new CachingDao<>(delegate, 10,
+            value -> "a".equals(value) ? Duration.ofSeconds(1) : TTL, ticker);
+        cache.get("A");
+        cache.get("B");
+
+        // WHEN
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        cache.get("A");
+        cache.get("B");
+
+        // THEN
+        verify(delegate, times(2)).get("A");
+        verify(delegate, times(1)).get("B");
+    }
+
+    @Test
+    public void get_moreInputsThanMaximumSize_evictsDownToMaximumSize() {
+        // GIVEN
+        CachingDao<String, String> cache = new CachingDao<>(delegate, 5, value -> TTL, ticker);
+
+        // WHEN
+        for (String input : new String[] {"A", "B", "C", "D", "E", "F"}) {
+            cache.get(input);
+        }
+
+        // THEN
+        assertEquals(1, cache.size());
+        assertEquals(5, cache.stats().evictionCount());
+    }
+
+    @Test
+    public void get_frequentlyReadInput_survivesScanOfOneOffInputs() {
+        // GIVEN - "A" has been read twice, so it has been promoted out of probation
+        CachingDao<String, String> cache = new CachingDao<>(delegate, 5, value -> TTL, ticker);
+        cache.get("A");
+        cache.get("A");
+
+        // WHEN
+        for (String input : new String[] {"B", "C", "D", "E", "F"}) {
+            cache.get(input);
+        }
+        cache.get("A");
+
+        // THEN
+        verify(delegate, times(1)).get("A");
+    }
+
+    @Test
+    public void invalidate_cachedInput_reloadsFromDelegate() {
+        // GIVEN
+        CachingDao<String, String> cache = new CachingDao<>(delegate, 10, value -> TTL, ticker);
+        cache.get("A");
+
+        // WHEN
+        cache.invalidate("A");
+        cache.get("A");
+
+        // THEN
+        verify(delegate, times(2)).get("A");
+    }
+
+    @Test
+    public void invalidate_duringLoad_loadedValueIsNotCached() {
+        // GIVEN - a delegate whose first load is overtaken by an invalidation of the same input
+        AtomicReference<CachingDao<String, String>> cacheHolder = new AtomicReference<>();
+        AtomicInteger loads = new AtomicInteger();
+        ReadOnlyDao<String, String> invalidatedDelegate = input -> {
+            int load = loads.incrementAndGet();
+            if (1 == load) {
+                cacheHolder.get().invalidate(input);
+            }
+            return "load " + load;
+        };
+        CachingDao<String, String> cache = new CachingDao<>(invalidatedDelegate, 10, value -> TTL, ticker);
+        cacheHolder.set(cache);
+
+        // WHEN
+        String stale = cache.get("A");
+        String reloaded = cache.get("A");
+        String cached = cache.get("A");
+
+        // THEN
+        assertEquals("load 1", stale);
+        assertEquals("load 2", reloaded);
+        assertEquals("load 2", cached);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void get_delegateThrows_recordsLoadException() {
+        // GIVEN
+        when(delegate.get("bad")).thenThrow(new IllegalStateException("bad input"));
+        CachingDao<String, String> cache = new CachingDao<>(delegate, 10, value -> TTL, ticker);
+
+        // WHEN + THEN
+        assertThrows(IllegalStateException.class, () -> cache.get("bad"));
+        assertEquals(1, cache.stats().loadExceptionCount());
+    }
+
+    @Test
+    public void constructor_maximumSizeZero_throwsIllegalArgumentException() {
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class, () -> new CachingDao<>(delegate, 0, TTL));
+    }
+}
@@ -0,0 +1,121 @@
+package com.amazon.ata.deliveringonourpromise.dao;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NegativeLookupCacheTest {
+    private static final Duration TTL = Duration.ofSeconds(10);
+
+    private AtomicLong nanos;
+    private NegativeLookupCache<String> cache;
+
+    @BeforeEach
+    private void setup() {
+        nanos = new AtomicLong();
+        cache = new NegativeLookupCache<>(2, TTL, new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+    }
+
+    @Test
+    public void isKnownMissing_recordedKey_returnsTrue() {
+        // GIVEN
+        cache.recordMissing("111-7497023-2960776");
+
+        // WHEN + THEN
+        assertTrue(cache.isKnownMissing("111-7497023-2960776"));
+        assertFalse(cache.isKnownMissing("111-7497023-2960777"));
+    }
+
+    @Test
+    public void isKnownMissing_afterTimeToLive_returnsFalse() {
+        // GIVEN
+        cache.recordMissing("123");
+
+        // WHEN
+        nanos.addAndGet(TTL.toNanos());
+
+        // THEN
+        assertFalse(cache.isKnownMissing("123"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void isKnownMissing_afterInvalidate_returnsFalse() {
+        // GIVEN
+        cache.recordMissing("123");
+
+        // WHEN
+        cache.invalidate("123");
+
+        // THEN
+        assertFalse(cache.isKnownMissing("123"));
+    }
+
+    @Test
+    public void recordMissing_keyInvalidatedSinceLookupStarted_isNotRecorded() {
+        // GIVEN
+        long generation = cache.generation();
+        cache.invalidate("123");
+
+        // WHEN
+        cache.recordMissing("123", generation);
+        cache.recordMissing("456", generation);
+
+        // THEN
+        assertFalse(cache.isKnownMissing("123"));
+        assertTrue(cache.isKnownMissing("456"));
+    }
+
+    @Test
+    public void recordMissing_allInvalidatedSinceLookupStarted_isNotRecorded() {
+        // GIVEN
+        long generation = cache.generation();
+        cache.invalidateAll();
+
+        // WHEN
+        cache.recordMissing("123", generation);
+
+        // THEN
+        assertFalse(cache.isKnownMissing("123"));
+    }
+
+    @Test
+    public void recordMissing_moreKeysThanMaximumSize_forgetsOldestKey() {
+        // GIVEN
+        cache.recordMissing("1");
+        cache.recordMissing("2");
+
+        // WHEN
+        cache.recordMissing("3");
+
+        // THEN
+        assertEquals(2, cache.size());
+        assertFalse(cache.isKnownMissing("1"));
+        assertTrue(cache.isKnownMissing("2"));
+        assertTrue(cache.isKnownMissing("3"));
+    }
+
+    @Test
+    public void recordMissing_disabledCache_remembersNothing() {
+        // GIVEN
+        NegativeLookupCache<String> disabled = NegativeLookupCache.disabled();
+
+        // WHEN
+        disabled.recordMissing("123");
+
+        // THEN
+        assertFalse(disabled.isKnownMissing("123"));
+    }
+}
@@ -2,19 +2,29 @@ package com.amazon.ata.deliveringonourpromise.dao;
 
 import com.amazon.ata.deliveringonourpromise.App;
 import com.amazon.ata.deliveringonourpromise.deliverypromiseservice.DeliveryPromiseServiceClient;
+import com.amazon.ata.deliveringonourpromise.orderfulfillmentservice.OrderFulfillmentServiceClient;
 import com.amazon.ata.deliveringonourpromise.ordermanipulationauthority.OrderManipulationAuthorityClient;
+import com.amazon.ata.deliveringonourpromise.promiseclient.PromiseClient;
 import com.amazon.ata.deliveringonourpromise.types.Promise;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class PromiseDaoTest {
 
@@ -22,6 +32,7 @@ public class PromiseDaoTest {
 
     private OrderManipulationAuthorityClient omaClient = App.getOrderManipulationAuthorityClient();
     private DeliveryPromiseServiceClient dpsClient = App.getDeliveryPromiseServiceClient();
+    private OrderFulfillmentServiceClient ofsClient = App.getOrderFulfillmentServiceClient();
 
     // undelivered
     private String shippedOrderId;
@@ -195,6 +206,117 @@ public class PromiseDaoTest {
         assertNull(dpsPromise.getDeliveryDate());
     }
 
+    @Test
+    public void get_multiplePromiseClients_returnsPromiseFromEachClient() {
+        // GIVEN - a DAO querying both DPS and OFS, for an order that both have a promise for
+        dao = new PromiseDao(Arrays.asList(dpsClient, ofsClient), omaClient);
+
+        // WHEN
+        List<Promise> promises = dao.get(shippedOrderItemId);
+
+        // THEN
+        assertEquals(2, promises.size());
+        assertEquals("DPS", promises.get(0).getPromiseProvidedBy());
+        assertEquals("OFS", promises.get(1).getPromiseProvidedBy());
+    }
+
+    @Test
+    public void get_slowPromiseSource_returnsPromisesFromOtherSources() {
+        // GIVEN - an OFS source that never answers within its timeout
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        PromiseClient slowClient = customerOrderItemId -> {
+            try {
+                neverReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ofsClient.getPromiseByOrderItemId(customerOrderItemId);
+        };
+        ExecutorService executor = Executors.newCachedThreadPool();
+        dao = new PromiseDao(Arrays.asList(new PromiseSource(dpsClient, Duration.ofSeconds(5)),
+                                           new PromiseSource(slowClient, Duration.ofMillis(50))),
+                             omaClient,
+                             executor
+        );
+
+        try {
+            // WHEN
+            List<Promise> promises = dao.get(shippedOrderItemId);
+
+            // THEN
+            assertEquals(1, promises.size());
+            assertNotNull(findPromiseFromSource(promises, "DPS"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void get_failingPromiseSource_returnsPromisesFromOtherSources() {
+        // GIVEN - an OFS source that throws instead of answering
+        PromiseClient failingClient = customerOrderItemId -> {
+            throw new IllegalStateException("OFS is unavailable");
+        };
+        ExecutorService executor = Executors.newCachedThreadPool();
+        dao = new PromiseDao(Arrays.asList(new PromiseSource(dpsClient, Duration.ofSeconds(5)),
+                                           new PromiseSource(failingClient, Duration.ofSeconds(5))),
+                             omaClient,
+                             executor
+        );
+
+        try {
+            // WHEN
+            List<Promise> promises = dao.get(shippedOrderItemId);
+
+            // THEN
+            assertEquals(1, promises.size());
+            assertNotNull(findPromiseFromSource(promises, "DPS"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void get_failingDeliveryDateLookup_returnsPromisesWithoutDeliveryDate() {
+        // GIVEN - an OMA whose delivery date lookup fails
+        CompletableFuture<ZonedDateTime> failedLookup = new CompletableFuture<>();
+        failedLookup.completeExceptionally(new IllegalStateException("OMA is unavailable"));
+        OrderManipulationAuthorityClient failingOmaClient = mock(OrderManipulationAuthorityClient.class);
+        when(failingOmaClient.getDeliveryDateByOrderItemIdAsync(deliveredOrderItemId)).thenReturn(failedLookup);
+        dao = new PromiseDao(dpsClient, failingOmaClient);
+
+        // WHEN
+        List<Promise> promises = dao.get(deliveredOrderItemId);
+
+        // THEN
+        assertEquals(1, promises.size());
+        assertNull(promises.get(0).getDeliveryDate());
+    }
+
+    @Test
+    public void get_slowDeliveryDateLookup_returnsPromisesWithoutDeliveryDate() {
+        // GIVEN - an OMA whose delivery date lookup never finishes, and a source with a short timeout
+        OrderManipulationAuthorityClient slowOmaClient = mock(OrderManipulationAuthorityClient.class);
+        when(slowOmaClient.getDeliveryDateByOrderItemIdAsync(deliveredOrderItemId))
+            .thenReturn(new CompletableFuture<>());
+        ExecutorService executor = Executors.newCachedThreadPool();
+        dao = new PromiseDao(Arrays.asList(new PromiseSource(dpsClient, Duration.ofMillis(200))),
+                             slowOmaClient,
+                             executor
+        );
+
+        try {
+            // WHEN
+            List<Promise> promises = dao.get(deliveredOrderItemId);
+
+            // THEN
+            assertEquals(1, promises.size());
+            assertNull(promises.get(0).getDeliveryDate());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Searches through the given Promises looking for a Promise from the provider indicated in promiseProvidedBy.
      *
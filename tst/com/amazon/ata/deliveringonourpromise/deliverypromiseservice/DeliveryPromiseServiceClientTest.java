@@ -7,6 +7,12 @@ import com.amazon.ata.deliveringonourpromise.types.Promise;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -105,4 +111,42 @@ public class DeliveryPromiseServiceClientTest {
         // THEN
         assertNotNull(promise.getAsin());
     }
+
+    @Test
+    public void getDeliveryPromisesByOrderItemIds_validAndNonexistentItemIds_returnsPromisesOfValidItems() {
+        // GIVEN
+        String nonexistentOrderItemId = "20";
+
+        // WHEN
+        Map<String, Promise> promises =
+            client.getDeliveryPromisesByOrderItemIds(Arrays.asList(orderItemId, nonexistentOrderItemId));
+
+        // THEN
+        assertEquals(1, promises.size());
+        assertEquals(client.getDeliveryPromiseByOrderItemId(orderItemId).toString(),
+                     promises.get(orderItemId).toString());
+    }
+
+    @Test
+    public void getDeliveryPromiseByOrderItemIdAsync_validOrderItemId_completesWithSamePromiseAsBlockingCall()
+        throws Exception {
+        // GIVEN
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        client = new DeliveryPromiseServiceClient(App.getDeliveryPromiseService(), executor);
+
+        try {
+            // WHEN
+            CompletableFuture<Promise> promise = client.getDeliveryPromiseByOrderItemIdAsync(orderItemId);
+
+            // THEN
+            Promise expected = client.getDeliveryPromiseByOrderItemId(orderItemId);
+            Promise actual = promise.get();
+            assertNotNull(actual);
+            assertEquals(expected.getCustomerOrderItemId(), actual.getCustomerOrderItemId());
+            assertEquals(expected.getPromiseLatestArrivalDate(), actual.getPromiseLatestArrivalDate());
+            assertEquals(expected.getPromiseProvidedBy(), actual.getPromiseProvidedBy());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
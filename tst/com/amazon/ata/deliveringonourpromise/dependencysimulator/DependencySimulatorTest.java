@@ -0,0 +1,144 @@
+package com.amazon.ata.deliveringonourpromise.dependencysimulator;
+
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DependencySimulatorTest {
+
+    @Test
+    public void call_fixedLatency_waitsOutLatencyThenReturnsCallsResult() {
+        // GIVEN
+        DependencySimulator simulator = DependencySimulator.builder()
+                                            .withLatency(LatencyDistribution.fixed(Duration.ofMillis(50)))
+                                            .build();
+
+        // WHEN
+        long start = System.nanoTime();
+        String result = simulator.call(() -> "result");
+        long elapsed = System.nanoTime() - start;
+
+        // THEN
+        assertEquals("result", result);
+        assertTrue(elapsed >= Duration.ofMillis(50).toNanos(), "Call took only " + elapsed + "ns");
+    }
+
+    @Test
+    public void call_errorRateOne_throwsIllegalStateExceptionWithoutMakingCall() {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+        DependencySimulator simulator = DependencySimulator.builder()
+                                            .withName("OMA")
+                                            .withErrorRate(1)
+                                            .build();
+
+        // WHEN + THEN
+        assertThrows(IllegalStateException.class, () -> simulator.call(calls::incrementAndGet));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void call_timeoutRateOne_throwsUncheckedTimeoutExceptionAfterTimeout() {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+        DependencySimulator simulator = DependencySimulator.builder()
+                                            .withTimeoutRate(1)
+                                            .withTimeout(Duration.ofMillis(50))
+                                            .build();
+
+        // WHEN
+        long start = System.nanoTime();
+        assertThrows(UncheckedTimeoutException.class, () -> simulator.call(calls::incrementAndGet));
+        long elapsed = System.nanoTime() - start;
+
+        // THEN
+        assertEquals(0, calls.get());
+        assertTrue(elapsed >= Duration.ofMillis(50).toNanos(), "Timed out after only " + elapsed + "ns");
+    }
+
+    @Test
+    public void call_maxConcurrentCallsReached_queuesFurtherCalls() throws Exception {
+        // GIVEN - a dependency serving two calls at once, called from eight threads
+        DependencySimulator simulator = DependencySimulator.builder()
+                                            .withLatency(LatencyDistribution.fixed(Duration.ofMillis(10)))
+                                            .withMaxConcurrentCalls(2)
+                                            .build();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger mostInFlight = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // WHEN
+            List<Future<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                calls.add(executor.submit(() -> simulator.call(() -> {
+                    mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    inFlight.decrementAndGet();
+                    return 1;
+                })));
+            }
+            int completed = 0;
+            for (Future<Integer> call : calls) {
+                completed += call.get();
+            }
+
+            // THEN
+            assertEquals(16, completed);
+            assertTrue(mostInFlight.get() <= 2, mostInFlight.get() + " calls were in flight at once");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sampleNanos_bimodal_drawsTailAboutAsOftenAsTailProbability() {
+        // GIVEN
+        LatencyDistribution latency = LatencyDistribution.bimodal(LatencyDistribution.fixed(Duration.ofMillis(1)),
+                                                                  LatencyDistribution.fixed(Duration.ofMillis(100)),
+                                                                  0.1);
+        Random random = new Random(42);
+
+        // WHEN
+        int tailCalls = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (latency.sampleNanos(random) == Duration.ofMillis(100).toNanos()) {
+                tailCalls++;
+            }
+        }
+
+        // THEN
+        assertTrue(tailCalls > 800 && tailCalls < 1200, tailCalls + " of 10000 calls were in the tail");
+    }
+
+    @Test
+    public void sampleNanos_logNormal_hasGivenMedian() {
+        // GIVEN
+        LatencyDistribution latency = LatencyDistribution.logNormal(Duration.ofMillis(20), 0.5);
+        Random random = new Random(42);
+
+        // WHEN
+        long[] samples = new long[10_001];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = latency.sampleNanos(random);
+        }
+        Arrays.sort(samples);
+
+        // THEN
+        long median = samples[samples.length / 2];
+        assertTrue(Math.abs(median - Duration.ofMillis(20).toNanos()) < Duration.ofMillis(1).toNanos(),
+                   "Median was " + median + "ns");
+    }
+}
@@ -0,0 +1,91 @@
+package com.amazon.ata.deliveringonourpromise.orderfulfillmentservice;
+
+import com.amazon.ata.deliveringonourpromise.App;
+import com.amazon.ata.deliveringonourpromise.data.OrderDatastore;
+import com.amazon.ata.deliveringonourpromise.promiseclient.AsyncPromiseClient;
+import com.amazon.ata.deliveringonourpromise.types.Promise;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class OrderFulfillmentServiceClientTest {
+    private OrderFulfillmentServiceClient client;
+    private String orderItemId;
+
+    @BeforeEach
+    private void setup() {
+        // not mocking: use an actual client calling actual service
+        client = App.getOrderFulfillmentServiceClient();
+        String orderId = "900-3746401-0000002";
+        orderItemId = OrderDatastore.getDatastore()
+                                     .getOrderData(orderId)
+                                     .getCustomerOrderItemList()
+                                     .get(0)
+                                     .getCustomerOrderItemId();
+    }
+
+    @Test
+    public void getPromiseByOrderItemId_nonexistentOrderItemId_returnsNull() {
+        // GIVEN - an invalid/missing order item ID
+        orderItemId = "20";
+
+        // WHEN
+        Promise promise = client.getPromiseByOrderItemId(orderItemId);
+
+        // THEN
+        assertNull(promise);
+    }
+
+    @Test
+    public void getPromiseByOrderItemId_validItemId_hasCorrectOrderItemId() {
+        // WHEN
+        Promise promise = client.getPromiseByOrderItemId(orderItemId);
+
+        // THEN
+        assertEquals(orderItemId, promise.getCustomerOrderItemId());
+    }
+
+    @Test
+    public void getPromiseByOrderItemId_validItemId_isProvidedByOfs() {
+        // WHEN
+        Promise promise = client.getPromiseByOrderItemId(orderItemId);
+
+        // THEN
+        assertEquals("OFS", promise.getPromiseProvidedBy());
+    }
+
+    @Test
+    public void getPromiseByOrderItemId_validItemId_setsDates() {
+        // WHEN
+        Promise promise = client.getPromiseByOrderItemId(orderItemId);
+
+        // THEN
+        assertNotNull(promise.getPromiseLatestArrivalDate());
+        assertNotNull(promise.getPromiseLatestShipDate());
+        assertNotNull(promise.getPromiseEffectiveDate());
+    }
+
+    @Test
+    public void getPromiseByOrderItemIdAsync_validOrderItemId_completesWithSamePromiseAsBlockingCall()
+        throws Exception {
+        // GIVEN
+        AsyncPromiseClient asyncClient = new AsyncPromiseClient(client, App.getPromiseLookupExecutor());
+
+        // WHEN
+        CompletableFuture<Promise> promise = asyncClient.getPromiseByOrderItemIdAsync(orderItemId);
+
+        // THEN
+        Promise expected = client.getPromiseByOrderItemId(orderItemId);
+        Promise actual = promise.get();
+        assertNotNull(actual);
+        assertEquals(expected.getCustomerOrderItemId(), actual.getCustomerOrderItemId());
+        assertEquals(expected.getPromiseLatestArrivalDate(), actual.getPromiseLatestArrivalDate());
+        assertEquals(expected.getPromiseProvidedBy(), actual.getPromiseProvidedBy());
+    }
+}
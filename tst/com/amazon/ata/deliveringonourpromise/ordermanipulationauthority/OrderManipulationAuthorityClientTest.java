@@ -7,10 +7,22 @@ import com.amazon.ata.ordermanipulationauthority.OrderResultItem;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -83,4 +95,98 @@ public class OrderManipulationAuthorityClientTest {
         assertNull(result);
     }
 
+    @Test
+    public void getDeliveryDateByOrderItemId_validOrderItemId_returnsDeliveryDateFromService() {
+        // GIVEN
+        ZonedDateTime deliveryDate = ZonedDateTime.now();
+        when(mockOrderManipulationAuthority.getDeliveryDateByOrderItemId(orderItemId)).thenReturn(deliveryDate);
+
+        // WHEN
+        ZonedDateTime result = client.getDeliveryDateByOrderItemId(orderItemId);
+
+        // THEN
+        assertEquals(deliveryDate, result);
+    }
+
+    @Test
+    public void getCustomerOrdersByOrderIds_validOrderIds_returnsOrderResultsFromService() {
+        // GIVEN
+        List<String> orderIds = Arrays.asList(orderId, invalidOrderId);
+        Map<String, OrderResult> serviceResults = Collections.singletonMap(orderId, orderResult);
+        when(mockOrderManipulationAuthority.getCustomerOrdersByOrderIds(orderIds)).thenReturn(serviceResults);
+
+        // WHEN
+        Map<String, OrderResult> results = client.getCustomerOrdersByOrderIds(orderIds);
+
+        // THEN
+        assertEquals(serviceResults, results);
+    }
+
+    @Test
+    public void getCustomerOrderItemsByOrderItemIds_validOrderItemIds_returnsOrderResultItemsFromService() {
+        // GIVEN
+        List<String> orderItemIds = Arrays.asList(orderItemId, invalidOrderItemId);
+        Map<String, OrderResultItem> serviceResults = Collections.singletonMap(orderItemId, orderResultItem);
+        when(mockOrderManipulationAuthority.getCustomerOrderItemsByOrderItemIds(orderItemIds))
+            .thenReturn(serviceResults);
+
+        // WHEN
+        Map<String, OrderResultItem> results = client.getCustomerOrderItemsByOrderItemIds(orderItemIds);
+
+        // THEN
+        assertEquals(serviceResults, results);
+    }
+
+    @Test
+    public void getCustomerOrderByOrderIdAsync_validOrderId_completesWithOrderResultOnGivenExecutor()
+        throws Exception {
+        // GIVEN - an executor that holds the calls it's given until they're run
+        List<Runnable> heldCalls = new ArrayList<>();
+        Executor executor = heldCalls::add;
+        client = new OrderManipulationAuthorityClient(mockOrderManipulationAuthority, executor);
+
+        // WHEN
+        CompletableFuture<OrderResult> result = client.getCustomerOrderByOrderIdAsync(orderId);
+
+        // THEN - nothing happens until the executor runs the call
+        assertFalse(result.isDone());
+        assertEquals(1, heldCalls.size());
+        heldCalls.get(0).run();
+        assertEquals(orderResult, result.get());
+    }
+
+    @Test
+    public void getDeliveryDateByOrderItemIdAsync_validOrderItemId_completesWithDeliveryDateFromService()
+        throws Exception {
+        // GIVEN
+        ZonedDateTime deliveryDate = ZonedDateTime.now();
+        when(mockOrderManipulationAuthority.getDeliveryDateByOrderItemId(orderItemId)).thenReturn(deliveryDate);
+        AtomicInteger calls = new AtomicInteger();
+        client = new OrderManipulationAuthorityClient(mockOrderManipulationAuthority, call -> {
+            calls.incrementAndGet();
+            call.run();
+        });
+
+        // WHEN
+        CompletableFuture<ZonedDateTime> result = client.getDeliveryDateByOrderItemIdAsync(orderItemId);
+
+        // THEN
+        assertEquals(deliveryDate, result.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void getCustomerOrderByOrderIdAsync_serviceThrows_completesExceptionally() {
+        // GIVEN
+        IllegalStateException failure = new IllegalStateException("OMA is down");
+        when(mockOrderManipulationAuthority.getCustomerOrderByOrderId(orderId)).thenThrow(failure);
+
+        // WHEN
+        CompletableFuture<OrderResult> result = client.getCustomerOrderByOrderIdAsync(orderId);
+
+        // THEN
+        assertTrue(result.isCompletedExceptionally());
+        ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertEquals(failure, thrown.getCause());
+    }
 }
@@ -0,0 +1,129 @@
+package com.amazon.ata.deliveringonourpromise.promisehistoryservice;
+
+import com.amazon.ata.deliveringonourpromise.activity.GetPromiseHistoryByOrderIdActivity;
+import com.amazon.ata.deliveringonourpromise.dao.NegativeLookupCache;
+import com.amazon.ata.deliveringonourpromise.types.Order;
+import com.amazon.ata.deliveringonourpromise.types.PromiseHistory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PromiseHistoryClientTest {
+    private static final String MISSING_ORDER_ID = "900-3746402-0000001";
+    private static final String ORDER_ID = "111-7497023-2960776";
+
+    private GetPromiseHistoryByOrderIdActivity activity;
+    private NegativeLookupCache<String> missingOrderIds;
+    private PromiseHistoryClient client;
+
+    @BeforeEach
+    private void setup() {
+        activity = mock(GetPromiseHistoryByOrderIdActivity.class);
+        when(activity.getPromiseHistoryByOrderId(MISSING_ORDER_ID)).thenReturn(new PromiseHistory(null));
+        when(activity.getPromiseHistoryByOrderId(ORDER_ID))
+            .thenReturn(new PromiseHistory(Order.builder().withOrderId(ORDER_ID).build()));
+        missingOrderIds = new NegativeLookupCache<>(10, Duration.ofMinutes(1));
+        client = new PromiseHistoryClient(activity, missingOrderIds);
+    }
+
+    @Test
+    public void getPromiseHistoryByOrderId_repeatedMissingOrder_callsActivityOnce() {
+        // WHEN
+        client.getPromiseHistoryByOrderId(MISSING_ORDER_ID);
+        PromiseHistory history = client.getPromiseHistoryByOrderId(MISSING_ORDER_ID);
+
+        // THEN
+        assertNull(history.getOrder());
+        verify(activity, times(1)).getPromiseHistoryByOrderId(MISSING_ORDER_ID);
+    }
+
+    @Test
+    public void getPromiseHistoryByOrderId_repeatedExistingOrder_callsActivityEachTime() {
+        // WHEN
+        client.getPromiseHistoryByOrderId(ORDER_ID);
+        PromiseHistory history = client.getPromiseHistoryByOrderId(ORDER_ID);
+
+        // THEN
+        assertNotNull(history.getOrder());
+        verify(activity, times(2)).getPromiseHistoryByOrderId(ORDER_ID);
+    }
+
+    @Test
+    public void getPromiseHistoryByOrderId_afterMissingOrderIdInvalidated_callsActivityAgain() {
+        // GIVEN
+        client.getPromiseHistoryByOrderId(MISSING_ORDER_ID);
+
+        // WHEN
+        missingOrderIds.invalidate(MISSING_ORDER_ID);
+        client.getPromiseHistoryByOrderId(MISSING_ORDER_ID);
+
+        // THEN
+        verify(activity, times(2)).getPromiseHistoryByOrderId(MISSING_ORDER_ID);
+    }
+
+    @Test
+    public void getPromiseHistoryByOrderId_concurrentRequestsThroughClientsSharingRequests_callActivityOnce()
+        throws InterruptedException {
+        // GIVEN - two clients sharing their in-flight requests, and a lookup that waits until both are waiting
+        CountDownLatch release = new CountDownLatch(1);
+        when(activity.getPromiseHistoryByOrderId(ORDER_ID)).thenAnswer(invocation -> {
+            release.await();
+            return new PromiseHistory(Order.builder().withOrderId(ORDER_ID).build());
+        });
+        SingleFlight<String, PromiseHistory> inFlightRequests = new SingleFlight<>();
+        PromiseHistoryClient first = new PromiseHistoryClient(activity, missingOrderIds, inFlightRequests);
+        PromiseHistoryClient second = new PromiseHistoryClient(activity, missingOrderIds, inFlightRequests);
+        AtomicReference<PromiseHistory> firstHistory = new AtomicReference<>();
+        AtomicReference<PromiseHistory> secondHistory = new AtomicReference<>();
+        Thread firstCaller = new Thread(() -> firstHistory.set(first.getPromiseHistoryByOrderId(ORDER_ID)));
+        Thread secondCaller = new Thread(() -> secondHistory.set(second.getPromiseHistoryByOrderId(ORDER_ID)));
+
+        // WHEN
+        firstCaller.start();
+        awaitBlocked(firstCaller);
+        secondCaller.start();
+        awaitBlocked(secondCaller);
+        release.countDown();
+        firstCaller.join();
+        secondCaller.join();
+
+        // THEN
+        verify(activity, times(1)).getPromiseHistoryByOrderId(ORDER_ID);
+        assertNotNull(firstHistory.get().getOrder());
+        assertNotSame(firstHistory.get(), secondHistory.get());
+    }
+
+    @Test
+    public void getPromiseHistoryByOrderId_orderIdInvalidatedDuringLookup_callsActivityAgain() {
+        // GIVEN - the order is added, invalidating its ID, while the lookup that misses it is running
+        when(activity.getPromiseHistoryByOrderId(MISSING_ORDER_ID)).thenAnswer(invocation -> {
+            missingOrderIds.invalidate(MISSING_ORDER_ID);
+            return new PromiseHistory(null);
+        });
+        client.getPromiseHistoryByOrderId(MISSING_ORDER_ID);
+
+        // WHEN
+        client.getPromiseHistoryByOrderId(MISSING_ORDER_ID);
+
+        // THEN
+        verify(activity, times(2)).getPromiseHistoryByOrderId(MISSING_ORDER_ID);
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.amazon.ata.deliveringonourpromise.promisehistoryservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTest {
+    private SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+
+    @Test
+    public void execute_concurrentCallsForSameKey_computeOnceAndShareResult() throws InterruptedException {
+        // GIVEN - a computation that doesn't finish until every caller is waiting on it
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        Object result = new Object();
+        Function<String, Object> computation = key -> {
+            computations.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        };
+
+        List<Object> results = new ArrayList<>();
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            callers.add(new Thread(() -> {
+                Object value = singleFlight.execute("111-7497023-2960776", computation);
+                synchronized (results) {
+                    results.add(value);
+                }
+            }));
+        }
+
+        // WHEN
+        for (Thread caller : callers) {
+            caller.start();
+        }
+        awaitAllBlocked(callers);
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        // THEN
+        assertEquals(1, computations.get());
+        assertEquals(8, results.size());
+        for (Object value : results) {
+            assertSame(result, value);
+        }
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    public void execute_sequentialCallsForSameKey_computeEachTime() {
+        // GIVEN
+        AtomicInteger computations = new AtomicInteger();
+
+        // WHEN
+        singleFlight.execute("key", key -> computations.incrementAndGet());
+        singleFlight.execute("key", key -> computations.incrementAndGet());
+
+        // THEN
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    public void execute_computationThrows_rethrowsAndForgetsKey() {
+        // WHEN + THEN
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", key -> {
+            throw new IllegalStateException("dependency down");
+        }));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    private static void awaitAllBlocked(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+        }
+    }
+}